@@ -0,0 +1,136 @@
+package se.ivankrizsan.restexample.benchmarks;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.*;
+import se.ivankrizsan.restexample.domain.Circle;
+import se.ivankrizsan.restexample.domain.Drawing;
+import se.ivankrizsan.restexample.domain.Rectangle;
+import se.ivankrizsan.restexample.domain.Shape;
+
+import java.awt.*;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding and decoding of drawings in the different representation formats
+ * supported by the application.
+ * The object mappers of all formats have the Blackbird module registered, as in the application,
+ * except for the json-plain format which is JSON without Blackbird, showing the effect of the module.
+ * The size in bytes of one encoded drawing is reported as the encodedBytes secondary result.
+ *
+ * @author Ivan Krizsan
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class DrawingSerializationBenchmark {
+    /* Constant(s): */
+    /** Format that is JSON without the Blackbird module, for comparison. */
+    protected static final String PLAIN_JSON_FORMAT = "json-plain";
+
+    /* Instance variable(s): */
+    @Param({"json", PLAIN_JSON_FORMAT, "smile", "cbor"})
+    protected String mFormat;
+    @Param({"100", "5000"})
+    protected int mShapeCount;
+    protected ObjectWriter mWriter;
+    protected ObjectReader mReader;
+    protected Drawing mDrawing;
+    protected byte[] mEncodedDrawing;
+
+    /**
+     * Creates the object mapper for the format being benchmarked and
+     * a drawing with the requested number of shapes.
+     *
+     * @throws Exception If error occurs encoding the drawing.
+     */
+    @Setup
+    public void setUp() throws Exception {
+        final JsonFactory theJsonFactory = switch (mFormat) {
+            case "smile" -> new SmileFactory();
+            case "cbor" -> new CBORFactory();
+            default -> new JsonFactory();
+        };
+        final ObjectMapper theObjectMapper = new ObjectMapper(theJsonFactory);
+        if (!PLAIN_JSON_FORMAT.equals(mFormat)) {
+            theObjectMapper.registerModule(new BlackbirdModule());
+        }
+        mWriter = theObjectMapper.writerFor(Drawing.class);
+        mReader = theObjectMapper.readerFor(Drawing.class);
+
+        mDrawing = new Drawing();
+        mDrawing.setId(1L);
+        mDrawing.setName("Benchmark drawing");
+        mDrawing.setCreationDate(new Date());
+        for (int i = 0; i < mShapeCount; i++) {
+            final Shape theShape = (i % 2 == 0)
+                ? new Circle(i % 100)
+                : new Rectangle(i % 50, i % 70);
+            /* Shapes without ids are considered equal, thus ids must be set. */
+            theShape.setId((long) i);
+            theShape.setColour((i % 3 == 0) ? "red" : "blue");
+            theShape.setPosition(new Point(i, i * 2));
+            mDrawing.addShape(theShape);
+        }
+        mEncodedDrawing = mWriter.writeValueAsBytes(mDrawing);
+    }
+
+    /**
+     * Encodes the drawing to the format being benchmarked.
+     *
+     * @param inEncodedSize Reports the size of the encoded drawing.
+     * @return Encoded drawing.
+     * @throws Exception If error occurs encoding the drawing.
+     */
+    @Benchmark
+    public byte[] encode(final EncodedSize inEncodedSize) throws Exception {
+        return mWriter.writeValueAsBytes(mDrawing);
+    }
+
+    /**
+     * Decodes the drawing from the format being benchmarked.
+     *
+     * @param inEncodedSize Reports the size of the encoded drawing.
+     * @return Decoded drawing.
+     * @throws Exception If error occurs decoding the drawing.
+     */
+    @Benchmark
+    public Drawing decode(final EncodedSize inEncodedSize) throws Exception {
+        return mReader.readValue(mEncodedDrawing);
+    }
+
+    /**
+     * Reports the size in bytes of the encoded drawing as a secondary result of the benchmarks.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        /* Instance variable(s): */
+        protected long mEncodedBytes;
+
+        /**
+         * Retrieves the size of the encoded drawing of the supplied benchmark before each iteration.
+         *
+         * @param inBenchmark Benchmark state holding the encoded drawing.
+         */
+        @Setup(Level.Iteration)
+        public void setUp(final DrawingSerializationBenchmark inBenchmark) {
+            mEncodedBytes = inBenchmark.mEncodedDrawing.length;
+        }
+
+        /**
+         * Retrieves the size of the encoded drawing.
+         *
+         * @return Size in bytes.
+         */
+        public long encodedBytes() {
+            return mEncodedBytes;
+        }
+    }
+}
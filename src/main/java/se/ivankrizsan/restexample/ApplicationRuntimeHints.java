@@ -0,0 +1,133 @@
+package se.ivankrizsan.restexample;
+
+import com.github.luben.zstd.Zstd;
+import io.micrometer.observation.annotation.Observed;
+import io.micrometer.observation.aop.ObservedAspect;
+import io.micrometer.tracing.annotation.ContinueSpan;
+import io.micrometer.tracing.annotation.DefaultNewSpanParser;
+import io.micrometer.tracing.annotation.ImperativeMethodInvocationProcessor;
+import io.micrometer.tracing.annotation.NewSpan;
+import io.micrometer.tracing.annotation.SpanAspect;
+import io.micrometer.tracing.annotation.SpanTag;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import se.ivankrizsan.restexample.domain.Circle;
+import se.ivankrizsan.restexample.domain.Drawing;
+import se.ivankrizsan.restexample.domain.DrawingVersion;
+import se.ivankrizsan.restexample.domain.ImportJob;
+import se.ivankrizsan.restexample.domain.LongIdEntity;
+import se.ivankrizsan.restexample.domain.OutboxMessage;
+import se.ivankrizsan.restexample.domain.Rectangle;
+import se.ivankrizsan.restexample.domain.Shape;
+import se.ivankrizsan.restexample.repositories.CircleRepository;
+import se.ivankrizsan.restexample.repositories.DrawingRepository;
+import se.ivankrizsan.restexample.repositories.RectangleRepository;
+import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisations;
+import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisationsImpl;
+import se.ivankrizsan.restexample.restadapter.BatchOperation;
+import se.ivankrizsan.restexample.restadapter.ChangeFeedEvent;
+import se.ivankrizsan.restexample.restadapter.MissingEntity;
+import se.ivankrizsan.restexample.services.DrawingPatchOperation;
+import se.ivankrizsan.restexample.services.EntityChangeEvent;
+import se.ivankrizsan.restexample.services.jobs.AsyncJob;
+
+import java.awt.Point;
+import java.util.List;
+
+/**
+ * Reachability metadata required to run the application as a GraalVM native executable,
+ * in addition to the metadata generated by Spring AOT processing.
+ * Spring AOT cannot determine the entity types exchanged by the generic REST resources,
+ * the shape subtypes that Jackson resolves from type names, the members used by the
+ * tracing aspects or the native library of the zstd compression.
+ *
+ * @author Ivan Krizsan
+ */
+public class ApplicationRuntimeHints implements RuntimeHintsRegistrar {
+    /* Constant(s): */
+    /** Types serialized to and deserialized from representations exchanged with clients or sinks. */
+    protected static final List<Class<?>> BINDING_TYPES = List.of(
+        LongIdEntity.class, Shape.class, Circle.class, Rectangle.class, Drawing.class, OutboxMessage.class,
+        Point.class, DrawingPatchOperation.class, ChangeFeedEvent.class, EntityChangeEvent.class, MissingEntity.class,
+        ImportJob.Status.class, AsyncJob.class, AsyncJob.Status.class, BatchOperation.class, DrawingVersion.class);
+    /** Repository interfaces which proxies are advised by the tracing aspects. */
+    protected static final List<Class<?>> OBSERVED_REPOSITORY_TYPES = List.of(
+        CircleRepository.class, RectangleRepository.class, DrawingRepository.class);
+    /** Patterns of the zstd-jni native libraries for the platforms supported by the library. */
+    protected static final List<String> ZSTD_NATIVE_LIBRARY_PATTERNS = List.of(
+        "linux/*/libzstd-jni-*.so", "darwin/*/libzstd-jni-*.dylib", "win/*/libzstd-jni-*.dll");
+
+    @Override
+    public void registerHints(final RuntimeHints inHints, final ClassLoader inClassLoader) {
+        registerBindingHints(inHints);
+        registerRepositoryHints(inHints);
+        registerTracingHints(inHints);
+        registerCompressionHints(inHints);
+    }
+
+    /**
+     * Registers hints for Jackson serialization and deserialization of the binding types.
+     * The m-prefixed fields are registered in addition to the Lombok-generated accessors,
+     * since Jackson inspects the fields when collecting the properties of a type.
+     * Shape positions are persisted using Java serialization.
+     *
+     * @param inHints Hints to register with.
+     */
+    protected void registerBindingHints(final RuntimeHints inHints) {
+        final BindingReflectionHintsRegistrar theBindingRegistrar = new BindingReflectionHintsRegistrar();
+        theBindingRegistrar.registerReflectionHints(inHints.reflection(), BINDING_TYPES.toArray(new Class<?>[0]));
+        for (final Class<?> theBindingType : BINDING_TYPES) {
+            inHints.reflection().registerType(theBindingType, MemberCategory.DECLARED_FIELDS);
+        }
+        inHints.serialization().registerType(Point.class);
+    }
+
+    /**
+     * Registers hints for the repository base class, which is instantiated and invoked
+     * reflectively by Spring Data, and for the traced repository proxies.
+     *
+     * @param inHints Hints to register with.
+     */
+    protected void registerRepositoryHints(final RuntimeHints inHints) {
+        inHints.reflection().registerType(JpaRepositoryCustomisationsImpl.class,
+            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        inHints.reflection().registerType(JpaRepositoryCustomisations.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        for (final Class<?> theRepositoryType : OBSERVED_REPOSITORY_TYPES) {
+            inHints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(theRepositoryType));
+        }
+    }
+
+    /**
+     * Registers hints for the tracing aspects configured in {@link TracingConfiguration}, which
+     * advice methods are invoked reflectively and which read the annotations reflectively.
+     *
+     * @param inHints Hints to register with.
+     */
+    protected void registerTracingHints(final RuntimeHints inHints) {
+        for (final Class<?> theTracingType : List.of(ObservedAspect.class, SpanAspect.class,
+            DefaultNewSpanParser.class, ImperativeMethodInvocationProcessor.class)) {
+            inHints.reflection().registerType(theTracingType,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+        for (final Class<?> theAnnotationType : List.of(Observed.class, NewSpan.class, ContinueSpan.class,
+            SpanTag.class)) {
+            inHints.reflection().registerType(theAnnotationType, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+
+    /**
+     * Registers hints for the zstd-jni library, which extracts its native library from the
+     * class path and calls back into Java classes from native code.
+     *
+     * @param inHints Hints to register with.
+     */
+    protected void registerCompressionHints(final RuntimeHints inHints) {
+        for (final String thePattern : ZSTD_NATIVE_LIBRARY_PATTERNS) {
+            inHints.resources().registerPattern(thePattern);
+        }
+        inHints.jni().registerType(Zstd.class, MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_METHODS);
+    }
+}
@@ -0,0 +1,49 @@
+package se.ivankrizsan.restexample;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import se.ivankrizsan.restexample.restadapter.CompressionFilter;
+import se.ivankrizsan.restexample.restadapter.EntityChangeFeed;
+
+import java.util.List;
+
+/**
+ * Configuration related to compression of response bodies.
+ *
+ * @author Ivan Krizsan
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "restexample.compression.enabled", havingValue = "true", matchIfMissing = true)
+public class CompressionConfiguration {
+    /**
+     * Registers the filter that adds ETags to and compresses response bodies.
+     *
+     * @param inMinResponseSize Minimum size in bytes of response bodies to compress.
+     * @param inMimeTypes Media types of response bodies to compress.
+     * @param inCacheMaxEntries Maximum number of responses to cache.
+     * @param inMeterRegistry Registry in which to register compression metrics.
+     * @param inHandlerMapping Handler mapping of the request handler methods of the REST resources.
+     * @param inEntityChangeFeed Feed of entity changes which sequence number identifies versioned responses.
+     * @return Compression filter registration.
+     */
+    @Bean
+    FilterRegistrationBean<CompressionFilter> compressionFilter(
+        @Value("${restexample.compression.min-response-size:2048}") final int inMinResponseSize,
+        @Value("${restexample.compression.mime-types:application/json}") final List<String> inMimeTypes,
+        @Value("${restexample.compression.cache-max-entries:256}") final int inCacheMaxEntries,
+        final MeterRegistry inMeterRegistry,
+        @Qualifier("requestMappingHandlerMapping") final RequestMappingHandlerMapping inHandlerMapping,
+        final EntityChangeFeed inEntityChangeFeed) {
+        final CompressionFilter theCompressionFilter = new CompressionFilter(inMinResponseSize,
+            MediaType.parseMediaTypes(inMimeTypes), inCacheMaxEntries, inMeterRegistry, inHandlerMapping,
+            inEntityChangeFeed::latestSequence);
+        return new FilterRegistrationBean<>(theCompressionFilter);
+    }
+}
@@ -0,0 +1,64 @@
+package se.ivankrizsan.restexample;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import se.ivankrizsan.restexample.restadapter.AdaptiveConcurrencyLimit;
+import se.ivankrizsan.restexample.restadapter.ConcurrencyLimitFilter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration related to limiting the number of requests processed concurrently.
+ *
+ * @author Ivan Krizsan
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "restexample.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfiguration {
+    /* Constant(s): */
+    /** Concurrency limiting is to be applied before any other processing of requests. */
+    public static final int FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
+
+    /**
+     * Registers the filter that limits the number of requests processed concurrently.
+     *
+     * @param inInitialLimit Initial limit of cheap endpoint groups.
+     * @param inMaxLimit Maximum limit of cheap endpoint groups.
+     * @param inExpensiveInitialLimit Initial limit of expensive endpoint groups.
+     * @param inExpensiveMaxLimit Maximum limit of expensive endpoint groups.
+     * @param inMinLimit Minimum limit of all endpoint groups.
+     * @param inLatencyThreshold Requests taking longer than this number of milliseconds decrease the limit.
+     * @param inBackoffRatio Factor by which limits are multiplied when decreased.
+     * @param inRetryAfterSeconds Number of seconds after which rejected clients may retry.
+     * @param inMeterRegistry Registry in which to register concurrency limit metrics.
+     * @return Concurrency limit filter registration.
+     */
+    @Bean
+    FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+        @Value("${restexample.concurrency.initial-limit:20}") final int inInitialLimit,
+        @Value("${restexample.concurrency.max-limit:200}") final int inMaxLimit,
+        @Value("${restexample.concurrency.expensive-initial-limit:4}") final int inExpensiveInitialLimit,
+        @Value("${restexample.concurrency.expensive-max-limit:20}") final int inExpensiveMaxLimit,
+        @Value("${restexample.concurrency.min-limit:1}") final int inMinLimit,
+        @Value("${restexample.concurrency.latency-threshold:500}") final long inLatencyThreshold,
+        @Value("${restexample.concurrency.backoff-ratio:0.9}") final double inBackoffRatio,
+        @Value("${restexample.concurrency.retry-after:1}") final long inRetryAfterSeconds,
+        final MeterRegistry inMeterRegistry) {
+        final long theLatencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(inLatencyThreshold);
+        final ConcurrencyLimitFilter theFilter = new ConcurrencyLimitFilter(
+            () -> new AdaptiveConcurrencyLimit(
+                inInitialLimit, inMinLimit, inMaxLimit, theLatencyThresholdNanos, inBackoffRatio),
+            () -> new AdaptiveConcurrencyLimit(
+                inExpensiveInitialLimit, inMinLimit, inExpensiveMaxLimit, theLatencyThresholdNanos, inBackoffRatio),
+            inRetryAfterSeconds,
+            inMeterRegistry);
+        final FilterRegistrationBean<ConcurrencyLimitFilter> theRegistration = new FilterRegistrationBean<>(theFilter);
+        theRegistration.setOrder(FILTER_ORDER);
+        return theRegistration;
+    }
+}
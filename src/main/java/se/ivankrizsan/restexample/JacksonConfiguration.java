@@ -0,0 +1,105 @@
+package se.ivankrizsan.restexample;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NativeDetector;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Configuration related to serialization of entities to and from representations
+ * exchanged with clients.
+ * In addition to JSON, the binary Smile and CBOR formats are supported. The format used
+ * is selected by the client using the Accept and Content-Type headers.
+ *
+ * @author Ivan Krizsan
+ */
+@Configuration(proxyBeanMethods = false)
+public class JacksonConfiguration {
+    /* Constant(s): */
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final String APPLICATION_CBOR_VALUE = "application/cbor";
+    protected static final String BLACKBIRD_REPLACEMENT_MODULE_NAME = "BlackbirdReplacement";
+
+    /**
+     * Jackson module that replaces reflection-based property access with
+     * accessors generated using lambda metafactory.
+     * Spring Boot registers all Jackson module beans with the object mappers it creates.
+     * Classes cannot be generated at runtime in a native executable, in which an empty
+     * module is used instead.
+     *
+     * @return Blackbird Jackson module, or empty module if running as native executable.
+     */
+    @Bean
+    Module blackbirdModule() {
+        return NativeDetector.inNativeImage() ? new SimpleModule(BLACKBIRD_REPLACEMENT_MODULE_NAME)
+            : new BlackbirdModule();
+    }
+
+    /**
+     * Customizer that tunes the object mappers created by Spring Boot.
+     *
+     * @return Object mapper builder customizer.
+     */
+    @Bean
+    Jackson2ObjectMapperBuilderCustomizer tunedObjectMapperCustomizer() {
+        return inBuilder -> inBuilder
+            /* Pretty-printing only adds bytes to the representations. */
+            .featuresToDisable(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * HTTP message converter that reads and writes the Smile binary JSON format.
+     * The object mapper builder bean is a prototype and thus each injection receives
+     * a new builder configured with the same modules and customizations as the JSON
+     * object mapper, including the shape type information.
+     * Smile is a binary format, so a charset parameter of the content type, which some
+     * clients add to all request content types, is ignored and the request body is always
+     * read as bytes.
+     *
+     * @param inObjectMapperBuilder Object mapper builder configured by Spring Boot.
+     * @return Smile HTTP message converter.
+     */
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+        final Jackson2ObjectMapperBuilder inObjectMapperBuilder) {
+        return new MappingJackson2SmileHttpMessageConverter(
+            inObjectMapperBuilder.factory(new SmileFactory()).build()) {
+            @Override
+            protected Charset getCharset(final MediaType inContentType) {
+                return StandardCharsets.UTF_8;
+            }
+        };
+    }
+
+    /**
+     * HTTP message converter that reads and writes the CBOR binary format.
+     * As with Smile, a charset parameter of the content type is ignored.
+     *
+     * @param inObjectMapperBuilder Object mapper builder configured by Spring Boot.
+     * @return CBOR HTTP message converter.
+     */
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+        final Jackson2ObjectMapperBuilder inObjectMapperBuilder) {
+        return new MappingJackson2CborHttpMessageConverter(
+            inObjectMapperBuilder.factory(new CBORFactory()).build()) {
+            @Override
+            protected Charset getCharset(final MediaType inContentType) {
+                return StandardCharsets.UTF_8;
+            }
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package se.ivankrizsan.restexample;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Configuration related to lazy initialization of beans, which is enabled in the
+ * fast-startup profile in order to shorten the time until the application serves requests.
+ *
+ * @author Ivan Krizsan
+ */
+@Configuration(proxyBeanMethods = false)
+public class LazyInitializationConfiguration {
+    /**
+     * Excludes beans that must be created at startup from lazy initialization.
+     * Scheduled methods of lazily initialized beans would not be scheduled until the bean
+     * is first used and bootstrapping Hibernate would delay the response to the first request.
+     *
+     * @return Filter excluding the entity manager factory and beans with scheduled methods.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeansLazyInitializationExcludeFilter() {
+        return (inBeanName, inBeanDefinition, inBeanType) ->
+            EntityManagerFactory.class.isAssignableFrom(inBeanType) || hasScheduledMethods(inBeanType);
+    }
+
+    /**
+     * Determines whether the supplied bean type has one or more methods annotated with @Scheduled.
+     *
+     * @param inBeanType Bean type.
+     * @return True if bean type has scheduled methods, false otherwise.
+     */
+    protected static boolean hasScheduledMethods(final Class<?> inBeanType) {
+        return !MethodIntrospector.selectMethods(inBeanType, (ReflectionUtils.MethodFilter) inMethod ->
+            AnnotatedElementUtils.hasAnnotation(inMethod, Scheduled.class)).isEmpty();
+    }
+}
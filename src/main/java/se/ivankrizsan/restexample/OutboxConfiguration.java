@@ -0,0 +1,45 @@
+package se.ivankrizsan.restexample;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import se.ivankrizsan.restexample.services.outbox.FileOutboxSink;
+import se.ivankrizsan.restexample.services.outbox.InProcessOutboxSink;
+import se.ivankrizsan.restexample.services.outbox.OutboxSink;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration related to the transactional outbox.
+ *
+ * @author Ivan Krizsan
+ */
+@Configuration(proxyBeanMethods = false)
+public class OutboxConfiguration {
+    /* Constant(s): */
+    public static final String FILE_SINK_TYPE = "file";
+
+    /**
+     * Sink to which messages in the outbox are delivered.
+     * The type of sink is selected using the restexample.outbox.sink property, which
+     * may be "file" or "in-process".
+     *
+     * @param inSinkType Type of sink.
+     * @param inFilePath Path of file to which the file sink appends messages.
+     * @param inInProcessCapacity Number of messages kept by the in-process sink.
+     * @param inObjectMapper Object mapper used by the file sink.
+     * @return Outbox sink.
+     */
+    @Bean
+    OutboxSink outboxSink(
+        @Value("${restexample.outbox.sink:in-process}") final String inSinkType,
+        @Value("${restexample.outbox.file-sink-path:outbox.ndjson}") final String inFilePath,
+        @Value("${restexample.outbox.in-process-sink-capacity:10000}") final int inInProcessCapacity,
+        final ObjectMapper inObjectMapper) {
+        if (FILE_SINK_TYPE.equals(inSinkType)) {
+            return new FileOutboxSink(Path.of(inFilePath), inObjectMapper);
+        }
+        return new InProcessOutboxSink(inInProcessCapacity);
+    }
+}
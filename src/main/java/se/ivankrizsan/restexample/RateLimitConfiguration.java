@@ -0,0 +1,54 @@
+package se.ivankrizsan.restexample;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import se.ivankrizsan.restexample.restadapter.RateLimitFilter;
+import se.ivankrizsan.restexample.restadapter.TokenBucketStore;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration related to limiting the rate of write requests per client.
+ *
+ * @author Ivan Krizsan
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "restexample.ratelimit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfiguration {
+    /* Constant(s): */
+    /** Rate limiting is applied before concurrency limiting, so rejected requests do not use up concurrency. */
+    public static final int FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 5;
+
+    /**
+     * Registers the filter that limits the rate of write requests per client.
+     *
+     * @param inApiKeyCapacity Number of write requests allowed per API key and refill period.
+     * @param inIpCapacity Number of write requests allowed per IP address and refill period.
+     * @param inRefillPeriod Number of seconds in which an empty bucket is refilled.
+     * @param inIdleTimeout Number of seconds after which buckets of idle clients are evicted.
+     * @param inMeterRegistry Registry in which to register rate limit metrics.
+     * @return Rate limit filter registration.
+     */
+    @Bean
+    FilterRegistrationBean<RateLimitFilter> rateLimitFilter(
+        @Value("${restexample.ratelimit.api-key-capacity:100}") final long inApiKeyCapacity,
+        @Value("${restexample.ratelimit.ip-capacity:20}") final long inIpCapacity,
+        @Value("${restexample.ratelimit.refill-period:1}") final long inRefillPeriod,
+        @Value("${restexample.ratelimit.idle-timeout:300}") final long inIdleTimeout,
+        final MeterRegistry inMeterRegistry) {
+        final long theRefillPeriodNanos = TimeUnit.SECONDS.toNanos(inRefillPeriod);
+        final long theIdleTimeoutNanos = TimeUnit.SECONDS.toNanos(inIdleTimeout);
+        final RateLimitFilter theFilter = new RateLimitFilter(
+            new TokenBucketStore(inApiKeyCapacity, theRefillPeriodNanos, theIdleTimeoutNanos, System::nanoTime),
+            new TokenBucketStore(inIpCapacity, theRefillPeriodNanos, theIdleTimeoutNanos, System::nanoTime),
+            inMeterRegistry);
+        final FilterRegistrationBean<RateLimitFilter> theRegistration = new FilterRegistrationBean<>(theFilter);
+        theRegistration.setOrder(FILTER_ORDER);
+        return theRegistration;
+    }
+}
@@ -0,0 +1,113 @@
+package se.ivankrizsan.restexample;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import se.ivankrizsan.restexample.datasource.ReadYourWritesFilter;
+import se.ivankrizsan.restexample.datasource.ReplicaHealthMonitor;
+import se.ivankrizsan.restexample.datasource.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration routing read-only transactions to replica databases.
+ * The primary database is configured using the regular spring.datasource properties,
+ * the replicas using the JDBC URLs in the restexample.replica.urls property.
+ *
+ * @author Ivan Krizsan
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "restexample.replica.enabled", havingValue = "true")
+public class ReplicaRoutingConfiguration {
+    /* Constant(s): */
+    public static final String REPLICA_NAME_PREFIX = "replica-";
+    /** Hibernate must release connections after each transaction so that each transaction is routed. */
+    protected static final String CONNECTION_HANDLING_MODE = "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION";
+
+    /**
+     * Creates the primary and replica data sources and the monitor checking the health of replicas.
+     *
+     * @param inDataSourceProperties Properties of primary data source.
+     * @param inReplicaUrls JDBC URLs of replicas.
+     * @param inMaxLag Replicas lagging more than this number of milliseconds are not used.
+     * @param inMeterRegistry Registry in which to register replica metrics.
+     * @return Replica health monitor.
+     */
+    @Bean(destroyMethod = "close")
+    ReplicaHealthMonitor replicaHealthMonitor(final DataSourceProperties inDataSourceProperties,
+        @Value("${restexample.replica.urls}") final List<String> inReplicaUrls,
+        @Value("${restexample.replica.max-lag:1000}") final long inMaxLag,
+        final MeterRegistry inMeterRegistry) {
+        final DataSource thePrimaryDataSource = inDataSourceProperties
+            .initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .build();
+
+        final Map<String, DataSource> theReplicaDataSources = new LinkedHashMap<>();
+        for (int i = 0; i < inReplicaUrls.size(); i++) {
+            final HikariDataSource theReplicaDataSource = new HikariDataSource();
+            theReplicaDataSource.setPoolName(REPLICA_NAME_PREFIX + i);
+            theReplicaDataSource.setJdbcUrl(inReplicaUrls.get(i));
+            theReplicaDataSource.setUsername(inDataSourceProperties.determineUsername());
+            theReplicaDataSource.setPassword(inDataSourceProperties.determinePassword());
+            theReplicaDataSource.setReadOnly(true);
+            theReplicaDataSources.put(REPLICA_NAME_PREFIX + i, theReplicaDataSource);
+        }
+        return new ReplicaHealthMonitor(thePrimaryDataSource, theReplicaDataSources, inMaxLag, inMeterRegistry);
+    }
+
+    /**
+     * Data source used by the application, routing read-only transactions to replicas.
+     *
+     * @param inReplicaHealthMonitor Monitor holding primary and replica data sources.
+     * @param inMeterRegistry Registry in which to register routing metrics.
+     * @return Routing data source.
+     */
+    @Bean
+    @Primary
+    DataSource dataSource(final ReplicaHealthMonitor inReplicaHealthMonitor, final MeterRegistry inMeterRegistry) {
+        final ReplicaRoutingDataSource theRoutingDataSource = new ReplicaRoutingDataSource(
+            inReplicaHealthMonitor.getPrimaryDataSource(), inReplicaHealthMonitor.getReplicaDataSources(),
+            inReplicaHealthMonitor, inMeterRegistry);
+        theRoutingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(theRoutingDataSource);
+    }
+
+    /**
+     * Makes Hibernate obtain a new connection for each transaction.
+     *
+     * @return Hibernate properties customizer.
+     */
+    @Bean
+    HibernatePropertiesCustomizer connectionHandlingCustomizer() {
+        return inHibernateProperties ->
+            inHibernateProperties.put("hibernate.connection.handling_mode", CONNECTION_HANDLING_MODE);
+    }
+
+    /**
+     * Registers the filter routing reads of clients that recently wrote to the primary.
+     *
+     * @param inWindow Number of milliseconds after a write during which reads go to the primary.
+     * @return Read-your-writes filter registration.
+     */
+    @Bean
+    FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+        @Value("${restexample.replica.read-your-writes-window:5000}") final long inWindow) {
+        final FilterRegistrationBean<ReadYourWritesFilter> theRegistration =
+            new FilterRegistrationBean<>(new ReadYourWritesFilter(inWindow));
+        theRegistration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return theRegistration;
+    }
+}
@@ -3,8 +3,10 @@ package se.ivankrizsan.restexample;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisationsImpl;
 
 /**
@@ -15,6 +17,8 @@ import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustom
 @SpringBootApplication
 @EntityScan(basePackages = {"se.ivankrizsan.restexample.domain"})
 @EnableAsync
+@EnableScheduling
+@ImportRuntimeHints(ApplicationRuntimeHints.class)
 @EnableJpaRepositories(basePackages = {"se.ivankrizsan.restexample.repositories"},
     repositoryBaseClass = JpaRepositoryCustomisationsImpl.class)
 public class RestExampleApplication {
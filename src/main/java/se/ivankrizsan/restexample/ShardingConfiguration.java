@@ -0,0 +1,134 @@
+package se.ivankrizsan.restexample;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import se.ivankrizsan.restexample.sharding.ShardDataSources;
+import se.ivankrizsan.restexample.sharding.ShardManager;
+import se.ivankrizsan.restexample.sharding.ShardRebalancer;
+import se.ivankrizsan.restexample.sharding.ShardRoutingDataSource;
+import se.ivankrizsan.restexample.sharding.ShardSchemaIntegrator;
+import se.ivankrizsan.restexample.sharding.ShardsEndpoint;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration distributing entities over multiple databases, shards.
+ * The JDBC URLs of the shards are listed in the restexample.sharding.urls property, shard zero first.
+ * Sharding replaces the regular data source and thus cannot be combined with replica routing.
+ *
+ * @author Ivan Krizsan
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "restexample.sharding.enabled", havingValue = "true")
+public class ShardingConfiguration {
+    /* Constant(s): */
+    public static final String SHARD_POOL_NAME_PREFIX = "shard-";
+    /** Hibernate must release connections after each transaction so that each transaction is routed. */
+    protected static final String CONNECTION_HANDLING_MODE = "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION";
+
+    /**
+     * Data sources of the shards, in shard number order.
+     *
+     * @param inDataSourceProperties Data source properties supplying user name and password.
+     * @param inShardUrls JDBC URLs of shards.
+     * @return Shard data sources.
+     */
+    @Bean(destroyMethod = "close")
+    ShardDataSources shardDataSources(final DataSourceProperties inDataSourceProperties,
+        @Value("${restexample.sharding.urls}") final List<String> inShardUrls) {
+        final List<DataSource> theShardDataSources = new ArrayList<>();
+        for (int theShard = 0; theShard < inShardUrls.size(); theShard++) {
+            final HikariDataSource theShardDataSource = new HikariDataSource();
+            theShardDataSource.setPoolName(SHARD_POOL_NAME_PREFIX + theShard);
+            theShardDataSource.setJdbcUrl(inShardUrls.get(theShard));
+            theShardDataSource.setUsername(inDataSourceProperties.determineUsername());
+            theShardDataSource.setPassword(inDataSourceProperties.determinePassword());
+            theShardDataSources.add(theShardDataSource);
+        }
+        return new ShardDataSources(theShardDataSources);
+    }
+
+    /**
+     * Data source used by the application, routing connections to the shard selected by the current thread.
+     *
+     * @param inShardDataSources Shard data sources.
+     * @param inMeterRegistry Registry in which to register routing metrics.
+     * @return Routing data source.
+     */
+    @Bean
+    @Primary
+    DataSource dataSource(final ShardDataSources inShardDataSources, final MeterRegistry inMeterRegistry) {
+        final ShardRoutingDataSource theRoutingDataSource =
+            new ShardRoutingDataSource(inShardDataSources.dataSources(), inMeterRegistry);
+        theRoutingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(theRoutingDataSource);
+    }
+
+    /**
+     * Makes Hibernate obtain a new connection for each transaction, create the schema in all
+     * shards and retrieve each id from the sequence of the shard the entity is created in,
+     * rather than assigning ids from blocks cached in memory regardless of the current shard.
+     *
+     * @param inShardDataSources Shard data sources.
+     * @return Hibernate properties customizer.
+     */
+    @Bean
+    HibernatePropertiesCustomizer shardingHibernateCustomizer(final ShardDataSources inShardDataSources) {
+        final ShardSchemaIntegrator theIntegrator = new ShardSchemaIntegrator(inShardDataSources.dataSources());
+        return inHibernateProperties -> {
+            inHibernateProperties.put("hibernate.connection.handling_mode", CONNECTION_HANDLING_MODE);
+            inHibernateProperties.put("hibernate.id.optimizer.pooled.preferred", "none");
+            inHibernateProperties.put("hibernate.integrator_provider",
+                (IntegratorProvider) () -> List.of(theIntegrator));
+        };
+    }
+
+    /**
+     * Shard manager used by services to route operations to shards.
+     *
+     * @param inShardDataSources Shard data sources.
+     * @param inTransactionManager Transaction manager.
+     * @return Shard manager.
+     */
+    @Bean
+    ShardManager shardManager(final ShardDataSources inShardDataSources,
+        final PlatformTransactionManager inTransactionManager) {
+        return new ShardManager(inShardDataSources.size(), inShardDataSources.get(0), inTransactionManager);
+    }
+
+    /**
+     * Tool moving drawings between shards.
+     *
+     * @param inShardManager Shard manager.
+     * @param inEntityManager Shared entity manager.
+     * @return Shard rebalancer.
+     */
+    @Bean
+    ShardRebalancer shardRebalancer(final ShardManager inShardManager, final EntityManager inEntityManager) {
+        return new ShardRebalancer(inShardManager, inEntityManager);
+    }
+
+    /**
+     * Actuator endpoint exposing the shard rebalancer.
+     *
+     * @param inShardRebalancer Shard rebalancer.
+     * @return Shards endpoint.
+     */
+    @Bean
+    ShardsEndpoint shardsEndpoint(final ShardRebalancer inShardRebalancer) {
+        return new ShardsEndpoint(inShardRebalancer);
+    }
+}
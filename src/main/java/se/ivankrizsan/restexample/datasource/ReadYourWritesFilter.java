@@ -0,0 +1,93 @@
+package se.ivankrizsan.restexample.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Servlet filter implementing a read-your-writes window per client session.
+ * A write request, that is a request that is not a GET, HEAD or OPTIONS request, sets a cookie
+ * holding the time until which reads of the client are to be routed to the primary database.
+ * While the window is open, and during write requests, the current thread is marked as
+ * requiring the primary, which is honoured by {@link ReplicaRoutingDataSource}.
+ *
+ * @author Ivan Krizsan
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    /* Constant(s): */
+    public static final String PRIMARY_UNTIL_COOKIE = "primary-until";
+    protected static final ThreadLocal<Boolean> PRIMARY_REQUIRED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    /* Instance variable(s): */
+    protected final long mWindowMillis;
+
+    /**
+     * Creates a read-your-writes filter.
+     *
+     * @param inWindowMillis Number of milliseconds after a write during which reads go to the primary.
+     */
+    public ReadYourWritesFilter(final long inWindowMillis) {
+        mWindowMillis = inWindowMillis;
+    }
+
+    /**
+     * Determines whether the current thread requires the primary database for reads.
+     *
+     * @return True if reads must go to the primary, false otherwise.
+     */
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get();
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest inRequest, final HttpServletResponse inResponse,
+        final FilterChain inFilterChain) throws ServletException, IOException {
+        final long theNow = System.currentTimeMillis();
+        final boolean theWriteFlag = !(HttpMethod.GET.matches(inRequest.getMethod())
+            || HttpMethod.HEAD.matches(inRequest.getMethod())
+            || HttpMethod.OPTIONS.matches(inRequest.getMethod()));
+
+        if (theWriteFlag) {
+            final Cookie theCookie = new Cookie(PRIMARY_UNTIL_COOKIE, Long.toString(theNow + mWindowMillis));
+            theCookie.setPath("/");
+            theCookie.setHttpOnly(true);
+            theCookie.setMaxAge((int) Math.max(1, mWindowMillis / 1000));
+            inResponse.addCookie(theCookie);
+        }
+
+        PRIMARY_REQUIRED.set(theWriteFlag || primaryUntil(inRequest) > theNow);
+        try {
+            inFilterChain.doFilter(inRequest, inResponse);
+        } finally {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+
+    /**
+     * Retrieves the time until which reads of the client of the supplied request are to go to the primary.
+     *
+     * @param inRequest Request.
+     * @return Time in milliseconds since the epoch, zero if no read-your-writes window.
+     */
+    protected static long primaryUntil(final HttpServletRequest inRequest) {
+        if (inRequest.getCookies() == null) {
+            return 0;
+        }
+        for (final Cookie theCookie : inRequest.getCookies()) {
+            if (PRIMARY_UNTIL_COOKIE.equals(theCookie.getName())) {
+                try {
+                    return Long.parseLong(theCookie.getValue());
+                } catch (final NumberFormatException theException) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,203 @@
+package se.ivankrizsan.restexample.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the data sources of the primary and replica databases and periodically checks
+ * the health and replication lag of the replicas.
+ * A heartbeat holding the current time is written to the primary and read from each replica.
+ * The replication lag of a replica is the difference between the heartbeat written and the
+ * heartbeat read. Replicas that cannot be queried or which lag exceeds the maximum lag are
+ * excluded from routing until a later check finds them healthy.
+ * Replicas are considered unhealthy until they have been checked.
+ * Lag and health per replica are registered in the gauges "datasource.replica.lag" and
+ * "datasource.replica.healthy".
+ *
+ * @author Ivan Krizsan
+ */
+@Slf4j
+public class ReplicaHealthMonitor implements AutoCloseable {
+    /* Constant(s): */
+    public static final String HEARTBEAT_TABLE = "ReplicationHeartbeat";
+    protected static final long UNKNOWN_LAG = Long.MAX_VALUE;
+
+    /* Instance variable(s): */
+    protected final DataSource mPrimaryDataSource;
+    protected final Map<String, DataSource> mReplicaDataSources;
+    protected final JdbcTemplate mPrimaryJdbcTemplate;
+    protected final Map<String, JdbcTemplate> mReplicaJdbcTemplates;
+    protected final long mMaxLagMillis;
+    protected final Map<String, Long> mReplicaLags = new ConcurrentHashMap<>();
+    protected volatile List<String> mHealthyReplicaNames = List.of();
+
+    /**
+     * Creates a replica health monitor.
+     *
+     * @param inPrimaryDataSource Data source of primary database.
+     * @param inReplicaDataSources Data sources of replica databases keyed by replica name.
+     * @param inMaxLagMillis Replicas lagging more than this number of milliseconds are excluded.
+     * @param inMeterRegistry Registry in which to register replica metrics.
+     */
+    public ReplicaHealthMonitor(final DataSource inPrimaryDataSource,
+        final Map<String, DataSource> inReplicaDataSources, final long inMaxLagMillis,
+        final MeterRegistry inMeterRegistry) {
+        mPrimaryDataSource = inPrimaryDataSource;
+        mReplicaDataSources = Map.copyOf(inReplicaDataSources);
+        mPrimaryJdbcTemplate = new JdbcTemplate(inPrimaryDataSource);
+        mReplicaJdbcTemplates = new ConcurrentHashMap<>();
+        inReplicaDataSources.forEach((inName, inDataSource) ->
+            mReplicaJdbcTemplates.put(inName, new JdbcTemplate(inDataSource)));
+        mMaxLagMillis = inMaxLagMillis;
+
+        mReplicaJdbcTemplates.keySet().forEach(inName -> {
+            mReplicaLags.put(inName, UNKNOWN_LAG);
+            Gauge.builder("datasource.replica.lag", mReplicaLags,
+                    inLags -> {
+                        final long theLag = inLags.getOrDefault(inName, UNKNOWN_LAG);
+                        return (theLag == UNKNOWN_LAG) ? Double.NaN : theLag / 1000.0;
+                    })
+                .description("Replication lag of replica")
+                .baseUnit("seconds")
+                .tag("target", inName)
+                .register(inMeterRegistry);
+            Gauge.builder("datasource.replica.healthy", this,
+                    inMonitor -> inMonitor.getHealthyReplicaNames().contains(inName) ? 1 : 0)
+                .description("Whether replica is healthy and used for reads")
+                .tag("target", inName)
+                .register(inMeterRegistry);
+        });
+        mPrimaryJdbcTemplate.execute("create table if not exists " + HEARTBEAT_TABLE
+            + " (id integer primary key, beatTime bigint not null)");
+    }
+
+    /**
+     * Retrieves the data source of the primary database.
+     *
+     * @return Primary data source.
+     */
+    public DataSource getPrimaryDataSource() {
+        return mPrimaryDataSource;
+    }
+
+    /**
+     * Retrieves the data sources of the replica databases.
+     *
+     * @return Replica data sources keyed by replica name.
+     */
+    public Map<String, DataSource> getReplicaDataSources() {
+        return mReplicaDataSources;
+    }
+
+    /**
+     * Retrieves the names of the replicas that are currently healthy.
+     *
+     * @return Names of healthy replicas.
+     */
+    public List<String> getHealthyReplicaNames() {
+        return mHealthyReplicaNames;
+    }
+
+    /**
+     * Writes a heartbeat to the primary and checks the health and lag of each replica.
+     */
+    @Scheduled(fixedDelayString = "${restexample.replica.health-check-interval:5000}")
+    public void checkReplicas() {
+        final long theBeatTime;
+        try {
+            theBeatTime = writeHeartbeat();
+        } catch (final RuntimeException theException) {
+            log.warn("Failed to write replication heartbeat to primary", theException);
+            return;
+        }
+
+        final List<String> theHealthyReplicaNames = mReplicaJdbcTemplates
+            .entrySet()
+            .stream()
+            .filter(inEntry -> isReplicaHealthy(inEntry.getKey(), inEntry.getValue(), theBeatTime))
+            .map(Map.Entry::getKey)
+            .sorted()
+            .toList();
+        if (!theHealthyReplicaNames.equals(mHealthyReplicaNames)) {
+            log.info("Healthy replicas changed from {} to {}", mHealthyReplicaNames, theHealthyReplicaNames);
+        }
+        mHealthyReplicaNames = theHealthyReplicaNames;
+    }
+
+    /**
+     * Writes a heartbeat holding the current time to the primary.
+     *
+     * @return Time written.
+     */
+    protected long writeHeartbeat() {
+        final long theBeatTime = System.currentTimeMillis();
+        final int theUpdatedCount = mPrimaryJdbcTemplate.update(
+            "update " + HEARTBEAT_TABLE + " set beatTime = ? where id = 1", theBeatTime);
+        if (theUpdatedCount == 0) {
+            mPrimaryJdbcTemplate.update(
+                "insert into " + HEARTBEAT_TABLE + " (id, beatTime) values (1, ?)", theBeatTime);
+        }
+        return theBeatTime;
+    }
+
+    /**
+     * Reads the heartbeat from the supplied replica and records its lag.
+     *
+     * @param inReplicaName Name of replica.
+     * @param inReplicaJdbcTemplate JDBC template querying the replica.
+     * @param inBeatTime Time of the heartbeat last written to the primary.
+     * @return True if replica could be queried and does not lag more than the maximum lag.
+     */
+    protected boolean isReplicaHealthy(final String inReplicaName, final JdbcTemplate inReplicaJdbcTemplate,
+        final long inBeatTime) {
+        try {
+            final List<Long> theReplicaBeatTimes = inReplicaJdbcTemplate.queryForList(
+                "select beatTime from " + HEARTBEAT_TABLE + " where id = 1", Long.class);
+            final long theLag = theReplicaBeatTimes.isEmpty()
+                ? UNKNOWN_LAG
+                : Math.max(0, inBeatTime - theReplicaBeatTimes.get(0));
+            mReplicaLags.put(inReplicaName, theLag);
+            return theLag <= mMaxLagMillis;
+        } catch (final RuntimeException theException) {
+            log.warn("Replica {} failed health check: {}", inReplicaName, theException.getMessage());
+            mReplicaLags.put(inReplicaName, UNKNOWN_LAG);
+            return false;
+        }
+    }
+
+    /**
+     * Closes the primary and replica data sources.
+     * A data source failing to close is logged and does not prevent the other data sources
+     * from being closed.
+     */
+    @Override
+    public void close() {
+        mReplicaDataSources.forEach(this::closeDataSource);
+        closeDataSource("primary", mPrimaryDataSource);
+    }
+
+    /**
+     * Closes the supplied data source, logging any failure to close it.
+     *
+     * @param inName Name of database of data source.
+     * @param inDataSource Data source to close.
+     */
+    protected void closeDataSource(final String inName, final DataSource inDataSource) {
+        if (inDataSource instanceof HikariDataSource theHikariDataSource) {
+            try {
+                theHikariDataSource.close();
+            } catch (final RuntimeException theException) {
+                log.warn("Failed to close data source of {}", inName, theException);
+            }
+        }
+    }
+}
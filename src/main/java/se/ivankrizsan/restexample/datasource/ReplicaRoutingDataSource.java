@@ -0,0 +1,74 @@
+package se.ivankrizsan.restexample.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Data source that routes connections of read-only transactions to a healthy replica
+ * and all other connections to the primary.
+ * Reads are also routed to the primary when the current request requires read-your-writes,
+ * see {@link ReadYourWritesFilter}, or when no replica is healthy.
+ * Replicas are selected round-robin.
+ * Must be wrapped in a lazy connection data source proxy, since whether a transaction is
+ * read-only is not known until after the transaction has started.
+ * Number of connections per target are registered in the counter "datasource.routing.connections".
+ *
+ * @author Ivan Krizsan
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    /* Constant(s): */
+    public static final String PRIMARY_KEY = "primary";
+
+    /* Instance variable(s): */
+    protected final ReplicaHealthMonitor mReplicaHealthMonitor;
+    protected final MeterRegistry mMeterRegistry;
+    protected final AtomicInteger mNextReplicaIndex = new AtomicInteger();
+
+    /**
+     * Creates a routing data source.
+     *
+     * @param inPrimaryDataSource Data source of primary database.
+     * @param inReplicaDataSources Data sources of replica databases keyed by replica name.
+     * @param inReplicaHealthMonitor Monitor determining which replicas are healthy.
+     * @param inMeterRegistry Registry in which to register routing metrics.
+     */
+    public ReplicaRoutingDataSource(final DataSource inPrimaryDataSource,
+        final Map<String, DataSource> inReplicaDataSources, final ReplicaHealthMonitor inReplicaHealthMonitor,
+        final MeterRegistry inMeterRegistry) {
+        mReplicaHealthMonitor = inReplicaHealthMonitor;
+        mMeterRegistry = inMeterRegistry;
+
+        final Map<Object, Object> theTargetDataSources = new HashMap<>(inReplicaDataSources);
+        theTargetDataSources.put(PRIMARY_KEY, inPrimaryDataSource);
+        setTargetDataSources(theTargetDataSources);
+        setDefaultTargetDataSource(inPrimaryDataSource);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String theTargetKey = PRIMARY_KEY;
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+            && !ReadYourWritesFilter.isPrimaryRequired()) {
+            final List<String> theHealthyReplicas = mReplicaHealthMonitor.getHealthyReplicaNames();
+            if (!theHealthyReplicas.isEmpty()) {
+                final int theIndex = Math.floorMod(mNextReplicaIndex.getAndIncrement(), theHealthyReplicas.size());
+                theTargetKey = theHealthyReplicas.get(theIndex);
+            }
+        }
+
+        Counter.builder("datasource.routing.connections")
+            .description("Number of connections obtained, by routing target")
+            .tag("target", theTargetKey)
+            .register(mMeterRegistry)
+            .increment();
+        return theTargetKey;
+    }
+}
@@ -2,6 +2,8 @@ package se.ivankrizsan.restexample.domain;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
@@ -18,6 +20,9 @@ import lombok.experimental.Accessors;
 @Accessors(prefix = "m")
 @NoArgsConstructor
 @Entity(name = "Circle")
+@Table(name = "Circle", indexes = {
+    @Index(name = "circle_colour_idx", columnList = "colour"),
+    @Index(name = "circle_radius_idx", columnList = "radius")})
 public class Circle extends Shape {
     /* Constant(s): */
     public static final int DEFAULT_RADIUS = 10;
@@ -35,4 +40,10 @@ public class Circle extends Shape {
     public Circle(@NonNull final Integer inRadius) {
         mRadius = inRadius;
     }
+
+    @Override
+    protected void appendContent(final StringBuilder inContent) {
+        super.appendContent(inContent);
+        inContent.append('|').append(mRadius);
+    }
 }
@@ -18,7 +18,8 @@ import java.util.Set;
 @Setter
 @Accessors(prefix = "m")
 @Entity(name = "Drawing")
-@Table(name = "Drawings")
+@Table(name = "Drawings", indexes = {
+    @Index(name = "drawings_creation_date_idx", columnList = "creationDate")})
 public class Drawing extends LongIdEntity {
     /* Constant(s): */
 
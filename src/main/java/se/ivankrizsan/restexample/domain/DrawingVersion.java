@@ -0,0 +1,65 @@
+package se.ivankrizsan.restexample.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.util.Date;
+
+/**
+ * Version of a drawing, holding the name and creation date of the drawing in the version.
+ * The shapes of a version are not stored in full for each version; a version records only
+ * the shapes changed since the previous version, see {@link DrawingVersionShape}, and some
+ * versions additionally have a snapshot of all their shapes.
+ *
+ * @author Ivan Krizsan
+ */
+@Getter
+@Setter
+@Accessors(prefix = "m")
+@NoArgsConstructor
+@Entity(name = "DrawingVersion")
+@Table(name = "DrawingVersions", indexes = {
+    @Index(name = "drawing_versions_drawing_idx", columnList = "drawingId, version", unique = true)})
+public class DrawingVersion extends LongIdEntity {
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    @Column(name = "drawingId", nullable = false)
+    protected Long mDrawingId;
+    @Column(name = "version", nullable = false)
+    protected long mVersion;
+    @Column(name = "createdAt", nullable = false)
+    protected Date mCreatedAt;
+    @Column(name = "name", nullable = false)
+    protected String mName;
+    @Column(name = "creationDate", nullable = false)
+    protected Date mCreationDate;
+    /** Number of shapes changed in this version compared to the previous version. */
+    @Column(name = "changedShapeCount", nullable = false)
+    protected int mChangedShapeCount;
+    /** True if all the shapes of this version are stored as a snapshot. */
+    @Column(name = "snapshot", nullable = false)
+    protected boolean mSnapshot;
+
+    /**
+     * Creates a version of a drawing.
+     *
+     * @param inDrawingId Id of drawing.
+     * @param inVersion Version number, starting at one.
+     * @param inName Name of drawing in the version.
+     * @param inCreationDate Creation date of drawing in the version.
+     * @param inChangedShapeCount Number of shapes changed compared to the previous version.
+     */
+    public DrawingVersion(final Long inDrawingId, final long inVersion, final String inName,
+        final Date inCreationDate, final int inChangedShapeCount) {
+        mDrawingId = inDrawingId;
+        mVersion = inVersion;
+        mCreatedAt = new Date();
+        mName = inName;
+        mCreationDate = inCreationDate;
+        mChangedShapeCount = inChangedShapeCount;
+    }
+}
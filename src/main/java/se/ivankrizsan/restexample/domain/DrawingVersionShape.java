@@ -0,0 +1,66 @@
+package se.ivankrizsan.restexample.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * State of one shape in a version of a drawing, see {@link DrawingVersion}.
+ * A delta entry records a shape added, modified or removed in its version and a snapshot
+ * entry records a shape contained in its version. The shapes of a version are reconstructed
+ * from the snapshot entries of the nearest snapshot version at or before the version and
+ * the delta entries of the following versions up to and including the version.
+ *
+ * @author Ivan Krizsan
+ */
+@Getter
+@Setter
+@Accessors(prefix = "m")
+@NoArgsConstructor
+@Entity(name = "DrawingVersionShape")
+@Table(name = "DrawingVersionShapes", indexes = {
+    @Index(name = "drawing_version_shapes_drawing_idx", columnList = "drawingId, version")})
+public class DrawingVersionShape extends LongIdEntity {
+    /* Constant(s): */
+    /** Maximum length of the JSON representation of a shape. */
+    public static final int MAX_CONTENT_LENGTH = 4000;
+
+    /* Instance variable(s): */
+    @Column(name = "drawingId", nullable = false)
+    protected Long mDrawingId;
+    @Column(name = "version", nullable = false)
+    protected long mVersion;
+    @Column(name = "shapeId", nullable = false)
+    protected Long mShapeId;
+    /** True if this is a snapshot entry, false if this is a delta entry. */
+    @Column(name = "snapshot", nullable = false)
+    protected boolean mSnapshot;
+    /** JSON representation of shape, null if the shape was removed in the version. */
+    @Column(name = "content", length = MAX_CONTENT_LENGTH)
+    protected String mContent;
+    /** Content hash of shape, see {@link Shape#calculateContentHash()}, null if the shape was removed. */
+    @Column(name = "contentHash")
+    protected Long mContentHash;
+
+    /**
+     * Creates an entry holding the state of a shape in a version of a drawing.
+     *
+     * @param inDrawingId Id of drawing.
+     * @param inVersion Version number.
+     * @param inShapeId Id of shape.
+     * @param inSnapshotFlag True if snapshot entry, false if delta entry.
+     * @param inContent JSON representation of shape, null if the shape was removed.
+     * @param inContentHash Content hash of shape, null if the shape was removed.
+     */
+    public DrawingVersionShape(final Long inDrawingId, final long inVersion, final Long inShapeId,
+        final boolean inSnapshotFlag, final String inContent, final Long inContentHash) {
+        mDrawingId = inDrawingId;
+        mVersion = inVersion;
+        mShapeId = inShapeId;
+        mSnapshot = inSnapshotFlag;
+        mContent = inContent;
+        mContentHash = inContentHash;
+    }
+}
@@ -0,0 +1,64 @@
+package se.ivankrizsan.restexample.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.util.Date;
+
+/**
+ * Record of a completed request carrying an idempotency key, holding a fingerprint of the
+ * request and the response to replay when the request is retried with the same key.
+ * A record is written in the same transaction as the changes made by the request.
+ *
+ * @author Ivan Krizsan
+ */
+@Getter
+@Setter
+@Accessors(prefix = "m")
+@NoArgsConstructor
+@Entity(name = "IdempotencyRecord")
+@Table(name = "IdempotencyRecords", indexes = {
+    @Index(name = "idempotency_records_key_idx", columnList = "idempotencyKey", unique = true),
+    @Index(name = "idempotency_records_expires_idx", columnList = "expiresAt")})
+public class IdempotencyRecord extends LongIdEntity {
+    /* Constant(s): */
+    /** Maximum length of an idempotency key. */
+    public static final int MAX_KEY_LENGTH = 255;
+
+    /* Instance variable(s): */
+    @Column(name = "idempotencyKey", nullable = false, length = MAX_KEY_LENGTH)
+    protected String mIdempotencyKey;
+    @Column(name = "fingerprint", nullable = false, length = 64)
+    protected String mFingerprint;
+    @Column(name = "statusCode", nullable = false)
+    protected int mStatusCode;
+    @Lob
+    @Column(name = "responseBody")
+    protected String mResponseBody;
+    @Column(name = "createdAt", nullable = false)
+    protected Date mCreatedAt;
+    @Column(name = "expiresAt", nullable = false)
+    protected Date mExpiresAt;
+
+    /**
+     * Creates a record of a completed request.
+     *
+     * @param inIdempotencyKey Idempotency key of request.
+     * @param inFingerprint Fingerprint of request.
+     * @param inStatusCode HTTP status code of response.
+     * @param inResponseBody JSON representation of response body, may be null.
+     * @param inTimeToLiveMillis Number of milliseconds after which the record expires.
+     */
+    public IdempotencyRecord(final String inIdempotencyKey, final String inFingerprint, final int inStatusCode,
+        final String inResponseBody, final long inTimeToLiveMillis) {
+        mIdempotencyKey = inIdempotencyKey;
+        mFingerprint = inFingerprint;
+        mStatusCode = inStatusCode;
+        mResponseBody = inResponseBody;
+        mCreatedAt = new Date();
+        mExpiresAt = new Date(mCreatedAt.getTime() + inTimeToLiveMillis);
+    }
+}
@@ -0,0 +1,74 @@
+package se.ivankrizsan.restexample.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.util.Date;
+
+/**
+ * Job importing entities from a file uploaded in NDJSON or CSV format.
+ * The uploaded file is spooled to disk and the rows of the file are then imported in chunks,
+ * each chunk in a transaction of its own. Progress is recorded per chunk, see {@link ImportJobChunk},
+ * which allows a job to be resumed after a restart.
+ *
+ * @author Ivan Krizsan
+ */
+@Getter
+@Setter
+@Accessors(prefix = "m")
+@NoArgsConstructor
+@Entity(name = "ImportJob")
+@Table(name = "ImportJobs", indexes = {
+    @Index(name = "import_jobs_status_idx", columnList = "status")})
+public class ImportJob extends LongIdEntity {
+    /**
+     * Status of an import job.
+     */
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    @Column(name = "entityType", nullable = false)
+    protected String mEntityType;
+    @Column(name = "format", nullable = false)
+    protected String mFormat;
+    @Column(name = "spoolFile", nullable = false, length = 1024)
+    protected String mSpoolFile;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    protected Status mStatus;
+    @Column(name = "totalRows", nullable = false)
+    protected long mTotalRows;
+    @Column(name = "createdAt", nullable = false)
+    protected Date mCreatedAt;
+    @Column(name = "startedAt")
+    protected Date mStartedAt;
+    @Column(name = "completedAt")
+    protected Date mCompletedAt;
+    @Column(name = "failureMessage", length = 1024)
+    protected String mFailureMessage;
+
+    /**
+     * Creates a pending import job.
+     *
+     * @param inEntityType Simple name of class of entities to import.
+     * @param inFormat Format of the uploaded file.
+     * @param inSpoolFile Path of the file to which the upload has been spooled.
+     * @param inTotalRows Number of non-blank rows to import.
+     */
+    public ImportJob(final String inEntityType, final String inFormat, final String inSpoolFile,
+        final long inTotalRows) {
+        mEntityType = inEntityType;
+        mFormat = inFormat;
+        mSpoolFile = inSpoolFile;
+        mTotalRows = inTotalRows;
+        mStatus = Status.PENDING;
+        mCreatedAt = new Date();
+    }
+}
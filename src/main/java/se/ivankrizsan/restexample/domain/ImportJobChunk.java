@@ -0,0 +1,56 @@
+package se.ivankrizsan.restexample.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.util.Date;
+
+/**
+ * Record of a chunk of rows of an import job that has been imported.
+ * Written in the same transaction as the entities imported from the chunk, so a chunk
+ * is either imported and recorded or neither, and is skipped when a job is resumed.
+ *
+ * @author Ivan Krizsan
+ */
+@Getter
+@Setter
+@Accessors(prefix = "m")
+@NoArgsConstructor
+@Entity(name = "ImportJobChunk")
+@Table(name = "ImportJobChunks", uniqueConstraints = {
+    @UniqueConstraint(name = "import_job_chunks_job_chunk_uq", columnNames = {"jobId", "chunkIndex"})})
+public class ImportJobChunk extends LongIdEntity {
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    @Column(name = "jobId", nullable = false)
+    protected Long mJobId;
+    @Column(name = "chunkIndex", nullable = false)
+    protected long mChunkIndex;
+    @Column(name = "importedRows", nullable = false)
+    protected int mImportedRows;
+    @Column(name = "rejectedRows", nullable = false)
+    protected int mRejectedRows;
+    @Column(name = "completedAt", nullable = false)
+    protected Date mCompletedAt;
+
+    /**
+     * Creates a record of an imported chunk.
+     *
+     * @param inJobId Id of import job.
+     * @param inChunkIndex Index of chunk in the file of the job.
+     * @param inImportedRows Number of rows of the chunk imported.
+     * @param inRejectedRows Number of rows of the chunk rejected.
+     */
+    public ImportJobChunk(final Long inJobId, final long inChunkIndex, final int inImportedRows,
+        final int inRejectedRows) {
+        mJobId = inJobId;
+        mChunkIndex = inChunkIndex;
+        mImportedRows = inImportedRows;
+        mRejectedRows = inRejectedRows;
+        mCompletedAt = new Date();
+    }
+}
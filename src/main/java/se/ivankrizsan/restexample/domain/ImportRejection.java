@@ -0,0 +1,44 @@
+package se.ivankrizsan.restexample.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * Row of the file of an import job that was rejected, with the reason for the rejection.
+ *
+ * @author Ivan Krizsan
+ */
+@Getter
+@Setter
+@Accessors(prefix = "m")
+@NoArgsConstructor
+@Entity(name = "ImportRejection")
+@Table(name = "ImportRejections", indexes = {
+    @Index(name = "import_rejections_job_idx", columnList = "jobId, lineNumber")})
+public class ImportRejection extends LongIdEntity {
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    @Column(name = "jobId", nullable = false)
+    protected Long mJobId;
+    @Column(name = "lineNumber", nullable = false)
+    protected long mLineNumber;
+    @Column(name = "message", nullable = false, length = 1024)
+    protected String mMessage;
+
+    /**
+     * Creates a rejection of the supplied line.
+     *
+     * @param inJobId Id of import job.
+     * @param inLineNumber Number of rejected line in the file of the job, starting at one.
+     * @param inMessage Reason for the rejection. Truncated if too long.
+     */
+    public ImportRejection(final Long inJobId, final long inLineNumber, final String inMessage) {
+        mJobId = inJobId;
+        mLineNumber = inLineNumber;
+        mMessage = (inMessage.length() > 1024) ? inMessage.substring(0, 1024) : inMessage;
+    }
+}
@@ -0,0 +1,56 @@
+package se.ivankrizsan.restexample.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.util.Date;
+
+/**
+ * Message in the transactional outbox, recording a change of an entity that is to be
+ * delivered to downstream consumers.
+ * Outbox messages are written in the same transaction as the entity change.
+ * A dispatcher claims a message by setting its claim token before delivering it.
+ *
+ * @author Ivan Krizsan
+ */
+@Getter
+@Setter
+@Accessors(prefix = "m")
+@NoArgsConstructor
+@Entity(name = "OutboxMessage")
+@Table(name = "OutboxMessages", indexes = {
+    @Index(name = "outbox_messages_claim_token_idx", columnList = "claimToken")})
+public class OutboxMessage extends LongIdEntity {
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    @Column(name = "entityType", nullable = false)
+    protected String mEntityType;
+    @Column(name = "entityId")
+    protected Long mEntityId;
+    @Column(name = "operation", nullable = false)
+    protected String mOperation;
+    @Column(name = "createdAt", nullable = false)
+    protected Date mCreatedAt;
+    @Column(name = "claimToken")
+    protected String mClaimToken;
+    @Column(name = "claimedAt")
+    protected Date mClaimedAt;
+
+    /**
+     * Creates an outbox message recording the supplied change.
+     *
+     * @param inEntityType Simple name of entity class.
+     * @param inEntityId Id of changed entity, null if all entities of the type were changed.
+     * @param inOperation Type of change.
+     */
+    public OutboxMessage(final String inEntityType, final Long inEntityId, final String inOperation) {
+        mEntityType = inEntityType;
+        mEntityId = inEntityId;
+        mOperation = inOperation;
+        mCreatedAt = new Date();
+    }
+}
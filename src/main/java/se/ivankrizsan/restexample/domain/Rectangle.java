@@ -2,6 +2,8 @@ package se.ivankrizsan.restexample.domain;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -17,6 +19,10 @@ import lombok.experimental.Accessors;
 @Accessors(prefix = "m")
 @NoArgsConstructor
 @Entity(name = "Rectangle")
+@Table(name = "Rectangle", indexes = {
+    @Index(name = "rectangle_colour_idx", columnList = "colour"),
+    @Index(name = "rectangle_width_idx", columnList = "width"),
+    @Index(name = "rectangle_height_idx", columnList = "height")})
 public class Rectangle extends Shape {
     /* Constant(s): */
     public static final int DEFAULT_WIDTH = 10;
@@ -38,4 +44,10 @@ public class Rectangle extends Shape {
         mHeight = inHeight;
         mWidth = inWidth;
     }
+
+    @Override
+    protected void appendContent(final StringBuilder inContent) {
+        super.appendContent(inContent);
+        inContent.append('|').append(mHeight).append('|').append(mWidth);
+    }
 }
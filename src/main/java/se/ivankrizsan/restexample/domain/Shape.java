@@ -1,18 +1,28 @@
 package se.ivankrizsan.restexample.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Inheritance;
 import jakarta.persistence.InheritanceType;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 
 import java.awt.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 /**
  * Abstract base class for shapes in a drawing.
+ * A hash of the content of a shape is stored with the shape, so that shapes can be compared
+ * without loading them.
  *
  * @author Ivan Krizsan
  */
@@ -26,10 +36,68 @@ import java.awt.*;
     include = JsonTypeInfo.As.PROPERTY, property = "shapeType")
 public abstract class Shape extends LongIdEntity {
     /* Constant(s): */
+    protected static final String CONTENT_HASH_ALGORITHM = "SHA-256";
 
     /* Instance variable(s): */
     @Column(name = "colour", nullable = false)
     protected String mColour;
     @Column(name = "position", nullable = false)
     protected Point mPosition;
+    /** Hash of the content of the shape, updated whenever the shape is persisted or updated. */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "contentHash")
+    protected Long mContentHash;
+
+    /**
+     * Retrieves the hash of the content of the shape as it was when last written to the database.
+     * Not part of the representation of the shape.
+     *
+     * @return Content hash, or null if the shape has not been written to the database.
+     */
+    @JsonIgnore
+    public Long getContentHash() {
+        return mContentHash;
+    }
+
+    /**
+     * Calculates a hash of the content of the shape, being the type of the shape and
+     * all its properties except the id. Shapes with equal content have equal hashes.
+     *
+     * @return Content hash.
+     */
+    public long calculateContentHash() {
+        final StringBuilder theContent = new StringBuilder(getClass().getSimpleName());
+        appendContent(theContent);
+        try {
+            final byte[] theDigest = MessageDigest
+                .getInstance(CONTENT_HASH_ALGORITHM)
+                .digest(theContent.toString().getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(theDigest).getLong();
+        } catch (final NoSuchAlgorithmException theException) {
+            throw new IllegalStateException(theException);
+        }
+    }
+
+    /**
+     * Appends the properties of the shape that are part of its content to the supplied builder.
+     * Subclasses with additional properties override this method.
+     *
+     * @param inContent Builder of content to which to append properties.
+     */
+    protected void appendContent(final StringBuilder inContent) {
+        inContent.append('|').append(mColour).append('|');
+        if (mPosition != null) {
+            inContent.append(mPosition.x).append(',').append(mPosition.y);
+        }
+    }
+
+    /**
+     * Updates the content hash of the shape before it is written to the database.
+     */
+    @PrePersist
+    @PreUpdate
+    protected void updateContentHash() {
+        mContentHash = calculateContentHash();
+    }
 }
@@ -9,7 +9,9 @@ import org.springframework.data.repository.query.FluentQuery;
 import se.ivankrizsan.restexample.domain.Circle;
 import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisations;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -28,6 +30,28 @@ public interface CircleRepository extends JpaRepositoryCustomisations<Circle> {
     @Override
     Circle persist(Circle inEntity);
 
+    @Override
+    long deleteAllInBulk();
+
+    @Override
+    List<Map<String, Object>> findAllProjected(Collection<String> inPropertyNames);
+
+    @Override
+    Optional<Map<String, Object>> findProjectedById(Long inId, Collection<String> inPropertyNames);
+
+    @Override
+    List<Map<String, Object>> findAllProjected(Collection<String> inPropertyNames,
+        Map<String, String> inFilterParameters, Sort inSort);
+
+    @Override
+    List<Circle> findAllFiltered(Map<String, String> inFilterParameters, Sort inSort);
+
+    @Override
+    List<Circle> findAllAfter(Long inAfterId, int inLimit);
+
+    @Override
+    List<Circle> findAllByIdOrdered(List<Long> inIds);
+
     @Override
     void flush();
 
@@ -5,11 +5,19 @@ import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import se.ivankrizsan.restexample.domain.Drawing;
+import se.ivankrizsan.restexample.domain.Shape;
 import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisations;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -19,7 +27,7 @@ import java.util.function.Function;
  * @author Ivan Krizsan
  */
 @Observed(name = "DrawingRepository")
-public interface DrawingRepository extends JpaRepositoryCustomisations<Drawing> {
+public interface DrawingRepository extends JpaRepositoryCustomisations<Drawing>, DrawingShapesRepository {
     /*
      * In addition to the @Observed annotation on this (repository) interface also
      * need to include declarations of all the methods for which a span
@@ -28,6 +36,91 @@ public interface DrawingRepository extends JpaRepositoryCustomisations<Drawing>
     @Override
     Drawing persist(Drawing inEntity);
 
+    @Override
+    Shape addShapeToDrawing(Long inDrawingId, Shape inShape);
+
+    @Override
+    void addShapesToDrawingInBatch(Long inDrawingId, List<Shape> inShapes);
+
+    @Override
+    boolean removeShapeFromDrawing(Long inDrawingId, Long inShapeId);
+
+    @Override
+    Optional<Shape> replaceShapeInDrawing(Long inDrawingId, Shape inShape);
+
+    @Override
+    Optional<Long> cloneDrawing(Long inDrawingId, String inName, Date inCreationDate);
+
+    /**
+     * Updates the name of the drawing with supplied id without loading the drawing.
+     *
+     * @param inDrawingId Id of drawing to update.
+     * @param inName New drawing name.
+     * @return Number of drawings updated.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Drawing d set d.mName = :name where d.mId = :id")
+    int updateName(@Param("id") Long inDrawingId, @Param("name") String inName);
+
+    /**
+     * Updates the name and creation date of the drawing with supplied id without loading the drawing.
+     *
+     * @param inDrawingId Id of drawing to update.
+     * @param inName New drawing name.
+     * @param inCreationDate New drawing creation date.
+     * @return Number of drawings updated.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Drawing d set d.mName = :name, d.mCreationDate = :creationDate where d.mId = :id")
+    int updateNameAndCreationDate(@Param("id") Long inDrawingId, @Param("name") String inName,
+        @Param("creationDate") Date inCreationDate);
+
+    /**
+     * Finds the id and content hash of each shape of the drawing with supplied id without
+     * loading the shapes.
+     *
+     * @param inDrawingId Drawing id.
+     * @return Arrays containing shape id and content hash.
+     */
+    @Query("select s.mId, s.mContentHash from Drawing d join d.mShapes s where d.mId = :drawingId")
+    List<Object[]> findShapeContentHashes(@Param("drawingId") Long inDrawingId);
+
+    /**
+     * Finds the shapes with supplied ids of the drawing with supplied id.
+     * Shapes that are not in the drawing are not found.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inShapeIds Ids of shapes to find.
+     * @return Shapes found.
+     */
+    @Query("select s from Drawing d join d.mShapes s where d.mId = :drawingId and s.mId in :shapeIds")
+    List<Shape> findShapesOfDrawing(@Param("drawingId") Long inDrawingId,
+        @Param("shapeIds") Collection<Long> inShapeIds);
+
+    @Override
+    long deleteAllInBulk();
+
+    @Override
+    List<Map<String, Object>> findAllProjected(Collection<String> inPropertyNames);
+
+    @Override
+    Optional<Map<String, Object>> findProjectedById(Long inId, Collection<String> inPropertyNames);
+
+    @Override
+    List<Map<String, Object>> findAllProjected(Collection<String> inPropertyNames,
+        Map<String, String> inFilterParameters, Sort inSort);
+
+    @Override
+    List<Drawing> findAllFiltered(Map<String, String> inFilterParameters, Sort inSort);
+
+    @Override
+    List<Drawing> findAllAfter(Long inAfterId, int inLimit);
+
+    @Override
+    List<Drawing> findAllByIdOrdered(List<Long> inIds);
+
     @Override
     void flush();
 
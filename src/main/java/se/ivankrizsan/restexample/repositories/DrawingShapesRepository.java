@@ -0,0 +1,67 @@
+package se.ivankrizsan.restexample.repositories;
+
+import se.ivankrizsan.restexample.domain.Shape;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository fragment with operations that modify the shapes of a drawing without
+ * loading the shapes collection of the drawing.
+ *
+ * @author Ivan Krizsan
+ */
+public interface DrawingShapesRepository {
+    /**
+     * Persists the supplied shape and adds it to the drawing with supplied id.
+     *
+     * @param inDrawingId Id of drawing to add shape to.
+     * @param inShape New shape.
+     * @return Persisted shape.
+     * @throws jakarta.persistence.EntityNotFoundException If there is no drawing with supplied id.
+     */
+    Shape addShapeToDrawing(Long inDrawingId, Shape inShape);
+
+    /**
+     * Persists the supplied new shapes and adds them to the drawing with supplied id using
+     * batched statements. The drawing must have been flushed to the database.
+     * The persistence context is flushed and cleared afterwards, so that the memory used
+     * when adding shapes in consecutive batches does not grow with the number of shapes.
+     *
+     * @param inDrawingId Id of drawing to add shapes to.
+     * @param inShapes New shapes.
+     */
+    void addShapesToDrawingInBatch(Long inDrawingId, List<Shape> inShapes);
+
+    /**
+     * Removes the shape with supplied id from the drawing with supplied id and deletes the shape.
+     *
+     * @param inDrawingId Id of drawing to remove shape from.
+     * @param inShapeId Id of shape to remove.
+     * @return True if the shape was removed, false if the drawing does not contain the shape.
+     */
+    boolean removeShapeFromDrawing(Long inDrawingId, Long inShapeId);
+
+    /**
+     * Replaces the shape in the drawing with supplied id that has the same id as the supplied shape.
+     *
+     * @param inDrawingId Id of drawing containing shape.
+     * @param inShape Shape data to write.
+     * @return Updated shape, or empty if the drawing does not contain a shape with the id.
+     */
+    Optional<Shape> replaceShapeInDrawing(Long inDrawingId, Shape inShape);
+
+    /**
+     * Creates a copy of the drawing with supplied id, including copies of all its shapes,
+     * using set-based SQL statements without loading the drawing or its shapes.
+     * The ids of the copies are reserved from the id sequences beforehand, so that the rows
+     * can be copied with one insert-select statement per table.
+     *
+     * @param inDrawingId Id of drawing to copy.
+     * @param inName Name of copy, or null to use the name of the copied drawing.
+     * @param inCreationDate Creation date of copy.
+     * @return Id of copy, or empty if there is no drawing with supplied id.
+     */
+    Optional<Long> cloneDrawing(Long inDrawingId, String inName, Date inCreationDate);
+}
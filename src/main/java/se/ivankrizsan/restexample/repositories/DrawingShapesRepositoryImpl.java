@@ -0,0 +1,405 @@
+package se.ivankrizsan.restexample.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.metamodel.MappingMetamodel;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.annotation.Transactional;
+import se.ivankrizsan.restexample.domain.Drawing;
+import se.ivankrizsan.restexample.domain.Shape;
+
+import java.lang.reflect.Modifier;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the drawing shapes repository fragment.
+ * Rows in the join table between drawings and shapes are inserted and deleted using
+ * SQL statements, with the table and column names retrieved from the Hibernate mapping
+ * of the shapes collection of drawings.
+ * Drawings are cloned using insert-select statements, with the table and column names
+ * retrieved from the Hibernate mapping of the drawing and shape entities.
+ *
+ * @author Ivan Krizsan
+ */
+@Transactional
+public class DrawingShapesRepositoryImpl implements DrawingShapesRepository {
+    /* Constant(s): */
+    protected static final String SHAPES_COLLECTION_ROLE = Drawing.class.getName() + ".mShapes";
+    /** Maximum number of times a reservation of ids is restarted due to concurrent id allocation. */
+    protected static final int MAX_ID_RESERVATION_RESTARTS = 100;
+
+    /* Instance variable(s): */
+    protected final EntityManager mEntityManager;
+    protected String mInsertJoinRowSql;
+    protected String mDeleteJoinRowSql;
+    /* Assigned last when the statements are created, thus volatile. */
+    protected volatile String mCountJoinRowSql;
+    protected String mJoinTableName;
+    protected String mJoinDrawingIdColumn;
+    protected String mJoinShapeIdColumn;
+
+    /**
+     * Creates a repository fragment using the supplied entity manager.
+     *
+     * @param inEntityManager Entity manager.
+     */
+    public DrawingShapesRepositoryImpl(final EntityManager inEntityManager) {
+        mEntityManager = inEntityManager;
+    }
+
+    @Override
+    public Shape addShapeToDrawing(final Long inDrawingId, final Shape inShape) {
+        if (!drawingExists(inDrawingId)) {
+            throw new EntityNotFoundException("No drawing with id " + inDrawingId);
+        }
+        createJoinRowSqlIfMissing();
+        mEntityManager.persist(inShape);
+        mEntityManager.flush();
+        mEntityManager
+            .createNativeQuery(mInsertJoinRowSql)
+            .setParameter(1, inDrawingId)
+            .setParameter(2, inShape.getId())
+            .executeUpdate();
+        return inShape;
+    }
+
+    @Override
+    public void addShapesToDrawingInBatch(final Long inDrawingId, final List<Shape> inShapes) {
+        createJoinRowSqlIfMissing();
+        final Session theSession = mEntityManager.unwrap(Session.class);
+        final Integer thePreviousBatchSize = theSession.getJdbcBatchSize();
+        theSession.setJdbcBatchSize(Math.max(inShapes.size(), 1));
+        try {
+            /* Shapes of one type are persisted consecutively so that their inserts are batched together. */
+            inShapes
+                .stream()
+                .sorted(Comparator.comparing(inShape -> inShape.getClass().getName()))
+                .forEach(mEntityManager::persist);
+            mEntityManager.flush();
+
+            theSession.doWork(inConnection -> {
+                try (PreparedStatement theInsertStatement = inConnection.prepareStatement(mInsertJoinRowSql)) {
+                    for (final Shape theShape : inShapes) {
+                        theInsertStatement.setLong(1, inDrawingId);
+                        theInsertStatement.setLong(2, theShape.getId());
+                        theInsertStatement.addBatch();
+                    }
+                    theInsertStatement.executeBatch();
+                }
+            });
+            mEntityManager.clear();
+        } finally {
+            theSession.setJdbcBatchSize(thePreviousBatchSize);
+        }
+    }
+
+    @Override
+    public boolean removeShapeFromDrawing(final Long inDrawingId, final Long inShapeId) {
+        createJoinRowSqlIfMissing();
+        final int theDeletedRowCount = mEntityManager
+            .createNativeQuery(mDeleteJoinRowSql)
+            .setParameter(1, inDrawingId)
+            .setParameter(2, inShapeId)
+            .executeUpdate();
+        if (theDeletedRowCount == 0) {
+            return false;
+        }
+        /* Shapes are orphan-removed from drawings. */
+        final Shape theShape = mEntityManager.find(Shape.class, inShapeId);
+        if (theShape != null) {
+            mEntityManager.remove(theShape);
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<Shape> replaceShapeInDrawing(final Long inDrawingId, final Shape inShape) {
+        if (!drawingContainsShape(inDrawingId, inShape.getId())) {
+            return Optional.empty();
+        }
+        final Shape theUpdatedShape = mEntityManager.merge(inShape);
+        mEntityManager.flush();
+        return Optional.of(theUpdatedShape);
+    }
+
+    @Override
+    public Optional<Long> cloneDrawing(final Long inDrawingId, final String inName, final Date inCreationDate) {
+        if (!drawingExists(inDrawingId)) {
+            return Optional.empty();
+        }
+        createJoinRowSqlIfMissing();
+        mEntityManager.flush();
+        final SharedSessionContractImplementor theSession =
+            mEntityManager.unwrap(SharedSessionContractImplementor.class);
+        final MappingMetamodel theMetamodel = theSession.getFactory().getRuntimeMetamodels().getMappingMetamodel();
+
+        /* Copy the drawing row and then set the name and creation date of the copy. */
+        final AbstractEntityPersister theDrawingPersister =
+            (AbstractEntityPersister) theMetamodel.getEntityDescriptor(Drawing.class);
+        final String theDrawingIdColumn = theDrawingPersister.getIdentifierColumnNames()[0];
+        final String theDrawingColumns = String.join(", ", propertyColumns(theDrawingPersister));
+        final long theCloneId = reserveIds(theDrawingPersister, 1, theSession);
+        mEntityManager
+            .createNativeQuery("insert into " + theDrawingPersister.getTableName() + " (" + theDrawingIdColumn
+                + ", " + theDrawingColumns + ") select cast(? as bigint), " + theDrawingColumns
+                + " from " + theDrawingPersister.getTableName() + " where " + theDrawingIdColumn + " = ?")
+            .setParameter(1, theCloneId)
+            .setParameter(2, inDrawingId)
+            .executeUpdate();
+        mEntityManager
+            .createQuery("update Drawing d set d.mName = coalesce(:name, d.mName), d.mCreationDate = :creationDate "
+                + "where d.mId = :id")
+            .setParameter("name", inName)
+            .setParameter("creationDate", inCreationDate)
+            .setParameter("id", theCloneId)
+            .executeUpdate();
+
+        /*
+         * Copy the shape rows table by table, numbering the copies consecutively from the start
+         * of a range of ids reserved for all shapes of the drawing, then add the copies to the clone.
+         */
+        final List<AbstractEntityPersister> theShapePersisters = concreteShapePersisters(theMetamodel);
+        final List<Long> theShapeCounts = new ArrayList<>();
+        for (final AbstractEntityPersister theShapePersister : theShapePersisters) {
+            final Number theShapeCount = (Number) mEntityManager
+                .createNativeQuery("select count(*)" + shapesOfDrawingSql(theShapePersister))
+                .setParameter(1, inDrawingId)
+                .getSingleResult();
+            theShapeCounts.add(theShapeCount.longValue());
+        }
+        final long theTotalShapeCount = theShapeCounts.stream().mapToLong(Long::longValue).sum();
+        if (theTotalShapeCount == 0) {
+            return Optional.of(theCloneId);
+        }
+        long theNextShapeId = reserveIds(theMetamodel.getEntityDescriptor(Shape.class), theTotalShapeCount,
+            theSession);
+        for (int i = 0; i < theShapePersisters.size(); i++) {
+            final long theShapeCount = theShapeCounts.get(i);
+            if (theShapeCount > 0) {
+                copyShapes(theShapePersisters.get(i), inDrawingId, theCloneId, theNextShapeId, theShapeCount);
+                theNextShapeId += theShapeCount;
+            }
+        }
+        return Optional.of(theCloneId);
+    }
+
+    /**
+     * Copies the shapes in the table of the supplied persister that belong to the drawing with
+     * supplied id, assigning the copies consecutive ids, and adds the copies to the clone.
+     *
+     * @param inShapePersister Persister of concrete shape type.
+     * @param inDrawingId Id of drawing which shapes to copy.
+     * @param inCloneId Id of drawing to add copies to.
+     * @param inFirstShapeId First of the reserved ids assigned to the copies.
+     * @param inShapeCount Number of shapes to copy.
+     * @throws IllegalStateException If the shapes of the drawing changed while being copied.
+     */
+    protected void copyShapes(final AbstractEntityPersister inShapePersister, final Long inDrawingId,
+        final long inCloneId, final long inFirstShapeId, final long inShapeCount) {
+        final String theTableName = inShapePersister.getTableName();
+        final String theIdColumn = inShapePersister.getIdentifierColumnNames()[0];
+        final List<String> theColumns = propertyColumns(inShapePersister);
+
+        final int theCopiedCount = mEntityManager
+            .createNativeQuery("insert into " + theTableName + " (" + theIdColumn + ", "
+                + String.join(", ", theColumns) + ") select cast(? as bigint) + row_number() over () - 1, "
+                + theColumns.stream().map(inColumn -> "s." + inColumn).collect(Collectors.joining(", "))
+                + shapesOfDrawingSql(inShapePersister))
+            .setParameter(1, inFirstShapeId)
+            .setParameter(2, inDrawingId)
+            .executeUpdate();
+        if (theCopiedCount != inShapeCount) {
+            /* More shapes than the reserved ids would otherwise be assigned ids of other shapes. */
+            throw new IllegalStateException("Shapes of drawing with id " + inDrawingId + " changed while cloning");
+        }
+        mEntityManager
+            .createNativeQuery("insert into " + mJoinTableName + " (" + mJoinDrawingIdColumn + ", "
+                + mJoinShapeIdColumn + ") select cast(? as bigint), " + theIdColumn + " from " + theTableName
+                + " where " + theIdColumn + " between ? and ?")
+            .setParameter(1, inCloneId)
+            .setParameter(2, inFirstShapeId)
+            .setParameter(3, inFirstShapeId + inShapeCount - 1)
+            .executeUpdate();
+    }
+
+    /**
+     * Creates the from and where clauses of a query selecting the shapes in the table of
+     * the supplied persister that belong to a drawing, with the shape table aliased {@code s}.
+     * The drawing id is the last parameter of the query.
+     *
+     * @param inShapePersister Persister of concrete shape type.
+     * @return SQL from and where clauses.
+     */
+    protected String shapesOfDrawingSql(final AbstractEntityPersister inShapePersister) {
+        return " from " + inShapePersister.getTableName() + " s join " + mJoinTableName + " j on j."
+            + mJoinShapeIdColumn + " = s." + inShapePersister.getIdentifierColumnNames()[0]
+            + " where j." + mJoinDrawingIdColumn + " = ?";
+    }
+
+    /**
+     * Reserves a range of consecutive ids for new entities of the type of the supplied persister
+     * by retrieving consecutive values from the id sequence of the type.
+     * Each sequence value, except the first, gives the right to a block of ids the size of the
+     * increment of the sequence. All values needed are retrieved with a single statement. If another
+     * transaction retrieves values from the sequence at the same time, so that the values retrieved
+     * are not consecutive, the reservation is restarted.
+     *
+     * @param inPersister Persister of entity type.
+     * @param inIdCount Number of ids to reserve.
+     * @param inSession Session used to access the sequence.
+     * @return First id of reserved range.
+     * @throws IllegalStateException If the entity ids are not generated using a sequence or if ids
+     * could not be reserved due to concurrent id allocation.
+     */
+    protected long reserveIds(final EntityPersister inPersister, final long inIdCount,
+        final SharedSessionContractImplementor inSession) {
+        if (!(inPersister.getGenerator() instanceof SequenceStyleGenerator theGenerator)
+            || !theGenerator.getDatabaseStructure().isPhysicalSequence()) {
+            throw new IllegalStateException("Ids of " + inPersister.getEntityName() + " are not sequence-generated");
+        }
+        final int theIncrement = theGenerator.getDatabaseStructure().getIncrementSize();
+        final long theValueCount = (inIdCount + theIncrement - 1) / theIncrement + 1;
+        final String theNextValuesSql = nextSequenceValuesSql(theGenerator, inSession);
+
+        for (int theRestartCount = 0; theRestartCount <= MAX_ID_RESERVATION_RESTARTS; theRestartCount++) {
+            @SuppressWarnings("unchecked")
+            final List<Number> theValues = mEntityManager
+                .createNativeQuery(theNextValuesSql)
+                .setParameter(1, theValueCount)
+                .getResultList();
+            final long[] theSortedValues = theValues.stream().mapToLong(Number::longValue).sorted().toArray();
+            final long theFirstValue = theSortedValues[0];
+            if (theSortedValues[theSortedValues.length - 1] - theFirstValue == (theValueCount - 1) * theIncrement) {
+                return theFirstValue + 1;
+            }
+        }
+        throw new IllegalStateException("Could not reserve " + inIdCount + " ids of " + inPersister.getEntityName()
+            + " due to concurrent id allocation");
+    }
+
+    /**
+     * Creates a query retrieving the number of values given by its only parameter from the sequence
+     * of the supplied generator, generating one row per value with a recursive common table expression.
+     *
+     * @param inGenerator Sequence-based id generator.
+     * @param inSession Session used to access the sequence.
+     * @return SQL query.
+     */
+    protected static String nextSequenceValuesSql(final SequenceStyleGenerator inGenerator,
+        final SharedSessionContractImplementor inSession) {
+        final SessionFactoryImplementor theFactory = inSession.getFactory();
+        final String theSequenceName =
+            theFactory.getSqlStringGenerationContext().format(inGenerator.getDatabaseStructure().getPhysicalName());
+        return "with recursive r (n) as (values (1) union all select n + 1 from r where n < ?) select "
+            + theFactory.getJdbcServices().getDialect().getSequenceSupport()
+                .getSelectSequenceNextValString(theSequenceName)
+            + " from r";
+    }
+
+    /**
+     * Retrieves the persisters of the concrete shape types.
+     *
+     * @param inMetamodel Hibernate mapping metamodel.
+     * @return Persisters of concrete shape types, ordered by entity name.
+     */
+    protected static List<AbstractEntityPersister> concreteShapePersisters(final MappingMetamodel inMetamodel) {
+        final List<AbstractEntityPersister> theShapePersisters = new ArrayList<>();
+        inMetamodel.forEachEntityDescriptor(inPersister -> {
+            final Class<?> theEntityClass = inPersister.getMappedClass();
+            if (Shape.class.isAssignableFrom(theEntityClass) && !Modifier.isAbstract(theEntityClass.getModifiers())) {
+                theShapePersisters.add((AbstractEntityPersister) inPersister);
+            }
+        });
+        theShapePersisters.sort(Comparator.comparing(AbstractEntityPersister::getEntityName));
+        return theShapePersisters;
+    }
+
+    /**
+     * Retrieves the names of the columns of the non-collection properties of the entity type
+     * of the supplied persister, excluding the id column.
+     *
+     * @param inPersister Persister of entity type.
+     * @return Column names.
+     */
+    protected static List<String> propertyColumns(final AbstractEntityPersister inPersister) {
+        final List<String> theColumns = new ArrayList<>();
+        for (int i = 0; i < inPersister.getPropertyNames().length; i++) {
+            if (!inPersister.getPropertyTypes()[i].isCollectionType()) {
+                theColumns.addAll(Arrays.asList(inPersister.getPropertyColumnNames(i)));
+            }
+        }
+        return theColumns;
+    }
+
+    /**
+     * Determines whether the drawing with supplied id exists.
+     *
+     * @param inDrawingId Drawing id.
+     * @return True if drawing exists, false otherwise.
+     */
+    protected boolean drawingExists(final Long inDrawingId) {
+        return !mEntityManager
+            .createQuery("select d.mId from Drawing d where d.mId = :id", Long.class)
+            .setParameter("id", inDrawingId)
+            .getResultList()
+            .isEmpty();
+    }
+
+    /**
+     * Determines whether the drawing with supplied id contains the shape with supplied id.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inShapeId Shape id.
+     * @return True if drawing contains shape, false otherwise.
+     */
+    protected boolean drawingContainsShape(final Long inDrawingId, final Long inShapeId) {
+        createJoinRowSqlIfMissing();
+        final Number theJoinRowCount = (Number) mEntityManager
+            .createNativeQuery(mCountJoinRowSql)
+            .setParameter(1, inDrawingId)
+            .setParameter(2, inShapeId)
+            .getSingleResult();
+        return theJoinRowCount.intValue() > 0;
+    }
+
+    /**
+     * Creates the SQL statements operating on the join table between drawings and shapes,
+     * if they have not been created before.
+     */
+    protected void createJoinRowSqlIfMissing() {
+        if (mCountJoinRowSql == null) {
+            final AbstractCollectionPersister theShapesPersister = (AbstractCollectionPersister) mEntityManager
+                .getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getRuntimeMetamodels()
+                .getMappingMetamodel()
+                .getCollectionDescriptor(SHAPES_COLLECTION_ROLE);
+            final String theTableName = theShapesPersister.getTableName();
+            final String theDrawingIdColumn = theShapesPersister.getKeyColumnNames()[0];
+            final String theShapeIdColumn = theShapesPersister.getElementColumnNames()[0];
+            mJoinTableName = theTableName;
+            mJoinDrawingIdColumn = theDrawingIdColumn;
+            mJoinShapeIdColumn = theShapeIdColumn;
+
+            mInsertJoinRowSql = "insert into " + theTableName
+                + " (" + theDrawingIdColumn + ", " + theShapeIdColumn + ") values (?, ?)";
+            mDeleteJoinRowSql = "delete from " + theTableName
+                + " where " + theDrawingIdColumn + " = ? and " + theShapeIdColumn + " = ?";
+            mCountJoinRowSql = "select count(*) from " + theTableName
+                + " where " + theDrawingIdColumn + " = ? and " + theShapeIdColumn + " = ?";
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package se.ivankrizsan.restexample.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import se.ivankrizsan.restexample.domain.DrawingVersion;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data JPA repository for versions of drawings.
+ *
+ * @author Ivan Krizsan
+ */
+public interface DrawingVersionRepository extends JpaRepository<DrawingVersion, Long> {
+    /**
+     * Finds the supplied version of the drawing with supplied id.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inVersion Version number.
+     * @return Version, or empty if there is no such version.
+     */
+    @Query("select v from DrawingVersion v where v.mDrawingId = :drawingId and v.mVersion = :version")
+    Optional<DrawingVersion> findVersion(@Param("drawingId") Long inDrawingId, @Param("version") long inVersion);
+
+    /**
+     * Finds the latest version of the drawing with supplied id.
+     *
+     * @param inDrawingId Drawing id.
+     * @return Latest version, or empty if the drawing has no recorded versions.
+     */
+    @Query("select v from DrawingVersion v where v.mDrawingId = :drawingId and v.mVersion = "
+        + "(select max(v2.mVersion) from DrawingVersion v2 where v2.mDrawingId = :drawingId)")
+    Optional<DrawingVersion> findLatestVersion(@Param("drawingId") Long inDrawingId);
+
+    /**
+     * Finds all versions of the drawing with supplied id, in version order.
+     *
+     * @param inDrawingId Drawing id.
+     * @return Versions.
+     */
+    @Query("select v from DrawingVersion v where v.mDrawingId = :drawingId order by v.mVersion")
+    List<DrawingVersion> findVersions(@Param("drawingId") Long inDrawingId);
+
+    /**
+     * Finds the number of the latest snapshot version at or before the supplied version
+     * of the drawing with supplied id.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inVersion Version number.
+     * @return Number of snapshot version, or null if there is no such version.
+     */
+    @Query("select max(v.mVersion) from DrawingVersion v where v.mDrawingId = :drawingId "
+        + "and v.mSnapshot = true and v.mVersion <= :version")
+    Long findSnapshotVersion(@Param("drawingId") Long inDrawingId, @Param("version") long inVersion);
+
+    /**
+     * Finds the latest versions which are preceded by at least the supplied number of versions
+     * without snapshot, that is versions in need of a snapshot.
+     *
+     * @param inMinDeltaVersions Minimum number of versions since latest snapshot.
+     * @return Latest versions of drawings in need of snapshot.
+     */
+    @Query("select v from DrawingVersion v where v.mSnapshot = false and v.mVersion - "
+        + "(select max(v2.mVersion) from DrawingVersion v2 where v2.mDrawingId = v.mDrawingId and v2.mSnapshot = true)"
+        + " >= :minDeltaVersions and v.mVersion = "
+        + "(select max(v3.mVersion) from DrawingVersion v3 where v3.mDrawingId = v.mDrawingId)")
+    List<DrawingVersion> findVersionsInNeedOfSnapshot(@Param("minDeltaVersions") long inMinDeltaVersions);
+
+    /**
+     * Counts the shapes in the latest versions of all drawings with recorded versions,
+     * which are the shapes that would be stored without version history.
+     *
+     * @return Number of shapes.
+     */
+    @Query("select count(s) from Drawing d join d.mShapes s where d.mId in (select v.mDrawingId from DrawingVersion v)")
+    long countShapesOfVersionedDrawings();
+
+    /**
+     * Deletes all versions of the drawing with supplied id.
+     *
+     * @param inDrawingId Drawing id.
+     * @return Number of versions deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from DrawingVersion v where v.mDrawingId = :drawingId")
+    int deleteVersions(@Param("drawingId") Long inDrawingId);
+
+    /**
+     * Determines whether there are versions of drawings that no longer exist.
+     *
+     * @return True if there are versions of deleted drawings, false otherwise.
+     */
+    @Query("select count(v) > 0 from DrawingVersion v where v.mDrawingId not in (select d.mId from Drawing d)")
+    boolean existsVersionsOfDeletedDrawings();
+
+    /**
+     * Deletes the versions of drawings that no longer exist.
+     *
+     * @return Number of versions deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from DrawingVersion v where v.mDrawingId not in (select d.mId from Drawing d)")
+    int deleteVersionsOfDeletedDrawings();
+}
@@ -0,0 +1,101 @@
+package se.ivankrizsan.restexample.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import se.ivankrizsan.restexample.domain.DrawingVersionShape;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the states of shapes in versions of drawings.
+ *
+ * @author Ivan Krizsan
+ */
+public interface DrawingVersionShapeRepository extends JpaRepository<DrawingVersionShape, Long> {
+    /* Constant(s): */
+    /** Selects the snapshot entries of a snapshot version and the delta entries of the following versions. */
+    String RECONSTRUCTION_ENTRIES_CONDITION = "((e.mSnapshot = true and e.mVersion = :snapshotVersion) "
+        + "or (e.mSnapshot = false and e.mVersion > :snapshotVersion and e.mVersion <= :version))";
+
+    /**
+     * Finds the shape id, JSON representation and content hash of the entries needed to reconstruct
+     * the shapes of a version of a drawing: the snapshot entries of the supplied snapshot
+     * version followed by the delta entries of the versions after the snapshot version up to
+     * and including the supplied version, in version order.
+     * The JSON representation and content hash are null for shapes removed in a version.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inSnapshotVersion Number of snapshot version.
+     * @param inVersion Number of version to reconstruct.
+     * @return Arrays containing shape id, JSON representation and content hash.
+     */
+    @Query("select e.mShapeId, e.mContent, e.mContentHash from DrawingVersionShape e where e.mDrawingId = :drawingId "
+        + "and " + RECONSTRUCTION_ENTRIES_CONDITION + " order by e.mVersion, e.mId")
+    List<Object[]> findReconstructionEntries(@Param("drawingId") Long inDrawingId,
+        @Param("snapshotVersion") long inSnapshotVersion, @Param("version") long inVersion);
+
+    /**
+     * Finds the shape id and content hash of the entries needed to reconstruct the shapes of
+     * a version of a drawing, see {@link #findReconstructionEntries(Long, long, long)}.
+     * The JSON representations of the shapes are not loaded.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inSnapshotVersion Number of snapshot version.
+     * @param inVersion Number of version to reconstruct.
+     * @return Arrays containing shape id and content hash, which is null for removed shapes.
+     */
+    @Query("select e.mShapeId, e.mContentHash from DrawingVersionShape e where e.mDrawingId = :drawingId "
+        + "and " + RECONSTRUCTION_ENTRIES_CONDITION + " order by e.mVersion, e.mId")
+    List<Object[]> findReconstructionHashes(@Param("drawingId") Long inDrawingId,
+        @Param("snapshotVersion") long inSnapshotVersion, @Param("version") long inVersion);
+
+    /**
+     * Finds the shape id and JSON representation of the entries of the shapes with supplied ids
+     * needed to reconstruct the shapes of a version of a drawing,
+     * see {@link #findReconstructionEntries(Long, long, long)}.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inSnapshotVersion Number of snapshot version.
+     * @param inVersion Number of version to reconstruct.
+     * @param inShapeIds Ids of shapes to reconstruct.
+     * @return Arrays containing shape id and JSON representation, which is null for removed shapes.
+     */
+    @Query("select e.mShapeId, e.mContent from DrawingVersionShape e where e.mDrawingId = :drawingId "
+        + "and e.mShapeId in :shapeIds and " + RECONSTRUCTION_ENTRIES_CONDITION + " order by e.mVersion, e.mId")
+    List<Object[]> findReconstructionEntriesOfShapes(@Param("drawingId") Long inDrawingId,
+        @Param("snapshotVersion") long inSnapshotVersion, @Param("version") long inVersion,
+        @Param("shapeIds") Collection<Long> inShapeIds);
+
+    /**
+     * Deletes the entries of all versions of the drawing with supplied id.
+     *
+     * @param inDrawingId Drawing id.
+     * @return Number of entries deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from DrawingVersionShape e where e.mDrawingId = :drawingId")
+    int deleteEntries(@Param("drawingId") Long inDrawingId);
+
+    /**
+     * Determines whether there are entries of drawings that no longer exist.
+     *
+     * @return True if there are entries of deleted drawings, false otherwise.
+     */
+    @Query("select count(e) > 0 from DrawingVersionShape e where e.mDrawingId not in (select d.mId from Drawing d)")
+    boolean existsEntriesOfDeletedDrawings();
+
+    /**
+     * Deletes the entries of drawings that no longer exist.
+     *
+     * @return Number of entries deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from DrawingVersionShape e where e.mDrawingId not in (select d.mId from Drawing d)")
+    int deleteEntriesOfDeletedDrawings();
+}
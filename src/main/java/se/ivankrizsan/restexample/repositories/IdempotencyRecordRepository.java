@@ -0,0 +1,70 @@
+package se.ivankrizsan.restexample.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import se.ivankrizsan.restexample.domain.IdempotencyRecord;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data JPA repository for records of requests carrying idempotency keys.
+ *
+ * @author Ivan Krizsan
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+    /**
+     * Finds the record with the supplied idempotency key that has not expired.
+     *
+     * @param inIdempotencyKey Idempotency key.
+     * @param inNow Current time.
+     * @return Record, or empty if there is no such record.
+     */
+    @Query("select r from IdempotencyRecord r where r.mIdempotencyKey = :key and r.mExpiresAt > :now")
+    Optional<IdempotencyRecord> findUnexpired(@Param("key") String inIdempotencyKey, @Param("now") Date inNow);
+
+    /**
+     * Finds ids of records, newest record first.
+     *
+     * @param inPageable Page of ids to find.
+     * @return Record ids.
+     */
+    @Query("select r.mId from IdempotencyRecord r order by r.mId desc")
+    List<Long> findIdsNewestFirst(Pageable inPageable);
+
+    /**
+     * Determines whether there are records that expired before the supplied time.
+     *
+     * @param inNow Current time.
+     * @return True if there are expired records, false otherwise.
+     */
+    @Query("select count(r) > 0 from IdempotencyRecord r where r.mExpiresAt <= :now")
+    boolean existsExpired(@Param("now") Date inNow);
+
+    /**
+     * Deletes the records that expired before the supplied time.
+     *
+     * @param inNow Current time.
+     * @return Number of records deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.mExpiresAt <= :now")
+    int deleteExpired(@Param("now") Date inNow);
+
+    /**
+     * Deletes the records with ids up to and including the supplied id.
+     *
+     * @param inId Id of newest record to delete.
+     * @return Number of records deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.mId <= :id")
+    int deleteUpToId(@Param("id") Long inId);
+}
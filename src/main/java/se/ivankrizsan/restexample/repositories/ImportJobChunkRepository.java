@@ -0,0 +1,42 @@
+package se.ivankrizsan.restexample.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import se.ivankrizsan.restexample.domain.ImportJobChunk;
+
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for records of imported chunks of import jobs.
+ *
+ * @author Ivan Krizsan
+ */
+public interface ImportJobChunkRepository extends JpaRepository<ImportJobChunk, Long> {
+    /**
+     * Finds the indexes of the chunks of the supplied import job that have been imported.
+     *
+     * @param inJobId Import job id.
+     * @return Chunk indexes.
+     */
+    @Query("select c.mChunkIndex from ImportJobChunk c where c.mJobId = :jobId")
+    List<Long> findChunkIndexes(@Param("jobId") Long inJobId);
+
+    /**
+     * Sums the number of rows imported in the imported chunks of the supplied import job.
+     *
+     * @param inJobId Import job id.
+     * @return Number of rows imported.
+     */
+    @Query("select coalesce(sum(c.mImportedRows), 0) from ImportJobChunk c where c.mJobId = :jobId")
+    long sumImportedRows(@Param("jobId") Long inJobId);
+
+    /**
+     * Sums the number of rows rejected in the imported chunks of the supplied import job.
+     *
+     * @param inJobId Import job id.
+     * @return Number of rows rejected.
+     */
+    @Query("select coalesce(sum(c.mRejectedRows), 0) from ImportJobChunk c where c.mJobId = :jobId")
+    long sumRejectedRows(@Param("jobId") Long inJobId);
+}
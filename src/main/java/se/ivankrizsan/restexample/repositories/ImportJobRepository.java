@@ -0,0 +1,25 @@
+package se.ivankrizsan.restexample.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import se.ivankrizsan.restexample.domain.ImportJob;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for import jobs.
+ *
+ * @author Ivan Krizsan
+ */
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+    /**
+     * Finds the import jobs having one of the supplied statuses, oldest jobs first.
+     *
+     * @param inStatuses Statuses of jobs to find.
+     * @return Import jobs.
+     */
+    @Query("select j from ImportJob j where j.mStatus in :statuses order by j.mId")
+    List<ImportJob> findByStatuses(@Param("statuses") Collection<ImportJob.Status> inStatuses);
+}
@@ -0,0 +1,26 @@
+package se.ivankrizsan.restexample.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import se.ivankrizsan.restexample.domain.ImportRejection;
+
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for rejected rows of import jobs.
+ *
+ * @author Ivan Krizsan
+ */
+public interface ImportRejectionRepository extends JpaRepository<ImportRejection, Long> {
+    /**
+     * Finds the rejected rows of the supplied import job in line number order.
+     *
+     * @param inJobId Import job id.
+     * @param inPageable Maximum number of rejected rows to find.
+     * @return Rejected rows.
+     */
+    @Query("select r from ImportRejection r where r.mJobId = :jobId order by r.mLineNumber")
+    List<ImportRejection> findByJobId(@Param("jobId") Long inJobId, Pageable inPageable);
+}
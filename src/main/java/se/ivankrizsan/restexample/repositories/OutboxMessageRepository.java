@@ -0,0 +1,78 @@
+package se.ivankrizsan.restexample.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import se.ivankrizsan.restexample.domain.OutboxMessage;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for messages in the transactional outbox.
+ * Messages are claimed by a dispatcher using a conditional update, which works like
+ * SELECT ... FOR UPDATE SKIP LOCKED on databases, such as HSQLDB, that do not support it:
+ * a message is only claimed by the dispatcher whose update changed its claim token.
+ *
+ * @author Ivan Krizsan
+ */
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+    /**
+     * Finds the ids of messages that are not claimed or which claim has expired,
+     * oldest messages first.
+     *
+     * @param inClaimExpiry Messages claimed before this time may be claimed again.
+     * @param inPageable Maximum number of ids to find.
+     * @return Ids of claimable messages.
+     */
+    @Query("select m.mId from OutboxMessage m where m.mClaimToken is null or m.mClaimedAt < :expiry order by m.mId")
+    List<Long> findClaimableIds(@Param("expiry") Date inClaimExpiry, Pageable inPageable);
+
+    /**
+     * Claims the messages with supplied ids that are still claimable.
+     *
+     * @param inIds Ids of messages to claim.
+     * @param inClaimToken Token identifying the claim.
+     * @param inClaimedAt Time of claim.
+     * @param inClaimExpiry Messages claimed before this time may be claimed again.
+     * @return Number of messages claimed.
+     */
+    @Transactional
+    @Modifying
+    @Query("update OutboxMessage m set m.mClaimToken = :token, m.mClaimedAt = :claimedAt "
+        + "where m.mId in :ids and (m.mClaimToken is null or m.mClaimedAt < :expiry)")
+    int claim(@Param("ids") Collection<Long> inIds, @Param("token") String inClaimToken,
+        @Param("claimedAt") Date inClaimedAt, @Param("expiry") Date inClaimExpiry);
+
+    /**
+     * Finds the messages with the supplied claim token, oldest messages first.
+     *
+     * @param inClaimToken Claim token.
+     * @return Claimed messages.
+     */
+    @Query("select m from OutboxMessage m where m.mClaimToken = :token order by m.mId")
+    List<OutboxMessage> findClaimed(@Param("token") String inClaimToken);
+
+    /**
+     * Deletes the messages with the supplied claim token using a single bulk delete.
+     *
+     * @param inClaimToken Claim token.
+     * @return Number of messages deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxMessage m where m.mClaimToken = :token")
+    int deleteClaimed(@Param("token") String inClaimToken);
+
+    /**
+     * Finds the creation time of the oldest message in the outbox.
+     *
+     * @return Creation time, or null if outbox is empty.
+     */
+    @Query("select min(m.mCreatedAt) from OutboxMessage m")
+    Date findOldestCreatedAt();
+}
@@ -9,7 +9,9 @@ import org.springframework.data.repository.query.FluentQuery;
 import se.ivankrizsan.restexample.domain.Rectangle;
 import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisations;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -28,6 +30,28 @@ public interface RectangleRepository extends JpaRepositoryCustomisations<Rectang
     @Override
     Rectangle persist(Rectangle inEntity);
 
+    @Override
+    long deleteAllInBulk();
+
+    @Override
+    List<Map<String, Object>> findAllProjected(Collection<String> inPropertyNames);
+
+    @Override
+    Optional<Map<String, Object>> findProjectedById(Long inId, Collection<String> inPropertyNames);
+
+    @Override
+    List<Map<String, Object>> findAllProjected(Collection<String> inPropertyNames,
+        Map<String, String> inFilterParameters, Sort inSort);
+
+    @Override
+    List<Rectangle> findAllFiltered(Map<String, String> inFilterParameters, Sort inSort);
+
+    @Override
+    List<Rectangle> findAllAfter(Long inAfterId, int inLimit);
+
+    @Override
+    List<Rectangle> findAllByIdOrdered(List<Long> inIds);
+
     @Override
     void flush();
 
@@ -1,10 +1,17 @@
 package se.ivankrizsan.restexample.repositories.customisation;
 
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.repository.NoRepositoryBean;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
 /**
  * Interface defining custom method(s) added to all the Spring Data JPA repositories
  * in the application.
@@ -13,7 +20,7 @@ import org.springframework.data.repository.NoRepositoryBean;
  * @author Ivan Krizsan
  */
 @NoRepositoryBean
-public interface JpaRepositoryCustomisations<T> extends JpaRepository<T, Long> {
+public interface JpaRepositoryCustomisations<T> extends JpaRepository<T, Long>, JpaSpecificationExecutor<T> {
     /**
      * Persists the supplied entity.
      * If the entity has an id and previously has been persisted, it will be merged
@@ -25,4 +32,92 @@ public interface JpaRepositoryCustomisations<T> extends JpaRepository<T, Long> {
      */
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     T persist(T inEntity);
+
+    /**
+     * Deletes all entities using bulk delete statements without loading the entities.
+     * Entities contained in collections of the entities being deleted that are
+     * orphan-removed or to which removal is cascaded are also deleted using bulk delete
+     * statements, as are the rows of join tables of such collections.
+     * The persistence context is cleared and deleted entity types are evicted from the
+     * second-level cache.
+     *
+     * @return Number of entities deleted, not including contained entities.
+     */
+    long deleteAllInBulk();
+
+    /**
+     * Retrieves the supplied properties of all entities.
+     * Only the columns of the requested properties are selected and associations
+     * are not loaded.
+     *
+     * @param inPropertyNames Names of the properties to retrieve, as they appear in
+     * entity representations.
+     * @return List of maps, one per entity, mapping property names to property values.
+     * @throws IllegalArgumentException If a property does not exist or cannot be projected.
+     */
+    List<Map<String, Object>> findAllProjected(Collection<String> inPropertyNames);
+
+    /**
+     * Retrieves the supplied properties of the entity with supplied id.
+     *
+     * @param inId Id of entity to retrieve.
+     * @param inPropertyNames Names of the properties to retrieve, as they appear in
+     * entity representations.
+     * @return Map mapping property names to property values, or empty if no entity found.
+     * @throws IllegalArgumentException If a property does not exist or cannot be projected.
+     */
+    Optional<Map<String, Object>> findProjectedById(Long inId, Collection<String> inPropertyNames);
+
+    /**
+     * Retrieves the supplied properties of the entities matching the supplied filter parameters
+     * in the supplied order.
+     *
+     * @param inPropertyNames Names of the properties to retrieve, as they appear in
+     * entity representations.
+     * @param inFilterParameters Filter parameters mapping property name, optionally followed
+     * by a period and an operator, to a value.
+     * @param inSort Order of the entities, referencing properties by name.
+     * @return List of maps, one per entity, mapping property names to property values.
+     * @throws IllegalArgumentException If a property or operator does not exist, a property
+     * cannot be projected or sorting on a property is not allowed.
+     */
+    List<Map<String, Object>> findAllProjected(Collection<String> inPropertyNames,
+        Map<String, String> inFilterParameters, Sort inSort);
+
+    /**
+     * Retrieves the entities matching the supplied filter parameters in the supplied order.
+     * The name of a filter parameter is the name of a property, optionally followed by a period
+     * and one of the operators eq, ne, gt, gte, lt, lte or like.
+     * Sorting on properties that are not indexed is rejected for large tables.
+     *
+     * @param inFilterParameters Filter parameters mapping property name, optionally followed
+     * by a period and an operator, to a value.
+     * @param inSort Order of the entities, referencing properties by name.
+     * @return Matching entities.
+     * @throws IllegalArgumentException If a property or operator does not exist or
+     * sorting on a property is not allowed.
+     */
+    List<T> findAllFiltered(Map<String, String> inFilterParameters, Sort inSort);
+
+    /**
+     * Retrieves at most the supplied number of entities which ids are greater than the
+     * supplied id, in id order. Used for cursor pagination where the cursor is the id
+     * of the last entity of the previous page.
+     *
+     * @param inAfterId Id after which to retrieve entities, null to retrieve the first page.
+     * @param inLimit Maximum number of entities to retrieve.
+     * @return Entities in id order.
+     */
+    List<T> findAllAfter(Long inAfterId, int inLimit);
+
+    /**
+     * Retrieves the entities with the supplied ids in the order of the ids.
+     * Entities already in the persistence context or in the second-level cache are not queried for.
+     * The remaining entities are queried for in chunks of ids of a fixed size.
+     *
+     * @param inIds Ids of entities to retrieve. May contain duplicates.
+     * @return List with one element per supplied id, in the same order, containing the entity
+     * with the id or null if there is no entity with the id.
+     */
+    List<T> findAllByIdOrdered(List<Long> inIds);
 }
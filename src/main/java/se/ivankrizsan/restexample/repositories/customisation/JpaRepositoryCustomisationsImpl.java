@@ -1,11 +1,35 @@
 package se.ivankrizsan.restexample.repositories.customisation;
 
+import jakarta.persistence.Cache;
+import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Index;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.PluralAttribute;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
 import org.springframework.transaction.annotation.Transactional;
 import se.ivankrizsan.restexample.domain.LongIdEntity;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * This class implements the Spring Data JPA repository customisations.
  * Need to annotate the persist method in this class with the Spring
@@ -16,12 +40,33 @@ import se.ivankrizsan.restexample.domain.LongIdEntity;
  * @param <T> Entity type.
  * @author Ivan Krizsan
  */
+@Slf4j
 public class JpaRepositoryCustomisationsImpl<T> extends SimpleJpaRepository<T, Long> implements
     JpaRepositoryCustomisations<T> {
     /* Constant(s): */
+    /** Prefix of entity field names, which are also the JPA attribute names. */
+    protected static final String FIELD_NAME_PREFIX = "m";
+    protected static final String ENTITY_ALIAS = "e";
+    protected static final String ID_ATTRIBUTE_NAME = "mId";
+    protected static final String FILTER_OPERATOR_EQ = "eq";
+    /** Maximum number of entities for which sorting on unindexed properties is allowed. */
+    public static final long UNINDEXED_SORT_MAX_ROWS = 10_000;
+    /**
+     * Number of ids in each IN list when retrieving entities by id.
+     * All IN lists have the same number of parameters so that one query plan is used.
+     */
+    public static final int ID_CHUNK_SIZE = 50;
+    protected static final String IDS_PARAMETER = "ids";
 
     /* Instance variable(s): */
     protected EntityManager mEntityManager;
+    /**
+     * JPQL projection queries keyed by comma-separated list of property names.
+     * Using the same query string for the same set of properties allows Hibernate
+     * to reuse the query plan.
+     */
+    protected final Map<String, String> mProjectionQueries = new ConcurrentHashMap<>();
+    protected volatile Set<String> mIndexedAttributeNames;
 
     /**
      * Creates a repository instance for the entity specified by the supplied entity
@@ -65,4 +110,438 @@ public class JpaRepositoryCustomisationsImpl<T> extends SimpleJpaRepository<T, L
 
         return theSavedEntity;
     }
+
+    @Transactional
+    @Override
+    public long deleteAllInBulk() {
+        /* Pending changes must be written before the bulk statements bypass the persistence context. */
+        mEntityManager.flush();
+
+        final EntityType<T> theEntityType = entityType();
+        final Set<Class<?>> theDeletedTypes = new HashSet<>();
+        theDeletedTypes.add(getDomainClass());
+        for (final PluralAttribute<? super T, ?, ?> theCollectionAttribute : theEntityType.getPluralAttributes()) {
+            if (!isRemovalCascaded(theCollectionAttribute)) {
+                continue;
+            }
+            /*
+             * Contained entities are deleted one concrete entity type at a time, since there is no
+             * table for an abstract entity type when using the table-per-class inheritance strategy.
+             */
+            for (final EntityType<?> theElementType :
+                concreteEntityTypes(theCollectionAttribute.getElementType().getJavaType())) {
+                final int theDeletedElementsCount = mEntityManager.createQuery(
+                    "delete from " + theElementType.getName() + " x where x." + ID_ATTRIBUTE_NAME
+                        + " in (select c." + ID_ATTRIBUTE_NAME + " from " + theEntityType.getName() + " "
+                        + ENTITY_ALIAS + " join " + ENTITY_ALIAS + "." + theCollectionAttribute.getName() + " c)")
+                    .executeUpdate();
+                theDeletedTypes.add(theElementType.getJavaType());
+                log.info("Deleted {} entities of type {} contained in {}.{}", theDeletedElementsCount,
+                    theElementType.getName(), theEntityType.getName(), theCollectionAttribute.getName());
+            }
+        }
+
+        /* Hibernate deletes the rows of the join tables of the entities in the same operation. */
+        final int theDeletedCount = mEntityManager
+            .createQuery("delete from " + theEntityType.getName())
+            .executeUpdate();
+        log.info("Deleted {} entities of type {}", theDeletedCount, theEntityType.getName());
+
+        mEntityManager.clear();
+        final Cache theSecondLevelCache = mEntityManager.getEntityManagerFactory().getCache();
+        theDeletedTypes.forEach(theSecondLevelCache::evict);
+        return theDeletedCount;
+    }
+
+    @Override
+    public List<Map<String, Object>> findAllProjected(final Collection<String> inPropertyNames) {
+        final String theProjectionQuery = projectionQuery(inPropertyNames);
+        final List<Tuple> theTuples = mEntityManager
+            .createQuery(theProjectionQuery, Tuple.class)
+            .getResultList();
+
+        final List<Map<String, Object>> theProjections = new ArrayList<>(theTuples.size());
+        for (final Tuple theTuple : theTuples) {
+            theProjections.add(tupleToMap(theTuple, inPropertyNames));
+        }
+        return theProjections;
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findProjectedById(final Long inId,
+        final Collection<String> inPropertyNames) {
+        final String theProjectionQuery = projectionQuery(inPropertyNames)
+            + " where " + ENTITY_ALIAS + ".mId = :id";
+        return mEntityManager
+            .createQuery(theProjectionQuery, Tuple.class)
+            .setParameter("id", inId)
+            .getResultStream()
+            .findFirst()
+            .map(inTuple -> tupleToMap(inTuple, inPropertyNames));
+    }
+
+    /**
+     * Retrieves the JPQL query selecting the supplied properties of the entity type
+     * of the repository, creating the query if it has not been created before.
+     *
+     * @param inPropertyNames Names of properties to select.
+     * @return JPQL query selecting one tuple per entity.
+     * @throws IllegalArgumentException If a property does not exist or cannot be projected.
+     */
+    protected String projectionQuery(final Collection<String> inPropertyNames) {
+        return mProjectionQueries.computeIfAbsent(String.join(",", inPropertyNames), inKey -> {
+            final StringJoiner theSelections = new StringJoiner(", ");
+            for (final String thePropertyName : inPropertyNames) {
+                theSelections.add(ENTITY_ALIAS + "." + attributeName(thePropertyName) + " as " + thePropertyName);
+            }
+            return "select " + theSelections + " from " + entityType().getName() + " " + ENTITY_ALIAS;
+        });
+    }
+
+    @Override
+    public List<Map<String, Object>> findAllProjected(final Collection<String> inPropertyNames,
+        final Map<String, String> inFilterParameters, final Sort inSort) {
+        final CriteriaBuilder theCriteriaBuilder = mEntityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> theQuery = theCriteriaBuilder.createTupleQuery();
+        final Root<T> theRoot = theQuery.from(getDomainClass());
+
+        final List<Selection<?>> theSelections = new ArrayList<>();
+        for (final String thePropertyName : inPropertyNames) {
+            theSelections.add(theRoot.get(attributeName(thePropertyName)).alias(thePropertyName));
+        }
+        theQuery.multiselect(theSelections);
+        final Predicate theFilterPredicate = filterSpecification(inFilterParameters)
+            .toPredicate(theRoot, theQuery, theCriteriaBuilder);
+        if (theFilterPredicate != null) {
+            theQuery.where(theFilterPredicate);
+        }
+        theQuery.orderBy(QueryUtils.toOrders(checkedAttributeSort(inSort), theRoot, theCriteriaBuilder));
+
+        final List<Map<String, Object>> theProjections = new ArrayList<>();
+        for (final Tuple theTuple : mEntityManager.createQuery(theQuery).getResultList()) {
+            theProjections.add(tupleToMap(theTuple, inPropertyNames));
+        }
+        return theProjections;
+    }
+
+    @Override
+    public List<T> findAllFiltered(final Map<String, String> inFilterParameters, final Sort inSort) {
+        return findAll(filterSpecification(inFilterParameters), checkedAttributeSort(inSort));
+    }
+
+    @Override
+    public List<T> findAllAfter(final Long inAfterId, final int inLimit) {
+        final CriteriaBuilder theCriteriaBuilder = mEntityManager.getCriteriaBuilder();
+        final CriteriaQuery<T> theQuery = theCriteriaBuilder.createQuery(getDomainClass());
+        final Root<T> theRoot = theQuery.from(getDomainClass());
+        if (inAfterId != null) {
+            theQuery.where(theCriteriaBuilder.greaterThan(theRoot.<Long>get(ID_ATTRIBUTE_NAME), inAfterId));
+        }
+        theQuery.orderBy(theCriteriaBuilder.asc(theRoot.get(ID_ATTRIBUTE_NAME)));
+        return mEntityManager
+            .createQuery(theQuery)
+            .setMaxResults(inLimit)
+            .getResultList();
+    }
+
+    @Override
+    public List<T> findAllById(final Iterable<Long> inIds) {
+        final List<Long> theIds = new ArrayList<>();
+        inIds.forEach(theIds::add);
+        return findAllByIdOrdered(theIds)
+            .stream()
+            .filter(Objects::nonNull)
+            .distinct()
+            .toList();
+    }
+
+    @Override
+    public List<T> findAllByIdOrdered(final List<Long> inIds) {
+        final Map<Long, T> theEntitiesById = new HashMap<>();
+        final List<Long> theIdsToQuery = new ArrayList<>();
+        for (final Long theId : new LinkedHashSet<>(inIds)) {
+            final T theLoadedEntity = findLoadedEntity(theId);
+            if (theLoadedEntity != null) {
+                theEntitiesById.put(theId, theLoadedEntity);
+            } else {
+                theIdsToQuery.add(theId);
+            }
+        }
+
+        final String theQuery = "select " + ENTITY_ALIAS + " from " + entityType().getName() + " " + ENTITY_ALIAS
+            + " where " + ENTITY_ALIAS + "." + ID_ATTRIBUTE_NAME + " in :" + IDS_PARAMETER;
+        for (int theChunkStart = 0; theChunkStart < theIdsToQuery.size(); theChunkStart += ID_CHUNK_SIZE) {
+            final List<Long> theChunkIds = new ArrayList<>(theIdsToQuery.subList(
+                theChunkStart, Math.min(theChunkStart + ID_CHUNK_SIZE, theIdsToQuery.size())));
+            /* The last chunk is padded by repeating its last id so that its IN list has the same size. */
+            while (theChunkIds.size() < ID_CHUNK_SIZE) {
+                theChunkIds.add(theChunkIds.get(theChunkIds.size() - 1));
+            }
+            final List<T> theChunkEntities = mEntityManager
+                .createQuery(theQuery, getDomainClass())
+                .setParameter(IDS_PARAMETER, theChunkIds)
+                .getResultList();
+            for (final T theEntity : theChunkEntities) {
+                theEntitiesById.put(((LongIdEntity) theEntity).getId(), theEntity);
+            }
+        }
+
+        final List<T> theEntities = new ArrayList<>(inIds.size());
+        for (final Long theId : inIds) {
+            theEntities.add(theEntitiesById.get(theId));
+        }
+        return theEntities;
+    }
+
+    /**
+     * Retrieves the entity with supplied id without querying the database, if the entity
+     * is in the persistence context or in the second-level cache.
+     *
+     * @param inId Entity id.
+     * @return Entity, or null if the entity has not been loaded.
+     */
+    protected T findLoadedEntity(final Long inId) {
+        final SessionImplementor theSession = mEntityManager.unwrap(SessionImplementor.class);
+        final EntityPersister theEntityPersister = theSession
+            .getFactory()
+            .getMappingMetamodel()
+            .getEntityDescriptor(getDomainClass());
+        final Object theEntity = theSession
+            .getPersistenceContextInternal()
+            .getEntity(theSession.generateEntityKey(inId, theEntityPersister));
+        if (getDomainClass().isInstance(theEntity)) {
+            return getDomainClass().cast(theEntity);
+        }
+        if (mEntityManager.getEntityManagerFactory().getCache().contains(getDomainClass(), inId)) {
+            return mEntityManager.find(getDomainClass(), inId);
+        }
+        return null;
+    }
+
+    /**
+     * Creates a specification that restricts entities according to the supplied filter parameters.
+     * The name of a filter parameter is the name of a property, optionally followed by a period
+     * and one of the operators eq, ne, gt, gte, lt, lte or like. If no operator is present,
+     * the eq operator is used.
+     * Filter parameters are combined using logical and.
+     *
+     * @param inFilterParameters Filter parameters mapping property and operator to value.
+     * @return Specification restricting entities.
+     * @throws IllegalArgumentException If a property is missing, a property or operator does not exist
+     * or a value cannot be converted to the type of the property.
+     */
+    protected Specification<T> filterSpecification(final Map<String, String> inFilterParameters) {
+        Specification<T> theSpecification = Specification.where(null);
+        for (final Map.Entry<String, String> theFilterParameter : inFilterParameters.entrySet()) {
+            final String[] theNameParts = theFilterParameter.getKey().split("\\.", 2);
+            if (theNameParts[0].isEmpty()) {
+                throw new IllegalArgumentException("Filter parameter without property: " + theFilterParameter.getKey());
+            }
+            final String theAttributeName = attributeName(theNameParts[0]);
+            final String theOperator = (theNameParts.length > 1) ? theNameParts[1] : FILTER_OPERATOR_EQ;
+            final String theValueString = theFilterParameter.getValue();
+
+            theSpecification = theSpecification.and((inRoot, inQuery, inCriteriaBuilder) -> {
+                final Path<Comparable<Object>> thePath = inRoot.get(theAttributeName);
+                final Comparable<Object> theValue = convertFilterValue(theValueString, thePath.getJavaType());
+                return switch (theOperator) {
+                    case FILTER_OPERATOR_EQ -> inCriteriaBuilder.equal(thePath, theValue);
+                    case "ne" -> inCriteriaBuilder.notEqual(thePath, theValue);
+                    case "gt" -> inCriteriaBuilder.greaterThan(thePath, theValue);
+                    case "gte" -> inCriteriaBuilder.greaterThanOrEqualTo(thePath, theValue);
+                    case "lt" -> inCriteriaBuilder.lessThan(thePath, theValue);
+                    case "lte" -> inCriteriaBuilder.lessThanOrEqualTo(thePath, theValue);
+                    case "like" -> inCriteriaBuilder.like(thePath.as(String.class), theValueString);
+                    default -> throw new IllegalArgumentException("Unknown filter operator: " + theOperator);
+                };
+            });
+        }
+        return theSpecification;
+    }
+
+    /**
+     * Converts the supplied filter value to the supplied type.
+     * Dates are expected in ISO-8601 instant format.
+     *
+     * @param inValue Filter value to convert.
+     * @param inType Type of property the filter value is to be compared to.
+     * @return Converted filter value.
+     * @throws IllegalArgumentException If the value cannot be converted.
+     */
+    @SuppressWarnings("unchecked")
+    protected static Comparable<Object> convertFilterValue(final String inValue, final Class<?> inType) {
+        try {
+            final Object theValue = Date.class.isAssignableFrom(inType)
+                ? Date.from(Instant.parse(inValue))
+                : DefaultConversionService.getSharedInstance().convert(inValue, inType);
+            return (Comparable<Object>) theValue;
+        } catch (final RuntimeException theException) {
+            throw new IllegalArgumentException(
+                "Cannot filter on value " + inValue + " of type " + inType.getSimpleName());
+        }
+    }
+
+    /**
+     * Translates the property names in the supplied sort to attribute names and verifies
+     * that the sort can be performed.
+     * Sorting on properties that are not indexed is only allowed if the number of
+     * entities does not exceed {@link #UNINDEXED_SORT_MAX_ROWS}.
+     *
+     * @param inSort Sort referencing properties by name.
+     * @return Sort referencing attributes by name.
+     * @throws IllegalArgumentException If a property does not exist or sorting on it is not allowed.
+     */
+    protected Sort checkedAttributeSort(final Sort inSort) {
+        final List<Sort.Order> theAttributeOrders = new ArrayList<>();
+        Boolean theTooManyRowsFlag = null;
+        for (final Sort.Order theOrder : inSort) {
+            final String theAttributeName = attributeName(theOrder.getProperty());
+            if (!indexedAttributeNames().contains(theAttributeName)) {
+                if (theTooManyRowsFlag == null) {
+                    theTooManyRowsFlag = hasMoreRowsThan(UNINDEXED_SORT_MAX_ROWS);
+                }
+                if (theTooManyRowsFlag) {
+                    throw new IllegalArgumentException("Sorting on property " + theOrder.getProperty()
+                        + " is not allowed since it is not indexed");
+                }
+            }
+            theAttributeOrders.add(theOrder.withProperty(theAttributeName));
+        }
+        return Sort.by(theAttributeOrders);
+    }
+
+    /**
+     * Determines whether there are more than the supplied number of entities.
+     * Instead of counting all entities, the id of the entity following the supplied number
+     * of entities is retrieved, so that at most that many rows are read.
+     *
+     * @param inRowCount Number of entities.
+     * @return True if there are more entities than the supplied number, false otherwise.
+     */
+    protected boolean hasMoreRowsThan(final long inRowCount) {
+        return !mEntityManager
+            .createQuery("select " + ENTITY_ALIAS + "." + ID_ATTRIBUTE_NAME + " from " + entityType().getName()
+                + " " + ENTITY_ALIAS, Long.class)
+            .setFirstResult((int) inRowCount)
+            .setMaxResults(1)
+            .getResultList()
+            .isEmpty();
+    }
+
+    /**
+     * Retrieves the names of the attributes of the entity type of the repository that
+     * are indexed in the database, as declared in the table annotation of the entity class.
+     * The id attribute is always considered indexed.
+     *
+     * @return Names of indexed attributes.
+     */
+    protected Set<String> indexedAttributeNames() {
+        if (mIndexedAttributeNames == null) {
+            final Set<String> theIndexedColumnNames = new HashSet<>();
+            final Table theTableAnnotation = getDomainClass().getAnnotation(Table.class);
+            if (theTableAnnotation != null) {
+                for (final Index theIndex : theTableAnnotation.indexes()) {
+                    /* Only the first column of an index can be used for sorting. */
+                    theIndexedColumnNames.add(theIndex.columnList().split(",")[0].trim().split(" ")[0]);
+                }
+            }
+
+            final Set<String> theIndexedAttributeNames = new HashSet<>();
+            theIndexedAttributeNames.add(ID_ATTRIBUTE_NAME);
+            for (Class<?> theClass = getDomainClass(); theClass != null; theClass = theClass.getSuperclass()) {
+                for (final Field theField : theClass.getDeclaredFields()) {
+                    final Column theColumnAnnotation = theField.getAnnotation(Column.class);
+                    if (theColumnAnnotation != null && theIndexedColumnNames.contains(theColumnAnnotation.name())) {
+                        theIndexedAttributeNames.add(theField.getName());
+                    }
+                }
+            }
+            mIndexedAttributeNames = theIndexedAttributeNames;
+        }
+        return mIndexedAttributeNames;
+    }
+
+    /**
+     * Retrieves the name of the JPA attribute corresponding to the supplied property name.
+     *
+     * @param inPropertyName Name of property as it appears in entity representations.
+     * @return Attribute name.
+     * @throws IllegalArgumentException If the property does not exist or is a collection or association.
+     */
+    protected String attributeName(final String inPropertyName) {
+        final String theAttributeName = FIELD_NAME_PREFIX
+            + Character.toUpperCase(inPropertyName.charAt(0)) + inPropertyName.substring(1);
+        final Attribute<? super T, ?> theAttribute;
+        try {
+            theAttribute = entityType().getAttribute(theAttributeName);
+        } catch (final IllegalArgumentException theException) {
+            throw new IllegalArgumentException("Unknown property: " + inPropertyName);
+        }
+        if (theAttribute.isCollection() || theAttribute.isAssociation()) {
+            throw new IllegalArgumentException("Property cannot be selected: " + inPropertyName);
+        }
+        return theAttributeName;
+    }
+
+    /**
+     * Determines whether removal of an entity is cascaded to the entities in the supplied
+     * collection attribute, either by cascade or by orphan removal.
+     *
+     * @param inCollectionAttribute Collection attribute.
+     * @return True if contained entities are removed with the containing entity, false otherwise.
+     */
+    protected static boolean isRemovalCascaded(final PluralAttribute<?, ?, ?> inCollectionAttribute) {
+        if (!(inCollectionAttribute.getJavaMember() instanceof Field theField)) {
+            return false;
+        }
+        final OneToMany theOneToManyAnnotation = theField.getAnnotation(OneToMany.class);
+        if (theOneToManyAnnotation == null) {
+            return false;
+        }
+        final List<CascadeType> theCascadeTypes = Arrays.asList(theOneToManyAnnotation.cascade());
+        return theOneToManyAnnotation.orphanRemoval() || theCascadeTypes.contains(CascadeType.ALL)
+            || theCascadeTypes.contains(CascadeType.REMOVE);
+    }
+
+    /**
+     * Retrieves the metamodel types of the non-abstract entity types that are the supplied
+     * type or a subtype of it.
+     *
+     * @param inType Entity type.
+     * @return Metamodel entity types.
+     */
+    protected List<EntityType<?>> concreteEntityTypes(final Class<?> inType) {
+        final List<EntityType<?>> theConcreteEntityTypes = new ArrayList<>();
+        for (final EntityType<?> theEntityType : mEntityManager.getMetamodel().getEntities()) {
+            final Class<?> theJavaType = theEntityType.getJavaType();
+            if (inType.isAssignableFrom(theJavaType) && !Modifier.isAbstract(theJavaType.getModifiers())) {
+                theConcreteEntityTypes.add(theEntityType);
+            }
+        }
+        return theConcreteEntityTypes;
+    }
+
+    /**
+     * Retrieves the JPA metamodel type of the entity type of the repository.
+     *
+     * @return Entity metamodel type.
+     */
+    protected EntityType<T> entityType() {
+        return mEntityManager.getMetamodel().entity(getDomainClass());
+    }
+
+    /**
+     * Creates a map containing the property values in the supplied tuple.
+     *
+     * @param inTuple Tuple containing property values aliased with the property names.
+     * @param inPropertyNames Names of properties in tuple.
+     * @return Map mapping property names to property values, in the order of the property names.
+     */
+    protected static Map<String, Object> tupleToMap(final Tuple inTuple, final Collection<String> inPropertyNames) {
+        final Map<String, Object> theProjection = new LinkedHashMap<>();
+        for (final String thePropertyName : inPropertyNames) {
+            theProjection.put(thePropertyName, inTuple.get(thePropertyName));
+        }
+        return theProjection;
+    }
 }
@@ -0,0 +1,98 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to the latency of requests using additive increase,
+ * multiplicative decrease (AIMD), in the manner of the AIMD limit of Netflix concurrency-limits.
+ * The limit is increased by one when a request completes within the latency threshold while at
+ * least half of the limit was in use and decreased by the backoff ratio when a request
+ * takes longer than the latency threshold or fails due to overload.
+ *
+ * @author Ivan Krizsan
+ */
+public class AdaptiveConcurrencyLimit {
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    protected final int mMinLimit;
+    protected final int mMaxLimit;
+    protected final long mLatencyThresholdNanos;
+    protected final double mBackoffRatio;
+    protected final AtomicInteger mInFlightCount = new AtomicInteger();
+    protected volatile double mLimit;
+
+    /**
+     * Creates an adaptive concurrency limit.
+     *
+     * @param inInitialLimit Initial limit.
+     * @param inMinLimit Limit will never be decreased below this limit.
+     * @param inMaxLimit Limit will never be increased above this limit.
+     * @param inLatencyThresholdNanos Requests taking longer than this number of nanoseconds decrease the limit.
+     * @param inBackoffRatio Factor, between 0 and 1, by which the limit is multiplied when decreased.
+     */
+    public AdaptiveConcurrencyLimit(final int inInitialLimit, final int inMinLimit, final int inMaxLimit,
+        final long inLatencyThresholdNanos, final double inBackoffRatio) {
+        if (inMinLimit < 1 || inMinLimit > inMaxLimit || inBackoffRatio <= 0 || inBackoffRatio >= 1) {
+            throw new IllegalArgumentException("Invalid concurrency limit configuration");
+        }
+        mMinLimit = inMinLimit;
+        mMaxLimit = inMaxLimit;
+        mLatencyThresholdNanos = inLatencyThresholdNanos;
+        mBackoffRatio = inBackoffRatio;
+        mLimit = Math.max(inMinLimit, Math.min(inMaxLimit, inInitialLimit));
+    }
+
+    /**
+     * Attempts to admit one more request.
+     * Each successful acquire must be followed by a call to {@code release}.
+     *
+     * @return True if request admitted, false if limit reached.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            final int theInFlightCount = mInFlightCount.get();
+            if (theInFlightCount >= getLimit()) {
+                return false;
+            }
+            if (mInFlightCount.compareAndSet(theInFlightCount, theInFlightCount + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases an admitted request and adapts the limit to the outcome of the request.
+     *
+     * @param inLatencyNanos Time in nanoseconds taken to process the request.
+     * @param inOverloadedFlag True if the request failed due to overload, false otherwise.
+     */
+    public void release(final long inLatencyNanos, final boolean inOverloadedFlag) {
+        final int theInFlightCount = mInFlightCount.getAndDecrement();
+        synchronized (this) {
+            if (inOverloadedFlag || inLatencyNanos > mLatencyThresholdNanos) {
+                mLimit = Math.max(mMinLimit, mLimit * mBackoffRatio);
+            } else if (theInFlightCount * 2 >= mLimit) {
+                mLimit = Math.min(mMaxLimit, mLimit + 1);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the current limit.
+     *
+     * @return Maximum number of requests currently admitted concurrently.
+     */
+    public int getLimit() {
+        return (int) mLimit;
+    }
+
+    /**
+     * Retrieves the number of admitted requests that have not been released.
+     *
+     * @return Number of requests in flight.
+     */
+    public int getInFlightCount() {
+        return mInFlightCount.get();
+    }
+}
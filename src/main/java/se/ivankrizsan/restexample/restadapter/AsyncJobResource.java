@@ -0,0 +1,100 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import io.micrometer.observation.annotation.Observed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import se.ivankrizsan.restexample.services.jobs.AsyncJob;
+import se.ivankrizsan.restexample.services.jobs.AsyncJobService;
+
+import java.util.Optional;
+
+/**
+ * REST resource exposing jobs running expensive operations in the background.
+ * Jobs are submitted by requesting an operation with the header {@code Prefer: respond-async},
+ * for example {@code DELETE /circles}.
+ *
+ * @author Ivan Krizsan
+ */
+@RestController
+@RequestMapping(value = AsyncJobResource.PATH,
+    produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_PLAIN_VALUE})
+@Observed(name = "AsyncJobResource")
+@Slf4j
+public class AsyncJobResource {
+    /* Constant(s): */
+    public static final String PATH = "/jobs";
+
+    /* Instance variable(s): */
+    protected final AsyncJobService mAsyncJobService;
+
+    /**
+     * Creates a REST resource using the supplied service to retrieve and cancel jobs.
+     *
+     * @param inAsyncJobService Service used to retrieve and cancel jobs.
+     */
+    public AsyncJobResource(final AsyncJobService inAsyncJobService) {
+        mAsyncJobService = inAsyncJobService;
+    }
+
+    /**
+     * Retrieves the status of the job with supplied id, containing the result of the job
+     * if it has completed.
+     *
+     * @param inJobId Job id.
+     * @return HTTP response object with HTTP status 200 if operation succeeded, HTTP status 404
+     * if there is no such job or HTTP error status code and a plain-text error message
+     * if another error occurred.
+     */
+    @GetMapping(path = "{id}")
+    public ResponseEntity<?> getJob(@PathVariable("id") final Long inJobId) {
+        log.info("Received request to get job with id {}", inJobId);
+
+        return RestResourceBasePlain.performServiceOperation(
+            () -> jobResponse(inJobId, mAsyncJobService.findJob(inJobId)),
+            500, "An error occurred finding job with id " + inJobId + ": "
+        );
+    }
+
+    /**
+     * Cancels the job with supplied id. The status of the job is returned; cancellation of
+     * a running job is requested and the job is cancelled when it has been interrupted.
+     * Cancelling a finished job has no effect.
+     *
+     * @param inJobId Job id.
+     * @return HTTP response object with HTTP status 200 if operation succeeded, HTTP status 404
+     * if there is no such job or HTTP error status code and a plain-text error message
+     * if another error occurred.
+     */
+    @DeleteMapping(path = "{id}")
+    public ResponseEntity<?> cancelJob(@PathVariable("id") final Long inJobId) {
+        log.info("Received request to cancel job with id {}", inJobId);
+
+        return RestResourceBasePlain.performServiceOperation(
+            () -> jobResponse(inJobId, mAsyncJobService.cancel(inJobId)),
+            500, "An error occurred cancelling job with id " + inJobId + ": "
+        );
+    }
+
+    /**
+     * Creates a response containing the status of the supplied job, or a 404 response if
+     * there is no job.
+     *
+     * @param inJobId Job id.
+     * @param inJob Job, or empty if there is no such job.
+     * @return Response object.
+     */
+    protected static ResponseEntity<?> jobResponse(final Long inJobId, final Optional<AsyncJob> inJob) {
+        return inJob
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity
+                .status(404)
+                .contentType(MediaType.TEXT_PLAIN)
+                .body("No job with id " + inJobId));
+    }
+}
@@ -0,0 +1,31 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * One operation in a batch request, see {@link BatchResource}.
+ * An operation targets an existing REST resource with an HTTP method, a path relative to
+ * the application, for example {@code /circles/1}, and an optional request body.
+ * An operation may be given a reference name, which later operations in the same batch use
+ * to refer to the id of the entity the operation created or retrieved, written as {@code ${name}}
+ * in the path or as a string value in the body.
+ *
+ * @author Ivan Krizsan
+ */
+@Getter
+@Setter
+@Accessors(prefix = "m")
+@NoArgsConstructor
+public class BatchOperation {
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    protected String mMethod;
+    protected String mPath;
+    protected String mRef;
+    protected JsonNode mBody;
+}
@@ -0,0 +1,495 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.annotation.Observed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import se.ivankrizsan.restexample.domain.LongIdEntity;
+import se.ivankrizsan.restexample.domain.Shape;
+import se.ivankrizsan.restexample.services.DrawingPatchOperation;
+import se.ivankrizsan.restexample.sharding.ShardManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * REST resource performing an ordered list of operations on the other REST resources in one
+ * request, see {@link BatchOperation}. The operations are performed in order and the status and
+ * response body of each operation is returned. Each operation is observed as a child of the
+ * observation of the batch request.
+ * The following operations are supported, where {@code /{entities}} is the path of the resource
+ * of an entity type, for example {@code /circles}:
+ * <ul>
+ *     <li>{@code GET}, {@code POST} and {@code DELETE} on {@code /{entities}}.</li>
+ *     <li>{@code GET}, {@code PUT} and {@code DELETE} on {@code /{entities}/{id}}.</li>
+ *     <li>{@code PATCH} on {@code /drawings/{id}}.</li>
+ *     <li>{@code POST} on {@code /drawings/{id}/shapes} and {@code DELETE} on
+ *     {@code /drawings/{id}/shapes/{shapeId}}.</li>
+ * </ul>
+ * By default, each operation is performed in a transaction of its own and a failed operation
+ * does not prevent later operations from being performed. In atomic mode, all operations are
+ * performed in one transaction, which is rolled back if an operation fails, in which case the
+ * remaining operations are not performed. Atomic mode is not supported with sharding enabled,
+ * since the entities of a batch may reside in different shards.
+ *
+ * @author Ivan Krizsan
+ */
+@RestController
+@RequestMapping(value = BatchResource.PATH,
+    produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_PLAIN_VALUE},
+    consumes = MediaType.APPLICATION_JSON_VALUE)
+@Observed(name = "BatchResource")
+@Slf4j
+public class BatchResource {
+    /* Constant(s): */
+    public static final String PATH = "/batch";
+    /** Request parameter selecting whether all operations are performed in one transaction. */
+    public static final String ATOMIC_PARAMETER = "atomic";
+    /** HTTP status of an operation that depends on an operation that failed or was not performed. */
+    public static final int FAILED_DEPENDENCY_STATUS = 424;
+    protected static final Pattern REFERENCE_PATTERN = Pattern.compile("\\$\\{(\\w+)}");
+    protected static final String DRAWINGS_PATH = DrawingResource.PATH.substring(1);
+    protected static final String SHAPES_PATH_SEGMENT = "shapes";
+    protected static final String ID_PROPERTY = "id";
+
+    /* Instance variable(s): */
+    protected final Map<String, RestResourceBasePlain<?>> mResources = new HashMap<>();
+    protected final Map<String, Class<?>> mEntityTypes = new HashMap<>();
+    protected final DrawingResource mDrawingResource;
+    protected final ObjectMapper mObjectMapper;
+    protected final TransactionTemplate mTransactionTemplate;
+    protected final ObservationRegistry mObservationRegistry;
+    protected final int mMaxOperations;
+    protected ShardManager mShardManager;
+
+    /**
+     * Creates a batch REST resource performing operations on the supplied REST resources.
+     *
+     * @param inResources REST resources of the entity types.
+     * @param inDrawingResource REST resource of drawings.
+     * @param inObjectMapper Object mapper used to create request bodies of operations.
+     * @param inTransactionManager Transaction manager used to perform atomic batches.
+     * @param inObservationRegistry Registry in which operations are observed.
+     * @param inMaxOperations Maximum number of operations in one batch.
+     */
+    public BatchResource(final List<RestResourceBasePlain<?>> inResources, final DrawingResource inDrawingResource,
+        final ObjectMapper inObjectMapper, final PlatformTransactionManager inTransactionManager,
+        final ObservationRegistry inObservationRegistry,
+        @Value("${restexample.batch.max-operations:100}") final int inMaxOperations) {
+        for (final RestResourceBasePlain<?> theResource : inResources) {
+            final Class<?> theResourceClass = AopUtils.getTargetClass(theResource);
+            final RequestMapping theRequestMapping =
+                AnnotatedElementUtils.findMergedAnnotation(theResourceClass, RequestMapping.class);
+            if (theRequestMapping != null && theRequestMapping.path().length > 0) {
+                final String theResourcePath = theRequestMapping.path()[0].replaceAll("^/+|/+$", "");
+                mResources.put(theResourcePath, theResource);
+                mEntityTypes.put(theResourcePath,
+                    GenericTypeResolver.resolveTypeArgument(theResourceClass, RestResourceBasePlain.class));
+            }
+        }
+        mDrawingResource = inDrawingResource;
+        mObjectMapper = inObjectMapper;
+        mTransactionTemplate = new TransactionTemplate(inTransactionManager);
+        mObservationRegistry = inObservationRegistry;
+        mMaxOperations = inMaxOperations;
+    }
+
+    /**
+     * Performs the supplied operations in order.
+     * The response contains, for each operation, its index, reference name, HTTP status and
+     * response body. Whether all operations succeeded and whether an atomic batch was rolled back
+     * is also included. An operation referring to an operation that failed has HTTP status 424.
+     *
+     * @param inAtomicFlag True if all operations are to be performed in one transaction.
+     * @param inOperations Operations to perform.
+     * @return HTTP response object with HTTP status 200 containing the results of the operations,
+     * HTTP status 400 if the batch is too large or atomic mode is not supported or HTTP error
+     * status code and a plain-text error message if another error occurred.
+     */
+    @PostMapping
+    public ResponseEntity<?> performBatch(
+        @RequestParam(name = ATOMIC_PARAMETER, defaultValue = "false") final boolean inAtomicFlag,
+        @RequestBody final List<BatchOperation> inOperations) {
+        log.info("Received request to perform batch of {} operations", inOperations.size());
+
+        if (inOperations.size() > mMaxOperations) {
+            return errorResponse(400, "A batch may contain at most " + mMaxOperations + " operations");
+        }
+        if (inAtomicFlag && mShardManager != null) {
+            return errorResponse(400, "Atomic batches are not supported with sharding enabled");
+        }
+        return RestResourceBasePlain.performServiceOperation(
+            () -> {
+                final List<Map<String, Object>> theResults = new ArrayList<>();
+                final boolean theSucceededFlag;
+                if (inAtomicFlag) {
+                    theSucceededFlag = Boolean.TRUE.equals(mTransactionTemplate.execute(inStatus -> {
+                        final boolean theAllSucceededFlag = performOperations(inOperations, true, theResults);
+                        if (!theAllSucceededFlag) {
+                            inStatus.setRollbackOnly();
+                        }
+                        return theAllSucceededFlag;
+                    }));
+                } else {
+                    theSucceededFlag = performOperations(inOperations, false, theResults);
+                }
+
+                final Map<String, Object> theBatchResult = new LinkedHashMap<>();
+                theBatchResult.put("atomic", inAtomicFlag);
+                theBatchResult.put("succeeded", theSucceededFlag);
+                theBatchResult.put("rolledBack", inAtomicFlag && !theSucceededFlag);
+                theBatchResult.put("results", theResults);
+                return ResponseEntity.ok(theBatchResult);
+            },
+            500, "An error occurred performing batch: "
+        );
+    }
+
+    /**
+     * Performs the supplied operations in order, adding the result of each operation to
+     * the supplied list of results.
+     *
+     * @param inOperations Operations to perform.
+     * @param inStopOnFailureFlag True if remaining operations are not to be performed after
+     * an operation has failed.
+     * @param outResults List to which results of operations are added.
+     * @return True if all operations succeeded, false otherwise.
+     */
+    protected boolean performOperations(final List<BatchOperation> inOperations, final boolean inStopOnFailureFlag,
+        final List<Map<String, Object>> outResults) {
+        final Map<String, Long> theReferencedIds = new HashMap<>();
+        boolean theSucceededFlag = true;
+        for (int theIndex = 0; theIndex < inOperations.size(); theIndex++) {
+            final BatchOperation theOperation = inOperations.get(theIndex);
+            final ResponseEntity<?> theResponse = (!theSucceededFlag && inStopOnFailureFlag)
+                ? errorResponse(FAILED_DEPENDENCY_STATUS, "Not performed, since an earlier operation failed")
+                : performObservedOperation(theIndex, theOperation, theReferencedIds);
+
+            if (theResponse.getStatusCode().is2xxSuccessful()) {
+                if (theOperation.getRef() != null) {
+                    final JsonNode theId = mObjectMapper.valueToTree(theResponse.getBody()).path(ID_PROPERTY);
+                    if (theId.canConvertToLong()) {
+                        theReferencedIds.put(theOperation.getRef(), theId.longValue());
+                    }
+                }
+            } else {
+                theSucceededFlag = false;
+            }
+
+            final Map<String, Object> theResult = new LinkedHashMap<>();
+            theResult.put("index", theIndex);
+            theResult.put("ref", theOperation.getRef());
+            theResult.put("status", theResponse.getStatusCode().value());
+            theResult.put("body", theResponse.getBody());
+            outResults.add(theResult);
+        }
+        return theSucceededFlag;
+    }
+
+    /**
+     * Performs the supplied operation in an observation that is a child of the observation
+     * of the batch request.
+     *
+     * @param inIndex Index of operation in batch.
+     * @param inOperation Operation to perform.
+     * @param inReferencedIds Ids of entities of earlier operations, keyed by reference name.
+     * @return Response of operation.
+     */
+    protected ResponseEntity<?> performObservedOperation(final int inIndex, final BatchOperation inOperation,
+        final Map<String, Long> inReferencedIds) {
+        final String theMethod = (inOperation.getMethod() != null)
+            ? inOperation.getMethod().toUpperCase(Locale.ROOT) : "";
+        final Observation theObservation = Observation
+            .createNotStarted("batch.operation", mObservationRegistry)
+            .contextualName("batch " + theMethod)
+            .lowCardinalityKeyValue("method", theMethod)
+            .highCardinalityKeyValue("index", Integer.toString(inIndex))
+            .highCardinalityKeyValue("path", String.valueOf(inOperation.getPath()));
+        return theObservation.observe(() -> {
+            ResponseEntity<?> theResponse;
+            try {
+                theResponse = performOperation(theMethod, inOperation, inReferencedIds);
+            } catch (final NoSuchElementException theException) {
+                theResponse = errorResponse(FAILED_DEPENDENCY_STATUS, theException.getMessage());
+            } catch (final UnsupportedOperationException theException) {
+                theResponse = errorResponse(404, theException.getMessage());
+            } catch (final IllegalArgumentException theException) {
+                theResponse = errorResponse(400, theException.getMessage());
+            }
+            theObservation.lowCardinalityKeyValue("status", Integer.toString(theResponse.getStatusCode().value()));
+            return theResponse;
+        });
+    }
+
+    /**
+     * Performs the supplied operation by invoking the REST resource targeted by the operation,
+     * after having replaced references to earlier operations with ids.
+     *
+     * @param inMethod HTTP method of operation, in upper case.
+     * @param inOperation Operation to perform.
+     * @param inReferencedIds Ids of entities of earlier operations, keyed by reference name.
+     * @return Response of operation.
+     * @throws NoSuchElementException If the operation refers to an operation without id.
+     * @throws UnsupportedOperationException If no resource supports the operation.
+     * @throws IllegalArgumentException If the path or body of the operation is invalid.
+     */
+    protected ResponseEntity<?> performOperation(final String inMethod, final BatchOperation inOperation,
+        final Map<String, Long> inReferencedIds) {
+        if (inOperation.getPath() == null) {
+            throw new IllegalArgumentException("Operation has no path");
+        }
+        final String thePath = resolveReferences(inOperation.getPath(), inReferencedIds);
+        final JsonNode theBody = resolveReferences(inOperation.getBody(), inReferencedIds);
+        final UriComponents theUriComponents = UriComponentsBuilder.fromUriString(thePath).build();
+        final List<String> theSegments = theUriComponents.getPathSegments();
+        final RestResourceBasePlain<?> theResource = theSegments.isEmpty() ? null : mResources.get(theSegments.get(0));
+        if (theResource == null) {
+            throw new UnsupportedOperationException("No resource at path " + thePath);
+        }
+        return performResourceOperation(theResource, mEntityTypes.get(theSegments.get(0)), inMethod, theSegments,
+            theUriComponents.getQueryParams(), theBody);
+    }
+
+    /**
+     * Performs an operation by invoking the supplied REST resource.
+     *
+     * @param inResource REST resource to invoke.
+     * @param inEntityType Type of entities of REST resource.
+     * @param inMethod HTTP method of operation, in upper case.
+     * @param inSegments Segments of path of operation, the first segment being the resource path.
+     * @param inQueryParameters Query parameters of operation.
+     * @param inBody Request body of operation, may be null.
+     * @param <E> Entity type.
+     * @return Response of operation.
+     * @throws UnsupportedOperationException If the resource does not support the operation.
+     * @throws IllegalArgumentException If the path or body of the operation is invalid.
+     */
+    protected <E extends LongIdEntity> ResponseEntity<?> performResourceOperation(
+        final RestResourceBasePlain<E> inResource, final Class<?> inEntityType, final String inMethod,
+        final List<String> inSegments, final MultiValueMap<String, String> inQueryParameters, final JsonNode inBody) {
+        final boolean theDrawingFlag = DRAWINGS_PATH.equals(inSegments.get(0));
+        final Long theId = (inSegments.size() > 1) ? parseId(inSegments.get(1)) : null;
+
+        switch (inSegments.size()) {
+            case 1:
+                switch (inMethod) {
+                    case "GET":
+                        return inResource.getAll(inQueryParameters.toSingleValueMap());
+                    case "POST":
+                        return inResource.createEntity(toValue(inBody, inEntityType), null);
+                    case "DELETE":
+                        return inResource.deleteAllEntities(null);
+                    default:
+                        break;
+                }
+                break;
+            case 2:
+                switch (inMethod) {
+                    case "GET":
+                        return inResource.getEntityById(theId,
+                            inQueryParameters.getFirst(RestResourceBasePlain.FIELDS_PARAMETER));
+                    case "PUT":
+                        return inResource.updateEntity(toValue(inBody, inEntityType), theId, null);
+                    case "DELETE":
+                        return inResource.deleteEntityById(theId);
+                    case "PATCH":
+                        if (theDrawingFlag) {
+                            return mDrawingResource.patchDrawing(theId,
+                                toValue(inBody, new TypeReference<List<DrawingPatchOperation>>() { }));
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                break;
+            case 3:
+                if (theDrawingFlag && SHAPES_PATH_SEGMENT.equals(inSegments.get(2)) && "POST".equals(inMethod)) {
+                    return mDrawingResource.addShape(theId, toValue(inBody, Shape.class));
+                }
+                break;
+            case 4:
+                if (theDrawingFlag && SHAPES_PATH_SEGMENT.equals(inSegments.get(2)) && "DELETE".equals(inMethod)) {
+                    return mDrawingResource.removeShape(theId, parseId(inSegments.get(3)));
+                }
+                break;
+            default:
+                break;
+        }
+        throw new UnsupportedOperationException(
+            "Unsupported operation " + inMethod + " /" + String.join("/", inSegments));
+    }
+
+    /**
+     * Replaces the references to earlier operations in the supplied text with ids.
+     *
+     * @param inText Text containing references written as {@code ${name}}.
+     * @param inReferencedIds Ids of entities of earlier operations, keyed by reference name.
+     * @return Text with references replaced.
+     * @throws NoSuchElementException If there is no id for a reference.
+     */
+    protected static String resolveReferences(final String inText, final Map<String, Long> inReferencedIds) {
+        return REFERENCE_PATTERN
+            .matcher(inText)
+            .replaceAll(inMatchResult -> Long.toString(referencedId(inMatchResult.group(1), inReferencedIds)));
+    }
+
+    /**
+     * Creates a copy of the supplied JSON node in which string values consisting of a reference
+     * to an earlier operation are replaced by the id of the entity of that operation.
+     *
+     * @param inNode JSON node, may be null.
+     * @param inReferencedIds Ids of entities of earlier operations, keyed by reference name.
+     * @return JSON node with references replaced, or null if no node was supplied.
+     * @throws NoSuchElementException If there is no id for a reference.
+     */
+    protected JsonNode resolveReferences(final JsonNode inNode, final Map<String, Long> inReferencedIds) {
+        if (inNode == null) {
+            return null;
+        }
+        if (inNode.isTextual()) {
+            final Matcher theMatcher = REFERENCE_PATTERN.matcher(inNode.textValue());
+            return theMatcher.matches()
+                ? LongNode.valueOf(referencedId(theMatcher.group(1), inReferencedIds)) : inNode;
+        }
+        if (inNode.isObject()) {
+            final ObjectNode theObjectNode = mObjectMapper.createObjectNode();
+            inNode.fields().forEachRemaining(inField ->
+                theObjectNode.set(inField.getKey(), resolveReferences(inField.getValue(), inReferencedIds)));
+            return theObjectNode;
+        }
+        if (inNode.isArray()) {
+            final ArrayNode theArrayNode = mObjectMapper.createArrayNode();
+            inNode.forEach(inElement -> theArrayNode.add(resolveReferences(inElement, inReferencedIds)));
+            return theArrayNode;
+        }
+        return inNode;
+    }
+
+    /**
+     * Retrieves the id of the entity of the earlier operation with the supplied reference name.
+     *
+     * @param inReference Reference name.
+     * @param inReferencedIds Ids of entities of earlier operations, keyed by reference name.
+     * @return Entity id.
+     * @throws NoSuchElementException If there is no id for the reference.
+     */
+    protected static long referencedId(final String inReference, final Map<String, Long> inReferencedIds) {
+        final Long theId = inReferencedIds.get(inReference);
+        if (theId == null) {
+            throw new NoSuchElementException("Reference ${" + inReference
+                + "} does not refer to an earlier successful operation");
+        }
+        return theId;
+    }
+
+    /**
+     * Converts the supplied request body of an operation to an instance of the supplied type.
+     *
+     * @param inBody Request body.
+     * @param inType Type to convert to.
+     * @param <T> Type to convert to.
+     * @return Converted request body.
+     * @throws IllegalArgumentException If there is no body or it cannot be converted.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> T toValue(final JsonNode inBody, final Class<?> inType) {
+        if (inBody == null) {
+            throw new IllegalArgumentException("Operation has no body");
+        }
+        try {
+            return (T) mObjectMapper.treeToValue(inBody, inType);
+        } catch (final JsonProcessingException theException) {
+            throw new IllegalArgumentException("Invalid body: " + theException.getOriginalMessage());
+        }
+    }
+
+    /**
+     * Converts the supplied request body of an operation to an instance of the supplied type.
+     *
+     * @param inBody Request body.
+     * @param inType Type to convert to.
+     * @param <T> Type to convert to.
+     * @return Converted request body.
+     * @throws IllegalArgumentException If there is no body or it cannot be converted.
+     */
+    protected <T> T toValue(final JsonNode inBody, final TypeReference<T> inType) {
+        if (inBody == null) {
+            throw new IllegalArgumentException("Operation has no body");
+        }
+        try {
+            return mObjectMapper.treeToValue(inBody, mObjectMapper.getTypeFactory().constructType(inType));
+        } catch (final JsonProcessingException theException) {
+            throw new IllegalArgumentException("Invalid body: " + theException.getOriginalMessage());
+        }
+    }
+
+    /**
+     * Parses the supplied entity id.
+     *
+     * @param inId Entity id.
+     * @return Parsed id.
+     * @throws IllegalArgumentException If the id is not a number.
+     */
+    protected static Long parseId(final String inId) {
+        try {
+            return Long.valueOf(inId);
+        } catch (final NumberFormatException theException) {
+            throw new IllegalArgumentException("Invalid id " + inId);
+        }
+    }
+
+    /**
+     * Creates an error response with the supplied HTTP status and plain-text error message.
+     *
+     * @param inHttpStatus HTTP status of response.
+     * @param inMessage Error message.
+     * @return Error response.
+     */
+    protected static ResponseEntity<?> errorResponse(final int inHttpStatus, final String inMessage) {
+        return ResponseEntity
+            .status(inHttpStatus)
+            .contentType(MediaType.TEXT_PLAIN)
+            .body(inMessage);
+    }
+
+    /**
+     * Sets the shard manager. Only available if sharding is enabled.
+     *
+     * @param inShardManager Shard manager.
+     */
+    @Autowired(required = false)
+    public void setShardManager(final ShardManager inShardManager) {
+        mShardManager = inShardManager;
+    }
+}
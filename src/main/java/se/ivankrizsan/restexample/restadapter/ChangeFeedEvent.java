@@ -0,0 +1,30 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+/**
+ * Compact change event sent to subscribers of the entity change feed.
+ *
+ * @author Ivan Krizsan
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+@Accessors(prefix = "m")
+public class ChangeFeedEvent {
+    /* Constant(s): */
+    /** Operation of event telling the subscriber that events were lost and entities must be reloaded. */
+    public static final String OP_RESET = "RESET";
+
+    /* Instance variable(s): */
+    /** Sequence number of the event in the change feed, also used as SSE event id. */
+    protected final long mVersion;
+    /** Simple name of the entity class. */
+    protected final String mType;
+    /** Id of changed entity, null if all entities of the type are affected or for reset events. */
+    protected final Long mId;
+    protected final String mOp;
+}
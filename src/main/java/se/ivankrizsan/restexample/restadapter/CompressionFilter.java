@@ -0,0 +1,386 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import com.github.luben.zstd.Zstd;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Servlet filter that adds a weak ETag to responses of GET requests and compresses
+ * response bodies using zstd or gzip.
+ * Responses of handlers annotated with {@link EntityChangeVersioned} are identified by the
+ * sequence number of the latest entity change, which is retrieved before the handler is invoked.
+ * If the resulting ETag matches the one in the If-None-Match header of the request, an empty
+ * response with HTTP status 304 is returned without invoking the handler. Otherwise, a cached
+ * response for the same request and change sequence number is returned if available.
+ * Since the change sequence number only covers changes made through this application instance,
+ * the ETag also contains the time at which the filter was created.
+ * Only bodies that are at least of the minimum size and that have one of the compressible
+ * content types are compressed.
+ * Responses of handlers that stream their body or complete it asynchronously are not buffered
+ * and thus passed through unchanged, as are requests for streams of server-sent events.
+ *
+ * @author Ivan Krizsan
+ */
+@Slf4j
+public class CompressionFilter extends OncePerRequestFilter {
+    /* Constant(s): */
+    public static final String ENCODING_ZSTD = "zstd";
+    public static final String ENCODING_GZIP = "gzip";
+    /** Encodings in order of preference. */
+    protected static final List<String> SUPPORTED_ENCODINGS = List.of(ENCODING_ZSTD, ENCODING_GZIP);
+    protected static final String ENCODING_IDENTITY = "identity";
+    protected static final int ZSTD_COMPRESSION_LEVEL = 3;
+    /** Handler return types, or body types of returned response entities, that produce bodies asynchronously. */
+    protected static final List<Class<?>> STREAMING_RETURN_TYPES = List.of(StreamingResponseBody.class,
+        ResponseBodyEmitter.class, Callable.class, DeferredResult.class, WebAsyncTask.class, CompletionStage.class);
+
+    /* Instance variable(s): */
+    protected final int mMinResponseSize;
+    protected final List<MediaType> mCompressibleMediaTypes;
+    protected final Map<String, CachedResponse> mResponseCache;
+    protected final MeterRegistry mMeterRegistry;
+    protected final HandlerMapping mHandlerMapping;
+    protected final LongSupplier mChangeSequence;
+    protected final String mETagPrefix;
+
+    /**
+     * Creates a compression filter.
+     *
+     * @param inMinResponseSize Minimum size in bytes of response bodies to compress.
+     * @param inCompressibleMediaTypes Media types of response bodies to compress.
+     * @param inCacheMaxEntries Maximum number of responses to cache.
+     * @param inMeterRegistry Registry in which to register compression metrics.
+     * @param inHandlerMapping Handler mapping used to find the handler of a request before it is dispatched.
+     * @param inChangeSequence Supplies the sequence number of the latest entity change.
+     */
+    public CompressionFilter(final int inMinResponseSize, final List<MediaType> inCompressibleMediaTypes,
+        final int inCacheMaxEntries, final MeterRegistry inMeterRegistry, final HandlerMapping inHandlerMapping,
+        final LongSupplier inChangeSequence) {
+        mMinResponseSize = inMinResponseSize;
+        mCompressibleMediaTypes = inCompressibleMediaTypes;
+        mMeterRegistry = inMeterRegistry;
+        mHandlerMapping = inHandlerMapping;
+        mChangeSequence = inChangeSequence;
+        mETagPrefix = "W/\"" + Long.toHexString(System.currentTimeMillis()) + "-";
+        mResponseCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, CachedResponse> inEldestEntry) {
+                    return size() > inCacheMaxEntries;
+                }
+            });
+    }
+
+    /**
+     * Only GET requests are filtered. Streams of server-sent events must not be buffered and
+     * are thus not filtered.
+     *
+     * @param inRequest Request.
+     * @return True if request is not a GET request or accepts a stream of server-sent events,
+     * false otherwise.
+     */
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest inRequest) {
+        final String theAcceptHeader = inRequest.getHeader(HttpHeaders.ACCEPT);
+        return !HttpMethod.GET.matches(inRequest.getMethod())
+            || (theAcceptHeader != null && theAcceptHeader.contains(MediaType.TEXT_EVENT_STREAM_VALUE));
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest inRequest, final HttpServletResponse inResponse,
+        final FilterChain inFilterChain) throws ServletException, IOException {
+        final HandlerMethod theHandlerMethod = findHandlerMethod(inRequest);
+        if (theHandlerMethod != null && isStreaming(theHandlerMethod)) {
+            inFilterChain.doFilter(inRequest, inResponse);
+            return;
+        }
+        final String theEncoding = selectEncoding(inRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+
+        /*
+         * Not modified and cached responses of versioned handlers are completed without invoking
+         * the handler and without compressing anything.
+         */
+        final boolean theVersionedFlag =
+            theHandlerMethod != null && theHandlerMethod.hasMethodAnnotation(EntityChangeVersioned.class);
+        final long theChangeSequence = theVersionedFlag ? mChangeSequence.getAsLong() : 0;
+        final String theETag = theVersionedFlag ? createETag(inRequest, theChangeSequence) : null;
+        final String theCacheKey = theVersionedFlag ? createCacheKey(inRequest, theETag, theEncoding) : null;
+        if (theVersionedFlag) {
+            /* The response is not passed to the web request, which would otherwise add the ETag to any response. */
+            if (new ServletWebRequest(inRequest).checkNotModified(theETag)) {
+                inResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                inResponse.setHeader(HttpHeaders.ETAG, theETag);
+                return;
+            }
+            final CachedResponse theCachedResponse = mResponseCache.get(theCacheKey);
+            if (theCachedResponse != null) {
+                theCachedResponse.headers().forEach((inName, inValues) ->
+                    inValues.forEach(inValue -> inResponse.addHeader(inName, inValue)));
+                inResponse.setContentType(theCachedResponse.contentType());
+                writeBody(inResponse, theCachedResponse.encoding(), theCachedResponse.body());
+                return;
+            }
+        }
+
+        final Set<String> thePreviousHeaderNames = new HashSet<>(inResponse.getHeaderNames());
+        final ContentCachingResponseWrapper theResponseWrapper = new ContentCachingResponseWrapper(inResponse);
+        inFilterChain.doFilter(inRequest, theResponseWrapper);
+
+        final byte[] theBody = theResponseWrapper.getContentAsByteArray();
+        if (theResponseWrapper.getStatus() != HttpServletResponse.SC_OK || theBody.length == 0
+            || inResponse.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+            theResponseWrapper.copyBodyToResponse();
+            return;
+        }
+        if (theVersionedFlag) {
+            inResponse.setHeader(HttpHeaders.ETAG, theETag);
+        }
+
+        final String theBodyEncoding;
+        final byte[] theEncodedBody;
+        if (isCompressible(theResponseWrapper.getContentType(), theBody.length)) {
+            inResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            theBodyEncoding = theEncoding;
+            theEncodedBody = (theEncoding != null) ? compressAndRecord(theEncoding, theBody) : theBody;
+        } else {
+            theBodyEncoding = null;
+            theEncodedBody = theBody;
+        }
+
+        /* A response rendered while an entity was changed may contain either state and is not cached. */
+        if (theVersionedFlag && mChangeSequence.getAsLong() == theChangeSequence) {
+            final Map<String, List<String>> theHeaders = new LinkedHashMap<>();
+            for (final String theHeaderName : inResponse.getHeaderNames()) {
+                if (!thePreviousHeaderNames.contains(theHeaderName)
+                    && !HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(theHeaderName)
+                    && !HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(theHeaderName)) {
+                    theHeaders.put(theHeaderName, List.copyOf(inResponse.getHeaders(theHeaderName)));
+                }
+            }
+            mResponseCache.put(theCacheKey, new CachedResponse(theResponseWrapper.getContentType(), theHeaders,
+                theBodyEncoding, theEncodedBody));
+        }
+        writeBody(inResponse, theBodyEncoding, theEncodedBody);
+    }
+
+    /**
+     * Finds the handler method that the request will be dispatched to.
+     *
+     * @param inRequest Request.
+     * @return Handler method, or null if the request is not handled by a handler method.
+     */
+    protected HandlerMethod findHandlerMethod(final HttpServletRequest inRequest) {
+        /* The handler mapping requires the parsed request path, which is removed again before dispatching. */
+        final Object thePreviousRequestPath = inRequest.getAttribute(ServletRequestPathUtils.PATH_ATTRIBUTE);
+        ServletRequestPathUtils.parseAndCache(inRequest);
+        try {
+            final HandlerExecutionChain theHandlerChain = mHandlerMapping.getHandler(inRequest);
+            return (theHandlerChain != null && theHandlerChain.getHandler() instanceof HandlerMethod theHandlerMethod)
+                ? theHandlerMethod : null;
+        } catch (final Exception theException) {
+            log.debug("Could not find handler of request to {}", inRequest.getRequestURI(), theException);
+            return null;
+        } finally {
+            inRequest.setAttribute(ServletRequestPathUtils.PATH_ATTRIBUTE, thePreviousRequestPath);
+        }
+    }
+
+    /**
+     * Determines whether the supplied handler method streams the response body or
+     * completes the response asynchronously.
+     *
+     * @param inHandlerMethod Handler method.
+     * @return True if handler streams the response body or completes it asynchronously, false otherwise.
+     */
+    protected static boolean isStreaming(final HandlerMethod inHandlerMethod) {
+        final ResolvableType theReturnType = ResolvableType.forMethodParameter(inHandlerMethod.getReturnType());
+        final Class<?> theBodyType = HttpEntity.class.isAssignableFrom(theReturnType.toClass())
+            ? theReturnType.as(HttpEntity.class).getGeneric().toClass()
+            : theReturnType.toClass();
+        return STREAMING_RETURN_TYPES
+            .stream()
+            .anyMatch(inStreamingType -> inStreamingType.isAssignableFrom(theBodyType));
+    }
+
+    /**
+     * Creates the ETag of the response of a versioned handler to the supplied request.
+     * The ETag depends on the change sequence number and on the Accept header, since
+     * different representations of a resource are not equivalent.
+     *
+     * @param inRequest Request.
+     * @param inChangeSequence Sequence number of latest entity change.
+     * @return Weak ETag.
+     */
+    protected String createETag(final HttpServletRequest inRequest, final long inChangeSequence) {
+        return mETagPrefix + Long.toHexString(inChangeSequence) + "-"
+            + Integer.toHexString(Objects.hashCode(inRequest.getHeader(HttpHeaders.ACCEPT))) + "\"";
+    }
+
+    /**
+     * Creates the key of the cached response to the supplied request.
+     *
+     * @param inRequest Request.
+     * @param inETag ETag of response.
+     * @param inEncoding Encoding accepted by the client, null if none of the supported encodings.
+     * @return Cache key.
+     */
+    protected static String createCacheKey(final HttpServletRequest inRequest, final String inETag,
+        final String inEncoding) {
+        return ((inEncoding != null) ? inEncoding : ENCODING_IDENTITY) + " " + inETag + " "
+            + inRequest.getHeader(HttpHeaders.ACCEPT) + " " + inRequest.getRequestURI() + "?"
+            + inRequest.getQueryString();
+    }
+
+    /**
+     * Writes the supplied body to the supplied response and completes the response.
+     *
+     * @param inResponse Response.
+     * @param inEncoding Encoding of body, null if not encoded.
+     * @param inBody Body.
+     * @throws IOException If error occurs writing body.
+     */
+    protected static void writeBody(final HttpServletResponse inResponse, final String inEncoding,
+        final byte[] inBody) throws IOException {
+        if (inEncoding != null) {
+            inResponse.setHeader(HttpHeaders.CONTENT_ENCODING, inEncoding);
+        }
+        inResponse.setContentLength(inBody.length);
+        inResponse.getOutputStream().write(inBody);
+        inResponse.flushBuffer();
+    }
+
+    /**
+     * Determines whether a response body with the supplied content type and size is to be compressed.
+     *
+     * @param inContentType Content type of response body. May be null.
+     * @param inBodySize Size of response body in bytes.
+     * @return True if response body is to be compressed, false otherwise.
+     */
+    protected boolean isCompressible(final String inContentType, final int inBodySize) {
+        if (inContentType == null || inBodySize < mMinResponseSize) {
+            return false;
+        }
+        final MediaType theMediaType = MediaType.parseMediaType(inContentType);
+        return mCompressibleMediaTypes
+            .stream()
+            .anyMatch(inCompressibleType -> inCompressibleType.includes(theMediaType));
+    }
+
+    /**
+     * Selects the encoding to use for the response from the supplied Accept-Encoding header.
+     *
+     * @param inAcceptEncodingHeader Accept-Encoding request header. May be null.
+     * @return Name of encoding, or null if client does not accept any of the supported encodings.
+     */
+    protected static String selectEncoding(final String inAcceptEncodingHeader) {
+        if (inAcceptEncodingHeader == null) {
+            return null;
+        }
+        for (final String theSupportedEncoding : SUPPORTED_ENCODINGS) {
+            for (final String theAcceptedEncoding : inAcceptEncodingHeader.split(",")) {
+                final String[] theEncodingParts = theAcceptedEncoding.trim().split(";");
+                final boolean theNotAcceptableFlag = theEncodingParts.length > 1
+                    && theEncodingParts[1].trim().matches("q=0(\\.0*)?");
+                if (theSupportedEncoding.equalsIgnoreCase(theEncodingParts[0].trim()) && !theNotAcceptableFlag) {
+                    return theSupportedEncoding;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compresses the supplied body using the supplied encoding recording the time
+     * spent compressing and the compression ratio achieved.
+     *
+     * @param inEncoding Encoding to compress body with.
+     * @param inBody Uncompressed body.
+     * @return Compressed body.
+     */
+    protected byte[] compressAndRecord(final String inEncoding, final byte[] inBody) {
+        final byte[] theCompressedBody = Timer
+            .builder("http.server.response.compression.time")
+            .description("Time spent compressing response bodies")
+            .tag("encoding", inEncoding)
+            .register(mMeterRegistry)
+            .record(() -> compress(inEncoding, inBody));
+        DistributionSummary
+            .builder("http.server.response.compression.ratio")
+            .description("Uncompressed size divided by compressed size of response bodies")
+            .tag("encoding", inEncoding)
+            .register(mMeterRegistry)
+            .record((double) inBody.length / theCompressedBody.length);
+        log.debug("Compressed response body from {} to {} bytes using {}",
+            inBody.length, theCompressedBody.length, inEncoding);
+        return theCompressedBody;
+    }
+
+    /**
+     * Compresses the supplied body using the supplied encoding.
+     *
+     * @param inEncoding Encoding to compress body with.
+     * @param inBody Uncompressed body.
+     * @return Compressed body.
+     */
+    protected static byte[] compress(final String inEncoding, final byte[] inBody) {
+        if (ENCODING_ZSTD.equals(inEncoding)) {
+            return Zstd.compress(inBody, ZSTD_COMPRESSION_LEVEL);
+        }
+        final ByteArrayOutputStream theCompressedStream = new ByteArrayOutputStream(inBody.length / 4);
+        try (GZIPOutputStream theGzipStream = new GZIPOutputStream(theCompressedStream)) {
+            theGzipStream.write(inBody);
+        } catch (final IOException theException) {
+            throw new UncheckedIOException(theException);
+        }
+        return theCompressedStream.toByteArray();
+    }
+
+    /**
+     * Response of a versioned handler, with the body as sent to the client.
+     *
+     * @param contentType Content type of body.
+     * @param headers Headers set by the handler, other than the content type and length.
+     * @param encoding Encoding of body, null if not encoded.
+     * @param body Body.
+     */
+    protected record CachedResponse(String contentType, Map<String, List<String>> headers, String encoding,
+        byte[] body) {
+    }
+}
@@ -0,0 +1,166 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Servlet filter that limits the number of requests processed concurrently per endpoint group.
+ * Requests exceeding the limit of their group are rejected immediately with HTTP status 503
+ * and a Retry-After header instead of being queued.
+ * Endpoint groups are:
+ * <ul>
+ *     <li>read - retrieving one entity.</li>
+ *     <li>collection - retrieving a collection of entities, including looking up entities
+ *     by ids, or comparing drawings, which is expensive.</li>
+ *     <li>bulk - deleting a collection of entities, uploading a file of entities to import,
+ *     performing a batch of operations or cloning a drawing, which is expensive.</li>
+ *     <li>write - all other requests.</li>
+ * </ul>
+ * Expensive groups have their own, lower, limits so that they cannot starve the cheap groups.
+ * Each limit adapts to the latency of the requests of its group, see {@link AdaptiveConcurrencyLimit}.
+ *
+ * @author Ivan Krizsan
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    /* Constant(s): */
+    public static final String GROUP_READ = "read";
+    public static final String GROUP_COLLECTION = "collection";
+    public static final String GROUP_BULK = "bulk";
+    public static final String GROUP_WRITE = "write";
+    protected static final String LOOKUP_PATH_SUFFIX = "/lookup";
+    protected static final String IMPORTS_PATH_SUFFIX = "/imports";
+    protected static final String CLONE_PATH_SUFFIX = "/clone";
+    protected static final String DIFF_PATH_SUFFIX = "/diff";
+    protected static final String CHANGES_PATH_SUFFIX = "/changes";
+    protected static final String ACTUATOR_PATH_PREFIX = "/actuator";
+
+    /* Instance variable(s): */
+    protected final Map<String, AdaptiveConcurrencyLimit> mGroupLimits;
+    protected final long mRetryAfterSeconds;
+    protected final MeterRegistry mMeterRegistry;
+
+    /**
+     * Creates a concurrency limit filter.
+     *
+     * @param inCheapLimitSupplier Creates limits for the read and write groups.
+     * @param inExpensiveLimitSupplier Creates limits for the collection and bulk groups.
+     * @param inRetryAfterSeconds Number of seconds after which rejected clients may retry.
+     * @param inMeterRegistry Registry in which to register concurrency limit metrics.
+     */
+    public ConcurrencyLimitFilter(final Supplier<AdaptiveConcurrencyLimit> inCheapLimitSupplier,
+        final Supplier<AdaptiveConcurrencyLimit> inExpensiveLimitSupplier, final long inRetryAfterSeconds,
+        final MeterRegistry inMeterRegistry) {
+        mGroupLimits = Map.of(
+            GROUP_READ, inCheapLimitSupplier.get(),
+            GROUP_WRITE, inCheapLimitSupplier.get(),
+            GROUP_COLLECTION, inExpensiveLimitSupplier.get(),
+            GROUP_BULK, inExpensiveLimitSupplier.get());
+        mRetryAfterSeconds = inRetryAfterSeconds;
+        mMeterRegistry = inMeterRegistry;
+
+        mGroupLimits.forEach((inGroup, inLimit) -> {
+            Gauge.builder("http.server.concurrency.limit", inLimit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Maximum number of requests processed concurrently")
+                .tag("group", inGroup)
+                .register(inMeterRegistry);
+            Gauge.builder("http.server.concurrency.inflight", inLimit, AdaptiveConcurrencyLimit::getInFlightCount)
+                .description("Number of requests being processed")
+                .tag("group", inGroup)
+                .register(inMeterRegistry);
+        });
+    }
+
+    /**
+     * Streams of server-sent events are long-lived and actuator endpoints must remain
+     * available under overload, thus these are not limited.
+     *
+     * @param inRequest Request.
+     * @return True if request is not to be limited, false otherwise.
+     */
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest inRequest) {
+        final String thePath = pathWithinApplication(inRequest);
+        return thePath.endsWith(CHANGES_PATH_SUFFIX) || thePath.startsWith(ACTUATOR_PATH_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest inRequest, final HttpServletResponse inResponse,
+        final FilterChain inFilterChain) throws ServletException, IOException {
+        final String theGroup = endpointGroup(inRequest);
+        final AdaptiveConcurrencyLimit theLimit = mGroupLimits.get(theGroup);
+        if (!theLimit.tryAcquire()) {
+            log.debug("Rejecting {} request to {}, concurrency limit {} reached",
+                theGroup, inRequest.getRequestURI(), theLimit.getLimit());
+            Counter.builder("http.server.concurrency.rejected")
+                .description("Number of requests rejected due to the concurrency limit")
+                .tag("group", theGroup)
+                .register(mMeterRegistry)
+                .increment();
+            inResponse.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(mRetryAfterSeconds));
+            inResponse.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server overloaded");
+            return;
+        }
+
+        final long theStartTime = System.nanoTime();
+        boolean theOverloadedFlag = true;
+        try {
+            inFilterChain.doFilter(inRequest, inResponse);
+            theOverloadedFlag = inResponse.getStatus() == HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+        } finally {
+            theLimit.release(System.nanoTime() - theStartTime, theOverloadedFlag);
+        }
+    }
+
+    /**
+     * Determines the endpoint group of the supplied request.
+     * Collection requests have a path consisting of one segment, requests for one entity
+     * have a path consisting of two segments. Lookups of entities by ids and diffs of drawings are
+     * collection requests and uploads of files to import, batches of operations and clones are bulk requests.
+     *
+     * @param inRequest Request.
+     * @return Name of endpoint group.
+     */
+    protected static String endpointGroup(final HttpServletRequest inRequest) {
+        final String thePath = pathWithinApplication(inRequest);
+        final boolean theCollectionFlag = thePath.replaceAll("^/+|/+$", "").split("/+").length <= 1;
+        if (HttpMethod.GET.matches(inRequest.getMethod())) {
+            return (theCollectionFlag || thePath.endsWith(DIFF_PATH_SUFFIX)) ? GROUP_COLLECTION : GROUP_READ;
+        }
+        if (HttpMethod.POST.matches(inRequest.getMethod()) && thePath.endsWith(LOOKUP_PATH_SUFFIX)) {
+            return GROUP_COLLECTION;
+        }
+        if (HttpMethod.POST.matches(inRequest.getMethod())
+            && (thePath.endsWith(IMPORTS_PATH_SUFFIX) || thePath.endsWith(CLONE_PATH_SUFFIX)
+                || thePath.equals(BatchResource.PATH))) {
+            return GROUP_BULK;
+        }
+        if (HttpMethod.DELETE.matches(inRequest.getMethod()) && theCollectionFlag) {
+            return GROUP_BULK;
+        }
+        return GROUP_WRITE;
+    }
+
+    /**
+     * Retrieves the path of the supplied request excluding the context path.
+     *
+     * @param inRequest Request.
+     * @return Path within the application.
+     */
+    protected static String pathWithinApplication(final HttpServletRequest inRequest) {
+        return inRequest.getRequestURI().substring(inRequest.getContextPath().length());
+    }
+}
@@ -1,25 +1,51 @@
 package se.ivankrizsan.restexample.restadapter;
 
 import io.micrometer.observation.annotation.Observed;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.constraints.NotNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.http.MediaType;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import se.ivankrizsan.restexample.JacksonConfiguration;
 import se.ivankrizsan.restexample.domain.Drawing;
+import se.ivankrizsan.restexample.domain.Shape;
+import se.ivankrizsan.restexample.services.DrawingPatchOperation;
 import se.ivankrizsan.restexample.services.DrawingService;
+import se.ivankrizsan.restexample.services.versions.DrawingDiff;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * REST resource exposing operations on drawings.
  *
  * @author Ivan Krizsan
  */
+@Slf4j
 @RestController
-@RequestMapping(value = DrawingResource.PATH, produces = { MediaType.APPLICATION_JSON_VALUE })
+@RequestMapping(value = DrawingResource.PATH, produces = { MediaType.APPLICATION_JSON_VALUE,
+    JacksonConfiguration.APPLICATION_SMILE_VALUE, JacksonConfiguration.APPLICATION_CBOR_VALUE })
 @Observed(name = "DrawingResource")
 public class DrawingResource extends RestResourceBasePlain<Drawing> {
     /* Constant(s): */
     public static final String PATH = "/drawings";
+    public static final String JSON_PATCH_VALUE = "application/json-patch+json";
+    public static final String STREAMING_PARAMETER = "streaming";
+    public static final String NAME_PARAMETER = "name";
+    public static final String VERSION_PARAMETER = "version";
+    public static final String AGAINST_PARAMETER = "against";
+    /** Prefix of a version number in the against request parameter. */
+    public static final String AGAINST_VERSION_PREFIX = "v";
+
+    /* Instance variable(s): */
+    protected DrawingService mDrawingService;
 
     /**
      * Creates a REST resource using the supplied service to manipulate entities.
@@ -28,6 +54,252 @@ public class DrawingResource extends RestResourceBasePlain<Drawing> {
      */
     public DrawingResource(final DrawingService inService) {
         setService(inService);
+        mDrawingService = inService;
+    }
+
+    /**
+     * Creates a new drawing from the supplied JSON representation without binding the whole
+     * representation into memory. Shapes are parsed and persisted in batches as they arrive,
+     * so drawings with very large numbers of shapes can be created.
+     * Selected by the streaming request parameter, for example {@code POST /drawings?streaming}.
+     * Since the shapes are not retained, the response contains the id, name, creation date
+     * and number of shapes of the new drawing instead of the complete drawing.
+     *
+     * @param inDrawingJson Stream containing the JSON representation of the new drawing.
+     * @return HTTP response object with HTTP status 200 if operation succeeded, HTTP status 400
+     * listing validation errors with the index of each invalid shape if the drawing is invalid
+     * or HTTP error status code and a plain-text error message if another error occurred.
+     */
+    @PostMapping(params = STREAMING_PARAMETER, consumes = { MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<?> importDrawing(final InputStream inDrawingJson) {
+        log.info("Received request to import a new drawing");
+
+        return performServiceOperation(
+            () -> performShapesOperation(() -> ResponseEntity.ok(mDrawingService.importDrawing(inDrawingJson))),
+            500, "An error occurred importing a new drawing: ");
+    }
+
+    /**
+     * Retrieves the supplied version of the drawing with supplied id, reconstructed from
+     * the nearest snapshot of the drawing and the changes recorded after the snapshot.
+     * Selected by the version request parameter, for example {@code GET /drawings/1?version=3}.
+     * A drawing that has not been changed since it was created is in version one.
+     *
+     * @param inDrawingId Id of drawing to retrieve.
+     * @param inVersion Version number.
+     * @return HTTP response object with HTTP status 200 containing the drawing as it was in
+     * the version if operation succeeded, HTTP status 404 if there is no such drawing or version
+     * or HTTP error status code and a plain-text error message if another error occurred.
+     */
+    @GetMapping(path = "{id}", params = VERSION_PARAMETER)
+    public ResponseEntity<?> getDrawingVersion(@PathVariable("id") @NotNull final Long inDrawingId,
+        @RequestParam(name = VERSION_PARAMETER) final long inVersion) {
+        log.info("Received request to get version {} of drawing with id {}", inVersion, inDrawingId);
+
+        return performServiceOperation(
+            () -> performShapesOperation(() -> ResponseEntity.ok(mDrawingService
+                .findVersion(inDrawingId, inVersion)
+                .orElseThrow(() -> new EntityNotFoundException(
+                    "No version " + inVersion + " of drawing with id " + inDrawingId)))),
+            500, "An error occurred finding version of drawing with id " + inDrawingId + ": ");
+    }
+
+    /**
+     * Retrieves the recorded versions of the drawing with supplied id, in version order.
+     * Each version contains the version number, the time at which it was created and the number
+     * of shapes changed in the version. A drawing that has not been changed since it was created
+     * has no recorded versions.
+     *
+     * @param inDrawingId Id of drawing.
+     * @return HTTP response object with HTTP status 200 containing the versions if operation
+     * succeeded or HTTP error status code and a plain-text error message if an error occurred.
+     */
+    @GetMapping(path = "{id}/versions")
+    public ResponseEntity<?> getDrawingVersions(@PathVariable("id") @NotNull final Long inDrawingId) {
+        log.info("Received request to get versions of drawing with id {}", inDrawingId);
+
+        return performServiceOperation(
+            () -> ResponseEntity.ok(mDrawingService.findVersions(inDrawingId)),
+            500, "An error occurred finding versions of drawing with id " + inDrawingId + ": ");
+    }
+
+    /**
+     * Compares the drawing with supplied id against another drawing or a version of the drawing.
+     * The against request parameter is either the id of another drawing, for example
+     * {@code GET /drawings/1/diff?against=2}, or a version number prefixed by v, for example
+     * {@code GET /drawings/1/diff?against=v3}.
+     * The response contains the added and removed shapes and the modified shapes before and after
+     * modification, see {@link DrawingDiff}, and is streamed so that large diffs are not held in memory.
+     *
+     * @param inDrawingId Id of drawing.
+     * @param inAgainst Id of drawing or version to compare against.
+     * @return HTTP response object with HTTP status 200 containing the differences if operation
+     * succeeded, HTTP status 404 if there is no such drawing or version, HTTP status 400 if
+     * the against request parameter is malformed or HTTP error status code and a plain-text error
+     * message if another error occurred.
+     */
+    @GetMapping(path = "{id}/diff", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getDrawingDiff(@PathVariable("id") @NotNull final Long inDrawingId,
+        @RequestParam(name = AGAINST_PARAMETER) final String inAgainst) {
+        log.info("Received request to compare drawing with id {} against {}", inDrawingId, inAgainst);
+
+        return toStreamingResponse(performServiceOperation(
+            () -> performShapesOperation(() -> {
+                final DrawingDiff theDiff = (inAgainst.startsWith(AGAINST_VERSION_PREFIX)
+                    ? mDrawingService.diff(inDrawingId, null, Long.parseLong(inAgainst.substring(1)))
+                    : mDrawingService.diff(inDrawingId, Long.parseLong(inAgainst), null))
+                    .orElseThrow(() -> new EntityNotFoundException(
+                        "No drawing with id " + inDrawingId + " or no " + inAgainst + " to compare against"));
+                final StreamingResponseBody theBody =
+                    inOutputStream -> mDrawingService.writeDiff(theDiff, inOutputStream);
+                return ResponseEntity
+                    .ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(theBody);
+            }),
+            500, "An error occurred comparing drawing with id " + inDrawingId + ": "));
+    }
+
+    /**
+     * Adds the supplied new shape to the drawing with supplied id.
+     * The shapes already in the drawing are not loaded.
+     *
+     * @param inDrawingId Id of drawing to add shape to.
+     * @param inShape Shape to add.
+     * @return HTTP response object with HTTP status 200 containing the created shape if
+     * operation succeeded, HTTP status 404 if there is no such drawing or HTTP error status
+     * code and a plain-text error message if another error occurred.
+     */
+    @PostMapping(path = "{id}/shapes", consumes = { MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<?> addShape(@PathVariable("id") @NotNull final Long inDrawingId,
+        @RequestBody final Shape inShape) {
+        log.info("Received request to add shape to drawing with id {}", inDrawingId);
+
+        return performServiceOperation(
+            () -> performShapesOperation(() -> ResponseEntity.ok(mDrawingService.addShape(inDrawingId, inShape))),
+            500, "An error occurred adding shape to drawing with id " + inDrawingId + ": ");
+    }
+
+    /**
+     * Creates a copy of the drawing with supplied id, including copies of all its shapes,
+     * without loading the drawing or its shapes. The response contains the id of the copy.
+     * If the Prefer request header contains the respond-async preference, the drawing is copied
+     * in the background, see {@link #performAsyncOperation(String, Supplier)}, and the id of
+     * the copy is the result of the job.
+     *
+     * @param inDrawingId Id of drawing to copy.
+     * @param inName Name of copy. Optional, by default the name of the copied drawing.
+     * @param inPreferHeader Prefer request header, may be null.
+     * @return HTTP response object with HTTP status 200 containing the id of the copy if
+     * operation succeeded, HTTP status 202 if the copy is created in the background, HTTP status
+     * 404 if there is no such drawing or HTTP error status code and a plain-text error message
+     * if another error occurred.
+     */
+    @PostMapping(path = "{id}/clone")
+    public ResponseEntity<?> cloneDrawing(@PathVariable("id") @NotNull final Long inDrawingId,
+        @RequestParam(name = NAME_PARAMETER, required = false) final String inName,
+        @RequestHeader(name = PREFER_HEADER, required = false) final String inPreferHeader) {
+        log.info("Received request to clone drawing with id {}", inDrawingId);
+
+        if (isAsyncPreferred(inPreferHeader)) {
+            return performAsyncOperation("clone",
+                () -> Map.of(ID_PROPERTY, mDrawingService.cloneDrawing(inDrawingId, inName)));
+        }
+        return performServiceOperation(
+            () -> performShapesOperation(() -> ResponseEntity.ok(
+                Map.of(ID_PROPERTY, mDrawingService.cloneDrawing(inDrawingId, inName)))),
+            500, "An error occurred cloning drawing with id " + inDrawingId + ": ");
+    }
+
+    /**
+     * Removes the shape with supplied id from the drawing with supplied id and deletes the shape.
+     * The other shapes in the drawing are not loaded.
+     *
+     * @param inDrawingId Id of drawing to remove shape from.
+     * @param inShapeId Id of shape to remove.
+     * @return HTTP response object with HTTP status 200 if operation succeeded, HTTP status 404
+     * if the drawing does not contain the shape or HTTP error status code and a plain-text
+     * error message if another error occurred.
+     */
+    @DeleteMapping(path = "{id}/shapes/{shapeId}")
+    public ResponseEntity<?> removeShape(@PathVariable("id") @NotNull final Long inDrawingId,
+        @PathVariable("shapeId") @NotNull final Long inShapeId) {
+        log.info("Received request to remove shape with id {} from drawing with id {}", inShapeId, inDrawingId);
+
+        return performServiceOperation(
+            () -> performShapesOperation(() -> {
+                mDrawingService.removeShape(inDrawingId, inShapeId);
+                return ResponseEntity.ok().build();
+            }),
+            500, "An error occurred removing shape from drawing with id " + inDrawingId + ": ");
+    }
+
+    /**
+     * Modifies the drawing with supplied id by applying the supplied JSON-Patch-style operations.
+     * See {@link DrawingPatchOperation} for supported operations.
+     *
+     * @param inDrawingId Id of drawing to modify.
+     * @param inOperations Operations to apply.
+     * @return HTTP response object with HTTP status 200 if operation succeeded, HTTP status 400
+     * if an operation is not supported, HTTP status 404 if the drawing or a shape does not exist
+     * or HTTP error status code and a plain-text error message if another error occurred.
+     */
+    @PatchMapping(path = "{id}", consumes = { JSON_PATCH_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<?> patchDrawing(@PathVariable("id") @NotNull final Long inDrawingId,
+        @RequestBody final List<DrawingPatchOperation> inOperations) {
+        log.info("Received request to patch drawing with id {}", inDrawingId);
+
+        return performServiceOperation(
+            () -> performShapesOperation(() -> {
+                mDrawingService.patch(inDrawingId, inOperations);
+                return ResponseEntity.ok().build();
+            }),
+            500, "An error occurred patching drawing with id " + inDrawingId + ": ");
+    }
+
+    /**
+     * Performs the supplied operation modifying the shapes of a drawing.
+     * Creates an error response with HTTP status 404 if the drawing or a shape does
+     * not exist and with HTTP status 400 if the request is invalid.
+     *
+     * @param inResponseSupplier Operation to complete.
+     * @return Response object.
+     */
+    protected static ResponseEntity<?> performShapesOperation(final Supplier<ResponseEntity<?>> inResponseSupplier) {
+        try {
+            return inResponseSupplier.get();
+        } catch (final EntityNotFoundException | ObjectRetrievalFailureException theException) {
+            return ResponseEntity
+                .status(404)
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(theException.getMessage());
+        } catch (final IllegalArgumentException | InvalidDataAccessApiUsageException theException) {
+            return ResponseEntity
+                .status(400)
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(theException.getMessage());
+        }
+    }
+
+    /**
+     * Converts the supplied response to a response with a streamed body.
+     * Error responses with a plain-text error message are streamed as is.
+     *
+     * @param inResponse Response which body is either streamed or a plain-text error message.
+     * @return Response object with streamed body.
+     */
+    protected static ResponseEntity<StreamingResponseBody> toStreamingResponse(final ResponseEntity<?> inResponse) {
+        if (inResponse.getBody() instanceof StreamingResponseBody theStreamingBody) {
+            return ResponseEntity
+                .status(inResponse.getStatusCode())
+                .headers(inResponse.getHeaders())
+                .body(theStreamingBody);
+        }
+        final byte[] theBody = String.valueOf(inResponse.getBody()).getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity
+            .status(inResponse.getStatusCode())
+            .headers(inResponse.getHeaders())
+            .body(inOutputStream -> inOutputStream.write(theBody));
     }
 
     @Override
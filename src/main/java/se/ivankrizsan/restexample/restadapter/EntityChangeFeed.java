@@ -0,0 +1,266 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import se.ivankrizsan.restexample.services.EntityChangeEvent;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Feed of entity changes delivered to subscribers as server-sent events.
+ * Changes are published to the feed after the transaction in which they were made
+ * has been committed. The most recent events are kept in a ring buffer, allowing
+ * subscribers to resume from the id of the last event they received.
+ * Each subscriber has a bounded buffer of pending events in which repeated changes
+ * to the same entity are coalesced. If the buffer overflows, its contents are replaced
+ * by a reset event telling the subscriber to reload the entities.
+ *
+ * @author Ivan Krizsan
+ */
+@Slf4j
+@Component
+public class EntityChangeFeed {
+    /* Constant(s): */
+    public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+    protected static final String ALL_ENTITIES_KEY = "*";
+
+    /* Instance variable(s): */
+    protected final ChangeFeedEvent[] mRecentEvents;
+    /* Sequence number of next event, guarded by the recent events lock. */
+    protected long mNextSequence = 1;
+    protected final int mSubscriberBufferCapacity;
+    protected final long mEmitterTimeout;
+    protected final List<Subscription> mSubscriptions = new CopyOnWriteArrayList<>();
+    protected final ExecutorService mDispatchExecutor;
+
+    /**
+     * Creates a change feed.
+     *
+     * @param inRecentEventsCapacity Number of recent events kept for subscribers resuming the feed.
+     * @param inSubscriberBufferCapacity Maximum number of pending events per subscriber.
+     * @param inEmitterTimeout Timeout in milliseconds after which subscriptions are completed.
+     * @param inDispatchThreads Number of threads sending events to subscribers.
+     */
+    public EntityChangeFeed(
+        @Value("${restexample.changes.recent-events-capacity:1024}") final int inRecentEventsCapacity,
+        @Value("${restexample.changes.subscriber-buffer-capacity:256}") final int inSubscriberBufferCapacity,
+        @Value("${restexample.changes.emitter-timeout:1800000}") final long inEmitterTimeout,
+        @Value("${restexample.changes.dispatch-threads:2}") final int inDispatchThreads) {
+        mRecentEvents = new ChangeFeedEvent[inRecentEventsCapacity];
+        mSubscriberBufferCapacity = inSubscriberBufferCapacity;
+        mEmitterTimeout = inEmitterTimeout;
+        mDispatchExecutor = Executors.newFixedThreadPool(inDispatchThreads);
+    }
+
+    /**
+     * Receives entity change events published by services.
+     * If a transaction is active, the change is published to the feed after the
+     * transaction has been committed and discarded if the transaction is rolled back.
+     *
+     * @param inEntityChangeEvent Entity change event.
+     */
+    @EventListener
+    public void onEntityChange(final EntityChangeEvent inEntityChangeEvent) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(inEntityChangeEvent);
+                }
+            });
+        } else {
+            publish(inEntityChangeEvent);
+        }
+    }
+
+    /**
+     * Retrieves the sequence number of the latest event published to the feed.
+     * The sequence number changes whenever a change to an entity has been committed.
+     *
+     * @return Sequence number of latest event, zero if no event has been published.
+     */
+    public long latestSequence() {
+        synchronized (mRecentEvents) {
+            return mNextSequence - 1;
+        }
+    }
+
+    /**
+     * Creates a subscription to changes of entities of the supplied type.
+     * A subscriber resuming from an event no longer among the recent events, or from an event
+     * published before the application was restarted, is sent a reset event.
+     *
+     * @param inEntityType Simple name of entity class.
+     * @param inLastEventId Id of last event received by the subscriber, or null if new subscriber.
+     * @return Emitter sending events to the subscriber.
+     */
+    public SseEmitter subscribe(final String inEntityType, final Long inLastEventId) {
+        final SseEmitter theEmitter = new SseEmitter(mEmitterTimeout);
+        final Subscription theSubscription = new Subscription(inEntityType, theEmitter);
+        theEmitter.onCompletion(() -> mSubscriptions.remove(theSubscription));
+        theEmitter.onTimeout(() -> mSubscriptions.remove(theSubscription));
+        theEmitter.onError(inError -> mSubscriptions.remove(theSubscription));
+
+        /* Registering and replaying while holding the lock ensures no event is lost or delivered twice. */
+        synchronized (mRecentEvents) {
+            mSubscriptions.add(theSubscription);
+            if (inLastEventId != null) {
+                final long theOldestSequence = Math.max(1, mNextSequence - mRecentEvents.length);
+                /*
+                 * Sequence numbers restart when the application restarts, so an id not yet assigned
+                 * was received before a restart and, like an expired id, cannot be resumed from.
+                 */
+                if (inLastEventId + 1 < theOldestSequence || inLastEventId >= mNextSequence) {
+                    theSubscription.offer(
+                        new ChangeFeedEvent(mNextSequence - 1, inEntityType, null, ChangeFeedEvent.OP_RESET));
+                } else {
+                    for (long theSequence = inLastEventId + 1; theSequence < mNextSequence; theSequence++) {
+                        final ChangeFeedEvent theEvent = mRecentEvents[(int) (theSequence % mRecentEvents.length)];
+                        if (inEntityType.equals(theEvent.getType())) {
+                            theSubscription.offer(theEvent);
+                        }
+                    }
+                }
+            }
+        }
+        log.info("New subscriber to changes of {} resuming after event {}", inEntityType, inLastEventId);
+        return theEmitter;
+    }
+
+    /**
+     * Completes all subscriptions and stops sending events when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        mDispatchExecutor.shutdownNow();
+        mSubscriptions.forEach(inSubscription -> inSubscription.mEmitter.complete());
+    }
+
+    /**
+     * Assigns a sequence number to the supplied change, stores it among the recent events
+     * and offers it to the subscribers of the entity type.
+     *
+     * @param inEntityChangeEvent Entity change event.
+     */
+    protected void publish(final EntityChangeEvent inEntityChangeEvent) {
+        synchronized (mRecentEvents) {
+            final ChangeFeedEvent theEvent = new ChangeFeedEvent(mNextSequence,
+                inEntityChangeEvent.getEntityType(), inEntityChangeEvent.getEntityId(),
+                inEntityChangeEvent.getOperation().name());
+            mRecentEvents[(int) (mNextSequence % mRecentEvents.length)] = theEvent;
+            mNextSequence++;
+
+            for (final Subscription theSubscription : mSubscriptions) {
+                if (theSubscription.mEntityType.equals(theEvent.getType())) {
+                    theSubscription.offer(theEvent);
+                }
+            }
+        }
+    }
+
+    /**
+     * A subscriber to the change feed with its buffer of pending events.
+     */
+    protected class Subscription {
+        /* Instance variable(s): */
+        protected final String mEntityType;
+        protected final SseEmitter mEmitter;
+        /* Pending events keyed by entity id, in order of sequence number. */
+        protected final Map<String, ChangeFeedEvent> mPendingEvents = new LinkedHashMap<>();
+        protected final AtomicBoolean mDispatchScheduled = new AtomicBoolean();
+
+        /**
+         * Creates a subscription.
+         *
+         * @param inEntityType Simple name of entity class which changes to subscribe to.
+         * @param inEmitter Emitter sending events to the subscriber.
+         */
+        protected Subscription(final String inEntityType, final SseEmitter inEmitter) {
+            mEntityType = inEntityType;
+            mEmitter = inEmitter;
+        }
+
+        /**
+         * Adds the supplied event to the pending events of the subscriber, coalescing it with
+         * any pending event for the same entity, and schedules dispatch of pending events.
+         *
+         * @param inEvent Event to offer.
+         */
+        protected void offer(final ChangeFeedEvent inEvent) {
+            synchronized (this) {
+                if (inEvent.getId() == null) {
+                    /* Deleting all entities or resetting supersedes all pending events. */
+                    mPendingEvents.clear();
+                    mPendingEvents.put(ALL_ENTITIES_KEY, inEvent);
+                } else {
+                    final String theKey = inEvent.getId().toString();
+                    final ChangeFeedEvent thePendingEvent = mPendingEvents.remove(theKey);
+                    /* An entity created and then updated is still a new entity to the subscriber. */
+                    final boolean theCreatedFlag = thePendingEvent != null
+                        && EntityChangeEvent.Operation.CREATE.name().equals(thePendingEvent.getOp())
+                        && EntityChangeEvent.Operation.UPDATE.name().equals(inEvent.getOp());
+                    mPendingEvents.put(theKey, theCreatedFlag
+                        ? new ChangeFeedEvent(inEvent.getVersion(), inEvent.getType(), inEvent.getId(),
+                            EntityChangeEvent.Operation.CREATE.name())
+                        : inEvent);
+                }
+
+                if (mPendingEvents.size() > mSubscriberBufferCapacity) {
+                    log.warn("Change feed buffer of subscriber to {} overflowed, sending reset", mEntityType);
+                    mPendingEvents.clear();
+                    mPendingEvents.put(ALL_ENTITIES_KEY,
+                        new ChangeFeedEvent(inEvent.getVersion(), mEntityType, null, ChangeFeedEvent.OP_RESET));
+                }
+            }
+            if (mDispatchScheduled.compareAndSet(false, true)) {
+                mDispatchExecutor.execute(this::dispatch);
+            }
+        }
+
+        /**
+         * Sends pending events to the subscriber until there are no more pending events.
+         */
+        protected void dispatch() {
+            while (true) {
+                final List<ChangeFeedEvent> theEvents;
+                synchronized (this) {
+                    if (mPendingEvents.isEmpty()) {
+                        mDispatchScheduled.set(false);
+                        return;
+                    }
+                    theEvents = new ArrayList<>(mPendingEvents.values());
+                    mPendingEvents.clear();
+                }
+                try {
+                    for (final ChangeFeedEvent theEvent : theEvents) {
+                        mEmitter.send(SseEmitter
+                            .event()
+                            .id(Long.toString(theEvent.getVersion()))
+                            .name(theEvent.getOp())
+                            .data(theEvent, MediaType.APPLICATION_JSON));
+                    }
+                } catch (final IOException | IllegalStateException theException) {
+                    log.info("Removing change feed subscriber to {}: {}", mEntityType, theException.getMessage());
+                    mSubscriptions.remove(this);
+                    mEmitter.completeWithError(theException);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks request handler methods which responses depend only on the request and on entities
+ * changed through services publishing entity change events.
+ * The responses of such handlers can be identified by the sequence number of the latest change
+ * in the entity change feed, which is known before the handler is invoked, and are thus given
+ * ETags and cached by the {@code CompressionFilter} without invoking the handler again until
+ * an entity has been changed.
+ *
+ * @author Ivan Krizsan
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface EntityChangeVersioned {
+}
@@ -0,0 +1,300 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.ivankrizsan.restexample.domain.IdempotencyRecord;
+import se.ivankrizsan.restexample.repositories.IdempotencyRecordRepository;
+import se.ivankrizsan.restexample.sharding.ShardManager;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Store of requests carrying idempotency keys, making retried requests replay the response
+ * of the first request with the same key instead of being performed again.
+ * A fingerprint of the request and its response are recorded in the same transaction as the
+ * changes made by the request, so a request is recorded if and only if its changes are committed.
+ * Only successful responses are recorded; a failed request may be retried with the same key.
+ * Concurrent requests with the same key wait for the first request to finish and then replay
+ * its response. A request with the key of a recorded request but a different fingerprint
+ * is rejected.
+ * Records expire after the time to live and the store is bounded by a maximum number of
+ * records, the oldest records being evicted first.
+ * With sharding enabled, a request is recorded in the shard in which its changes were made
+ * and records are looked up in all shards.
+ *
+ * @author Ivan Krizsan
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+    /* Constant(s): */
+    /** Response header marking a response replayed from a recorded request. */
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    protected static final String FINGERPRINT_ALGORITHM = "SHA-256";
+
+    /* Instance variable(s): */
+    protected final IdempotencyRecordRepository mRepository;
+    protected final TransactionTemplate mTransactionTemplate;
+    protected final ObjectMapper mObjectMapper;
+    protected final long mTimeToLive;
+    protected final int mMaxRecords;
+    protected final long mWaitTimeout;
+    protected final Map<String, CompletableFuture<Void>> mInFlightRequests = new ConcurrentHashMap<>();
+    protected ShardManager mShardManager;
+
+    /**
+     * Creates an idempotency store.
+     *
+     * @param inRepository Repository holding records of requests.
+     * @param inTransactionManager Transaction manager used to perform requests.
+     * @param inObjectMapper Object mapper used to record and replay responses.
+     * @param inTimeToLive Milliseconds after which a record expires.
+     * @param inMaxRecords Maximum number of records kept.
+     * @param inWaitTimeout Maximum number of milliseconds a request waits for a concurrent
+     * request with the same key to finish.
+     */
+    public IdempotencyStore(final IdempotencyRecordRepository inRepository,
+        final PlatformTransactionManager inTransactionManager, final ObjectMapper inObjectMapper,
+        @Value("${restexample.idempotency.time-to-live:86400000}") final long inTimeToLive,
+        @Value("${restexample.idempotency.max-records:100000}") final int inMaxRecords,
+        @Value("${restexample.idempotency.wait-timeout:30000}") final long inWaitTimeout) {
+        mRepository = inRepository;
+        mTransactionTemplate = new TransactionTemplate(inTransactionManager);
+        mObjectMapper = inObjectMapper;
+        mTimeToLive = inTimeToLive;
+        mMaxRecords = inMaxRecords;
+        mWaitTimeout = inWaitTimeout;
+    }
+
+    /**
+     * Performs the supplied operation unless a request with the supplied idempotency key
+     * has already been recorded, in which case the recorded response is replayed.
+     * The operation is performed in a transaction in which the request is also recorded,
+     * provided that the operation succeeds.
+     *
+     * @param inIdempotencyKey Idempotency key of request.
+     * @param inFingerprint Fingerprint of request, see {@link #fingerprint(String, Object)}.
+     * @param inOperation Operation performing the request.
+     * @return Response of operation, recorded response or error response with HTTP status 422
+     * if the key was used with a different request or 409 if a concurrent request with the same
+     * key did not finish in time.
+     */
+    public ResponseEntity<?> perform(final String inIdempotencyKey, final String inFingerprint,
+        final Supplier<ResponseEntity<?>> inOperation) {
+        final CompletableFuture<Void> theInFlightRequest = new CompletableFuture<>();
+        if (!awaitInFlightRequest(inIdempotencyKey, theInFlightRequest)) {
+            return errorResponse(409, "A request with the same idempotency key is in progress");
+        }
+        try {
+            final Optional<IdempotencyRecord> theRecord = findRecord(inIdempotencyKey);
+            if (theRecord.isPresent()) {
+                return replay(theRecord.get(), inFingerprint);
+            }
+            try {
+                return mTransactionTemplate.execute(inStatus -> {
+                    final ResponseEntity<?> theResponse = inOperation.get();
+                    if (theResponse.getStatusCode().is2xxSuccessful()) {
+                        mRepository.saveAndFlush(new IdempotencyRecord(inIdempotencyKey, inFingerprint,
+                            theResponse.getStatusCode().value(), toJson(theResponse.getBody()), mTimeToLive));
+                    } else {
+                        inStatus.setRollbackOnly();
+                    }
+                    return theResponse;
+                });
+            } catch (final DataIntegrityViolationException theException) {
+                log.info("Request with idempotency key {} was recorded concurrently", inIdempotencyKey);
+                return findRecord(inIdempotencyKey)
+                    .<ResponseEntity<?>>map(inRecord -> replay(inRecord, inFingerprint))
+                    .orElseThrow(() -> theException);
+            }
+        } finally {
+            mInFlightRequests.remove(inIdempotencyKey, theInFlightRequest);
+            theInFlightRequest.complete(null);
+        }
+    }
+
+    /**
+     * Calculates the fingerprint of the request performing the supplied operation with
+     * the supplied request body.
+     *
+     * @param inOperation Operation of request including its target, for example {@code Circle.update:1}.
+     * @param inRequestBody Request body, may be null.
+     * @return Hexadecimal SHA-256 digest of operation and JSON representation of request body.
+     */
+    public String fingerprint(final String inOperation, final Object inRequestBody) {
+        try {
+            final MessageDigest theDigest = MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+            theDigest.update(inOperation.getBytes(StandardCharsets.UTF_8));
+            theDigest.update((byte) '\n');
+            theDigest.update(mObjectMapper.writeValueAsBytes(inRequestBody));
+            return HexFormat.of().formatHex(theDigest.digest());
+        } catch (final NoSuchAlgorithmException theException) {
+            throw new IllegalStateException(theException);
+        } catch (final JsonProcessingException theException) {
+            throw new UncheckedIOException(theException);
+        }
+    }
+
+    /**
+     * Deletes expired records and the oldest records exceeding the maximum number of records.
+     */
+    @Scheduled(fixedDelayString = "${restexample.idempotency.eviction-interval:60000}")
+    public void evictRecords() {
+        final int theEvictedCount = (mShardManager == null)
+            ? evictRecordsInShard()
+            : mShardManager
+                .scatter(false, this::evictRecordsInShard)
+                .stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+        if (theEvictedCount > 0) {
+            log.info("Evicted {} idempotency records", theEvictedCount);
+        }
+    }
+
+    /**
+     * Waits until there is no request with the supplied idempotency key in progress and
+     * then registers the supplied request as being in progress.
+     *
+     * @param inIdempotencyKey Idempotency key of request.
+     * @param inInFlightRequest Completed when the request has finished.
+     * @return True if the request was registered, false if waiting timed out or was interrupted.
+     */
+    protected boolean awaitInFlightRequest(final String inIdempotencyKey,
+        final CompletableFuture<Void> inInFlightRequest) {
+        final long theDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(mWaitTimeout);
+        CompletableFuture<Void> theOtherRequest;
+        while ((theOtherRequest = mInFlightRequests.putIfAbsent(inIdempotencyKey, inInFlightRequest)) != null) {
+            try {
+                theOtherRequest.get(theDeadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (final TimeoutException | ExecutionException theException) {
+                return false;
+            } catch (final InterruptedException theException) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the unexpired record with the supplied idempotency key.
+     *
+     * @param inIdempotencyKey Idempotency key.
+     * @return Record, or empty if there is no such record.
+     */
+    protected Optional<IdempotencyRecord> findRecord(final String inIdempotencyKey) {
+        final Date theNow = new Date();
+        if (mShardManager == null) {
+            return mRepository.findUnexpired(inIdempotencyKey, theNow);
+        }
+        return mShardManager
+            .scatter(true, () -> mRepository.findUnexpired(inIdempotencyKey, theNow))
+            .stream()
+            .flatMap(Optional::stream)
+            .findFirst();
+    }
+
+    /**
+     * Creates a response replaying the supplied record, provided that the supplied fingerprint
+     * is the fingerprint of the recorded request.
+     *
+     * @param inRecord Record of request.
+     * @param inFingerprint Fingerprint of retried request.
+     * @return Recorded response, or error response with HTTP status 422 if the fingerprints differ.
+     */
+    protected ResponseEntity<?> replay(final IdempotencyRecord inRecord, final String inFingerprint) {
+        if (!inRecord.getFingerprint().equals(inFingerprint)) {
+            return errorResponse(422, "The idempotency key has already been used with a different request");
+        }
+        try {
+            return ResponseEntity
+                .status(inRecord.getStatusCode())
+                .header(IDEMPOTENT_REPLAYED_HEADER, Boolean.TRUE.toString())
+                .body((inRecord.getResponseBody() != null)
+                    ? mObjectMapper.readTree(inRecord.getResponseBody()) : null);
+        } catch (final JsonProcessingException theException) {
+            throw new UncheckedIOException(theException);
+        }
+    }
+
+    /**
+     * Deletes expired records and the oldest records exceeding the maximum number of records
+     * in the current shard.
+     *
+     * @return Number of records deleted.
+     */
+    protected int evictRecordsInShard() {
+        /* Deleting nothing makes the database log a no data warning, thus only delete if there is something to. */
+        final Date theNow = new Date();
+        int theEvictedCount = mRepository.existsExpired(theNow) ? mRepository.deleteExpired(theNow) : 0;
+        final List<Long> theNewestEvictedIds = mRepository.findIdsNewestFirst(PageRequest.of(mMaxRecords, 1));
+        if (!theNewestEvictedIds.isEmpty()) {
+            theEvictedCount += mRepository.deleteUpToId(theNewestEvictedIds.get(0));
+        }
+        return theEvictedCount;
+    }
+
+    /**
+     * Creates the JSON representation of the supplied response body.
+     *
+     * @param inBody Response body, may be null.
+     * @return JSON representation, or null if there is no body.
+     */
+    protected String toJson(final Object inBody) {
+        try {
+            return (inBody != null) ? mObjectMapper.writeValueAsString(inBody) : null;
+        } catch (final JsonProcessingException theException) {
+            throw new UncheckedIOException(theException);
+        }
+    }
+
+    /**
+     * Creates an error response with the supplied HTTP status and plain-text error message.
+     *
+     * @param inHttpStatus HTTP status of response.
+     * @param inMessage Error message.
+     * @return Error response.
+     */
+    protected static ResponseEntity<?> errorResponse(final int inHttpStatus, final String inMessage) {
+        return ResponseEntity
+            .status(inHttpStatus)
+            .contentType(MediaType.TEXT_PLAIN)
+            .body(inMessage);
+    }
+
+    /**
+     * Sets the shard manager. Only available if sharding is enabled.
+     *
+     * @param inShardManager Shard manager.
+     */
+    @Autowired(required = false)
+    public void setShardManager(final ShardManager inShardManager) {
+        mShardManager = inShardManager;
+    }
+}
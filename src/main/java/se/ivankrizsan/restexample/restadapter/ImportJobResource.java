@@ -0,0 +1,65 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import io.micrometer.observation.annotation.Observed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import se.ivankrizsan.restexample.services.imports.ImportJobService;
+
+/**
+ * REST resource exposing the status of jobs importing entities in bulk.
+ * Import jobs are created by uploading files to the imports path of the resource of an
+ * entity type, for example {@code POST /circles/imports}.
+ *
+ * @author Ivan Krizsan
+ */
+@RestController
+@RequestMapping(value = ImportJobResource.PATH,
+    produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_PLAIN_VALUE})
+@Observed(name = "ImportJobResource")
+@Slf4j
+public class ImportJobResource {
+    /* Constant(s): */
+    public static final String PATH = "/imports";
+
+    /* Instance variable(s): */
+    protected final ImportJobService mImportJobService;
+
+    /**
+     * Creates a REST resource using the supplied service to retrieve import jobs.
+     *
+     * @param inImportJobService Service used to retrieve import jobs.
+     */
+    public ImportJobResource(final ImportJobService inImportJobService) {
+        mImportJobService = inImportJobService;
+    }
+
+    /**
+     * Retrieves the status of the import job with supplied id, containing the status, progress
+     * and throughput of the job and the line numbers and reasons of the first rows rejected.
+     *
+     * @param inJobId Import job id.
+     * @return HTTP response object with HTTP status 200 if operation succeeded, HTTP status 404
+     * if there is no such job or HTTP error status code and a plain-text error message
+     * if another error occurred.
+     */
+    @GetMapping(path = "{id}")
+    public ResponseEntity<?> getImportJob(@PathVariable("id") final Long inJobId) {
+        log.info("Received request to get import job with id {}", inJobId);
+
+        return RestResourceBasePlain.performServiceOperation(
+            () -> mImportJobService
+                .findJobStatus(inJobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity
+                    .status(404)
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body("No import job with id " + inJobId)),
+            500, "An error occurred finding import job with id " + inJobId + ": "
+        );
+    }
+}
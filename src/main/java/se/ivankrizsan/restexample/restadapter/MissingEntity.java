@@ -0,0 +1,26 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+/**
+ * Marker returned in place of an entity when retrieving multiple entities by id
+ * and there is no entity with one of the requested ids.
+ * Represented as {@code {"id": 4711, "missing": true}}.
+ *
+ * @author Ivan Krizsan
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+@Accessors(prefix = "m")
+public class MissingEntity {
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    /** Id for which there is no entity. */
+    protected final Long mId;
+    protected final boolean mMissing = true;
+}
@@ -0,0 +1,125 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servlet filter that limits the rate of write requests, that is requests that are not
+ * GET, HEAD or OPTIONS requests or lookups of entities by ids, per client.
+ * Clients supplying an API key in the X-API-Key header are limited per API key, other clients
+ * are limited per IP address, each with a separate quota.
+ * Responses to limited requests contain the RateLimit-Limit, RateLimit-Remaining and
+ * RateLimit-Reset headers. Requests exceeding the quota are rejected with HTTP status 429
+ * and a Retry-After header.
+ *
+ * @author Ivan Krizsan
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+    /* Constant(s): */
+    public static final String API_KEY_HEADER = "X-API-Key";
+    public static final String RATE_LIMIT_LIMIT_HEADER = "RateLimit-Limit";
+    public static final String RATE_LIMIT_REMAINING_HEADER = "RateLimit-Remaining";
+    public static final String RATE_LIMIT_RESET_HEADER = "RateLimit-Reset";
+    public static final String KEY_TYPE_API_KEY = "api-key";
+    public static final String KEY_TYPE_IP = "ip";
+    protected static final String LOOKUP_PATH_SUFFIX = "/lookup";
+
+    /* Instance variable(s): */
+    protected final TokenBucketStore mApiKeyBuckets;
+    protected final TokenBucketStore mIpBuckets;
+    protected final MeterRegistry mMeterRegistry;
+
+    /**
+     * Creates a rate limit filter.
+     *
+     * @param inApiKeyBuckets Token buckets of clients identified by API key.
+     * @param inIpBuckets Token buckets of clients identified by IP address.
+     * @param inMeterRegistry Registry in which to register rate limit metrics.
+     */
+    public RateLimitFilter(final TokenBucketStore inApiKeyBuckets, final TokenBucketStore inIpBuckets,
+        final MeterRegistry inMeterRegistry) {
+        mApiKeyBuckets = inApiKeyBuckets;
+        mIpBuckets = inIpBuckets;
+        mMeterRegistry = inMeterRegistry;
+
+        Gauge.builder("http.server.ratelimit.buckets", inApiKeyBuckets, TokenBucketStore::size)
+            .description("Number of clients with a rate limit token bucket")
+            .tag("key.type", KEY_TYPE_API_KEY)
+            .register(inMeterRegistry);
+        Gauge.builder("http.server.ratelimit.buckets", inIpBuckets, TokenBucketStore::size)
+            .description("Number of clients with a rate limit token bucket")
+            .tag("key.type", KEY_TYPE_IP)
+            .register(inMeterRegistry);
+    }
+
+    /**
+     * Only write requests are rate limited.
+     *
+     * @param inRequest Request.
+     * @return True if request is a read request, false otherwise.
+     */
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest inRequest) {
+        final String theMethod = inRequest.getMethod();
+        return HttpMethod.GET.matches(theMethod)
+            || HttpMethod.HEAD.matches(theMethod)
+            || HttpMethod.OPTIONS.matches(theMethod)
+            || (HttpMethod.POST.matches(theMethod) && inRequest.getRequestURI().endsWith(LOOKUP_PATH_SUFFIX));
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest inRequest, final HttpServletResponse inResponse,
+        final FilterChain inFilterChain) throws ServletException, IOException {
+        final String theApiKey = inRequest.getHeader(API_KEY_HEADER);
+        final boolean theApiKeyFlag = theApiKey != null && !theApiKey.isBlank();
+        final TokenBucketStore theBuckets = theApiKeyFlag ? mApiKeyBuckets : mIpBuckets;
+        final String theKeyType = theApiKeyFlag ? KEY_TYPE_API_KEY : KEY_TYPE_IP;
+        final TokenBucketStore.Result theResult =
+            theBuckets.tryConsume(theApiKeyFlag ? theApiKey : inRequest.getRemoteAddr());
+
+        inResponse.setHeader(RATE_LIMIT_LIMIT_HEADER, Long.toString(theBuckets.getCapacity()));
+        inResponse.setHeader(RATE_LIMIT_REMAINING_HEADER, Long.toString(theResult.remaining()));
+        inResponse.setHeader(RATE_LIMIT_RESET_HEADER, Long.toString(toSecondsRoundedUp(theResult.resetNanos())));
+        Counter.builder("http.server.ratelimit.requests")
+            .description("Number of rate limited requests, by whether allowed or rejected")
+            .tag("key.type", theKeyType)
+            .tag("outcome", theResult.allowed() ? "allowed" : "rejected")
+            .register(mMeterRegistry)
+            .increment();
+
+        if (!theResult.allowed()) {
+            log.debug("Rejecting {} request to {}, rate limit exceeded",
+                inRequest.getMethod(), inRequest.getRequestURI());
+            inResponse.setHeader(HttpHeaders.RETRY_AFTER,
+                Long.toString(toSecondsRoundedUp(theResult.retryAfterNanos())));
+            inResponse.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Rate limit exceeded");
+            return;
+        }
+        inFilterChain.doFilter(inRequest, inResponse);
+    }
+
+    /**
+     * Converts the supplied number of nanoseconds to seconds, rounding up.
+     *
+     * @param inNanos Number of nanoseconds.
+     * @return Number of seconds.
+     */
+    protected static long toSecondsRoundedUp(final long inNanos) {
+        final long theNanosPerSecond = TimeUnit.SECONDS.toNanos(1);
+        return (inNanos + theNanosPerSecond - 1) / theNanosPerSecond;
+    }
+}
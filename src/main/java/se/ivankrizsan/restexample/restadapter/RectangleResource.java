@@ -4,6 +4,7 @@ import io.micrometer.observation.annotation.Observed;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import se.ivankrizsan.restexample.JacksonConfiguration;
 import se.ivankrizsan.restexample.domain.Rectangle;
 import se.ivankrizsan.restexample.services.RectangleService;
 
@@ -15,7 +16,8 @@ import java.util.List;
  * @author Ivan Krizsan
  */
 @RestController
-@RequestMapping(value = RectangleResource.PATH, produces = { MediaType.APPLICATION_JSON_VALUE })
+@RequestMapping(value = RectangleResource.PATH, produces = { MediaType.APPLICATION_JSON_VALUE,
+    JacksonConfiguration.APPLICATION_SMILE_VALUE, JacksonConfiguration.APPLICATION_CBOR_VALUE })
 @Observed(name = "RectangleResource")
 public class RectangleResource extends RestResourceBasePlain<Rectangle> {
     /* Constant(s): */
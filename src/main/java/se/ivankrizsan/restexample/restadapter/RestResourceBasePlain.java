@@ -3,57 +3,279 @@ package se.ivankrizsan.restexample.restadapter;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.constraints.NotNull;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import se.ivankrizsan.restexample.JacksonConfiguration;
 import se.ivankrizsan.restexample.domain.LongIdEntity;
+import se.ivankrizsan.restexample.domain.IdempotencyRecord;
+import se.ivankrizsan.restexample.domain.ImportJob;
 import se.ivankrizsan.restexample.services.AbstractServiceBasePlain;
+import se.ivankrizsan.restexample.services.imports.ImportJobService;
+import se.ivankrizsan.restexample.services.jobs.AsyncJob;
+import se.ivankrizsan.restexample.services.jobs.AsyncJobService;
 
-import java.util.List;
-import java.util.Optional;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Supplier;
 
 /**
  * Abstract base class for REST resources exposing operations on an entity type.
  * All operations will return HTTP status 500 with a plain text body containing an
  * error message if an error occurred during request processing.
+ * Entity representations are JSON by default; the binary Smile and CBOR formats
+ * are used if requested by the client in the Accept header.
  *
  * @param <E> Entity type.
  * @author Ivan Krizsan
  */
 @Slf4j
 @RequestMapping(
-        produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_PLAIN_VALUE},
-        consumes = {MediaType.APPLICATION_JSON_VALUE})
+        produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_PLAIN_VALUE,
+            JacksonConfiguration.APPLICATION_SMILE_VALUE, JacksonConfiguration.APPLICATION_CBOR_VALUE},
+        consumes = {MediaType.APPLICATION_JSON_VALUE,
+            JacksonConfiguration.APPLICATION_SMILE_VALUE, JacksonConfiguration.APPLICATION_CBOR_VALUE})
 public abstract class RestResourceBasePlain<E extends LongIdEntity> {
     /* Constant(s): */
+    /** Request parameter holding comma-separated list of properties to retrieve. */
+    public static final String FIELDS_PARAMETER = "fields";
+    /** Request parameter holding comma-separated list of properties to sort on. */
+    public static final String SORT_PARAMETER = "sort";
+    /** Request parameter holding the id of the last entity of the previous page. */
+    public static final String AFTER_PARAMETER = "after";
+    /** Request parameter holding the maximum number of entities of a page. */
+    public static final String LIMIT_PARAMETER = "limit";
+    /** Response header holding the cursor of the next page, if there may be a next page. */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    /** Request parameter holding comma-separated list of ids of entities to retrieve. */
+    public static final String IDS_PARAMETER = "ids";
+    /** Maximum number of entities that can be retrieved by id in one request. */
+    public static final int MAX_IDS_PER_REQUEST = 1000;
+    /** Media type of CSV files uploaded to import entities. */
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    /** Response header holding the number of entities deleted. */
+    public static final String DELETED_COUNT_HEADER = "X-Deleted-Count";
+    /** Request header in which a client may ask for an operation to be performed asynchronously. */
+    public static final String PREFER_HEADER = "Prefer";
+    /** Response header confirming that an operation is performed asynchronously. */
+    public static final String PREFERENCE_APPLIED_HEADER = "Preference-Applied";
+    /** Preference asking for an operation to be performed asynchronously, see RFC 7240. */
+    public static final String RESPOND_ASYNC_PREFERENCE = "respond-async";
+    /** Request header holding a client-generated key making retries of a request idempotent. */
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    protected static final String ID_PROPERTY = "id";
 
     /* Instance variable(s): */
     protected AbstractServiceBasePlain<E> mService;
+    protected EntityChangeFeed mChangeFeed;
+    protected ImportJobService mImportJobService;
+    protected AsyncJobService mAsyncJobService;
+    protected IdempotencyStore mIdempotencyStore;
+    protected final String mEntityTypeName;
+
+    /**
+     * Creates a REST resource determining the entity type from the type parameter of the subclass.
+     */
+    protected RestResourceBasePlain() {
+        final Class<?> theEntityType =
+                GenericTypeResolver.resolveTypeArgument(getClass(), RestResourceBasePlain.class);
+        mEntityTypeName = (theEntityType != null) ? theEntityType.getSimpleName() : null;
+    }
 
 
     /**
      * Retrieves all entities.
+     * If the fields parameter is supplied, only the listed properties of the entities
+     * are retrieved. The id property is always included.
+     * If the sort parameter is supplied, the entities are sorted on the listed properties.
+     * A property prefixed with a minus sign is sorted in descending order.
+     * If the limit parameter is supplied, one page of at most that many entities ordered by id
+     * is retrieved, starting after the id in the after parameter. The cursor of the next page
+     * is returned in the X-Next-Cursor header. Pages cannot be combined with fields, sort or filters.
+     * The after parameter cannot be supplied without the limit parameter.
+     * If the ids parameter is supplied, the entities with the listed ids are retrieved in the order
+     * of the ids, see {@link #lookupEntities(List)}. Ids cannot be combined with other parameters.
+     * All other request parameters are filters restricting the entities retrieved, for example
+     * {@code colour=red&radius.gt=50}.
      *
+     * @param inRequestParameters Request parameters containing fields, sort and filter parameters.
      * @return HTTP response object with HTTP status 200 if operation succeeded or
      * HTTP error status code and a plain-text error message if an error occurred.
      */
+    @EntityChangeVersioned
     @GetMapping
-    public ResponseEntity<?> getAll() {
+    public ResponseEntity<?> getAll(@RequestParam final Map<String, String> inRequestParameters) {
         log.info("Received request to get all entities");
 
         return performServiceOperation(
-                () -> {
-                    final List<E> theEntitiesList = mService.findAll();
+                () -> performQueryOperation(() -> {
+                    final Map<String, String> theFilterParameters = new HashMap<>(inRequestParameters);
+                    final String theIds = theFilterParameters.remove(IDS_PARAMETER);
+                    if (theIds != null) {
+                        if (!theFilterParameters.isEmpty()) {
+                            throw new IllegalArgumentException("Ids cannot be combined with other parameters");
+                        }
+                        return getByIds(parseIds(theIds));
+                    }
+                    final String theLimit = theFilterParameters.remove(LIMIT_PARAMETER);
+                    final String theAfter = theFilterParameters.remove(AFTER_PARAMETER);
+                    if (theAfter != null && theLimit == null) {
+                        throw new IllegalArgumentException("The after parameter requires the limit parameter");
+                    }
+                    if (theLimit != null) {
+                        if (!theFilterParameters.isEmpty()) {
+                            throw new IllegalArgumentException(
+                                    "Pages cannot be combined with fields, sort or filter parameters");
+                        }
+                        return getPage(theAfter, theLimit);
+                    }
+                    final String theFields = theFilterParameters.remove(FIELDS_PARAMETER);
+                    final Sort theSort = parseSort(theFilterParameters.remove(SORT_PARAMETER));
+                    final boolean theFilteredFlag = !theFilterParameters.isEmpty() || theSort.isSorted();
+
+                    final List<?> theEntitiesList;
+                    if (theFields != null) {
+                        theEntitiesList = theFilteredFlag
+                                ? mService.findAllProjected(parseFields(theFields), theFilterParameters, theSort)
+                                : mService.findAllProjected(parseFields(theFields));
+                    } else {
+                        theEntitiesList = theFilteredFlag
+                                ? mService.findAllFiltered(theFilterParameters, theSort)
+                                : mService.findAll();
+                    }
                     return ResponseEntity
                             .ok()
-                            .contentType(MediaType.APPLICATION_JSON)
                             .body(theEntitiesList);
-                },
+                }),
                 500, "An error occurred retrieving all entities: "
         );
     }
 
+    /**
+     * Retrieves one page of entities ordered by id.
+     *
+     * @param inAfter Id of last entity of previous page, null to retrieve the first page.
+     * @param inLimit Maximum number of entities in page.
+     * @return HTTP response object with HTTP status 200 and the entities of the page.
+     * @throws IllegalArgumentException If after or limit parameter is invalid.
+     */
+    protected ResponseEntity<?> getPage(final String inAfter, final String inLimit) {
+        final Long theAfterId = (inAfter != null) ? Long.valueOf(inAfter) : null;
+        final int theLimit = Integer.parseInt(inLimit);
+        if (theLimit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+
+        final List<E> thePage = mService.findAllAfter(theAfterId, theLimit);
+        final ResponseEntity.BodyBuilder theResponseBuilder = ResponseEntity.ok();
+        if (thePage.size() == theLimit) {
+            theResponseBuilder.header(NEXT_CURSOR_HEADER, thePage.get(thePage.size() - 1).getId().toString());
+        }
+        return theResponseBuilder.body(thePage);
+    }
+
+    /**
+     * Retrieves the entities with the supplied ids using one request instead of one request per entity.
+     * The entities are returned in the order of the ids. For an id without entity, an object
+     * containing the id and the property missing with the value true is returned in place of the entity.
+     *
+     * @param inEntityIds Ids of entities to retrieve.
+     * @return HTTP response object with HTTP status 200 if operation succeeded,
+     * HTTP status 400 if no or too many ids are supplied or
+     * HTTP error status code and a plain-text error message if an error occurred.
+     */
+    @PostMapping(path = "lookup")
+    public ResponseEntity<?> lookupEntities(@RequestBody final List<Long> inEntityIds) {
+        log.info("Received request to look up {} entities", inEntityIds.size());
+
+        return performServiceOperation(
+                () -> performQueryOperation(() -> getByIds(inEntityIds)),
+                500, "An error occurred looking up entities: "
+        );
+    }
+
+    /**
+     * Retrieves the entities with the supplied ids in the order of the ids, with markers
+     * in place of missing entities.
+     *
+     * @param inEntityIds Ids of entities to retrieve.
+     * @return HTTP response object with HTTP status 200 and the entities.
+     * @throws IllegalArgumentException If no ids, too many ids or null ids are supplied.
+     */
+    protected ResponseEntity<?> getByIds(final List<Long> inEntityIds) {
+        if (inEntityIds.isEmpty() || inEntityIds.size() > MAX_IDS_PER_REQUEST) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_IDS_PER_REQUEST + " ids must be supplied");
+        }
+        if (inEntityIds.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Ids must not be null");
+        }
+
+        final List<E> theEntities = mService.findAllByIdOrdered(inEntityIds);
+        final List<Object> theEntitiesAndMarkers = new ArrayList<>(inEntityIds.size());
+        for (int i = 0; i < inEntityIds.size(); i++) {
+            final E theEntity = theEntities.get(i);
+            theEntitiesAndMarkers.add((theEntity != null) ? theEntity : new MissingEntity(inEntityIds.get(i)));
+        }
+        return ResponseEntity.ok(theEntitiesAndMarkers);
+    }
+
+    /**
+     * Subscribes to changes of entities as a stream of server-sent events.
+     * Each event contains the entity type, the entity id, the event sequence number
+     * as version and the operation. Repeated changes of the same entity not yet sent
+     * to the subscriber are coalesced.
+     *
+     * @param inLastEventId Id of the last event received when resuming a subscription,
+     * or null for a new subscription.
+     * @return Emitter sending change events.
+     */
+    @GetMapping(path = "changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getChanges(
+            @RequestHeader(name = EntityChangeFeed.LAST_EVENT_ID_HEADER, required = false) final Long inLastEventId) {
+        log.info("Received request to subscribe to changes");
+
+        return mChangeFeed.subscribe(mEntityTypeName, inLastEventId);
+    }
+
+    /**
+     * Imports entities in bulk from the uploaded NDJSON or CSV file.
+     * The file is spooled to disk and a job importing its rows in the background is created.
+     * The status of the job is retrieved from the import job resource at the returned location.
+     *
+     * @param inContentType Content type of uploaded file.
+     * @param inUpload Uploaded file.
+     * @return HTTP response object with HTTP status 202 containing the status of the created job
+     * if operation succeeded or HTTP error status code and a plain-text error message
+     * if an error occurred.
+     */
+    @PostMapping(path = "imports", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    public ResponseEntity<?> importEntities(@RequestHeader(HttpHeaders.CONTENT_TYPE) final String inContentType,
+                                            final InputStream inUpload) {
+        log.info("Received request to import entities");
+
+        return performServiceOperation(
+                () -> {
+                    final String theFormat = MediaType.APPLICATION_NDJSON.isCompatibleWith(
+                            MediaType.parseMediaType(inContentType))
+                            ? ImportJobService.FORMAT_NDJSON : ImportJobService.FORMAT_CSV;
+                    final ImportJob theJob = mImportJobService.createJob(mEntityTypeName, theFormat, inUpload);
+                    return ResponseEntity
+                            .accepted()
+                            .location(URI.create(ImportJobResource.PATH + "/" + theJob.getId()))
+                            .body(mImportJobService.findJobStatus(theJob.getId()).orElseThrow());
+                },
+                500, "An error occurred importing entities: "
+        );
+    }
+
     /**
      * Deletes the entity with supplied id.
      *
@@ -79,19 +301,31 @@ public abstract class RestResourceBasePlain<E extends LongIdEntity> {
     /**
      * Deletes all entities.
      * Will return HTTP status 500 if error occurred during request processing.
+     * The number of entities deleted is returned in the X-Deleted-Count header.
+     * If the Prefer header contains respond-async, the entities are deleted by a job in the
+     * background, see {@link #performAsyncOperation(String, Supplier)}, and the number of
+     * entities deleted is the result of the job.
      *
-     * @return HTTP response object with HTTP status 200 if operation succeeded or
-     * HTTP error status code and a plain-text error message if an error occurred.
+     * @param inPreferHeader Prefer request header, may be null.
+     * @return HTTP response object with HTTP status 200 if operation succeeded, HTTP status 202
+     * if a job deleting the entities was submitted or HTTP error status code and a plain-text
+     * error message if an error occurred.
      */
     @DeleteMapping
-    public ResponseEntity<?> deleteAllEntities() {
+    public ResponseEntity<?> deleteAllEntities(
+            @RequestHeader(name = PREFER_HEADER, required = false) final String inPreferHeader) {
         log.info("Received request to delete all entities");
 
+        if (isAsyncPreferred(inPreferHeader)) {
+            return performAsyncOperation("deleteAll",
+                    () -> Map.of("deletedCount", mService.deleteAll()));
+        }
         return performServiceOperation(
                 () -> {
-                    mService.deleteAll();
+                    final long theDeletedCount = mService.deleteAll();
                     return ResponseEntity
                             .ok()
+                            .header(DELETED_COUNT_HEADER, Long.toString(theDeletedCount))
                             .build();
                 },
                 500, "An error occurred deleting all entities: "
@@ -100,84 +334,103 @@ public abstract class RestResourceBasePlain<E extends LongIdEntity> {
 
     /**
      * Retrieves entity with supplied id.
+     * If the fields parameter is supplied, only the listed properties of the entity
+     * are retrieved. The id property is always included.
      *
      * @param inEntityId Id of entity to retrieve.
+     * @param inFields Comma-separated list of names of properties to retrieve, or null
+     * to retrieve the complete entity.
      * @return HTTP response object with HTTP status 200 if operation succeeded or
      * HTTP error status code and a plain-text error message if an error occurred.
      */
+    @EntityChangeVersioned
     @GetMapping(path = "{id}")
-    public ResponseEntity<?> getEntityById(@PathVariable("id") Long inEntityId) {
+    public ResponseEntity<?> getEntityById(@PathVariable("id") Long inEntityId,
+                                           @RequestParam(name = FIELDS_PARAMETER, required = false) final String inFields) {
         log.info("Received request to get entity with id {}", inEntityId);
 
         return performServiceOperation(
-                () -> {
-                    final Optional<E> theEntityOptional = mService.find(inEntityId);
+                () -> performQueryOperation(() -> {
+                    final Optional<?> theEntityOptional = (inFields == null)
+                            ? mService.find(inEntityId)
+                            : mService.findProjected(inEntityId, parseFields(inFields));
                     if (theEntityOptional.isEmpty()) {
                         throw new EntityNotFoundException();
                     }
                     return ResponseEntity
                             .ok(theEntityOptional.get());
-                },
+                }),
                 500, "An error occurred finding entity with id " + inEntityId + ": "
         );
     }
 
     /**
      * Updates the entity with supplied id by overwriting it with the supplied entity.
+     * If an idempotency key is supplied, retries of the request replay the response
+     * of the first request, see {@link #performIdempotentOperation(String, String, Object, Supplier)}.
      *
      * @param inEntity   Entity data to write.
      * @param inEntityId Id of entity to update.
+     * @param inIdempotencyKey Idempotency key of request, may be null.
      * @return HTTP response object with HTTP status 200 if operation succeeded or
      * HTTP error status code and a plain-text error message if an error occurred.
      */
     @PutMapping(path = "{id}")
     public ResponseEntity<?> updateEntity(@RequestBody final E inEntity,
-                                          @PathVariable("id") @NotNull final Long inEntityId) {
+                                          @PathVariable("id") @NotNull final Long inEntityId,
+                                          @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+                                          final String inIdempotencyKey) {
         log.info("Received request to update entity with id {}", inEntityId);
 
-        final ResponseEntity<?> theResponse = performServiceOperation(
-                () -> {
-                    inEntity.setId(inEntityId);
-                    final E theEntity = mService.update(inEntity);
-                    return ResponseEntity.ok(theEntity);
-                },
-                500, "An error occurred updating entity with id "
-                        + inEntityId + ": "
-        );
-        return theResponse;
+        return performIdempotentOperation(inIdempotencyKey, "update:" + inEntityId, inEntity,
+                () -> performServiceOperation(
+                        () -> {
+                            inEntity.setId(inEntityId);
+                            final E theEntity = mService.update(inEntity);
+                            return ResponseEntity.ok(theEntity);
+                        },
+                        500, "An error occurred updating entity with id "
+                                + inEntityId + ": "
+                ));
     }
 
     /**
      * Creates a new entity using the supplied entity data.
+     * If an idempotency key is supplied, retries of the request replay the response
+     * of the first request instead of creating another entity,
+     * see {@link #performIdempotentOperation(String, String, Object, Supplier)}.
      *
      * @param inEntity Entity data to use when creating new entity.
+     * @param inIdempotencyKey Idempotency key of request, may be null.
      * @return HTTP response object with HTTP status 200 containing entity representation
      * if operation succeeded or HTTP error status code and a plain-text error message
      * if an error occurred.
      */
     @PostMapping
-    public ResponseEntity<?> createEntity(@RequestBody final E inEntity) {
+    public ResponseEntity<?> createEntity(@RequestBody final E inEntity,
+                                          @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+                                          final String inIdempotencyKey) {
         log.info("Received request to create a new entity");
 
-        return performServiceOperation(
-                () -> {
-                    ResponseEntity<?> theResponse;
-                    if (inEntity.getId() != null) {
-                        theResponse = ResponseEntity
-                                .status(400)
-                                .contentType(MediaType.TEXT_PLAIN)
-                                .body("Id must not be set on new entity");
-                    } else {
-                        final E theEntity = mService.save(inEntity);
-                        theResponse = ResponseEntity
-                                .status(200)
-                                .contentType(MediaType.APPLICATION_JSON)
-                                .body(theEntity);
-                    }
-                    return theResponse;
-                },
-                500, "An error occurred creating a new entity: "
-        );
+        return performIdempotentOperation(inIdempotencyKey, "create", inEntity,
+                () -> performServiceOperation(
+                        () -> {
+                            ResponseEntity<?> theResponse;
+                            if (inEntity.getId() != null) {
+                                theResponse = ResponseEntity
+                                        .status(400)
+                                        .contentType(MediaType.TEXT_PLAIN)
+                                        .body("Id must not be set on new entity");
+                            } else {
+                                final E theEntity = mService.save(inEntity);
+                                theResponse = ResponseEntity
+                                        .status(200)
+                                        .body(theEntity);
+                            }
+                            return theResponse;
+                        },
+                        500, "An error occurred creating a new entity: "
+                ));
     }
 
     /**
@@ -207,6 +460,171 @@ public abstract class RestResourceBasePlain<E extends LongIdEntity> {
         return theResponse;
     }
 
+    /**
+     * Performs the operation as defined by the supplied response supplier, recording its
+     * response under the supplied idempotency key if one is supplied, see {@link IdempotencyStore}.
+     * A retry of the request with the same key replays the recorded response. If the key was
+     * used with a different operation or request body, an error response with HTTP status 422
+     * is returned.
+     *
+     * @param inIdempotencyKey Idempotency key of request, may be null.
+     * @param inOperation Name of operation, including its target, which is prefixed by the entity type name.
+     * @param inRequestBody Request body, used to calculate the fingerprint of the request.
+     * @param inResponseSupplier Operation to complete.
+     * @return Response object.
+     */
+    protected ResponseEntity<?> performIdempotentOperation(final String inIdempotencyKey, final String inOperation,
+                                                           final Object inRequestBody,
+                                                           final Supplier<ResponseEntity<?>> inResponseSupplier) {
+        if (inIdempotencyKey == null) {
+            return inResponseSupplier.get();
+        }
+        if (inIdempotencyKey.isBlank() || inIdempotencyKey.length() > IdempotencyRecord.MAX_KEY_LENGTH) {
+            return ResponseEntity
+                    .status(400)
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body("Idempotency key must be 1 to " + IdempotencyRecord.MAX_KEY_LENGTH + " characters");
+        }
+        return performServiceOperation(
+                () -> mIdempotencyStore.perform(inIdempotencyKey,
+                        mIdempotencyStore.fingerprint(mEntityTypeName + "." + inOperation, inRequestBody),
+                        inResponseSupplier),
+                500, "An error occurred performing idempotent request: "
+        );
+    }
+
+    /**
+     * Submits a job performing the supplied operation in the background.
+     * The response has HTTP status 202, the location of the job in the Location header
+     * and the status of the job as body. When the job has finished, the result of the
+     * operation is included in the status of the job. If the job queue is full, an error
+     * response with HTTP status 503 is returned.
+     *
+     * @param inOperation Name of operation, which is prefixed by the entity type name.
+     * @param inWork Operation to perform, the result of which becomes the result of the job.
+     * @return Response object.
+     */
+    protected ResponseEntity<?> performAsyncOperation(final String inOperation, final Supplier<?> inWork) {
+        return performServiceOperation(
+                () -> {
+                    try {
+                        final AsyncJob theJob = mAsyncJobService.submit(mEntityTypeName + "." + inOperation, inWork);
+                        return ResponseEntity
+                                .accepted()
+                                .location(URI.create(AsyncJobResource.PATH + "/" + theJob.getId()))
+                                .header(PREFERENCE_APPLIED_HEADER, RESPOND_ASYNC_PREFERENCE)
+                                .body(theJob);
+                    } catch (final RejectedExecutionException theException) {
+                        return ResponseEntity
+                                .status(503)
+                                .contentType(MediaType.TEXT_PLAIN)
+                                .body(theException.getMessage());
+                    }
+                },
+                500, "An error occurred submitting job: "
+        );
+    }
+
+    /**
+     * Determines whether the supplied Prefer request header asks for an operation to be
+     * performed asynchronously.
+     *
+     * @param inPreferHeader Prefer request header, may be null.
+     * @return True if the respond-async preference is present, false otherwise.
+     */
+    protected static boolean isAsyncPreferred(final String inPreferHeader) {
+        if (inPreferHeader == null) {
+            return false;
+        }
+        for (final String thePreference : inPreferHeader.split(",")) {
+            if (RESPOND_ASYNC_PREFERENCE.equalsIgnoreCase(thePreference.split(";")[0].trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Performs the operation as defined by the supplied response supplier, which queries
+     * for entities or projections of entities.
+     * If the query references a property that does not exist or cannot be used in the query,
+     * an error response with HTTP status 400 is returned.
+     *
+     * @param inResponseSupplier Operation to complete.
+     * @return Response object.
+     */
+    protected static ResponseEntity<?> performQueryOperation(
+            final Supplier<ResponseEntity<?>> inResponseSupplier) {
+        try {
+            return inResponseSupplier.get();
+        } catch (final IllegalArgumentException | InvalidDataAccessApiUsageException theException) {
+            final Throwable theCause = (theException.getCause() instanceof IllegalArgumentException)
+                    ? theException.getCause() : theException;
+            return ResponseEntity
+                    .status(400)
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body("Invalid query: " + theCause.getMessage());
+        }
+    }
+
+    /**
+     * Parses the supplied comma-separated list of property names.
+     * The id property is always included first.
+     *
+     * @param inFields Comma-separated list of property names.
+     * @return Property names in the order in which they appear in the list.
+     */
+    protected static Set<String> parseFields(final String inFields) {
+        final Set<String> thePropertyNames = new LinkedHashSet<>();
+        thePropertyNames.add(ID_PROPERTY);
+        for (final String theField : inFields.split(",")) {
+            if (!theField.isBlank()) {
+                thePropertyNames.add(theField.trim());
+            }
+        }
+        return thePropertyNames;
+    }
+
+    /**
+     * Parses the supplied comma-separated list of entity ids.
+     *
+     * @param inIds Comma-separated list of ids.
+     * @return Ids in the order in which they appear in the list.
+     * @throws NumberFormatException If an id is not a number.
+     */
+    protected static List<Long> parseIds(final String inIds) {
+        final List<Long> theIds = new ArrayList<>();
+        for (final String theId : inIds.split(",")) {
+            if (!theId.isBlank()) {
+                theIds.add(Long.valueOf(theId.trim()));
+            }
+        }
+        return theIds;
+    }
+
+    /**
+     * Parses the supplied comma-separated list of property names to sort on.
+     * A property name prefixed with a minus sign is sorted in descending order.
+     *
+     * @param inSort Comma-separated list of property names, may be null.
+     * @return Sort, which is unsorted if no sort parameter supplied.
+     */
+    protected static Sort parseSort(final String inSort) {
+        if (inSort == null) {
+            return Sort.unsorted();
+        }
+        final List<Sort.Order> theOrders = new ArrayList<>();
+        for (final String theSortProperty : inSort.split(",")) {
+            final String theTrimmedSortProperty = theSortProperty.trim();
+            if (theTrimmedSortProperty.startsWith("-")) {
+                theOrders.add(Sort.Order.desc(theTrimmedSortProperty.substring(1)));
+            } else if (!theTrimmedSortProperty.isEmpty()) {
+                theOrders.add(Sort.Order.asc(theTrimmedSortProperty));
+            }
+        }
+        return Sort.by(theOrders);
+    }
+
     /**
      * Creates an array containing the entities in the supplied list.
      *
@@ -222,4 +640,24 @@ public abstract class RestResourceBasePlain<E extends LongIdEntity> {
     public void setService(final AbstractServiceBasePlain<E> inService) {
         mService = inService;
     }
+
+    @Autowired
+    public void setChangeFeed(final EntityChangeFeed inChangeFeed) {
+        mChangeFeed = inChangeFeed;
+    }
+
+    @Autowired
+    public void setImportJobService(final ImportJobService inImportJobService) {
+        mImportJobService = inImportJobService;
+    }
+
+    @Autowired
+    public void setAsyncJobService(final AsyncJobService inAsyncJobService) {
+        mAsyncJobService = inAsyncJobService;
+    }
+
+    @Autowired
+    public void setIdempotencyStore(final IdempotencyStore inIdempotencyStore) {
+        mIdempotencyStore = inIdempotencyStore;
+    }
 }
@@ -0,0 +1,157 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import io.micrometer.observation.annotation.Observed;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import se.ivankrizsan.restexample.JacksonConfiguration;
+import se.ivankrizsan.restexample.domain.Shape;
+import se.ivankrizsan.restexample.services.ShapeService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * REST resource exposing read operations on shapes of all types.
+ * Shapes are created, updated and deleted using the resources of the shape types.
+ *
+ * @author Ivan Krizsan
+ */
+@RestController
+@RequestMapping(value = ShapeResource.PATH,
+    produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_PLAIN_VALUE,
+        JacksonConfiguration.APPLICATION_SMILE_VALUE, JacksonConfiguration.APPLICATION_CBOR_VALUE})
+@Observed(name = "ShapeResource")
+@Slf4j
+public class ShapeResource {
+    /* Constant(s): */
+    public static final String PATH = "/shapes";
+
+    /* Instance variable(s): */
+    protected final ShapeService mShapeService;
+
+    /**
+     * Creates a REST resource using the supplied service to retrieve shapes.
+     *
+     * @param inShapeService Service used to retrieve shapes.
+     */
+    public ShapeResource(final ShapeService inShapeService) {
+        mShapeService = inShapeService;
+    }
+
+    /**
+     * Retrieves all shapes in id order.
+     * If the sort parameter is supplied, the shapes are sorted on the listed properties.
+     * If the limit parameter is supplied, one page of at most that many shapes ordered by id
+     * is retrieved, starting after the id in the after parameter. The cursor of the next page
+     * is returned in the X-Next-Cursor header. Pages cannot be combined with sort or filters.
+     * The after parameter cannot be supplied without the limit parameter.
+     * All other request parameters are filters restricting the shapes retrieved, for example
+     * {@code colour=red}. Filter and sort properties must exist in all shape types.
+     *
+     * @param inRequestParameters Request parameters containing page, sort and filter parameters.
+     * @return HTTP response object with HTTP status 200 if operation succeeded or
+     * HTTP error status code and a plain-text error message if an error occurred.
+     */
+    @EntityChangeVersioned
+    @GetMapping
+    public ResponseEntity<?> getAll(@RequestParam final Map<String, String> inRequestParameters) {
+        log.info("Received request to get all shapes");
+
+        return RestResourceBasePlain.performServiceOperation(
+            () -> RestResourceBasePlain.performQueryOperation(() -> {
+                final Map<String, String> theFilterParameters = new HashMap<>(inRequestParameters);
+                final String theLimit = theFilterParameters.remove(RestResourceBasePlain.LIMIT_PARAMETER);
+                final String theAfter = theFilterParameters.remove(RestResourceBasePlain.AFTER_PARAMETER);
+                if (theAfter != null && theLimit == null) {
+                    throw new IllegalArgumentException("The after parameter requires the limit parameter");
+                }
+                if (theLimit != null) {
+                    if (!theFilterParameters.isEmpty()) {
+                        throw new IllegalArgumentException("Pages cannot be combined with sort or filter parameters");
+                    }
+                    return getPage(theAfter, theLimit);
+                }
+                final Sort theSort =
+                    RestResourceBasePlain.parseSort(theFilterParameters.remove(RestResourceBasePlain.SORT_PARAMETER));
+
+                final List<Shape> theShapes = (theFilterParameters.isEmpty() && theSort.isUnsorted())
+                    ? mShapeService.findAll()
+                    : mShapeService.findAllFiltered(theFilterParameters, theSort);
+                return ResponseEntity
+                    .ok()
+                    .body(shapeListToArray(theShapes));
+            }),
+            500, "An error occurred retrieving all shapes: "
+        );
+    }
+
+    /**
+     * Retrieves the shape with supplied id.
+     *
+     * @param inShapeId Id of shape to retrieve.
+     * @return HTTP response object with HTTP status 200 if operation succeeded or
+     * HTTP error status code and a plain-text error message if an error occurred.
+     */
+    @EntityChangeVersioned
+    @GetMapping(path = "{id}")
+    public ResponseEntity<?> getShapeById(@PathVariable("id") final Long inShapeId) {
+        log.info("Received request to get shape with id {}", inShapeId);
+
+        return RestResourceBasePlain.performServiceOperation(
+            () -> {
+                final Optional<Shape> theShapeOptional = mShapeService.find(inShapeId);
+                if (theShapeOptional.isEmpty()) {
+                    throw new EntityNotFoundException();
+                }
+                return ResponseEntity.ok(theShapeOptional.get());
+            },
+            500, "An error occurred finding shape with id " + inShapeId + ": "
+        );
+    }
+
+    /**
+     * Retrieves one page of shapes ordered by id.
+     *
+     * @param inAfter Id of last shape of previous page, null to retrieve the first page.
+     * @param inLimit Maximum number of shapes in page.
+     * @return HTTP response object with HTTP status 200 and the shapes of the page.
+     * @throws IllegalArgumentException If after or limit parameter is invalid.
+     */
+    protected ResponseEntity<?> getPage(final String inAfter, final String inLimit) {
+        final Long theAfterId = (inAfter != null) ? Long.valueOf(inAfter) : null;
+        final int theLimit = Integer.parseInt(inLimit);
+        if (theLimit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+
+        final List<Shape> thePage = mShapeService.findAllAfter(theAfterId, theLimit);
+        final ResponseEntity.BodyBuilder theResponseBuilder = ResponseEntity.ok();
+        if (thePage.size() == theLimit) {
+            theResponseBuilder.header(RestResourceBasePlain.NEXT_CURSOR_HEADER,
+                thePage.get(thePage.size() - 1).getId().toString());
+        }
+        return theResponseBuilder.body(shapeListToArray(thePage));
+    }
+
+    /**
+     * Creates an array containing the shapes in the supplied list.
+     * Shapes are returned as an array so that the element type, which determines whether the
+     * shape type is included in the representation of each shape, is available at runtime.
+     *
+     * @param inShapeList List of shapes.
+     * @return Array containing the shapes from the list.
+     */
+    protected static Shape[] shapeListToArray(final List<Shape> inShapeList) {
+        return inShapeList.toArray(new Shape[0]);
+    }
+}
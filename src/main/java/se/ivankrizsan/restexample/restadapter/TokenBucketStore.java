@@ -0,0 +1,122 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Store of token buckets, one per client key, that is safe for concurrent use without locks
+ * on the hot path.
+ * Each bucket is represented by a single atomic long holding the theoretical arrival time of
+ * the next request, as in the generic cell rate algorithm (GCRA), which is equivalent to a
+ * token bucket but is updated with a single compare-and-set.
+ * Buckets are kept in a concurrent hash map, which is internally striped.
+ * Buckets that have been refilled and not used for the idle timeout are evicted by a sweep
+ * that is performed by at most one requesting thread at a time, at most once per sweep interval.
+ * A request racing with the eviction of its bucket may be granted up to one additional burst.
+ *
+ * @author Ivan Krizsan
+ */
+public class TokenBucketStore {
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    protected final Map<String, AtomicLong> mBuckets = new ConcurrentHashMap<>();
+    protected final long mCapacity;
+    protected final long mEmissionIntervalNanos;
+    protected final long mBurstToleranceNanos;
+    protected final long mIdleTimeoutNanos;
+    protected final AtomicLong mNextSweepTime;
+    protected final LongSupplier mNanoClock;
+
+    /**
+     * Creates a token bucket store.
+     *
+     * @param inCapacity Maximum number of tokens in a bucket, i.e. the largest burst allowed.
+     * @param inRefillPeriodNanos Number of nanoseconds in which a bucket is refilled from empty to full.
+     * @param inIdleTimeoutNanos Full buckets not used for this number of nanoseconds are evicted.
+     * @param inNanoClock Supplies the current time in nanoseconds.
+     */
+    public TokenBucketStore(final long inCapacity, final long inRefillPeriodNanos, final long inIdleTimeoutNanos,
+        final LongSupplier inNanoClock) {
+        if (inCapacity < 1 || inRefillPeriodNanos < inCapacity) {
+            throw new IllegalArgumentException("Invalid token bucket configuration");
+        }
+        mCapacity = inCapacity;
+        mEmissionIntervalNanos = inRefillPeriodNanos / inCapacity;
+        mBurstToleranceNanos = mEmissionIntervalNanos * inCapacity;
+        mIdleTimeoutNanos = inIdleTimeoutNanos;
+        mNanoClock = inNanoClock;
+        mNextSweepTime = new AtomicLong(inNanoClock.getAsLong() + inIdleTimeoutNanos);
+    }
+
+    /**
+     * Attempts to take one token from the bucket of the supplied key.
+     *
+     * @param inKey Client key.
+     * @return Outcome of attempt.
+     */
+    public Result tryConsume(final String inKey) {
+        final long theNow = mNanoClock.getAsLong();
+        sweepIfDue(theNow);
+
+        final AtomicLong theBucket = mBuckets.computeIfAbsent(inKey, inNewKey -> new AtomicLong(theNow));
+        while (true) {
+            final long theArrivalTime = theBucket.get();
+            final long theNewArrivalTime = Math.max(theArrivalTime, theNow) + mEmissionIntervalNanos;
+            final long theUsedToleranceNanos = theNewArrivalTime - theNow;
+            if (theUsedToleranceNanos > mBurstToleranceNanos) {
+                final long theRetryAfterNanos = theUsedToleranceNanos - mBurstToleranceNanos;
+                return new Result(false, 0, Math.max(theArrivalTime, theNow) - theNow, theRetryAfterNanos);
+            }
+            if (theBucket.compareAndSet(theArrivalTime, theNewArrivalTime)) {
+                final long theRemaining = (mBurstToleranceNanos - theUsedToleranceNanos) / mEmissionIntervalNanos;
+                return new Result(true, theRemaining, theUsedToleranceNanos, 0);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the maximum number of tokens in a bucket.
+     *
+     * @return Bucket capacity.
+     */
+    public long getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Retrieves the number of buckets in the store.
+     *
+     * @return Number of buckets.
+     */
+    public int size() {
+        return mBuckets.size();
+    }
+
+    /**
+     * Evicts idle buckets if the sweep interval has elapsed and no other thread is sweeping.
+     *
+     * @param inNow Current time in nanoseconds.
+     */
+    protected void sweepIfDue(final long inNow) {
+        final long theNextSweepTime = mNextSweepTime.get();
+        if (inNow - theNextSweepTime < 0
+            || !mNextSweepTime.compareAndSet(theNextSweepTime, inNow + mIdleTimeoutNanos)) {
+            return;
+        }
+        mBuckets.entrySet().removeIf(inEntry -> inNow - inEntry.getValue().get() > mIdleTimeoutNanos);
+    }
+
+    /**
+     * Outcome of an attempt to take a token.
+     *
+     * @param allowed True if a token was taken, false if the bucket was empty.
+     * @param remaining Number of tokens remaining in the bucket.
+     * @param resetNanos Nanoseconds until the bucket is full again.
+     * @param retryAfterNanos Nanoseconds until a token becomes available, zero if a token was taken.
+     */
+    public record Result(boolean allowed, long remaining, long resetNanos, long retryAfterNanos) {
+    }
+}
@@ -2,12 +2,25 @@ package se.ivankrizsan.restexample.services;
 
 import io.micrometer.observation.annotation.Observed;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import se.ivankrizsan.restexample.domain.LongIdEntity;
 import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisations;
+import se.ivankrizsan.restexample.sharding.ShardContext;
+import se.ivankrizsan.restexample.sharding.ShardManager;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Abstract base class for services that has operations for creating, reading,
@@ -22,18 +35,31 @@ import java.util.Optional;
 @Slf4j
 public abstract class AbstractServiceBasePlain<E extends LongIdEntity> {
     /* Constant(s): */
+    protected static final String FIND_OPERATION = "find";
+    protected static final String FIND_ALL_OPERATION = "findAll";
+    protected static final String ID_PROPERTY = "id";
 
     /* Instance variable(s): */
     protected JpaRepositoryCustomisations<E> mRepository;
+    protected ApplicationEventPublisher mEventPublisher;
+    protected Class<?> mEntityType;
+    protected String mEntityTypeName;
+    protected RequestCoalescer mRequestCoalescer;
+    protected ShardManager mShardManager;
 
     /**
      * Creates a mService instance that will use the supplied repository for
      * entity persistence.
      *
      * @param inRepository Entity repository.
+     * @param inEventPublisher Publisher used to publish entity change events.
      */
-    public AbstractServiceBasePlain(final JpaRepositoryCustomisations<E> inRepository) {
+    public AbstractServiceBasePlain(final JpaRepositoryCustomisations<E> inRepository,
+        final ApplicationEventPublisher inEventPublisher) {
         mRepository = inRepository;
+        mEventPublisher = inEventPublisher;
+        mEntityType = GenericTypeResolver.resolveTypeArgument(getClass(), AbstractServiceBasePlain.class);
+        mEntityTypeName = (mEntityType != null) ? mEntityType.getSimpleName() : null;
     }
 
     /**
@@ -45,8 +71,29 @@ public abstract class AbstractServiceBasePlain<E extends LongIdEntity> {
     public E save(final E inEntity) {
         log.info("Saving entity type {} with id {}", inEntity.getClass().getSimpleName(), inEntity.getId());
 
-        final E theSavedEntity = mRepository.save(inEntity);
-        return theSavedEntity;
+        return inNewEntityShard(() -> {
+            final E theSavedEntity = mRepository.save(inEntity);
+            publishChange(theSavedEntity.getId(), EntityChangeEvent.Operation.CREATE);
+            return theSavedEntity;
+        });
+    }
+
+    /**
+     * Saves the supplied new entities in the current transaction, flushing the inserts in JDBC batches.
+     * Unlike {@link #save(LongIdEntity)}, no shard is selected; the entities are saved in the
+     * shard of the current transaction.
+     *
+     * @param inEntities New entities to save.
+     * @return Saved entities.
+     */
+    public List<E> saveAllInBatch(final List<E> inEntities) {
+        log.info("Saving {} entities of type {} in batch", inEntities.size(), mEntityTypeName);
+
+        final List<E> theSavedEntities = mRepository.saveAll(inEntities);
+        theSavedEntities.forEach(
+            inSavedEntity -> publishChange(inSavedEntity.getId(), EntityChangeEvent.Operation.CREATE));
+        mRepository.flush();
+        return theSavedEntities;
     }
 
     /**
@@ -58,35 +105,198 @@ public abstract class AbstractServiceBasePlain<E extends LongIdEntity> {
     public E update(final E inEntity) {
         log.info("Updating entity type {} with id {}", inEntity.getClass().getSimpleName(), inEntity.getId());
 
-        final E theUpdatedEntity = mRepository.persist(inEntity);
-        return theUpdatedEntity;
+        return inShardOf(inEntity.getId(), () -> {
+            final E theUpdatedEntity = mRepository.persist(inEntity);
+            publishChange(theUpdatedEntity.getId(), EntityChangeEvent.Operation.UPDATE);
+            return theUpdatedEntity;
+        });
+    }
+
+    /**
+     * Retrieves the type of the entities of the service.
+     *
+     * @return Entity type.
+     */
+    public Class<?> getEntityType() {
+        return mEntityType;
+    }
+
+    /**
+     * Sets the request coalescer used to coalesce concurrent identical reads.
+     *
+     * @param inRequestCoalescer Request coalescer.
+     */
+    @Autowired
+    public void setRequestCoalescer(final RequestCoalescer inRequestCoalescer) {
+        mRequestCoalescer = inRequestCoalescer;
+    }
+
+    /**
+     * Sets the shard manager used to distribute entities over shards.
+     * Not set if sharding is not enabled.
+     *
+     * @param inShardManager Shard manager.
+     */
+    @Autowired(required = false)
+    public void setShardManager(final ShardManager inShardManager) {
+        mShardManager = inShardManager;
     }
 
     /**
      * Finds the entity having supplied id.
+     * Concurrent finds of the same entity outside of a transaction share one load.
      *
      * @param inEntityId Id of entity to retrieve.
      * @return Found entity, or null if no entity is found.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Optional<E> find(final Long inEntityId) {
         log.info("Finding entity with id {}", inEntityId);
 
-        final Optional<E> theEntity = mRepository.findById(inEntityId);
-        return theEntity;
+        return coalesce(FIND_OPERATION, inEntityId,
+            () -> inShardOf(inEntityId, () -> mRepository.findById(inEntityId)));
     }
 
     /**
      * Finds all the entities.
+     * Concurrent finds of all entities outside of a transaction share one load.
      *
      * @return List of entities.
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<E> findAll() {
         log.info("Finding all entities");
 
-        final List<E> theEntitiesList = mRepository.findAll();
-        return theEntitiesList;
+        return coalesce(FIND_ALL_OPERATION, null, () -> gather(() -> mRepository.findAll(), Sort.unsorted()));
+    }
+
+    /**
+     * Finds at most the supplied number of entities which ids are greater than the supplied id,
+     * in id order.
+     *
+     * @param inAfterId Id of last entity of previous page, null to find the first page.
+     * @param inLimit Maximum number of entities to find.
+     * @return List of entities.
+     */
+    @Transactional(readOnly = true)
+    public List<E> findAllAfter(final Long inAfterId, final int inLimit) {
+        log.info("Finding at most {} entities after id {}", inLimit, inAfterId);
+
+        final List<E> theEntities = gather(() -> mRepository.findAllAfter(inAfterId, inLimit), Sort.by(ID_PROPERTY));
+        return (theEntities.size() > inLimit) ? theEntities.subList(0, inLimit) : theEntities;
+    }
+
+    /**
+     * Finds the entities having the supplied ids, in the order of the ids.
+     * Ids are grouped by shard when entities are sharded, with one query per shard.
+     *
+     * @param inEntityIds Ids of entities to find. May contain duplicates.
+     * @return List with one element per supplied id, in the same order, containing the entity
+     * or null if no entity with the id is found.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<E> findAllByIdOrdered(final List<Long> inEntityIds) {
+        log.info("Finding {} entities by id", inEntityIds.size());
+
+        if (mShardManager == null) {
+            return mRepository.findAllByIdOrdered(inEntityIds);
+        }
+        final Map<Integer, List<Long>> theIdsByShard = inEntityIds
+            .stream()
+            .distinct()
+            .collect(Collectors.groupingBy(inEntityId -> mShardManager.shardOf(mEntityType, inEntityId)));
+        final Map<Long, E> theEntitiesById = new HashMap<>();
+        theIdsByShard.forEach((inShard, inShardEntityIds) -> {
+            final List<E> theShardEntities = ShardContext.callInShard(inShard,
+                () -> mRepository.findAllByIdOrdered(inShardEntityIds));
+            for (int i = 0; i < inShardEntityIds.size(); i++) {
+                theEntitiesById.put(inShardEntityIds.get(i), theShardEntities.get(i));
+            }
+        });
+        return inEntityIds
+            .stream()
+            .map(theEntitiesById::get)
+            .toList();
+    }
+
+    /**
+     * Counts the entities.
+     *
+     * @return Number of entities.
+     */
+    @Transactional(readOnly = true)
+    public long count() {
+        log.info("Counting entities");
+
+        if (mShardManager == null) {
+            return mRepository.count();
+        }
+        return mShardManager
+            .scatter(true, () -> mRepository.count())
+            .stream()
+            .mapToLong(Long::longValue)
+            .sum();
+    }
+
+    /**
+     * Finds the supplied properties of the entity having supplied id.
+     *
+     * @param inEntityId Id of entity to retrieve.
+     * @param inPropertyNames Names of the properties to retrieve.
+     * @return Map mapping property names to property values, or empty if no entity is found.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> findProjected(final Long inEntityId,
+        final Collection<String> inPropertyNames) {
+        log.info("Finding properties {} of entity with id {}", inPropertyNames, inEntityId);
+
+        return inShardOf(inEntityId, () -> mRepository.findProjectedById(inEntityId, inPropertyNames));
+    }
+
+    /**
+     * Finds the supplied properties of all the entities.
+     *
+     * @param inPropertyNames Names of the properties to retrieve.
+     * @return List of maps, one per entity, mapping property names to property values.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findAllProjected(final Collection<String> inPropertyNames) {
+        log.info("Finding properties {} of all entities", inPropertyNames);
+
+        return gather(() -> mRepository.findAllProjected(inPropertyNames), Sort.unsorted());
+    }
+
+    /**
+     * Finds the supplied properties of the entities matching the supplied filter parameters.
+     *
+     * @param inPropertyNames Names of the properties to retrieve.
+     * @param inFilterParameters Filter parameters mapping property name, optionally followed
+     * by a period and an operator, to a value.
+     * @param inSort Order of entities.
+     * @return List of maps, one per entity, mapping property names to property values.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findAllProjected(final Collection<String> inPropertyNames,
+        final Map<String, String> inFilterParameters, final Sort inSort) {
+        log.info("Finding properties {} of entities matching {} sorted by {}",
+            inPropertyNames, inFilterParameters, inSort);
+
+        return gather(() -> mRepository.findAllProjected(inPropertyNames, inFilterParameters, inSort), inSort);
+    }
+
+    /**
+     * Finds the entities matching the supplied filter parameters.
+     *
+     * @param inFilterParameters Filter parameters mapping property name, optionally followed
+     * by a period and an operator, to a value.
+     * @param inSort Order of entities.
+     * @return List of entities.
+     */
+    @Transactional(readOnly = true)
+    public List<E> findAllFiltered(final Map<String, String> inFilterParameters, final Sort inSort) {
+        log.info("Finding entities matching {} sorted by {}", inFilterParameters, inSort);
+
+        return gather(() -> mRepository.findAllFiltered(inFilterParameters, inSort), inSort);
     }
 
     /**
@@ -97,15 +307,119 @@ public abstract class AbstractServiceBasePlain<E extends LongIdEntity> {
     public void delete(final Long inId) {
         log.info("Saving entity with id {}", inId);
 
-        mRepository.deleteById(inId);
+        inShardOf(inId, () -> {
+            mRepository.deleteById(inId);
+            publishChange(inId, EntityChangeEvent.Operation.DELETE);
+            return null;
+        });
     }
 
     /**
      * Deletes all entities.
+     * The entities are deleted using bulk delete statements without being loaded.
+     *
+     * @return Number of entities deleted.
      */
-    public void deleteAll() {
+    public long deleteAll() {
         log.info("Deleting all entities");
 
-        mRepository.deleteAll();
+        final long theDeletedCount = (mShardManager == null)
+            ? mRepository.deleteAllInBulk()
+            : mShardManager
+                .scatter(false, () -> mRepository.deleteAllInBulk())
+                .stream()
+                .mapToLong(Long::longValue)
+                .sum();
+        publishChange(null, EntityChangeEvent.Operation.DELETE_ALL);
+        return theDeletedCount;
+    }
+
+    /**
+     * Performs the supplied load using the request coalescer, if one is available.
+     *
+     * @param inOperation Name of load operation.
+     * @param inKey Key identifying the loaded data. May be null.
+     * @param inLoader Performs the load.
+     * @param <V> Type of load result.
+     * @return Result of the load.
+     */
+    protected <V> V coalesce(final String inOperation, final Object inKey, final Supplier<V> inLoader) {
+        if (mRequestCoalescer == null) {
+            return inLoader.get();
+        }
+        return mRequestCoalescer.load(mEntityTypeName, inOperation, inKey, inLoader);
+    }
+
+    /**
+     * Performs the supplied operation in the shard of the entity with supplied id.
+     * The operation must perform the first statement of the current transaction, if any.
+     *
+     * @param inEntityId Entity id. If null, the operation is performed in the current shard.
+     * @param inOperation Operation to perform.
+     * @param <T> Type of operation result.
+     * @return Result of operation.
+     */
+    protected <T> T inShardOf(final Long inEntityId, final Supplier<T> inOperation) {
+        if (mShardManager == null || inEntityId == null) {
+            return inOperation.get();
+        }
+        return ShardContext.callInShard(mShardManager.shardOf(mEntityType, inEntityId), inOperation);
+    }
+
+    /**
+     * Performs the supplied operation, which creates a new entity, in the shard selected for new entities.
+     *
+     * @param inOperation Operation to perform.
+     * @param <T> Type of operation result.
+     * @return Result of operation.
+     */
+    protected <T> T inNewEntityShard(final Supplier<T> inOperation) {
+        if (mShardManager == null) {
+            return inOperation.get();
+        }
+        return ShardContext.callInShard(mShardManager.shardForNewEntity(), inOperation);
+    }
+
+    /**
+     * Performs the supplied query in all shards and merges the results in the supplied order.
+     * Elements are entities or maps mapping property names to property values.
+     *
+     * @param inQuery Query to perform.
+     * @param inSort Order of merged results, may be unsorted.
+     * @param <T> Type of elements of query result.
+     * @return Merged query result.
+     */
+    protected <T> List<T> gather(final Supplier<List<T>> inQuery, final Sort inSort) {
+        if (mShardManager == null) {
+            return inQuery.get();
+        }
+        return ShardManager.merge(mShardManager.scatter(true, inQuery), inSort,
+            AbstractServiceBasePlain::propertyValue);
+    }
+
+    /**
+     * Retrieves the value of the property with supplied name of the supplied entity or
+     * map mapping property names to property values.
+     *
+     * @param inElement Entity or map.
+     * @param inPropertyName Property name.
+     * @return Property value.
+     */
+    protected static Object propertyValue(final Object inElement, final String inPropertyName) {
+        if (inElement instanceof Map<?, ?> theMap) {
+            return theMap.get(inPropertyName);
+        }
+        return new BeanWrapperImpl(inElement).getPropertyValue(inPropertyName);
+    }
+
+    /**
+     * Publishes an event signalling that the entity with supplied id has been changed.
+     * The event is published synchronously within the current transaction.
+     *
+     * @param inEntityId Id of changed entity, null if all entities are affected.
+     * @param inOperation Type of change.
+     */
+    protected void publishChange(final Long inEntityId, final EntityChangeEvent.Operation inOperation) {
+        mEventPublisher.publishEvent(new EntityChangeEvent(mEntityTypeName, inEntityId, inOperation));
     }
 }
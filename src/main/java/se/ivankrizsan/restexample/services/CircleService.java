@@ -1,11 +1,15 @@
 package se.ivankrizsan.restexample.services;
 
 import io.micrometer.observation.annotation.Observed;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import se.ivankrizsan.restexample.domain.Circle;
 import se.ivankrizsan.restexample.repositories.CircleRepository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -25,9 +29,10 @@ public class CircleService extends AbstractServiceBasePlain<Circle> {
      * for entity persistence.
      *
      * @param inRepository Circle repository.
+     * @param inEventPublisher Publisher used to publish entity change events.
      */
-    public CircleService(final CircleRepository inRepository) {
-        super(inRepository);
+    public CircleService(final CircleRepository inRepository, final ApplicationEventPublisher inEventPublisher) {
+        super(inRepository, inEventPublisher);
     }
 
     /*
@@ -41,6 +46,11 @@ public class CircleService extends AbstractServiceBasePlain<Circle> {
         return super.save(inEntity);
     }
 
+    @Override
+    public List<Circle> saveAllInBatch(List<Circle> inEntities) {
+        return super.saveAllInBatch(inEntities);
+    }
+
     @Override
     public Circle update(Circle inEntity) {
         return super.update(inEntity);
@@ -56,13 +66,49 @@ public class CircleService extends AbstractServiceBasePlain<Circle> {
         return super.findAll();
     }
 
+    @Override
+    public List<Circle> findAllAfter(Long inAfterId, int inLimit) {
+        return super.findAllAfter(inAfterId, inLimit);
+    }
+
+    @Override
+    public List<Circle> findAllByIdOrdered(List<Long> inEntityIds) {
+        return super.findAllByIdOrdered(inEntityIds);
+    }
+
+    @Override
+    public long count() {
+        return super.count();
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findProjected(Long inEntityId, Collection<String> inPropertyNames) {
+        return super.findProjected(inEntityId, inPropertyNames);
+    }
+
+    @Override
+    public List<Map<String, Object>> findAllProjected(Collection<String> inPropertyNames) {
+        return super.findAllProjected(inPropertyNames);
+    }
+
+    @Override
+    public List<Map<String, Object>> findAllProjected(Collection<String> inPropertyNames,
+        Map<String, String> inFilterParameters, Sort inSort) {
+        return super.findAllProjected(inPropertyNames, inFilterParameters, inSort);
+    }
+
+    @Override
+    public List<Circle> findAllFiltered(Map<String, String> inFilterParameters, Sort inSort) {
+        return super.findAllFiltered(inFilterParameters, inSort);
+    }
+
     @Override
     public void delete(Long inId) {
         super.delete(inId);
     }
 
     @Override
-    public void deleteAll() {
-        super.deleteAll();
+    public long deleteAll() {
+        return super.deleteAll();
     }
 }
@@ -0,0 +1,38 @@
+package se.ivankrizsan.restexample.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * One operation in a JSON-Patch-style modification of a drawing.
+ * The following operations are supported:
+ * <ul>
+ *     <li>{@code add} with path {@code /shapes/-} adds the shape in the value to the drawing.</li>
+ *     <li>{@code remove} with path {@code /shapes/{shapeId}} removes the shape from the drawing.</li>
+ *     <li>{@code replace} with path {@code /shapes/{shapeId}} replaces the shape in the drawing.</li>
+ *     <li>{@code replace} with path {@code /name} sets the name of the drawing.</li>
+ * </ul>
+ *
+ * @author Ivan Krizsan
+ */
+@Getter
+@Setter
+@Accessors(prefix = "m")
+@NoArgsConstructor
+public class DrawingPatchOperation {
+    /* Constant(s): */
+    public static final String OP_ADD = "add";
+    public static final String OP_REMOVE = "remove";
+    public static final String OP_REPLACE = "replace";
+    public static final String SHAPES_PATH_PREFIX = "/shapes/";
+    public static final String NAME_PATH = "/name";
+    public static final String APPEND_PATH_SEGMENT = "-";
+
+    /* Instance variable(s): */
+    protected String mOp;
+    protected String mPath;
+    protected JsonNode mValue;
+}
@@ -1,30 +1,603 @@
 package se.ivankrizsan.restexample.services;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.micrometer.observation.annotation.Observed;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import se.ivankrizsan.restexample.domain.Drawing;
+import se.ivankrizsan.restexample.domain.DrawingVersion;
+import se.ivankrizsan.restexample.domain.Shape;
 import se.ivankrizsan.restexample.repositories.DrawingRepository;
+import se.ivankrizsan.restexample.services.versions.DrawingDiff;
+import se.ivankrizsan.restexample.services.versions.DrawingVersionService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * Service exposing operations on drawings.
+ * Changes of existing drawings are recorded as versions of the drawings, see {@link DrawingVersionService}.
+ * Drawings and versions of drawings can be compared, see {@link DrawingDiff}.
  *
  * @author Ivan Krizsan
  */
 @Service
 @Observed(name = "DrawingService")
+@Slf4j
 public class DrawingService extends AbstractServiceBasePlain<Drawing> {
+    /* Constant(s): */
+    public static final String SHAPE_COUNT_PROPERTY = "shapeCount";
+    /** Maximum number of validation errors reported when importing a drawing. */
+    protected static final int MAX_IMPORT_ERRORS = 100;
+    protected static final String NAME_PROPERTY = "name";
+    protected static final String CREATION_DATE_PROPERTY = "creationDate";
+    protected static final String SHAPES_PROPERTY = "shapes";
+    /** Maximum number of shapes loaded at a time when writing a drawing diff. */
+    protected static final int DIFF_SHAPES_CHUNK_SIZE = 500;
+
+    /* Instance variable(s): */
+    protected DrawingRepository mDrawingRepository;
+    protected ObjectMapper mObjectMapper;
+    protected int mImportBatchSize;
+    protected DrawingVersionService mVersionService;
 
     /**
      * Creates a service instance that will use the supplied repository
      * for entity persistence.
      *
      * @param inRepository Drawing repository.
+     * @param inEventPublisher Publisher used to publish entity change events.
+     * @param inObjectMapper Object mapper used to create shapes from patch operation values
+     * and imported drawings.
+     * @param inImportBatchSize Number of shapes persisted in each batch when importing a drawing.
+     * @param inVersionService Service recording versions of changed drawings.
+     */
+    public DrawingService(final DrawingRepository inRepository, final ApplicationEventPublisher inEventPublisher,
+        final ObjectMapper inObjectMapper,
+        @Value("${restexample.drawings.import-batch-size:500}") final int inImportBatchSize,
+        final DrawingVersionService inVersionService) {
+        super(inRepository, inEventPublisher);
+        mDrawingRepository = inRepository;
+        mObjectMapper = inObjectMapper;
+        mImportBatchSize = inImportBatchSize;
+        mVersionService = inVersionService;
+    }
+
+    /**
+     * Imports the new drawing in the supplied JSON representation.
+     * The representation is parsed incrementally and the shapes of the drawing are persisted
+     * in batches as they are parsed, so the memory used does not grow with the number of shapes.
+     * Either the whole drawing is imported or nothing is. Invalid shapes are reported by their
+     * index in the shapes array, with at most {@link #MAX_IMPORT_ERRORS} errors reported.
+     *
+     * @param inDrawingJson Stream containing the JSON representation of the new drawing.
+     * @return Id, name, creation date and number of shapes of the imported drawing.
+     * @throws IllegalArgumentException If the representation is malformed or the drawing is invalid.
+     */
+    public Map<String, Object> importDrawing(final InputStream inDrawingJson) {
+        log.info("Importing drawing");
+
+        return inNewEntityShard(() -> {
+            try (JsonParser theParser = mObjectMapper.createParser(inDrawingJson)) {
+                final Map<String, Object> theImportedDrawing = importDrawing(theParser);
+                publishChange((Long) theImportedDrawing.get(ID_PROPERTY), EntityChangeEvent.Operation.CREATE);
+                return theImportedDrawing;
+            } catch (final JsonProcessingException theException) {
+                throw new IllegalArgumentException("Malformed drawing: " + theException.getOriginalMessage());
+            } catch (final IOException theException) {
+                throw new UncheckedIOException(theException);
+            }
+        });
+    }
+
+    /**
+     * Adds the supplied new shape to the drawing with supplied id.
+     * The shapes of the drawing are not loaded.
+     *
+     * @param inDrawingId Id of drawing to add shape to.
+     * @param inShape New shape.
+     * @return Persisted shape.
+     * @throws EntityNotFoundException If no drawing with supplied id exists.
+     */
+    public Shape addShape(final Long inDrawingId, final Shape inShape) {
+        log.info("Adding shape to drawing with id {}", inDrawingId);
+
+        return inShardOf(inDrawingId, () -> {
+            mVersionService.prepareChange(inDrawingId);
+            final Shape theShape = addShapeToDrawing(inDrawingId, inShape);
+            mVersionService.recordChange(inDrawingId, null, Map.of(theShape.getId(), theShape));
+            publishChange(inDrawingId, EntityChangeEvent.Operation.UPDATE);
+            return theShape;
+        });
+    }
+
+    /**
+     * Creates a copy of the drawing with supplied id, including copies of all its shapes.
+     * The rows of the drawing and its shapes are copied in the database and never loaded,
+     * so the time needed does not depend on the size of the shapes.
+     * The copy is created in the same shard as the copied drawing.
+     *
+     * @param inDrawingId Id of drawing to copy.
+     * @param inName Name of copy, or null to use the name of the copied drawing.
+     * @return Id of copy.
+     * @throws EntityNotFoundException If no drawing with supplied id exists.
+     */
+    public Long cloneDrawing(final Long inDrawingId, final String inName) {
+        log.info("Cloning drawing with id {}", inDrawingId);
+
+        return inShardOf(inDrawingId, () -> {
+            final Long theCloneId = mDrawingRepository
+                .cloneDrawing(inDrawingId, inName, new Date())
+                .orElseThrow(() -> new EntityNotFoundException("No drawing with id " + inDrawingId));
+            publishChange(theCloneId, EntityChangeEvent.Operation.CREATE);
+            return theCloneId;
+        });
+    }
+
+    /**
+     * Removes the shape with supplied id from the drawing with supplied id and deletes the shape.
+     * The shapes of the drawing are not loaded.
+     *
+     * @param inDrawingId Id of drawing to remove shape from.
+     * @param inShapeId Id of shape to remove.
+     * @throws EntityNotFoundException If the drawing does not contain the shape.
+     */
+    public void removeShape(final Long inDrawingId, final Long inShapeId) {
+        log.info("Removing shape with id {} from drawing with id {}", inShapeId, inDrawingId);
+
+        inShardOf(inDrawingId, () -> {
+            mVersionService.prepareChange(inDrawingId);
+            removeShapeFromDrawing(inDrawingId, inShapeId);
+            mVersionService.recordChange(inDrawingId, null, Collections.singletonMap(inShapeId, null));
+            publishChange(inDrawingId, EntityChangeEvent.Operation.UPDATE);
+            return null;
+        });
+    }
+
+    /**
+     * Applies the supplied patch operations to the drawing with supplied id.
+     * Only the rows affected by the operations are modified and the shapes of the drawing
+     * are not loaded. Either all operations are applied or none.
+     * All operations are recorded as one version of the drawing.
+     *
+     * @param inDrawingId Id of drawing to modify.
+     * @param inOperations Patch operations to apply, in order.
+     * @throws EntityNotFoundException If the drawing or a shape to modify does not exist.
+     * @throws IllegalArgumentException If an operation is not supported.
+     */
+    public void patch(final Long inDrawingId, final List<DrawingPatchOperation> inOperations) {
+        log.info("Applying {} patch operations to drawing with id {}", inOperations.size(), inDrawingId);
+
+        inShardOf(inDrawingId, () -> {
+            mVersionService.prepareChange(inDrawingId);
+            final Map<Long, Shape> theChangedShapes = new LinkedHashMap<>();
+            String theNewName = null;
+            for (final DrawingPatchOperation theOperation : inOperations) {
+                final String theOp = theOperation.getOp();
+                final String thePath = String.valueOf(theOperation.getPath());
+
+                if (DrawingPatchOperation.NAME_PATH.equals(thePath)
+                    && DrawingPatchOperation.OP_REPLACE.equals(theOp)) {
+                    if (theOperation.getValue() == null || !theOperation.getValue().isTextual()) {
+                        throw new IllegalArgumentException("Drawing name must be a string");
+                    }
+                    theNewName = theOperation.getValue().asText();
+                    if (mDrawingRepository.updateName(inDrawingId, theNewName) == 0) {
+                        throw new EntityNotFoundException("No drawing with id " + inDrawingId);
+                    }
+                } else if (thePath.startsWith(DrawingPatchOperation.SHAPES_PATH_PREFIX)) {
+                    final String theShapeIdString =
+                        thePath.substring(DrawingPatchOperation.SHAPES_PATH_PREFIX.length());
+                    if (DrawingPatchOperation.OP_ADD.equals(theOp)
+                        && DrawingPatchOperation.APPEND_PATH_SEGMENT.equals(theShapeIdString)) {
+                        final Shape theShape = addShapeToDrawing(inDrawingId, shapeFromValue(theOperation));
+                        theChangedShapes.put(theShape.getId(), theShape);
+                    } else if (DrawingPatchOperation.OP_REMOVE.equals(theOp)) {
+                        final Long theShapeId = Long.valueOf(theShapeIdString);
+                        removeShapeFromDrawing(inDrawingId, theShapeId);
+                        theChangedShapes.put(theShapeId, null);
+                    } else if (DrawingPatchOperation.OP_REPLACE.equals(theOp)) {
+                        final Shape theShape = shapeFromValue(theOperation);
+                        theShape.setId(Long.valueOf(theShapeIdString));
+                        final Shape theUpdatedShape = mDrawingRepository
+                            .replaceShapeInDrawing(inDrawingId, theShape)
+                            .orElseThrow(() -> new EntityNotFoundException("Drawing with id " + inDrawingId
+                                + " does not contain shape with id " + theShapeIdString));
+                        theChangedShapes.put(theUpdatedShape.getId(), theUpdatedShape);
+                    } else {
+                        throw new IllegalArgumentException("Unsupported patch operation " + theOp + " " + thePath);
+                    }
+                } else {
+                    throw new IllegalArgumentException("Unsupported patch operation " + theOp + " " + thePath);
+                }
+            }
+            mVersionService.recordChange(inDrawingId, theNewName, theChangedShapes);
+            publishChange(inDrawingId, EntityChangeEvent.Operation.UPDATE);
+            return null;
+        });
+    }
+
+    /**
+     * Finds the supplied version of the drawing with supplied id, reconstructed from
+     * the recorded versions of the drawing.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inVersion Version number, starting at one.
+     * @return Drawing as it was in the version, or empty if there is no such drawing or version.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Drawing> findVersion(final Long inDrawingId, final long inVersion) {
+        log.info("Finding version {} of drawing with id {}", inVersion, inDrawingId);
+
+        return inShardOf(inDrawingId, () -> mVersionService.findVersion(inDrawingId, inVersion));
+    }
+
+    /**
+     * Finds the recorded versions of the drawing with supplied id.
+     *
+     * @param inDrawingId Drawing id.
+     * @return Versions in version order, empty if the drawing has not been changed since created.
+     */
+    @Transactional(readOnly = true)
+    public List<DrawingVersion> findVersions(final Long inDrawingId) {
+        log.info("Finding versions of drawing with id {}", inDrawingId);
+
+        return inShardOf(inDrawingId, () -> mVersionService.findVersions(inDrawingId));
+    }
+
+    /**
+     * Finds the differences between the drawing with supplied id and another drawing or
+     * a version of the drawing. Only the content hashes of the shapes are loaded, the shapes
+     * are loaded when the diff is written, see {@link #writeDiff(DrawingDiff, OutputStream)}.
+     * Each drawing is read in a transaction of its own, in the shard of the drawing.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inAgainstDrawingId Id of drawing to compare against, null to compare against
+     * a version of the drawing.
+     * @param inAgainstVersion Version to compare against, null to compare against the current state.
+     * @return Drawing diff, or empty if there is no such drawing or version.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<DrawingDiff> diff(final Long inDrawingId, final Long inAgainstDrawingId,
+        final Long inAgainstVersion) {
+        final Long theAgainstDrawingId = (inAgainstDrawingId != null) ? inAgainstDrawingId : inDrawingId;
+        log.info("Comparing drawing with id {} against drawing with id {} in version {}",
+            inDrawingId, theAgainstDrawingId, (inAgainstVersion != null) ? inAgainstVersion : "current");
+
+        final Optional<Map<Long, Long>> theShapeHashes =
+            inShardOf(inDrawingId, () -> mVersionService.findShapeContentHashes(inDrawingId, null));
+        final Optional<Map<Long, Long>> theAgainstShapeHashes = inShardOf(theAgainstDrawingId,
+            () -> mVersionService.findShapeContentHashes(theAgainstDrawingId, inAgainstVersion));
+        if (theShapeHashes.isEmpty() || theAgainstShapeHashes.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(DrawingDiff.join(inDrawingId, theShapeHashes.get(),
+            theAgainstDrawingId, inAgainstVersion, theAgainstShapeHashes.get()));
+    }
+
+    /**
+     * Writes the JSON representation of the supplied drawing diff to the supplied stream,
+     * containing the added and removed shapes and the modified shapes before and after modification.
+     * The shapes are loaded and written in chunks, so the memory used does not grow with the size
+     * of the diff. Shapes removed from the drawings after the diff was found are omitted.
+     *
+     * @param inDiff Drawing diff.
+     * @param inOutputStream Stream to write to. Not closed.
+     * @throws IOException If an error occurs writing to the stream.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void writeDiff(final DrawingDiff inDiff, final OutputStream inOutputStream) throws IOException {
+        final ObjectWriter theShapeWriter =
+            mObjectMapper.writerFor(Shape.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator theGenerator = mObjectMapper.createGenerator(inOutputStream)) {
+            theGenerator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            theGenerator.writeStartObject();
+            theGenerator.writeNumberField("drawingId", inDiff.getDrawingId());
+            theGenerator.writeNumberField("againstDrawingId", inDiff.getAgainstDrawingId());
+            if (inDiff.getAgainstVersion() != null) {
+                theGenerator.writeNumberField("againstVersion", inDiff.getAgainstVersion());
+            }
+
+            writeDiffShapes(theGenerator, theShapeWriter, "added", inDiff.getDrawingId(), null,
+                inDiff.getAddedShapeIds());
+            writeDiffShapes(theGenerator, theShapeWriter, "removed", inDiff.getAgainstDrawingId(),
+                inDiff.getAgainstVersion(), inDiff.getRemovedShapeIds());
+
+            theGenerator.writeArrayFieldStart("modified");
+            for (final List<Long> theShapeIds : chunks(inDiff.getModifiedShapeIds())) {
+                final Map<Long, Shape> theShapesBefore =
+                    findDiffShapes(inDiff.getAgainstDrawingId(), inDiff.getAgainstVersion(), theShapeIds);
+                final Map<Long, Shape> theShapesAfter = findDiffShapes(inDiff.getDrawingId(), null, theShapeIds);
+                for (final Long theShapeId : theShapeIds) {
+                    if (theShapesBefore.containsKey(theShapeId) && theShapesAfter.containsKey(theShapeId)) {
+                        theGenerator.writeStartObject();
+                        theGenerator.writeFieldName("before");
+                        theShapeWriter.writeValue(theGenerator, theShapesBefore.get(theShapeId));
+                        theGenerator.writeFieldName("after");
+                        theShapeWriter.writeValue(theGenerator, theShapesAfter.get(theShapeId));
+                        theGenerator.writeEndObject();
+                    }
+                }
+                theGenerator.flush();
+            }
+            theGenerator.writeEndArray();
+            theGenerator.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes an array field containing the shapes with supplied ids of the supplied version of
+     * the drawing with supplied id, loading the shapes in chunks.
+     *
+     * @param inGenerator Generator to write to.
+     * @param inShapeWriter Writer of shapes.
+     * @param inFieldName Name of array field.
+     * @param inDrawingId Drawing id.
+     * @param inVersion Version number, or null for the current state of the drawing.
+     * @param inShapeIds Ids of shapes to write.
+     * @throws IOException If an error occurs writing.
+     */
+    protected void writeDiffShapes(final JsonGenerator inGenerator, final ObjectWriter inShapeWriter,
+        final String inFieldName, final Long inDrawingId, final Long inVersion, final List<Long> inShapeIds)
+        throws IOException {
+        inGenerator.writeArrayFieldStart(inFieldName);
+        for (final List<Long> theShapeIds : chunks(inShapeIds)) {
+            final Map<Long, Shape> theShapes = findDiffShapes(inDrawingId, inVersion, theShapeIds);
+            for (final Long theShapeId : theShapeIds) {
+                if (theShapes.containsKey(theShapeId)) {
+                    inShapeWriter.writeValue(inGenerator, theShapes.get(theShapeId));
+                }
+            }
+            inGenerator.flush();
+        }
+        inGenerator.writeEndArray();
+    }
+
+    /**
+     * Finds the shapes with supplied ids of the supplied version of the drawing with supplied id,
+     * in the shard of the drawing.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inVersion Version number, or null for the current state of the drawing.
+     * @param inShapeIds Ids of shapes to find.
+     * @return Shapes keyed by shape id.
      */
-    public DrawingService(final DrawingRepository inRepository) {
-        super(inRepository);
+    protected Map<Long, Shape> findDiffShapes(final Long inDrawingId, final Long inVersion,
+        final List<Long> inShapeIds) {
+        return inShardOf(inDrawingId, () -> mVersionService.findShapes(inDrawingId, inVersion, inShapeIds));
+    }
+
+    /**
+     * Splits the supplied shape ids into chunks of at most {@link #DIFF_SHAPES_CHUNK_SIZE} ids.
+     *
+     * @param inShapeIds Shape ids.
+     * @return Chunks of shape ids.
+     */
+    protected static List<List<Long>> chunks(final List<Long> inShapeIds) {
+        final List<List<Long>> theChunks = new ArrayList<>();
+        for (int theStart = 0; theStart < inShapeIds.size(); theStart += DIFF_SHAPES_CHUNK_SIZE) {
+            theChunks.add(
+                inShapeIds.subList(theStart, Math.min(theStart + DIFF_SHAPES_CHUNK_SIZE, inShapeIds.size())));
+        }
+        return theChunks;
+    }
+
+    /**
+     * Persists the supplied new shape and adds it to the drawing with supplied id.
+     *
+     * @param inDrawingId Id of drawing to add shape to.
+     * @param inShape New shape.
+     * @return Persisted shape.
+     * @throws IllegalArgumentException If the shape has an id.
+     * @throws EntityNotFoundException If no drawing with supplied id exists.
+     */
+    protected Shape addShapeToDrawing(final Long inDrawingId, final Shape inShape) {
+        if (inShape.getId() != null) {
+            throw new IllegalArgumentException("Id must not be set on new shape");
+        }
+        return mDrawingRepository.addShapeToDrawing(inDrawingId, inShape);
+    }
+
+    /**
+     * Removes the shape with supplied id from the drawing with supplied id and deletes the shape.
+     *
+     * @param inDrawingId Id of drawing to remove shape from.
+     * @param inShapeId Id of shape to remove.
+     * @throws EntityNotFoundException If the drawing does not contain the shape.
+     */
+    protected void removeShapeFromDrawing(final Long inDrawingId, final Long inShapeId) {
+        if (!mDrawingRepository.removeShapeFromDrawing(inDrawingId, inShapeId)) {
+            throw new EntityNotFoundException(
+                "Drawing with id " + inDrawingId + " does not contain shape with id " + inShapeId);
+        }
+    }
+
+    /**
+     * Imports the new drawing which JSON representation is parsed by the supplied parser.
+     * The drawing is persisted when its shapes array is reached, with its name and creation date
+     * written last since they may follow the shapes array in the representation.
+     *
+     * @param inParser Parser positioned before the drawing.
+     * @return Id, name, creation date and number of shapes of the imported drawing.
+     * @throws IOException If reading or parsing the representation fails.
+     * @throws IllegalArgumentException If the drawing is invalid.
+     */
+    protected Map<String, Object> importDrawing(final JsonParser inParser) throws IOException {
+        if (inParser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Drawing must be a JSON object");
+        }
+        final Drawing theDrawing = new Drawing();
+        final List<String> theErrors = new ArrayList<>();
+        String theName = null;
+        Date theCreationDate = null;
+        long theShapeCount = 0;
+
+        while (inParser.nextToken() == JsonToken.FIELD_NAME) {
+            final String thePropertyName = inParser.currentName();
+            inParser.nextToken();
+            switch (thePropertyName) {
+                case ID_PROPERTY -> {
+                    if (inParser.currentToken() != JsonToken.VALUE_NULL) {
+                        theErrors.add("id: must not be set on new drawing");
+                    }
+                }
+                case NAME_PROPERTY -> theName = inParser.getValueAsString();
+                case CREATION_DATE_PROPERTY -> theCreationDate = mObjectMapper.readValue(inParser, Date.class);
+                case SHAPES_PROPERTY -> theShapeCount += importShapes(inParser, theDrawing, theShapeCount, theErrors);
+                default -> inParser.skipChildren();
+            }
+        }
+
+        if (theName == null) {
+            theErrors.add("name: is required");
+        }
+        if (theCreationDate == null) {
+            theErrors.add("creationDate: is required");
+        }
+        if (!theErrors.isEmpty()) {
+            throw new IllegalArgumentException("Invalid drawing:\n" + String.join("\n", theErrors));
+        }
+        if (theDrawing.getId() == null) {
+            theDrawing.setName(theName);
+            theDrawing.setCreationDate(theCreationDate);
+            mDrawingRepository.saveAndFlush(theDrawing);
+        } else {
+            mDrawingRepository.updateNameAndCreationDate(theDrawing.getId(), theName, theCreationDate);
+        }
+
+        final Map<String, Object> theImportedDrawing = new LinkedHashMap<>();
+        theImportedDrawing.put(ID_PROPERTY, theDrawing.getId());
+        theImportedDrawing.put(NAME_PROPERTY, theName);
+        theImportedDrawing.put(CREATION_DATE_PROPERTY, theCreationDate);
+        theImportedDrawing.put(SHAPE_COUNT_PROPERTY, theShapeCount);
+        return theImportedDrawing;
+    }
+
+    /**
+     * Imports the shapes in the shapes array of a drawing being imported, persisting them
+     * in batches. The drawing is persisted before the first batch, if not already persisted,
+     * with temporary name and creation date.
+     * Once a shape is found invalid, no further shapes are persisted but the remaining shapes
+     * are still validated until the maximum number of errors is reached.
+     *
+     * @param inParser Parser positioned at the start of the shapes array.
+     * @param inDrawing Drawing being imported.
+     * @param inFirstShapeIndex Index of the first shape in the array.
+     * @param inErrors Validation errors, to which errors found are added.
+     * @return Number of shapes in the array.
+     * @throws IOException If reading or parsing the representation fails.
+     * @throws IllegalArgumentException If the maximum number of errors is reached.
+     */
+    protected long importShapes(final JsonParser inParser, final Drawing inDrawing, final long inFirstShapeIndex,
+        final List<String> inErrors) throws IOException {
+        if (inParser.currentToken() == JsonToken.VALUE_NULL) {
+            return 0;
+        }
+        if (inParser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("Drawing shapes must be a JSON array");
+        }
+        if (inDrawing.getId() == null) {
+            inDrawing.setName("");
+            inDrawing.setCreationDate(new Date());
+            mDrawingRepository.saveAndFlush(inDrawing);
+        }
+
+        final List<Shape> theShapeBatch = new ArrayList<>(mImportBatchSize);
+        long theShapeIndex = inFirstShapeIndex;
+        while (inParser.nextToken() != JsonToken.END_ARRAY) {
+            /* Each shape is read as a tree so that the parser stays positioned if a shape is invalid. */
+            final JsonNode theShapeNode = mObjectMapper.readTree(inParser);
+            Shape theShape = null;
+            String theError;
+            try {
+                theShape = mObjectMapper.treeToValue(theShapeNode, Shape.class);
+                theError = validateImportedShape(theShape);
+            } catch (final JsonProcessingException theException) {
+                theError = "not a shape: " + theException.getOriginalMessage();
+            } catch (final IllegalArgumentException theException) {
+                theError = "not a shape: " + theException.getMessage();
+            }
+            if (theError != null) {
+                inErrors.add(SHAPES_PROPERTY + "[" + theShapeIndex + "]: " + theError);
+                if (inErrors.size() >= MAX_IMPORT_ERRORS) {
+                    throw new IllegalArgumentException("Invalid drawing:\n" + String.join("\n", inErrors));
+                }
+            } else if (inErrors.isEmpty()) {
+                theShapeBatch.add(theShape);
+                if (theShapeBatch.size() == mImportBatchSize) {
+                    mDrawingRepository.addShapesToDrawingInBatch(inDrawing.getId(), theShapeBatch);
+                    theShapeBatch.clear();
+                }
+            }
+            theShapeIndex++;
+        }
+        if (!theShapeBatch.isEmpty() && inErrors.isEmpty()) {
+            mDrawingRepository.addShapesToDrawingInBatch(inDrawing.getId(), theShapeBatch);
+        }
+        return theShapeIndex - inFirstShapeIndex;
+    }
+
+    /**
+     * Validates the supplied new shape.
+     *
+     * @param inShape Shape to validate. May be null.
+     * @return Validation error, or null if the shape is valid.
+     */
+    protected String validateImportedShape(final Shape inShape) {
+        if (inShape == null) {
+            return "must not be null";
+        }
+        if (inShape.getId() != null) {
+            return "id must not be set on new shape";
+        }
+        if (inShape.getColour() == null) {
+            return "colour is required";
+        }
+        if (inShape.getPosition() == null) {
+            return "position is required";
+        }
+        return null;
+    }
+
+    /**
+     * Creates a shape from the value of the supplied patch operation.
+     *
+     * @param inOperation Patch operation which value is a shape representation.
+     * @return Shape.
+     * @throws IllegalArgumentException If the value is not a shape representation.
+     */
+    protected Shape shapeFromValue(final DrawingPatchOperation inOperation) {
+        if (inOperation.getValue() == null) {
+            throw new IllegalArgumentException("Value is required for operation " + inOperation.getOp());
+        }
+        try {
+            return mObjectMapper.treeToValue(inOperation.getValue(), Shape.class);
+        } catch (final JsonProcessingException | IllegalArgumentException theException) {
+            throw new IllegalArgumentException("Value is not a shape: " + theException.getMessage());
+        }
     }
 
     /*
@@ -38,9 +611,25 @@ public class DrawingService extends AbstractServiceBasePlain<Drawing> {
         return super.save(inEntity);
     }
 
+    @Override
+    public List<Drawing> saveAllInBatch(List<Drawing> inEntities) {
+        return super.saveAllInBatch(inEntities);
+    }
+
+    /**
+     * Updates the supplied drawing and records the shapes that changed as a new version.
+     *
+     * @param inEntity Drawing to update.
+     * @return Updated drawing.
+     */
     @Override
     public Drawing update(Drawing inEntity) {
-        return super.update(inEntity);
+        return inShardOf(inEntity.getId(), () -> {
+            mVersionService.prepareChange(inEntity.getId());
+            final Drawing theUpdatedDrawing = super.update(inEntity);
+            mVersionService.recordState(theUpdatedDrawing);
+            return theUpdatedDrawing;
+        });
     }
 
     @Override
@@ -53,13 +642,49 @@ public class DrawingService extends AbstractServiceBasePlain<Drawing> {
         return super.findAll();
     }
 
+    @Override
+    public List<Drawing> findAllAfter(Long inAfterId, int inLimit) {
+        return super.findAllAfter(inAfterId, inLimit);
+    }
+
+    @Override
+    public List<Drawing> findAllByIdOrdered(List<Long> inEntityIds) {
+        return super.findAllByIdOrdered(inEntityIds);
+    }
+
+    @Override
+    public long count() {
+        return super.count();
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findProjected(Long inEntityId, Collection<String> inPropertyNames) {
+        return super.findProjected(inEntityId, inPropertyNames);
+    }
+
+    @Override
+    public List<Map<String, Object>> findAllProjected(Collection<String> inPropertyNames) {
+        return super.findAllProjected(inPropertyNames);
+    }
+
+    @Override
+    public List<Map<String, Object>> findAllProjected(Collection<String> inPropertyNames,
+        Map<String, String> inFilterParameters, Sort inSort) {
+        return super.findAllProjected(inPropertyNames, inFilterParameters, inSort);
+    }
+
+    @Override
+    public List<Drawing> findAllFiltered(Map<String, String> inFilterParameters, Sort inSort) {
+        return super.findAllFiltered(inFilterParameters, inSort);
+    }
+
     @Override
     public void delete(Long inId) {
         super.delete(inId);
     }
 
     @Override
-    public void deleteAll() {
-        super.deleteAll();
+    public long deleteAll() {
+        return super.deleteAll();
     }
 }
@@ -0,0 +1,32 @@
+package se.ivankrizsan.restexample.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+/**
+ * Application event published by services when an entity has been created, updated or deleted.
+ * The event is published within the transaction in which the change is made.
+ *
+ * @author Ivan Krizsan
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+@Accessors(prefix = "m")
+public class EntityChangeEvent {
+    /**
+     * Type of change made to the entity.
+     */
+    public enum Operation {
+        CREATE, UPDATE, DELETE, DELETE_ALL
+    }
+
+    /* Instance variable(s): */
+    /** Simple name of the entity class. */
+    protected final String mEntityType;
+    /** Id of entity changed, null if the change affects all entities of the type. */
+    protected final Long mEntityId;
+    protected final Operation mOperation;
+}
@@ -1,11 +1,15 @@
 package se.ivankrizsan.restexample.services;
 
 import io.micrometer.observation.annotation.Observed;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import se.ivankrizsan.restexample.domain.Rectangle;
 import se.ivankrizsan.restexample.repositories.RectangleRepository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -22,9 +26,10 @@ public class RectangleService extends AbstractServiceBasePlain<Rectangle> {
      * for entity persistence.
      *
      * @param inRepository Rectangle repository.
+     * @param inEventPublisher Publisher used to publish entity change events.
      */
-    public RectangleService(final RectangleRepository inRepository) {
-        super(inRepository);
+    public RectangleService(final RectangleRepository inRepository, final ApplicationEventPublisher inEventPublisher) {
+        super(inRepository, inEventPublisher);
     }
 
     /*
@@ -38,6 +43,11 @@ public class RectangleService extends AbstractServiceBasePlain<Rectangle> {
         return super.save(inEntity);
     }
 
+    @Override
+    public List<Rectangle> saveAllInBatch(List<Rectangle> inEntities) {
+        return super.saveAllInBatch(inEntities);
+    }
+
     @Override
     public Rectangle update(Rectangle inEntity) {
         return super.update(inEntity);
@@ -53,13 +63,49 @@ public class RectangleService extends AbstractServiceBasePlain<Rectangle> {
         return super.findAll();
     }
 
+    @Override
+    public List<Rectangle> findAllAfter(Long inAfterId, int inLimit) {
+        return super.findAllAfter(inAfterId, inLimit);
+    }
+
+    @Override
+    public List<Rectangle> findAllByIdOrdered(List<Long> inEntityIds) {
+        return super.findAllByIdOrdered(inEntityIds);
+    }
+
+    @Override
+    public long count() {
+        return super.count();
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findProjected(Long inEntityId, Collection<String> inPropertyNames) {
+        return super.findProjected(inEntityId, inPropertyNames);
+    }
+
+    @Override
+    public List<Map<String, Object>> findAllProjected(Collection<String> inPropertyNames) {
+        return super.findAllProjected(inPropertyNames);
+    }
+
+    @Override
+    public List<Map<String, Object>> findAllProjected(Collection<String> inPropertyNames,
+        Map<String, String> inFilterParameters, Sort inSort) {
+        return super.findAllProjected(inPropertyNames, inFilterParameters, inSort);
+    }
+
+    @Override
+    public List<Rectangle> findAllFiltered(Map<String, String> inFilterParameters, Sort inSort) {
+        return super.findAllFiltered(inFilterParameters, inSort);
+    }
+
     @Override
     public void delete(Long inId) {
         super.delete(inId);
     }
 
     @Override
-    public void deleteAll() {
-        super.deleteAll();
+    public long deleteAll() {
+        return super.deleteAll();
     }
 }
@@ -0,0 +1,143 @@
+package se.ivankrizsan.restexample.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical loads so that only one of them, the leader, is
+ * performed while the others wait for and share its result (single-flight).
+ * A waiting load that has not received a result within the maximum wait time performs
+ * the load itself.
+ * Loads invoked within an active transaction are never coalesced, since the result of
+ * another load would not belong to the persistence context of that transaction.
+ * Results are shared between callers and must therefore not be modified.
+ * Number of loads per entity type, operation and outcome (leader, coalesced, timeout)
+ * are registered in the counter "service.loads".
+ *
+ * @author Ivan Krizsan
+ */
+@Slf4j
+@Component
+public class RequestCoalescer {
+    /* Constant(s): */
+    public static final String OUTCOME_LEADER = "leader";
+    public static final String OUTCOME_COALESCED = "coalesced";
+    public static final String OUTCOME_TIMEOUT = "timeout";
+
+    /* Instance variable(s): */
+    protected final Map<LoadKey, CompletableFuture<Object>> mInFlightLoads = new ConcurrentHashMap<>();
+    protected final boolean mEnabled;
+    protected final long mMaxWait;
+    protected final MeterRegistry mMeterRegistry;
+
+    /**
+     * Creates a request coalescer.
+     *
+     * @param inEnabled True if loads are to be coalesced, false if every load is to be performed.
+     * @param inMaxWait Maximum time in milliseconds to wait for the result of an in-flight load.
+     * @param inMeterRegistry Registry in which to register coalescing metrics.
+     */
+    public RequestCoalescer(@Value("${restexample.coalescing.enabled:true}") final boolean inEnabled,
+        @Value("${restexample.coalescing.max-wait:2000}") final long inMaxWait,
+        final MeterRegistry inMeterRegistry) {
+        mEnabled = inEnabled;
+        mMaxWait = inMaxWait;
+        mMeterRegistry = inMeterRegistry;
+    }
+
+    /**
+     * Performs the supplied load, or waits for the result of an identical in-flight load.
+     *
+     * @param inEntityTypeName Name of type of entity loaded.
+     * @param inOperation Name of load operation.
+     * @param inKey Key identifying the loaded data, for instance an entity id. May be null.
+     * @param inLoader Performs the load.
+     * @param <V> Type of load result.
+     * @return Result of the load.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V load(final String inEntityTypeName, final String inOperation, final Object inKey,
+        final Supplier<V> inLoader) {
+        if (!mEnabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return inLoader.get();
+        }
+
+        final LoadKey theLoadKey = new LoadKey(inEntityTypeName, inOperation, inKey);
+        final CompletableFuture<Object> theNewLoad = new CompletableFuture<>();
+        final CompletableFuture<Object> theInFlightLoad = mInFlightLoads.putIfAbsent(theLoadKey, theNewLoad);
+
+        if (theInFlightLoad == null) {
+            loadsCounter(theLoadKey, OUTCOME_LEADER).increment();
+            try {
+                final V theResult = inLoader.get();
+                theNewLoad.complete(theResult);
+                return theResult;
+            } catch (final RuntimeException | Error theException) {
+                theNewLoad.completeExceptionally(theException);
+                throw theException;
+            } finally {
+                mInFlightLoads.remove(theLoadKey, theNewLoad);
+            }
+        }
+
+        try {
+            final V theResult = (V) theInFlightLoad.get(mMaxWait, TimeUnit.MILLISECONDS);
+            loadsCounter(theLoadKey, OUTCOME_COALESCED).increment();
+            return theResult;
+        } catch (final TimeoutException theException) {
+            log.debug("Timed out waiting for in-flight load {}, loading", theLoadKey);
+            loadsCounter(theLoadKey, OUTCOME_TIMEOUT).increment();
+            return inLoader.get();
+        } catch (final ExecutionException theException) {
+            if (theException.getCause() instanceof RuntimeException theRuntimeException) {
+                throw theRuntimeException;
+            }
+            if (theException.getCause() instanceof Error theError) {
+                throw theError;
+            }
+            throw new IllegalStateException(theException.getCause());
+        } catch (final InterruptedException theException) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for in-flight load " + theLoadKey, theException);
+        }
+    }
+
+    /**
+     * Retrieves the counter counting loads with the supplied key and outcome.
+     *
+     * @param inLoadKey Key of load.
+     * @param inOutcome Outcome of load.
+     * @return Counter.
+     */
+    protected Counter loadsCounter(final LoadKey inLoadKey, final String inOutcome) {
+        return Counter
+            .builder("service.loads")
+            .description("Number of entity loads, by whether performed or coalesced with an in-flight load")
+            .tag("entity", String.valueOf(inLoadKey.entityTypeName()))
+            .tag("operation", inLoadKey.operation())
+            .tag("outcome", inOutcome)
+            .register(mMeterRegistry);
+    }
+
+    /**
+     * Identifies a load.
+     *
+     * @param entityTypeName Name of type of entity loaded.
+     * @param operation Name of load operation.
+     * @param key Key identifying the loaded data.
+     */
+    protected record LoadKey(String entityTypeName, String operation, Object key) {
+    }
+}
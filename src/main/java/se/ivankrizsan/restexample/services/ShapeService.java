@@ -0,0 +1,186 @@
+package se.ivankrizsan.restexample.services;
+
+import io.micrometer.observation.annotation.Observed;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import se.ivankrizsan.restexample.domain.Shape;
+import se.ivankrizsan.restexample.sharding.ShardManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Service exposing read operations on shapes of all types.
+ * Since each shape type is stored in a table of its own, each operation queries the
+ * services of the shape types concurrently, each query in a transaction and on a connection
+ * of its own, and merges the results. The latency of an operation thus approaches that of
+ * the slowest query instead of the sum of the latencies of the queries.
+ * Filters and sort properties must exist in all shape types.
+ *
+ * @author Ivan Krizsan
+ */
+@Service
+@Observed(name = "ShapeService")
+@Slf4j
+public class ShapeService {
+    /* Constant(s): */
+    protected static final String ID_PROPERTY = "id";
+
+    /* Instance variable(s): */
+    protected final List<AbstractServiceBasePlain<? extends Shape>> mShapeTypeServices;
+    protected final ExecutorService mQueryExecutor;
+
+    /**
+     * Creates a shape service querying the supplied shape type services.
+     * When all query threads are busy and the queue is full, queries are performed by the
+     * calling thread, which bounds the number of threads and queued queries.
+     *
+     * @param inCircleService Circle service.
+     * @param inRectangleService Rectangle service.
+     * @param inQueryThreads Number of threads performing shape type queries.
+     * @param inQueryQueueCapacity Maximum number of shape type queries waiting for a thread.
+     */
+    public ShapeService(final CircleService inCircleService, final RectangleService inRectangleService,
+        @Value("${restexample.shapes.query-threads:8}") final int inQueryThreads,
+        @Value("${restexample.shapes.query-queue-capacity:64}") final int inQueryQueueCapacity) {
+        mShapeTypeServices = List.of(inCircleService, inRectangleService);
+        final AtomicInteger theThreadNumber = new AtomicInteger();
+        mQueryExecutor = new ThreadPoolExecutor(inQueryThreads, inQueryThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(inQueryQueueCapacity),
+            inRunnable -> {
+                final Thread theThread = new Thread(inRunnable, "shape-query-" + theThreadNumber.incrementAndGet());
+                theThread.setDaemon(true);
+                return theThread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Finds the shape having supplied id.
+     *
+     * @param inShapeId Id of shape to retrieve.
+     * @return Found shape, or empty if no shape is found.
+     */
+    public Optional<Shape> find(final Long inShapeId) {
+        log.info("Finding shape with id {}", inShapeId);
+
+        return queryShapeTypes(inService -> inService.find(inShapeId).<Shape>map(Shape.class::cast))
+            .stream()
+            .flatMap(Optional::stream)
+            .findFirst();
+    }
+
+    /**
+     * Finds all the shapes, in id order.
+     *
+     * @return List of shapes.
+     */
+    public List<Shape> findAll() {
+        log.info("Finding all shapes");
+
+        return findAllFiltered(Map.of(), Sort.unsorted());
+    }
+
+    /**
+     * Finds the shapes matching the supplied filter parameters in the supplied order.
+     * Shapes that are equal according to the order are ordered by id.
+     *
+     * @param inFilterParameters Filter parameters mapping property name, optionally followed
+     * by a period and an operator, to a value.
+     * @param inSort Order of the shapes, referencing properties by name.
+     * @return Matching shapes.
+     * @throws IllegalArgumentException If a property does not exist in all shape types or a
+     * filter operator does not exist.
+     */
+    public List<Shape> findAllFiltered(final Map<String, String> inFilterParameters, final Sort inSort) {
+        log.info("Finding shapes matching filter {} sorted on {}", inFilterParameters, inSort);
+
+        final Sort theSort = mergeSort(inSort);
+        return merge(queryShapeTypes(
+            inService -> List.<Shape>copyOf(inService.findAllFiltered(inFilterParameters, theSort))), theSort);
+    }
+
+    /**
+     * Finds at most the supplied number of shapes which ids are greater than the supplied id,
+     * in id order.
+     *
+     * @param inAfterId Id of last shape of previous page, null to find the first page.
+     * @param inLimit Maximum number of shapes to find.
+     * @return List of shapes.
+     */
+    public List<Shape> findAllAfter(final Long inAfterId, final int inLimit) {
+        log.info("Finding at most {} shapes after id {}", inLimit, inAfterId);
+
+        final List<Shape> theShapes = merge(queryShapeTypes(
+            inService -> List.<Shape>copyOf(inService.findAllAfter(inAfterId, inLimit))), mergeSort(Sort.unsorted()));
+        return (theShapes.size() > inLimit) ? theShapes.subList(0, inLimit) : theShapes;
+    }
+
+    /**
+     * Stops the threads performing shape type queries.
+     */
+    @PreDestroy
+    public void shutdown() {
+        mQueryExecutor.shutdownNow();
+    }
+
+    /**
+     * Performs the supplied query on the services of all shape types concurrently and waits
+     * for all the queries to complete.
+     *
+     * @param inQuery Query to perform using a shape type service.
+     * @param <T> Type of query result.
+     * @return Query results, one per shape type.
+     */
+    protected <T> List<T> queryShapeTypes(final Function<AbstractServiceBasePlain<? extends Shape>, T> inQuery) {
+        final List<CompletableFuture<T>> theQueryResults = new ArrayList<>(mShapeTypeServices.size());
+        for (final AbstractServiceBasePlain<? extends Shape> theShapeTypeService : mShapeTypeServices) {
+            theQueryResults.add(CompletableFuture.supplyAsync(
+                () -> inQuery.apply(theShapeTypeService), mQueryExecutor));
+        }
+        try {
+            return theQueryResults.stream().map(CompletableFuture::join).toList();
+        } catch (final CompletionException theException) {
+            if (theException.getCause() instanceof RuntimeException theRuntimeException) {
+                throw theRuntimeException;
+            }
+            throw theException;
+        }
+    }
+
+    /**
+     * Creates the order in which the shapes of each shape type are queried and merged, which is
+     * the supplied order with id as last sort property, so that the order is total.
+     *
+     * @param inSort Requested order of shapes, may be unsorted.
+     * @return Order of shapes.
+     */
+    protected static Sort mergeSort(final Sort inSort) {
+        return inSort.and(Sort.by(ID_PROPERTY));
+    }
+
+    /**
+     * Merges the supplied lists of shapes of the different shape types, each ordered in the
+     * supplied order, into one list in the same order.
+     *
+     * @param inShapeTypeLists Lists of shapes, one per shape type.
+     * @param inSort Order of each list and of merged shapes.
+     * @return Merged shapes.
+     */
+    protected static List<Shape> merge(final List<List<Shape>> inShapeTypeLists, final Sort inSort) {
+        return ShardManager.merge(inShapeTypeLists, inSort, AbstractServiceBasePlain::propertyValue);
+    }
+}
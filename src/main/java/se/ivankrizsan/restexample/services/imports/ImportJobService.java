@@ -0,0 +1,654 @@
+package se.ivankrizsan.restexample.services.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Column;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.ivankrizsan.restexample.domain.ImportJob;
+import se.ivankrizsan.restexample.domain.ImportJobChunk;
+import se.ivankrizsan.restexample.domain.ImportRejection;
+import se.ivankrizsan.restexample.domain.LongIdEntity;
+import se.ivankrizsan.restexample.repositories.ImportJobChunkRepository;
+import se.ivankrizsan.restexample.repositories.ImportJobRepository;
+import se.ivankrizsan.restexample.repositories.ImportRejectionRepository;
+import se.ivankrizsan.restexample.services.AbstractServiceBasePlain;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Service importing entities in bulk from files uploaded in NDJSON or CSV format.
+ * An uploaded file is spooled to disk and an import job is created, after which the upload
+ * request completes. Jobs are run one at a time in the background. The rows of the file of a job
+ * are split into chunks of the commit size that are imported in parallel, each chunk in a
+ * transaction of its own in which the imported chunk and its rejected rows are also recorded.
+ * Jobs that were pending or running when the application stopped are resumed at startup,
+ * skipping chunks already imported.
+ * NDJSON rows are entity representations and CSV files have a header row listing the property
+ * of each column, with nested properties written like {@code position.x}. Properties not in a row
+ * have the default values of the entity type.
+ * With sharding enabled, imported entities are created in shard zero, in which the jobs are recorded.
+ *
+ * @author Ivan Krizsan
+ */
+@Slf4j
+@Service
+public class ImportJobService {
+    /* Constant(s): */
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+    /** Maximum number of rejected rows recorded per chunk. */
+    protected static final int MAX_REJECTIONS_PER_CHUNK = 100;
+    /** Maximum number of rejected rows reported in the status of a job. */
+    protected static final int MAX_REPORTED_REJECTIONS = 100;
+    protected static final char CSV_SEPARATOR = ',';
+    protected static final char CSV_QUOTE = '"';
+    protected static final Pattern INTEGER_PATTERN = Pattern.compile("-?\\d{1,18}");
+    protected static final Pattern DECIMAL_PATTERN = Pattern.compile("-?\\d+(\\.\\d+)?([eE][-+]?\\d+)?");
+
+    /* Instance variable(s): */
+    protected final Map<String, AbstractServiceBasePlain<?>> mEntityServices;
+    protected final ImportJobRepository mJobRepository;
+    protected final ImportJobChunkRepository mChunkRepository;
+    protected final ImportRejectionRepository mRejectionRepository;
+    protected final TransactionTemplate mTransactionTemplate;
+    protected final ObjectMapper mObjectMapper;
+    protected final MeterRegistry mMeterRegistry;
+    protected final Path mSpoolDirectory;
+    protected final int mCommitSize;
+    protected final ExecutorService mJobExecutor;
+    protected final ExecutorService mChunkExecutor;
+    protected final Map<Class<?>, List<Field>> mRequiredFields = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an import job service.
+     * When all chunk threads are busy and the chunk queue is full, the job thread imports the next
+     * chunk itself, which bounds the number of chunks held in memory.
+     *
+     * @param inEntityServices Services of the entity types that can be imported.
+     * @param inJobRepository Import job repository.
+     * @param inChunkRepository Repository recording imported chunks.
+     * @param inRejectionRepository Repository recording rejected rows.
+     * @param inTransactionManager Transaction manager used to import chunks.
+     * @param inObjectMapper Object mapper used to create entities from rows.
+     * @param inMeterRegistry Registry in which to register import metrics.
+     * @param inSpoolDirectory Directory to which uploaded files are spooled.
+     * @param inParallelism Number of chunks imported in parallel.
+     * @param inCommitSize Number of rows in each chunk, imported in one transaction.
+     */
+    public ImportJobService(final List<AbstractServiceBasePlain<?>> inEntityServices,
+        final ImportJobRepository inJobRepository, final ImportJobChunkRepository inChunkRepository,
+        final ImportRejectionRepository inRejectionRepository, final PlatformTransactionManager inTransactionManager,
+        final ObjectMapper inObjectMapper, final MeterRegistry inMeterRegistry,
+        @Value("${restexample.imports.spool-directory:import-spool}") final String inSpoolDirectory,
+        @Value("${restexample.imports.parallelism:4}") final int inParallelism,
+        @Value("${restexample.imports.commit-size:1000}") final int inCommitSize) {
+        mEntityServices = inEntityServices
+            .stream()
+            .collect(Collectors.toMap(inService -> inService.getEntityType().getSimpleName(), Function.identity()));
+        mJobRepository = inJobRepository;
+        mChunkRepository = inChunkRepository;
+        mRejectionRepository = inRejectionRepository;
+        mTransactionTemplate = new TransactionTemplate(inTransactionManager);
+        mObjectMapper = inObjectMapper;
+        mMeterRegistry = inMeterRegistry;
+        mSpoolDirectory = Path.of(inSpoolDirectory);
+        mCommitSize = inCommitSize;
+
+        mJobExecutor = Executors.newSingleThreadExecutor(inRunnable -> {
+            final Thread theThread = new Thread(inRunnable, "import-job");
+            theThread.setDaemon(true);
+            return theThread;
+        });
+        final AtomicInteger theThreadNumber = new AtomicInteger();
+        mChunkExecutor = new ThreadPoolExecutor(inParallelism, inParallelism, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(inParallelism),
+            inRunnable -> {
+                final Thread theThread = new Thread(inRunnable, "import-chunk-" + theThreadNumber.incrementAndGet());
+                theThread.setDaemon(true);
+                return theThread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Spools the supplied upload to disk and creates a job importing its rows in the background.
+     *
+     * @param inEntityType Simple name of class of entities to import.
+     * @param inFormat Format of upload, {@link #FORMAT_NDJSON} or {@link #FORMAT_CSV}.
+     * @param inUpload Uploaded file.
+     * @return Created import job.
+     * @throws IllegalArgumentException If entities of the type cannot be imported or the format is not supported.
+     */
+    public ImportJob createJob(final String inEntityType, final String inFormat, final InputStream inUpload) {
+        log.info("Creating job importing entities of type {} from {}", inEntityType, inFormat);
+
+        if (!mEntityServices.containsKey(inEntityType)) {
+            throw new IllegalArgumentException("Entities of type " + inEntityType + " cannot be imported");
+        }
+        if (!FORMAT_NDJSON.equals(inFormat) && !FORMAT_CSV.equals(inFormat)) {
+            throw new IllegalArgumentException("Unsupported import format " + inFormat);
+        }
+
+        Path theSpoolFile = null;
+        final long theRowCount;
+        try {
+            Files.createDirectories(mSpoolDirectory);
+            theSpoolFile = Files.createTempFile(mSpoolDirectory, inEntityType + "-", "." + inFormat);
+            theRowCount = spool(inUpload, theSpoolFile, FORMAT_CSV.equals(inFormat));
+        } catch (final IOException theException) {
+            deleteSpoolFile(theSpoolFile);
+            throw new UncheckedIOException(theException);
+        }
+
+        final ImportJob theJob = mJobRepository.save(
+            new ImportJob(inEntityType, inFormat, theSpoolFile.toAbsolutePath().toString(), theRowCount));
+        submitJob(theJob.getId());
+        return theJob;
+    }
+
+    /**
+     * Retrieves the status of the import job with supplied id, containing the progress and
+     * throughput of the job and the first rejected rows.
+     *
+     * @param inJobId Import job id.
+     * @return Status of the job, or empty if there is no such job.
+     */
+    public Optional<Map<String, Object>> findJobStatus(final Long inJobId) {
+        return mJobRepository.findById(inJobId).map(inJob -> {
+            final long theImportedRowCount = mChunkRepository.sumImportedRows(inJobId);
+            final long theRejectedRowCount = mChunkRepository.sumRejectedRows(inJobId);
+            final long theProcessedRowCount = theImportedRowCount + theRejectedRowCount;
+            final Date theEndTime = (inJob.getCompletedAt() != null) ? inJob.getCompletedAt() : new Date();
+            final long theElapsedMillis = (inJob.getStartedAt() != null)
+                ? theEndTime.getTime() - inJob.getStartedAt().getTime() : 0;
+
+            final Map<String, Object> theStatus = new LinkedHashMap<>();
+            theStatus.put("id", inJob.getId());
+            theStatus.put("entityType", inJob.getEntityType());
+            theStatus.put("format", inJob.getFormat());
+            theStatus.put("status", inJob.getStatus());
+            theStatus.put("totalRows", inJob.getTotalRows());
+            theStatus.put("processedRows", theProcessedRowCount);
+            theStatus.put("importedRows", theImportedRowCount);
+            theStatus.put("rejectedRows", theRejectedRowCount);
+            theStatus.put("rowsPerSecond",
+                (theElapsedMillis > 0) ? Math.round(theProcessedRowCount * 1000.0 / theElapsedMillis) : 0);
+            theStatus.put("createdAt", inJob.getCreatedAt());
+            theStatus.put("startedAt", inJob.getStartedAt());
+            theStatus.put("completedAt", inJob.getCompletedAt());
+            theStatus.put("failureMessage", inJob.getFailureMessage());
+            theStatus.put("rejections", mRejectionRepository
+                .findByJobId(inJobId, PageRequest.of(0, MAX_REPORTED_REJECTIONS))
+                .stream()
+                .map(inRejection -> Map.of(
+                    "lineNumber", inRejection.getLineNumber(), "message", inRejection.getMessage()))
+                .toList());
+            return theStatus;
+        });
+    }
+
+    /**
+     * Resumes the import jobs that were pending or running when the application stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeJobs() {
+        for (final ImportJob theJob : mJobRepository.findByStatuses(
+            List.of(ImportJob.Status.PENDING, ImportJob.Status.RUNNING))) {
+            log.info("Resuming import job {}", theJob.getId());
+            submitJob(theJob.getId());
+        }
+    }
+
+    /**
+     * Stops the threads running import jobs. Interrupted jobs are resumed at the next startup.
+     */
+    @PreDestroy
+    public void shutdown() {
+        mJobExecutor.shutdownNow();
+        mChunkExecutor.shutdownNow();
+    }
+
+    /**
+     * Submits the import job with supplied id for running in the background.
+     *
+     * @param inJobId Import job id.
+     */
+    protected void submitJob(final Long inJobId) {
+        mJobExecutor.execute(() -> runJob(inJobId));
+    }
+
+    /**
+     * Runs the import job with supplied id, importing the chunks of its file not already imported.
+     * Chunks are submitted for import until all chunks are submitted or a chunk fails.
+     *
+     * @param inJobId Import job id.
+     */
+    protected void runJob(final Long inJobId) {
+        final ImportJob theJob = mJobRepository.findById(inJobId).orElse(null);
+        if (theJob == null || theJob.getStatus() == ImportJob.Status.COMPLETED
+            || theJob.getStatus() == ImportJob.Status.FAILED) {
+            return;
+        }
+        theJob.setStatus(ImportJob.Status.RUNNING);
+        if (theJob.getStartedAt() == null) {
+            theJob.setStartedAt(new Date());
+        }
+        mJobRepository.save(theJob);
+
+        final AbstractServiceBasePlain<?> theService = mEntityServices.get(theJob.getEntityType());
+        final Set<Long> theImportedChunkIndexes = new HashSet<>(mChunkRepository.findChunkIndexes(inJobId));
+        final List<CompletableFuture<Void>> theChunkResults = new ArrayList<>();
+        final AtomicReference<Throwable> theChunkFailure = new AtomicReference<>();
+        try (BufferedReader theReader =
+                 Files.newBufferedReader(Path.of(theJob.getSpoolFile()), StandardCharsets.UTF_8)) {
+            final ObjectNode theTemplate = mObjectMapper.valueToTree(
+                theService.getEntityType().getDeclaredConstructor().newInstance());
+            long theLineNumber = 0;
+            String[] theCsvHeader = null;
+            if (FORMAT_CSV.equals(theJob.getFormat())) {
+                final String theHeaderLine = theReader.readLine();
+                theCsvHeader = (theHeaderLine != null) ? parseCsvLine(theHeaderLine).toArray(new String[0]) : null;
+                theLineNumber++;
+            }
+
+            List<String> theLines;
+            long theChunkIndex = 0;
+            while (theChunkFailure.get() == null && !(theLines = readLines(theReader, mCommitSize)).isEmpty()) {
+                if (!theImportedChunkIndexes.contains(theChunkIndex)) {
+                    final long theCurrentChunkIndex = theChunkIndex;
+                    final long theFirstLineNumber = theLineNumber + 1;
+                    final List<String> theChunkLines = theLines;
+                    final String[] theChunkCsvHeader = theCsvHeader;
+                    theChunkResults.add(CompletableFuture
+                        .runAsync(() -> importChunk(inJobId, theService, theTemplate, theChunkCsvHeader,
+                            theCurrentChunkIndex, theFirstLineNumber, theChunkLines), mChunkExecutor)
+                        .whenComplete((inResult, inFailure) -> {
+                            if (inFailure != null) {
+                                theChunkFailure.compareAndSet(null, inFailure);
+                            }
+                        }));
+                }
+                theLineNumber += theLines.size();
+                theChunkIndex++;
+            }
+            CompletableFuture.allOf(theChunkResults.toArray(new CompletableFuture<?>[0])).join();
+            theJob.setStatus(ImportJob.Status.COMPLETED);
+        } catch (final Exception theException) {
+            if (mJobExecutor.isShutdown()) {
+                log.info("Import job {} interrupted by shutdown, will be resumed at next startup", inJobId);
+                return;
+            }
+            final Throwable theCause = (theException instanceof CompletionException && theException.getCause() != null)
+                ? theException.getCause() : theException;
+            log.warn("Import job {} failed", inJobId, theCause);
+            theJob.setStatus(ImportJob.Status.FAILED);
+            theJob.setFailureMessage(truncate(String.valueOf(theCause.getMessage())));
+        }
+        theJob.setCompletedAt(new Date());
+        mJobRepository.save(theJob);
+        if (theJob.getStatus() == ImportJob.Status.COMPLETED) {
+            deleteSpoolFile(Path.of(theJob.getSpoolFile()));
+        }
+    }
+
+    /**
+     * Imports the supplied chunk of rows in one transaction, in which the imported chunk and the
+     * rows rejected are also recorded.
+     *
+     * @param inJobId Import job id.
+     * @param inService Service of type of entities to import.
+     * @param inTemplate Representation of a new entity with default property values.
+     * @param inCsvHeader Properties of the columns of CSV rows, null if rows are NDJSON.
+     * @param inChunkIndex Index of chunk.
+     * @param inFirstLineNumber Line number of first row of chunk.
+     * @param inLines Rows of chunk. Blank rows are skipped.
+     * @param <E> Entity type.
+     */
+    @SuppressWarnings("unchecked")
+    protected <E extends LongIdEntity> void importChunk(final Long inJobId, final AbstractServiceBasePlain<E> inService,
+        final ObjectNode inTemplate, final String[] inCsvHeader, final long inChunkIndex, final long inFirstLineNumber,
+        final List<String> inLines) {
+        final List<E> theEntities = new ArrayList<>(inLines.size());
+        final List<ImportRejection> theRejections = new ArrayList<>();
+        int theRejectedRowCount = 0;
+        for (int theLineIndex = 0; theLineIndex < inLines.size(); theLineIndex++) {
+            final String theLine = inLines.get(theLineIndex);
+            if (theLine.isBlank()) {
+                continue;
+            }
+            String theError;
+            try {
+                final Object theEntity = parseRow(inService.getEntityType(), inTemplate, inCsvHeader, theLine);
+                theError = validate(theEntity);
+                if (theError == null) {
+                    theEntities.add((E) theEntity);
+                }
+            } catch (final JsonProcessingException theException) {
+                theError = theException.getOriginalMessage();
+            } catch (final IllegalArgumentException theException) {
+                theError = theException.getMessage();
+            }
+            if (theError != null) {
+                theRejectedRowCount++;
+                if (theRejections.size() < MAX_REJECTIONS_PER_CHUNK) {
+                    theRejections.add(new ImportRejection(inJobId, inFirstLineNumber + theLineIndex,
+                        String.valueOf(theError)));
+                }
+            }
+        }
+
+        final int theFinalRejectedRowCount = theRejectedRowCount;
+        mTransactionTemplate.executeWithoutResult(inStatus -> {
+            if (!theEntities.isEmpty()) {
+                inService.saveAllInBatch(theEntities);
+            }
+            mRejectionRepository.saveAll(theRejections);
+            mChunkRepository.save(
+                new ImportJobChunk(inJobId, inChunkIndex, theEntities.size(), theFinalRejectedRowCount));
+        });
+        countRows(inService.getEntityType(), "imported", theEntities.size());
+        countRows(inService.getEntityType(), "rejected", theRejectedRowCount);
+    }
+
+    /**
+     * Creates an entity from the supplied row.
+     *
+     * @param inEntityType Type of entity to create.
+     * @param inTemplate Representation of a new entity with default property values.
+     * @param inCsvHeader Properties of the columns of CSV rows, null if row is NDJSON.
+     * @param inLine Row.
+     * @return New entity.
+     * @throws JsonProcessingException If row is not a representation of the entity type.
+     * @throws IllegalArgumentException If row is not a JSON object or has the wrong number of CSV columns.
+     */
+    protected Object parseRow(final Class<?> inEntityType, final ObjectNode inTemplate, final String[] inCsvHeader,
+        final String inLine) throws JsonProcessingException {
+        final ObjectNode theEntityNode = inTemplate.deepCopy();
+        if (inCsvHeader == null) {
+            final JsonNode theRowNode = mObjectMapper.readTree(inLine);
+            if (!(theRowNode instanceof ObjectNode theRowObjectNode)) {
+                throw new IllegalArgumentException("Row is not a JSON object");
+            }
+            theEntityNode.setAll(theRowObjectNode);
+        } else {
+            final List<String> theValues = parseCsvLine(inLine);
+            if (theValues.size() != inCsvHeader.length) {
+                throw new IllegalArgumentException(
+                    "Row has " + theValues.size() + " columns, expected " + inCsvHeader.length);
+            }
+            for (int theColumn = 0; theColumn < inCsvHeader.length; theColumn++) {
+                if (!theValues.get(theColumn).isEmpty()) {
+                    setProperty(theEntityNode, inCsvHeader[theColumn], csvValueNode(theValues.get(theColumn)));
+                }
+            }
+        }
+        return mObjectMapper.treeToValue(theEntityNode, inEntityType);
+    }
+
+    /**
+     * Validates the supplied new entity, which must not have an id and which must have values
+     * for all properties mapped to columns that are not nullable.
+     *
+     * @param inEntity Entity to validate.
+     * @return Validation error, or null if the entity is valid.
+     */
+    protected String validate(final Object inEntity) {
+        if (((LongIdEntity) inEntity).getId() != null) {
+            return "Id must not be set on new entity";
+        }
+        for (final Field theField : mRequiredFields.computeIfAbsent(inEntity.getClass(), this::findRequiredFields)) {
+            try {
+                if (theField.get(inEntity) == null) {
+                    return propertyName(theField) + " is required";
+                }
+            } catch (final IllegalAccessException theException) {
+                throw new IllegalStateException(theException);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the fields of the supplied entity class, including inherited fields, that are mapped to
+     * columns that are not nullable.
+     *
+     * @param inEntityClass Entity class.
+     * @return Required fields, made accessible.
+     */
+    protected List<Field> findRequiredFields(final Class<?> inEntityClass) {
+        final List<Field> theRequiredFields = new ArrayList<>();
+        for (Class<?> theClass = inEntityClass; theClass != null; theClass = theClass.getSuperclass()) {
+            for (final Field theField : theClass.getDeclaredFields()) {
+                final Column theColumn = theField.getAnnotation(Column.class);
+                if (theColumn != null && !theColumn.nullable() && !theField.getType().isPrimitive()
+                    && !Modifier.isStatic(theField.getModifiers())) {
+                    theField.setAccessible(true);
+                    theRequiredFields.add(theField);
+                }
+            }
+        }
+        return theRequiredFields;
+    }
+
+    /**
+     * Records the supplied number of rows with the supplied outcome in the import metrics.
+     *
+     * @param inEntityType Type of entities imported.
+     * @param inOutcome Outcome of rows, imported or rejected.
+     * @param inRowCount Number of rows.
+     */
+    protected void countRows(final Class<?> inEntityType, final String inOutcome, final long inRowCount) {
+        Counter
+            .builder("imports.rows")
+            .description("Number of rows processed by import jobs")
+            .tag("entityType", inEntityType.getSimpleName())
+            .tag("outcome", inOutcome)
+            .register(mMeterRegistry)
+            .increment(inRowCount);
+    }
+
+    /**
+     * Copies the supplied upload to the supplied spool file line by line, counting the
+     * non-blank rows.
+     *
+     * @param inUpload Uploaded file.
+     * @param inSpoolFile File to copy upload to.
+     * @param inHeaderFlag True if the first line is a header that is not counted.
+     * @return Number of non-blank rows.
+     * @throws IOException If reading the upload or writing the spool file fails.
+     */
+    protected static long spool(final InputStream inUpload, final Path inSpoolFile, final boolean inHeaderFlag)
+        throws IOException {
+        long theRowCount = 0;
+        boolean theHeaderFlag = inHeaderFlag;
+        try (BufferedReader theReader = new BufferedReader(new InputStreamReader(inUpload, StandardCharsets.UTF_8));
+             BufferedWriter theWriter = Files.newBufferedWriter(inSpoolFile, StandardCharsets.UTF_8)) {
+            String theLine;
+            while ((theLine = theReader.readLine()) != null) {
+                theWriter.write(theLine);
+                theWriter.newLine();
+                if (theHeaderFlag) {
+                    theHeaderFlag = false;
+                } else if (!theLine.isBlank()) {
+                    theRowCount++;
+                }
+            }
+        }
+        return theRowCount;
+    }
+
+    /**
+     * Reads at most the supplied number of lines from the supplied reader.
+     *
+     * @param inReader Reader to read lines from.
+     * @param inMaxLines Maximum number of lines to read.
+     * @return Lines read, empty if there are no more lines.
+     * @throws IOException If reading fails.
+     */
+    protected static List<String> readLines(final BufferedReader inReader, final int inMaxLines) throws IOException {
+        final List<String> theLines = new ArrayList<>(inMaxLines);
+        String theLine;
+        while (theLines.size() < inMaxLines && (theLine = inReader.readLine()) != null) {
+            theLines.add(theLine);
+        }
+        return theLines;
+    }
+
+    /**
+     * Splits the supplied CSV line into values. Values may be enclosed in double quotes,
+     * in which case they may contain separators and quotes written as two double quotes.
+     *
+     * @param inLine CSV line.
+     * @return Values, with whitespace around values not enclosed in quotes removed.
+     */
+    protected static List<String> parseCsvLine(final String inLine) {
+        final List<String> theValues = new ArrayList<>();
+        final StringBuilder theValue = new StringBuilder();
+        boolean theQuotedFlag = false;
+        boolean theWasQuotedFlag = false;
+        for (int i = 0; i < inLine.length(); i++) {
+            final char theChar = inLine.charAt(i);
+            if (theQuotedFlag) {
+                if (theChar == CSV_QUOTE && i + 1 < inLine.length() && inLine.charAt(i + 1) == CSV_QUOTE) {
+                    theValue.append(CSV_QUOTE);
+                    i++;
+                } else if (theChar == CSV_QUOTE) {
+                    theQuotedFlag = false;
+                } else {
+                    theValue.append(theChar);
+                }
+            } else if (theChar == CSV_QUOTE) {
+                theQuotedFlag = true;
+                theWasQuotedFlag = true;
+            } else if (theChar == CSV_SEPARATOR) {
+                theValues.add(theWasQuotedFlag ? theValue.toString() : theValue.toString().trim());
+                theValue.setLength(0);
+                theWasQuotedFlag = false;
+            } else {
+                theValue.append(theChar);
+            }
+        }
+        theValues.add(theWasQuotedFlag ? theValue.toString() : theValue.toString().trim());
+        return theValues;
+    }
+
+    /**
+     * Creates a JSON node holding the supplied CSV value, numeric if the value is a number.
+     *
+     * @param inValue CSV value.
+     * @return JSON node.
+     */
+    protected static JsonNode csvValueNode(final String inValue) {
+        if (INTEGER_PATTERN.matcher(inValue).matches()) {
+            return LongNode.valueOf(Long.parseLong(inValue));
+        }
+        if (DECIMAL_PATTERN.matcher(inValue).matches()) {
+            return DoubleNode.valueOf(Double.parseDouble(inValue));
+        }
+        return TextNode.valueOf(inValue);
+    }
+
+    /**
+     * Sets the property with the supplied, possibly nested, name in the supplied object node.
+     *
+     * @param inObjectNode Object node.
+     * @param inPropertyPath Property name, with names of nested properties separated by periods.
+     * @param inValue Property value.
+     */
+    protected static void setProperty(final ObjectNode inObjectNode, final String inPropertyPath,
+        final JsonNode inValue) {
+        final String[] thePropertyNames = inPropertyPath.split("\\.");
+        ObjectNode theParentNode = inObjectNode;
+        for (int i = 0; i < thePropertyNames.length - 1; i++) {
+            final JsonNode theChildNode = theParentNode.get(thePropertyNames[i]);
+            theParentNode = (theChildNode instanceof ObjectNode theChildObjectNode)
+                ? theChildObjectNode : theParentNode.putObject(thePropertyNames[i]);
+        }
+        theParentNode.set(thePropertyNames[thePropertyNames.length - 1], inValue);
+    }
+
+    /**
+     * Determines the property name of the supplied field, which name has an m prefix.
+     *
+     * @param inField Field.
+     * @return Property name.
+     */
+    protected static String propertyName(final Field inField) {
+        final String theFieldName = inField.getName();
+        return (theFieldName.length() > 1 && theFieldName.charAt(0) == 'm')
+            ? Character.toLowerCase(theFieldName.charAt(1)) + theFieldName.substring(2)
+            : theFieldName;
+    }
+
+    /**
+     * Truncates the supplied message to the maximum length of a failure message of a job.
+     *
+     * @param inMessage Message.
+     * @return Truncated message.
+     */
+    protected static String truncate(final String inMessage) {
+        return (inMessage.length() > 1024) ? inMessage.substring(0, 1024) : inMessage;
+    }
+
+    /**
+     * Deletes the supplied spool file, logging instead of failing if it cannot be deleted.
+     *
+     * @param inSpoolFile Spool file. May be null.
+     */
+    protected static void deleteSpoolFile(final Path inSpoolFile) {
+        if (inSpoolFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(inSpoolFile);
+        } catch (final IOException theException) {
+            log.warn("Failed to delete import spool file {}", inSpoolFile, theException);
+        }
+    }
+}
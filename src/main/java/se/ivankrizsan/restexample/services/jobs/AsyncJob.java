@@ -0,0 +1,71 @@
+package se.ivankrizsan.restexample.services.jobs;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+import java.util.Date;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Job running an expensive operation in the background, see {@link AsyncJobService}.
+ * Jobs are held in memory only and are thus lost when the application is restarted.
+ *
+ * @author Ivan Krizsan
+ */
+@Getter
+@Accessors(prefix = "m")
+public class AsyncJob {
+    /**
+     * Status of an asynchronous job.
+     */
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    protected final long mId;
+    protected final String mOperation;
+    protected final Date mSubmittedAt = new Date();
+    protected volatile Status mStatus = Status.QUEUED;
+    protected volatile Date mStartedAt;
+    protected volatile Date mCompletedAt;
+    protected volatile Object mResult;
+    protected volatile String mFailureMessage;
+    protected volatile boolean mCancelRequested;
+    @Getter(AccessLevel.NONE)
+    protected volatile FutureTask<Void> mTask;
+
+    /**
+     * Creates a queued job.
+     *
+     * @param inId Job id.
+     * @param inOperation Name of operation run by the job.
+     */
+    public AsyncJob(final long inId, final String inOperation) {
+        mId = inId;
+        mOperation = inOperation;
+    }
+
+    /**
+     * Determines whether the job has completed, failed or been cancelled.
+     *
+     * @return True if the job is finished, false if it is queued or running.
+     */
+    public boolean isFinished() {
+        final Status theStatus = mStatus;
+        return theStatus == Status.COMPLETED || theStatus == Status.FAILED || theStatus == Status.CANCELLED;
+    }
+
+    /**
+     * Finishes the job with the supplied status.
+     *
+     * @param inStatus Final status of the job.
+     */
+    protected void finish(final Status inStatus) {
+        mCompletedAt = new Date();
+        mStatus = inStatus;
+    }
+}
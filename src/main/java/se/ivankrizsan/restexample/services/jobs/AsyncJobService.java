@@ -0,0 +1,224 @@
+package se.ivankrizsan.restexample.services.jobs;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Service running expensive operations, for example deleting all entities of a type,
+ * as jobs in the background instead of in the thread of the request submitting them.
+ * Jobs are run by a dedicated, bounded pool of threads. Each running job uses at most one
+ * database connection, so the number of threads is the connection budget of jobs and jobs
+ * cannot exhaust the connection pool used by requests. When all threads are busy and the
+ * job queue is full, further jobs are rejected.
+ * The operation of a job is run in a transaction that is rolled back if the job is cancelled
+ * before the transaction is committed. A running job is also interrupted when cancelled.
+ * With sharding enabled, operations performed in all shards commit in each shard independently.
+ * Finished jobs are retained in memory until the number of retained jobs is exceeded.
+ *
+ * @author Ivan Krizsan
+ */
+@Slf4j
+@Service
+public class AsyncJobService {
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    protected final ThreadPoolExecutor mExecutor;
+    protected final TransactionTemplate mTransactionTemplate;
+    protected final MeterRegistry mMeterRegistry;
+    protected final Map<Long, AsyncJob> mJobs;
+    protected final AtomicLong mLastJobId = new AtomicLong();
+
+    /**
+     * Creates an asynchronous job service.
+     *
+     * @param inTransactionManager Transaction manager used to run the operations of jobs.
+     * @param inMeterRegistry Registry in which to register job metrics.
+     * @param inConcurrency Maximum number of jobs running at the same time, and thus number
+     * of database connections used by jobs.
+     * @param inQueueCapacity Maximum number of jobs waiting to run.
+     * @param inRetainedJobs Number of jobs retained after having finished.
+     */
+    public AsyncJobService(final PlatformTransactionManager inTransactionManager,
+        final MeterRegistry inMeterRegistry,
+        @Value("${restexample.jobs.concurrency:2}") final int inConcurrency,
+        @Value("${restexample.jobs.queue-capacity:100}") final int inQueueCapacity,
+        @Value("${restexample.jobs.retained-jobs:1000}") final int inRetainedJobs) {
+        mTransactionTemplate = new TransactionTemplate(inTransactionManager);
+        mMeterRegistry = inMeterRegistry;
+        mJobs = Collections.synchronizedMap(new LinkedHashMap<Long, AsyncJob>() {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, AsyncJob> inEldestEntry) {
+                return size() > inRetainedJobs && inEldestEntry.getValue().isFinished();
+            }
+        });
+
+        final AtomicInteger theThreadNumber = new AtomicInteger();
+        mExecutor = new ThreadPoolExecutor(inConcurrency, inConcurrency, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(inQueueCapacity),
+            inRunnable -> {
+                final Thread theThread = new Thread(inRunnable, "async-job-" + theThreadNumber.incrementAndGet());
+                theThread.setDaemon(true);
+                return theThread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("jobs.queue.depth", mExecutor, inExecutor -> inExecutor.getQueue().size())
+            .description("Number of asynchronous jobs waiting to run")
+            .register(inMeterRegistry);
+        Gauge.builder("jobs.running", mExecutor, ThreadPoolExecutor::getActiveCount)
+            .description("Number of asynchronous jobs running")
+            .register(inMeterRegistry);
+    }
+
+    /**
+     * Submits a job running the supplied operation in the background.
+     *
+     * @param inOperation Name of operation, used in job status and metrics.
+     * @param inWork Operation to run, the result of which becomes the result of the job.
+     * @return Submitted job.
+     * @throws RejectedExecutionException If the job queue is full.
+     */
+    public AsyncJob submit(final String inOperation, final Supplier<?> inWork) {
+        final AsyncJob theJob = new AsyncJob(mLastJobId.incrementAndGet(), inOperation);
+        log.info("Submitting job {} running operation {}", theJob.getId(), inOperation);
+
+        theJob.mTask = new FutureTask<>(() -> runJob(theJob, inWork), null);
+        mJobs.put(theJob.getId(), theJob);
+        try {
+            mExecutor.execute(theJob.mTask);
+        } catch (final RejectedExecutionException theException) {
+            mJobs.remove(theJob.getId());
+            throw new RejectedExecutionException("Job queue is full, try again later");
+        }
+        return theJob;
+    }
+
+    /**
+     * Finds the job with supplied id.
+     *
+     * @param inJobId Job id.
+     * @return Job, or empty if there is no such job or the job is no longer retained.
+     */
+    public Optional<AsyncJob> findJob(final Long inJobId) {
+        return Optional.ofNullable(mJobs.get(inJobId));
+    }
+
+    /**
+     * Cancels the job with supplied id.
+     * A queued job is removed from the queue and will not run. A running job is interrupted
+     * and its transaction is rolled back, unless the transaction has already been committed in
+     * which case the job completes. Finished jobs are not affected.
+     *
+     * @param inJobId Job id.
+     * @return Job, or empty if there is no such job or the job is no longer retained.
+     */
+    public Optional<AsyncJob> cancel(final Long inJobId) {
+        final Optional<AsyncJob> theJob = findJob(inJobId);
+        theJob.filter(inJob -> !inJob.isFinished()).ifPresent(inJob -> {
+            log.info("Cancelling job {}", inJobId);
+            inJob.mCancelRequested = true;
+            if (mExecutor.remove(inJob.mTask)) {
+                inJob.finish(AsyncJob.Status.CANCELLED);
+                recordDuration(inJob);
+            } else {
+                inJob.mTask.cancel(true);
+            }
+        });
+        return theJob;
+    }
+
+    /**
+     * Stops the job threads, interrupting running jobs.
+     */
+    @PreDestroy
+    public void shutdown() {
+        mExecutor.shutdownNow();
+    }
+
+    /**
+     * Runs the supplied operation of the supplied job in a transaction, which is rolled back
+     * if cancellation of the job is requested before the transaction is committed.
+     *
+     * @param inJob Job to run.
+     * @param inWork Operation of job.
+     */
+    protected void runJob(final AsyncJob inJob, final Supplier<?> inWork) {
+        if (inJob.mCancelRequested) {
+            inJob.finish(AsyncJob.Status.CANCELLED);
+            recordDuration(inJob);
+            return;
+        }
+        inJob.mStartedAt = new Date();
+        inJob.mStatus = AsyncJob.Status.RUNNING;
+        Timer.builder("jobs.queue.time")
+            .description("Time asynchronous jobs waited before running")
+            .tag("operation", inJob.getOperation())
+            .register(mMeterRegistry)
+            .record(Duration.ofMillis(inJob.getStartedAt().getTime() - inJob.getSubmittedAt().getTime()));
+
+        try {
+            inJob.mResult = mTransactionTemplate.execute(inStatus -> {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(final boolean inReadOnly) {
+                        if (inJob.mCancelRequested) {
+                            throw new CancellationException("Job " + inJob.getId() + " cancelled");
+                        }
+                    }
+                });
+                return inWork.get();
+            });
+            inJob.finish(AsyncJob.Status.COMPLETED);
+        } catch (final RuntimeException theException) {
+            if (inJob.mCancelRequested) {
+                log.info("Job {} cancelled", inJob.getId());
+                inJob.finish(AsyncJob.Status.CANCELLED);
+            } else {
+                log.error("Job {} running operation {} failed", inJob.getId(), inJob.getOperation(), theException);
+                inJob.mFailureMessage = theException.getMessage();
+                inJob.finish(AsyncJob.Status.FAILED);
+            }
+        }
+        recordDuration(inJob);
+    }
+
+    /**
+     * Records the duration of the supplied finished job, from submission to completion.
+     *
+     * @param inJob Finished job.
+     */
+    protected void recordDuration(final AsyncJob inJob) {
+        Timer.builder("jobs.duration")
+            .description("Time from submission to completion of asynchronous jobs")
+            .tag("operation", inJob.getOperation())
+            .tag("status", inJob.getStatus().name())
+            .register(mMeterRegistry)
+            .record(Duration.ofMillis(inJob.getCompletedAt().getTime() - inJob.getSubmittedAt().getTime()));
+    }
+}
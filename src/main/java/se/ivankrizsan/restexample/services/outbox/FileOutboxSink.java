@@ -0,0 +1,55 @@
+package se.ivankrizsan.restexample.services.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import se.ivankrizsan.restexample.domain.OutboxMessage;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outbox sink that appends delivered messages to a local file, one JSON object per line.
+ *
+ * @author Ivan Krizsan
+ */
+public class FileOutboxSink implements OutboxSink {
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    protected final Path mFilePath;
+    protected final ObjectMapper mObjectMapper;
+
+    /**
+     * Creates a sink appending messages to the file at the supplied path.
+     *
+     * @param inFilePath Path of file to append messages to.
+     * @param inObjectMapper Object mapper used to create JSON representation of messages.
+     */
+    public FileOutboxSink(final Path inFilePath, final ObjectMapper inObjectMapper) {
+        mFilePath = inFilePath;
+        mObjectMapper = inObjectMapper;
+    }
+
+    @Override
+    public synchronized void deliver(final List<OutboxMessage> inMessages) throws IOException {
+        try (Writer theWriter = Files.newBufferedWriter(mFilePath, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (final OutboxMessage theMessage : inMessages) {
+                final Map<String, Object> theRepresentation = new LinkedHashMap<>();
+                theRepresentation.put("id", theMessage.getId());
+                theRepresentation.put("type", theMessage.getEntityType());
+                theRepresentation.put("entityId", theMessage.getEntityId());
+                theRepresentation.put("op", theMessage.getOperation());
+                theRepresentation.put("createdAt", theMessage.getCreatedAt());
+                theWriter.write(mObjectMapper.writeValueAsString(theRepresentation));
+                theWriter.write('\n');
+            }
+        }
+    }
+}
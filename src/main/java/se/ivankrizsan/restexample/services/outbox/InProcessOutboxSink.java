@@ -0,0 +1,50 @@
+package se.ivankrizsan.restexample.services.outbox;
+
+import se.ivankrizsan.restexample.domain.OutboxMessage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Outbox sink that keeps the most recently delivered messages in memory.
+ * Intended for tests and for consumers within the application.
+ *
+ * @author Ivan Krizsan
+ */
+public class InProcessOutboxSink implements OutboxSink {
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    protected final int mCapacity;
+    protected final Deque<OutboxMessage> mDeliveredMessages = new ArrayDeque<>();
+
+    /**
+     * Creates an in-process sink keeping at most the supplied number of messages.
+     *
+     * @param inCapacity Maximum number of delivered messages to keep.
+     */
+    public InProcessOutboxSink(final int inCapacity) {
+        mCapacity = inCapacity;
+    }
+
+    @Override
+    public synchronized void deliver(final List<OutboxMessage> inMessages) {
+        for (final OutboxMessage theMessage : inMessages) {
+            if (mDeliveredMessages.size() == mCapacity) {
+                mDeliveredMessages.removeFirst();
+            }
+            mDeliveredMessages.addLast(theMessage);
+        }
+    }
+
+    /**
+     * Retrieves the most recently delivered messages.
+     *
+     * @return Delivered messages, oldest message first.
+     */
+    public synchronized List<OutboxMessage> getDeliveredMessages() {
+        return new ArrayList<>(mDeliveredMessages);
+    }
+}
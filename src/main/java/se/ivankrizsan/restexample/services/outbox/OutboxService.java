@@ -0,0 +1,148 @@
+package se.ivankrizsan.restexample.services.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import se.ivankrizsan.restexample.domain.OutboxMessage;
+import se.ivankrizsan.restexample.repositories.OutboxMessageRepository;
+import se.ivankrizsan.restexample.services.EntityChangeEvent;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service implementing a transactional outbox.
+ * Entity changes are recorded as outbox messages in the same transaction as the change.
+ * Recorded messages are periodically claimed in batches, delivered to the outbox sink and
+ * then deleted in bulk.
+ * Lag, being the age of the oldest message in the outbox, the number of pending messages
+ * and the number of delivered messages are exposed as metrics.
+ *
+ * @author Ivan Krizsan
+ */
+@Slf4j
+@Service
+public class OutboxService {
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    protected final OutboxMessageRepository mRepository;
+    protected final OutboxSink mSink;
+    protected final int mBatchSize;
+    protected final int mMaxBatchesPerPoll;
+    protected final long mClaimTimeout;
+    protected final AtomicLong mLagMillis = new AtomicLong();
+    protected final AtomicLong mPendingMessagesCount = new AtomicLong();
+    protected final Counter mDeliveredCounter;
+    protected final Timer mDeliveryTimer;
+
+    /**
+     * Creates an outbox service.
+     *
+     * @param inRepository Outbox message repository.
+     * @param inSink Sink to deliver messages to.
+     * @param inBatchSize Maximum number of messages claimed and delivered at a time.
+     * @param inMaxBatchesPerPoll Maximum number of batches delivered each time the outbox is polled.
+     * @param inClaimTimeout Milliseconds after which a claimed message not delivered may be claimed again.
+     * @param inMeterRegistry Registry in which to register outbox metrics.
+     */
+    public OutboxService(final OutboxMessageRepository inRepository, final OutboxSink inSink,
+        @Value("${restexample.outbox.batch-size:500}") final int inBatchSize,
+        @Value("${restexample.outbox.max-batches-per-poll:20}") final int inMaxBatchesPerPoll,
+        @Value("${restexample.outbox.claim-timeout:60000}") final long inClaimTimeout,
+        final MeterRegistry inMeterRegistry) {
+        mRepository = inRepository;
+        mSink = inSink;
+        mBatchSize = inBatchSize;
+        mMaxBatchesPerPoll = inMaxBatchesPerPoll;
+        mClaimTimeout = inClaimTimeout;
+
+        Gauge.builder("outbox.lag", mLagMillis, inLagMillis -> inLagMillis.get() / 1000.0)
+            .description("Age of the oldest message in the outbox")
+            .baseUnit("seconds")
+            .register(inMeterRegistry);
+        Gauge.builder("outbox.pending", mPendingMessagesCount, AtomicLong::get)
+            .description("Number of messages in the outbox")
+            .register(inMeterRegistry);
+        mDeliveredCounter = Counter.builder("outbox.delivered")
+            .description("Number of outbox messages delivered")
+            .register(inMeterRegistry);
+        mDeliveryTimer = Timer.builder("outbox.delivery.time")
+            .description("Time spent delivering batches of outbox messages to the sink")
+            .register(inMeterRegistry);
+    }
+
+    /**
+     * Records the supplied entity change as an outbox message.
+     * Invoked synchronously when the change is published and thus the message is
+     * written in the same transaction as the change.
+     *
+     * @param inEntityChangeEvent Entity change event.
+     */
+    @EventListener
+    public void recordChange(final EntityChangeEvent inEntityChangeEvent) {
+        mRepository.save(new OutboxMessage(inEntityChangeEvent.getEntityType(),
+            inEntityChangeEvent.getEntityId(), inEntityChangeEvent.getOperation().name()));
+    }
+
+    /**
+     * Delivers messages in the outbox in batches until there are no more messages
+     * or the maximum number of batches per poll has been delivered.
+     */
+    @Scheduled(fixedDelayString = "${restexample.outbox.poll-interval:1000}")
+    public void deliverPendingMessages() {
+        for (int theBatch = 0; theBatch < mMaxBatchesPerPoll; theBatch++) {
+            if (deliverBatch() < mBatchSize) {
+                break;
+            }
+        }
+
+        final Date theOldestCreatedAt = mRepository.findOldestCreatedAt();
+        mLagMillis.set((theOldestCreatedAt != null) ? System.currentTimeMillis() - theOldestCreatedAt.getTime() : 0);
+        mPendingMessagesCount.set(mRepository.count());
+    }
+
+    /**
+     * Claims, delivers and deletes one batch of messages.
+     *
+     * @return Number of claimable messages found, zero if none found or delivery failed.
+     */
+    protected int deliverBatch() {
+        final Date theNow = new Date();
+        final Date theClaimExpiry = new Date(theNow.getTime() - mClaimTimeout);
+        final List<Long> theClaimableIds =
+            mRepository.findClaimableIds(theClaimExpiry, PageRequest.of(0, mBatchSize));
+        if (theClaimableIds.isEmpty()) {
+            return 0;
+        }
+
+        /* Messages claimed concurrently by another dispatcher will not be updated. */
+        final String theClaimToken = UUID.randomUUID().toString();
+        mRepository.claim(theClaimableIds, theClaimToken, theNow, theClaimExpiry);
+        final List<OutboxMessage> theClaimedMessages = mRepository.findClaimed(theClaimToken);
+        if (!theClaimedMessages.isEmpty()) {
+            try {
+                mDeliveryTimer.recordCallable(() -> {
+                    mSink.deliver(theClaimedMessages);
+                    return null;
+                });
+            } catch (final Exception theException) {
+                log.warn("Failed to deliver {} outbox messages, will retry after claim expires",
+                    theClaimedMessages.size(), theException);
+                return 0;
+            }
+            mRepository.deleteClaimed(theClaimToken);
+            mDeliveredCounter.increment(theClaimedMessages.size());
+        }
+        return theClaimableIds.size();
+    }
+}
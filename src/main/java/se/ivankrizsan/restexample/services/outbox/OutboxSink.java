@@ -0,0 +1,22 @@
+package se.ivankrizsan.restexample.services.outbox;
+
+import se.ivankrizsan.restexample.domain.OutboxMessage;
+
+import java.util.List;
+
+/**
+ * Destination to which the outbox dispatcher delivers outbox messages.
+ *
+ * @author Ivan Krizsan
+ */
+public interface OutboxSink {
+    /**
+     * Delivers the supplied messages.
+     * Messages are only deleted from the outbox if this method returns normally,
+     * thus a message may be delivered more than once.
+     *
+     * @param inMessages Messages to deliver, oldest message first.
+     * @throws Exception If error occurs delivering the messages.
+     */
+    void deliver(List<OutboxMessage> inMessages) throws Exception;
+}
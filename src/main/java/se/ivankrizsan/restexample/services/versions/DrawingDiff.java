@@ -0,0 +1,125 @@
+package se.ivankrizsan.restexample.services.versions;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Differences between a drawing and another drawing or a version of the drawing, consisting of
+ * the ids of the shapes added, removed and modified.
+ * The differences are found by joining the content hashes of the shapes of the two drawings on
+ * shape identity, so that unchanged shapes are skipped without loading them.
+ * When comparing versions of the same drawing, shapes are identified by their ids and a shape
+ * with the same id but a different content hash is modified.
+ * Shapes of different drawings have different ids, so when comparing different drawings shapes
+ * are identified by their content hashes. A shape is then either unchanged, added or removed.
+ *
+ * @author Ivan Krizsan
+ */
+@Getter
+@Accessors(prefix = "m")
+public class DrawingDiff {
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    protected final Long mDrawingId;
+    protected final Long mAgainstDrawingId;
+    /** Version of the drawing compared against, null if the current state is compared against. */
+    protected final Long mAgainstVersion;
+    /** Ids of shapes of the drawing that are not in the drawing compared against, in id order. */
+    protected final List<Long> mAddedShapeIds = new ArrayList<>();
+    /** Ids of shapes of the drawing compared against that are not in the drawing, in id order. */
+    protected final List<Long> mRemovedShapeIds = new ArrayList<>();
+    /** Ids of shapes which content differs between the drawings, in id order. */
+    protected final List<Long> mModifiedShapeIds = new ArrayList<>();
+
+    /**
+     * Creates an empty drawing diff.
+     *
+     * @param inDrawingId Id of drawing.
+     * @param inAgainstDrawingId Id of drawing compared against.
+     * @param inAgainstVersion Version of drawing compared against, null for the current state.
+     */
+    protected DrawingDiff(final Long inDrawingId, final Long inAgainstDrawingId, final Long inAgainstVersion) {
+        mDrawingId = inDrawingId;
+        mAgainstDrawingId = inAgainstDrawingId;
+        mAgainstVersion = inAgainstVersion;
+    }
+
+    /**
+     * Finds the differences between the current state of a drawing and another drawing or
+     * a version of the drawing by a hash join on the supplied content hashes.
+     * The content hashes of the drawing compared against are the build side of the join.
+     *
+     * @param inDrawingId Id of drawing.
+     * @param inShapeHashes Content hashes of the shapes of the drawing keyed by shape id.
+     * @param inAgainstDrawingId Id of drawing compared against.
+     * @param inAgainstVersion Version of drawing compared against, null for the current state.
+     * @param inAgainstShapeHashes Content hashes of the shapes of the drawing compared against
+     * keyed by shape id.
+     * @return Drawing diff.
+     */
+    public static DrawingDiff join(final Long inDrawingId, final Map<Long, Long> inShapeHashes,
+        final Long inAgainstDrawingId, final Long inAgainstVersion, final Map<Long, Long> inAgainstShapeHashes) {
+        final DrawingDiff theDiff = new DrawingDiff(inDrawingId, inAgainstDrawingId, inAgainstVersion);
+        if (inDrawingId.equals(inAgainstDrawingId)) {
+            theDiff.joinOnShapeIds(inShapeHashes, inAgainstShapeHashes);
+        } else {
+            theDiff.joinOnContentHashes(inShapeHashes, inAgainstShapeHashes);
+        }
+        Collections.sort(theDiff.mAddedShapeIds);
+        Collections.sort(theDiff.mRemovedShapeIds);
+        Collections.sort(theDiff.mModifiedShapeIds);
+        return theDiff;
+    }
+
+    /**
+     * Joins the supplied content hashes of versions of the same drawing on shape id.
+     *
+     * @param inShapeHashes Content hashes of the shapes of the drawing keyed by shape id.
+     * @param inAgainstShapeHashes Content hashes of the shapes of the version compared against
+     * keyed by shape id.
+     */
+    protected void joinOnShapeIds(final Map<Long, Long> inShapeHashes, final Map<Long, Long> inAgainstShapeHashes) {
+        final Map<Long, Long> theUnmatchedShapeHashes = new HashMap<>(inAgainstShapeHashes);
+        inShapeHashes.forEach((inShapeId, inContentHash) -> {
+            if (!theUnmatchedShapeHashes.containsKey(inShapeId)) {
+                mAddedShapeIds.add(inShapeId);
+            } else if (!Objects.equals(inContentHash, theUnmatchedShapeHashes.remove(inShapeId))) {
+                mModifiedShapeIds.add(inShapeId);
+            }
+        });
+        mRemovedShapeIds.addAll(theUnmatchedShapeHashes.keySet());
+    }
+
+    /**
+     * Joins the supplied content hashes of different drawings on content hash.
+     * Each shape of the drawing is matched with at most one shape of the drawing compared against,
+     * so that duplicated shapes are counted.
+     *
+     * @param inShapeHashes Content hashes of the shapes of the drawing keyed by shape id.
+     * @param inAgainstShapeHashes Content hashes of the shapes of the drawing compared against
+     * keyed by shape id.
+     */
+    protected void joinOnContentHashes(final Map<Long, Long> inShapeHashes,
+        final Map<Long, Long> inAgainstShapeHashes) {
+        final Map<Long, Deque<Long>> theUnmatchedShapeIds = new HashMap<>();
+        inAgainstShapeHashes.forEach((inShapeId, inContentHash) ->
+            theUnmatchedShapeIds.computeIfAbsent(inContentHash, inKey -> new ArrayDeque<>()).add(inShapeId));
+        inShapeHashes.forEach((inShapeId, inContentHash) -> {
+            final Deque<Long> theCandidates = theUnmatchedShapeIds.get(inContentHash);
+            if (theCandidates == null || theCandidates.poll() == null) {
+                mAddedShapeIds.add(inShapeId);
+            }
+        });
+        theUnmatchedShapeIds.values().forEach(mRemovedShapeIds::addAll);
+    }
+}
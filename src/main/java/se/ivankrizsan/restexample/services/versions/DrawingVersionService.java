@@ -0,0 +1,546 @@
+package se.ivankrizsan.restexample.services.versions;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.ivankrizsan.restexample.domain.Drawing;
+import se.ivankrizsan.restexample.domain.DrawingVersion;
+import se.ivankrizsan.restexample.domain.DrawingVersionShape;
+import se.ivankrizsan.restexample.domain.Shape;
+import se.ivankrizsan.restexample.repositories.DrawingRepository;
+import se.ivankrizsan.restexample.repositories.DrawingVersionRepository;
+import se.ivankrizsan.restexample.repositories.DrawingVersionShapeRepository;
+import se.ivankrizsan.restexample.sharding.ShardManager;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service recording the version history of drawings.
+ * Each change of a drawing made through the drawing service creates a new version of the drawing,
+ * in which only the shapes added, modified or removed by the change are stored. The shapes not
+ * changed are shared with the previous version.
+ * Versions are recorded copy-on-write: a drawing that has never been changed has no recorded
+ * versions and is in its first version. Before the first change of a drawing, a snapshot of
+ * the drawing is recorded as the first version.
+ * The shapes of a version are reconstructed from the nearest snapshot at or before the version
+ * and the changes of the following versions. To bound the number of changes applied when
+ * reconstructing a version, versions are periodically compacted by recording a snapshot of the
+ * latest version of drawings which latest snapshot is at least the snapshot interval versions old.
+ * Compaction also purges the versions of deleted drawings.
+ * The number of stored shape states, the number of shapes in the latest versions of versioned
+ * drawings and the ratio between them, the storage amplification, are exposed as metrics
+ * updated when compacting.
+ * The content hash of each stored shape state is stored with it, so that versions can be compared
+ * without reconstructing the shapes, see {@link #findShapeContentHashes(Long, Long)}.
+ * Versions of a drawing are stored in the shard of the drawing.
+ *
+ * @author Ivan Krizsan
+ */
+@Slf4j
+@Service
+@Transactional
+public class DrawingVersionService {
+    /* Constant(s): */
+    protected static final String KIND_TAG = "kind";
+
+    /* Instance variable(s): */
+    protected final DrawingVersionRepository mVersionRepository;
+    protected final DrawingVersionShapeRepository mVersionShapeRepository;
+    protected final DrawingRepository mDrawingRepository;
+    protected final EntityManager mEntityManager;
+    protected final ObjectMapper mObjectMapper;
+    protected final TransactionTemplate mTransactionTemplate;
+    protected final int mSnapshotInterval;
+    protected final AtomicLong mStoredShapeCount = new AtomicLong();
+    protected final AtomicLong mVersionedShapeCount = new AtomicLong();
+    protected final Counter mDeltaShapesCounter;
+    protected final Counter mSnapshotShapesCounter;
+    protected final Timer mReconstructionTimer;
+    protected ShardManager mShardManager;
+
+    /**
+     * Creates a drawing version service.
+     *
+     * @param inVersionRepository Repository holding versions of drawings.
+     * @param inVersionShapeRepository Repository holding states of shapes in versions of drawings.
+     * @param inDrawingRepository Drawing repository.
+     * @param inEntityManager Shared entity manager.
+     * @param inObjectMapper Object mapper used to store and reconstruct shapes.
+     * @param inTransactionManager Transaction manager used to compact versions.
+     * @param inSnapshotInterval Number of versions after which a snapshot is recorded when compacting.
+     * @param inMeterRegistry Registry in which to register version history metrics.
+     */
+    public DrawingVersionService(final DrawingVersionRepository inVersionRepository,
+        final DrawingVersionShapeRepository inVersionShapeRepository, final DrawingRepository inDrawingRepository,
+        final EntityManager inEntityManager, final ObjectMapper inObjectMapper,
+        final PlatformTransactionManager inTransactionManager,
+        @Value("${restexample.drawings.versions.snapshot-interval:10}") final int inSnapshotInterval,
+        final MeterRegistry inMeterRegistry) {
+        mVersionRepository = inVersionRepository;
+        mVersionShapeRepository = inVersionShapeRepository;
+        mDrawingRepository = inDrawingRepository;
+        mEntityManager = inEntityManager;
+        mObjectMapper = inObjectMapper;
+        mTransactionTemplate = new TransactionTemplate(inTransactionManager);
+        mSnapshotInterval = inSnapshotInterval;
+
+        Gauge.builder("drawings.versions.shapes.stored", mStoredShapeCount, AtomicLong::get)
+            .description("Number of stored states of shapes in versions of drawings")
+            .register(inMeterRegistry);
+        Gauge.builder("drawings.versions.shapes.live", mVersionedShapeCount, AtomicLong::get)
+            .description("Number of shapes in the latest versions of drawings with recorded versions")
+            .register(inMeterRegistry);
+        Gauge.builder("drawings.versions.storage.amplification", this, DrawingVersionService::storageAmplification)
+            .description("Stored states of shapes per shape in the latest versions of versioned drawings")
+            .register(inMeterRegistry);
+        mDeltaShapesCounter = Counter.builder("drawings.versions.shapes.written")
+            .description("Number of states of shapes written to versions of drawings")
+            .tag(KIND_TAG, "delta")
+            .register(inMeterRegistry);
+        mSnapshotShapesCounter = Counter.builder("drawings.versions.shapes.written")
+            .description("Number of states of shapes written to versions of drawings")
+            .tag(KIND_TAG, "snapshot")
+            .register(inMeterRegistry);
+        mReconstructionTimer = Timer.builder("drawings.versions.reconstruction")
+            .description("Time spent reconstructing versions of drawings")
+            .register(inMeterRegistry);
+    }
+
+    /**
+     * Prepares for a change of the drawing with supplied id by recording a snapshot of the
+     * drawing as its first version, if no versions of the drawing have been recorded.
+     * Must be invoked before the drawing is changed, in the transaction in which it is changed.
+     *
+     * @param inDrawingId Id of drawing to be changed.
+     */
+    public void prepareChange(final Long inDrawingId) {
+        if (mVersionRepository.findLatestVersion(inDrawingId).isPresent()) {
+            return;
+        }
+        final Drawing theDrawing = mEntityManager.find(Drawing.class, inDrawingId);
+        if (theDrawing != null) {
+            final Map<Long, ShapeState> theShapeContents = new LinkedHashMap<>();
+            theDrawing.getShapes().forEach(inShape -> theShapeContents.put(inShape.getId(), shapeState(inShape)));
+            final DrawingVersion theFirstVersion = new DrawingVersion(inDrawingId, 1, theDrawing.getName(),
+                theDrawing.getCreationDate(), theShapeContents.size());
+            theFirstVersion.setSnapshot(true);
+            mVersionRepository.save(theFirstVersion);
+            writeShapes(inDrawingId, 1, true, theShapeContents);
+            /* The drawing is changed by the caller, possibly without loading it. */
+            mEntityManager.detach(theDrawing);
+        }
+    }
+
+    /**
+     * Records a new version of the drawing with supplied id after the supplied shapes have been
+     * changed. {@link #prepareChange(Long)} must have been invoked before the change.
+     *
+     * @param inDrawingId Id of changed drawing.
+     * @param inName New name of drawing, or null if not changed.
+     * @param inChangedShapes Changed shapes keyed by shape id, in order of change. A null shape
+     * signals that the shape with the id was removed.
+     * @return Number of new version.
+     * @throws IllegalStateException If no previous version of the drawing has been recorded.
+     */
+    public long recordChange(final Long inDrawingId, final String inName, final Map<Long, Shape> inChangedShapes) {
+        final DrawingVersion thePreviousVersion = mVersionRepository
+            .findLatestVersion(inDrawingId)
+            .orElseThrow(() -> new IllegalStateException("No version of drawing with id " + inDrawingId));
+        final Map<Long, ShapeState> theShapeContents = new LinkedHashMap<>();
+        inChangedShapes.forEach((inShapeId, inShape) ->
+            theShapeContents.put(inShapeId, (inShape != null) ? shapeState(inShape) : null));
+        return recordVersion(thePreviousVersion, (inName != null) ? inName : thePreviousVersion.getName(),
+            thePreviousVersion.getCreationDate(), theShapeContents);
+    }
+
+    /**
+     * Records a new version of the supplied drawing after it has been replaced in full.
+     * Only the shapes that differ from the previous version are stored.
+     * {@link #prepareChange(Long)} must have been invoked before the change.
+     *
+     * @param inDrawing Drawing with ids assigned to all its shapes.
+     * @return Number of new version.
+     */
+    public long recordState(final Drawing inDrawing) {
+        final Optional<DrawingVersion> thePreviousVersion = mVersionRepository.findLatestVersion(inDrawing.getId());
+        final Map<Long, ShapeState> theShapeContents = new LinkedHashMap<>();
+        inDrawing.getShapes().forEach(inShape -> theShapeContents.put(inShape.getId(), shapeState(inShape)));
+        if (thePreviousVersion.isEmpty()) {
+            final DrawingVersion theFirstVersion = new DrawingVersion(inDrawing.getId(), 1, inDrawing.getName(),
+                inDrawing.getCreationDate(), theShapeContents.size());
+            theFirstVersion.setSnapshot(true);
+            mVersionRepository.save(theFirstVersion);
+            writeShapes(inDrawing.getId(), 1, true, theShapeContents);
+            return 1;
+        }
+
+        final Map<Long, ShapeState> thePreviousContents =
+            reconstructShapeContents(inDrawing.getId(), thePreviousVersion.get().getVersion());
+        final Map<Long, ShapeState> theChangedContents = new LinkedHashMap<>();
+        theShapeContents.forEach((inShapeId, inShapeState) -> {
+            if (!inShapeState.equals(thePreviousContents.remove(inShapeId))) {
+                theChangedContents.put(inShapeId, inShapeState);
+            }
+        });
+        thePreviousContents.keySet().forEach(inRemovedShapeId -> theChangedContents.put(inRemovedShapeId, null));
+        return recordVersion(thePreviousVersion.get(), inDrawing.getName(), inDrawing.getCreationDate(),
+            theChangedContents);
+    }
+
+    /**
+     * Reconstructs the supplied version of the drawing with supplied id.
+     * A drawing without recorded versions is reconstructed in its first version only.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inVersion Version number.
+     * @return Drawing as it was in the version, or empty if there is no such drawing or version.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Drawing> findVersion(final Long inDrawingId, final long inVersion) {
+        if (!mDrawingRepository.existsById(inDrawingId)) {
+            return Optional.empty();
+        }
+        final Optional<DrawingVersion> theVersion = mVersionRepository.findVersion(inDrawingId, inVersion);
+        if (theVersion.isEmpty()) {
+            return isCurrentState(inDrawingId, inVersion) ? mDrawingRepository.findById(inDrawingId) : Optional.empty();
+        }
+        return Optional.of(mReconstructionTimer.record(() -> reconstructDrawing(theVersion.get())));
+    }
+
+    /**
+     * Finds the recorded versions of the drawing with supplied id.
+     *
+     * @param inDrawingId Drawing id.
+     * @return Versions in version order, empty if the drawing has not been changed.
+     */
+    @Transactional(readOnly = true)
+    public List<DrawingVersion> findVersions(final Long inDrawingId) {
+        return mVersionRepository.findVersions(inDrawingId);
+    }
+
+    /**
+     * Finds the content hashes of the shapes of the drawing with supplied id in the supplied version
+     * without loading or reconstructing the shapes.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inVersion Version number, or null for the current state of the drawing.
+     * @return Content hashes keyed by shape id, or empty if there is no such drawing or version.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<Long, Long>> findShapeContentHashes(final Long inDrawingId, final Long inVersion) {
+        if (!mDrawingRepository.existsById(inDrawingId)) {
+            return Optional.empty();
+        }
+        if (isCurrentState(inDrawingId, inVersion)) {
+            final Map<Long, Long> theContentHashes = new HashMap<>();
+            mDrawingRepository
+                .findShapeContentHashes(inDrawingId)
+                .forEach(inEntry -> theContentHashes.put((Long) inEntry[0], (Long) inEntry[1]));
+            return Optional.of(theContentHashes);
+        }
+        if (mVersionRepository.findVersion(inDrawingId, inVersion).isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(applyEntries(mVersionShapeRepository.findReconstructionHashes(
+            inDrawingId, findSnapshotVersion(inDrawingId, inVersion), inVersion)));
+    }
+
+    /**
+     * Finds the shapes with supplied ids of the drawing with supplied id in the supplied version.
+     * Only the shapes with the supplied ids are loaded or reconstructed.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inVersion Version number, or null for the current state of the drawing.
+     * @param inShapeIds Ids of shapes to find.
+     * @return Shapes keyed by shape id. Shapes that are not in the version are not found.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Shape> findShapes(final Long inDrawingId, final Long inVersion,
+        final Collection<Long> inShapeIds) {
+        final Map<Long, Shape> theShapes = new HashMap<>();
+        if (isCurrentState(inDrawingId, inVersion)) {
+            mDrawingRepository
+                .findShapesOfDrawing(inDrawingId, inShapeIds)
+                .forEach(inShape -> theShapes.put(inShape.getId(), inShape));
+        } else {
+            final Map<Long, String> theShapeContents = applyEntries(mVersionShapeRepository
+                .findReconstructionEntriesOfShapes(inDrawingId, findSnapshotVersion(inDrawingId, inVersion),
+                    inVersion, inShapeIds));
+            theShapeContents.forEach((inShapeId, inContent) -> theShapes.put(inShapeId, fromJson(inContent)));
+        }
+        return theShapes;
+    }
+
+    /**
+     * Records snapshots of the latest versions of drawings which latest snapshot is at least
+     * the snapshot interval versions old, purges versions of deleted drawings and updates
+     * the version history metrics.
+     */
+    @Scheduled(fixedDelayString = "${restexample.drawings.versions.compaction-interval:60000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void compactVersions() {
+        final List<long[]> theShardResults = (mShardManager == null)
+            ? Collections.singletonList(mTransactionTemplate.<long[]>execute(inStatus -> compactVersionsInShard()))
+            : mShardManager.scatter(false, this::compactVersionsInShard);
+        long theSnapshotCount = 0;
+        long theStoredShapeCount = 0;
+        long theVersionedShapeCount = 0;
+        for (final long[] theShardResult : theShardResults) {
+            theSnapshotCount += theShardResult[0];
+            theStoredShapeCount += theShardResult[1];
+            theVersionedShapeCount += theShardResult[2];
+        }
+        mStoredShapeCount.set(theStoredShapeCount);
+        mVersionedShapeCount.set(theVersionedShapeCount);
+        if (theSnapshotCount > 0) {
+            log.info("Recorded snapshots of {} drawing versions", theSnapshotCount);
+        }
+    }
+
+    /**
+     * Compacts the versions of the drawings in the current shard, see {@link #compactVersions()}.
+     *
+     * @return Number of snapshots recorded, number of stored shape states and number of shapes
+     * in the latest versions of versioned drawings.
+     */
+    protected long[] compactVersionsInShard() {
+        /* Deleting nothing makes the database log a no data warning, thus only delete if there is something to. */
+        if (mVersionShapeRepository.existsEntriesOfDeletedDrawings()) {
+            mVersionShapeRepository.deleteEntriesOfDeletedDrawings();
+        }
+        if (mVersionRepository.existsVersionsOfDeletedDrawings()) {
+            mVersionRepository.deleteVersionsOfDeletedDrawings();
+        }
+
+        final List<DrawingVersion> theVersions = mVersionRepository.findVersionsInNeedOfSnapshot(mSnapshotInterval);
+        for (final DrawingVersion theVersion : theVersions) {
+            writeShapes(theVersion.getDrawingId(), theVersion.getVersion(), true,
+                reconstructShapeContents(theVersion.getDrawingId(), theVersion.getVersion()));
+            theVersion.setSnapshot(true);
+            mVersionRepository.save(theVersion);
+        }
+        return new long[] { theVersions.size(), mVersionShapeRepository.count(),
+            mVersionRepository.countShapesOfVersionedDrawings() };
+    }
+
+    /**
+     * Records a version following the supplied version.
+     *
+     * @param inPreviousVersion Previous version of drawing.
+     * @param inName Name of drawing in new version.
+     * @param inCreationDate Creation date of drawing in new version.
+     * @param inChangedContents States of changed shapes keyed by shape id, null for removed shapes.
+     * @return Number of new version.
+     */
+    protected long recordVersion(final DrawingVersion inPreviousVersion, final String inName,
+        final Date inCreationDate, final Map<Long, ShapeState> inChangedContents) {
+        final long theVersionNumber = inPreviousVersion.getVersion() + 1;
+        mVersionRepository.save(new DrawingVersion(inPreviousVersion.getDrawingId(), theVersionNumber, inName,
+            inCreationDate, inChangedContents.size()));
+        writeShapes(inPreviousVersion.getDrawingId(), theVersionNumber, false, inChangedContents);
+        return theVersionNumber;
+    }
+
+    /**
+     * Reconstructs the drawing in the supplied version.
+     *
+     * @param inVersion Version of drawing.
+     * @return Drawing as it was in the version. Not managed.
+     */
+    protected Drawing reconstructDrawing(final DrawingVersion inVersion) {
+        final Drawing theDrawing = new Drawing();
+        theDrawing.setId(inVersion.getDrawingId());
+        theDrawing.setName(inVersion.getName());
+        theDrawing.setCreationDate(inVersion.getCreationDate());
+        reconstructShapeContents(inVersion.getDrawingId(), inVersion.getVersion())
+            .values()
+            .forEach(inShapeState -> theDrawing.addShape(fromJson(inShapeState.content())));
+        return theDrawing;
+    }
+
+    /**
+     * Reconstructs the states of the shapes in the supplied version of the drawing with supplied id
+     * from the nearest snapshot and the changes recorded after the snapshot.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inVersion Version number.
+     * @return States of shapes keyed by shape id.
+     * @throws IllegalStateException If there is no snapshot at or before the version.
+     */
+    protected Map<Long, ShapeState> reconstructShapeContents(final Long inDrawingId, final long inVersion) {
+        final Map<Long, ShapeState> theShapeStates = new HashMap<>();
+        for (final Object[] theEntry : mVersionShapeRepository.findReconstructionEntries(inDrawingId,
+            findSnapshotVersion(inDrawingId, inVersion), inVersion)) {
+            final Long theShapeId = (Long) theEntry[0];
+            final String theContent = (String) theEntry[1];
+            if (theContent != null) {
+                theShapeStates.put(theShapeId, new ShapeState(theContent, (Long) theEntry[2]));
+            } else {
+                theShapeStates.remove(theShapeId);
+            }
+        }
+        return theShapeStates;
+    }
+
+    /**
+     * Applies the supplied entries, in order, to a map keyed by shape id.
+     * An entry with a null value removes the shape from the map.
+     *
+     * @param inEntries Arrays containing shape id and value.
+     * @param <T> Type of values.
+     * @return Values keyed by shape id.
+     */
+    @SuppressWarnings("unchecked")
+    protected static <T> Map<Long, T> applyEntries(final List<Object[]> inEntries) {
+        final Map<Long, T> theValues = new HashMap<>();
+        for (final Object[] theEntry : inEntries) {
+            final Long theShapeId = (Long) theEntry[0];
+            if (theEntry[1] != null) {
+                theValues.put(theShapeId, (T) theEntry[1]);
+            } else {
+                theValues.remove(theShapeId);
+            }
+        }
+        return theValues;
+    }
+
+    /**
+     * Finds the number of the nearest snapshot version at or before the supplied version of
+     * the drawing with supplied id.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inVersion Version number.
+     * @return Number of snapshot version.
+     * @throws IllegalStateException If there is no snapshot at or before the version.
+     */
+    protected long findSnapshotVersion(final Long inDrawingId, final long inVersion) {
+        final Long theSnapshotVersion = mVersionRepository.findSnapshotVersion(inDrawingId, inVersion);
+        if (theSnapshotVersion == null) {
+            throw new IllegalStateException("No snapshot of drawing with id " + inDrawingId
+                + " at or before version " + inVersion);
+        }
+        return theSnapshotVersion;
+    }
+
+    /**
+     * Determines whether the supplied version of the drawing with supplied id is the current state
+     * of the drawing, which is the case for the first version of a drawing without recorded versions.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inVersion Version number, or null for the current state of the drawing.
+     * @return True if the version is the current state of the drawing, false otherwise.
+     */
+    protected boolean isCurrentState(final Long inDrawingId, final Long inVersion) {
+        return inVersion == null || (inVersion == 1 && mVersionRepository.findLatestVersion(inDrawingId).isEmpty());
+    }
+
+    /**
+     * Writes the supplied states of shapes to a version of a drawing.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inVersion Version number.
+     * @param inSnapshotFlag True if the states are a snapshot, false if they are changes.
+     * @param inShapeContents States of shapes keyed by shape id, null for removed shapes.
+     */
+    protected void writeShapes(final Long inDrawingId, final long inVersion, final boolean inSnapshotFlag,
+        final Map<Long, ShapeState> inShapeContents) {
+        final Collection<DrawingVersionShape> theVersionShapes = new ArrayList<>(inShapeContents.size());
+        inShapeContents.forEach((inShapeId, inShapeState) -> theVersionShapes.add(
+            new DrawingVersionShape(inDrawingId, inVersion, inShapeId, inSnapshotFlag,
+                (inShapeState != null) ? inShapeState.content() : null,
+                (inShapeState != null) ? inShapeState.contentHash() : null)));
+        mVersionShapeRepository.saveAll(theVersionShapes);
+        (inSnapshotFlag ? mSnapshotShapesCounter : mDeltaShapesCounter).increment(theVersionShapes.size());
+    }
+
+    /**
+     * Creates the state of the supplied shape to be stored in a version.
+     *
+     * @param inShape Shape.
+     * @return JSON representation and content hash of shape.
+     */
+    protected ShapeState shapeState(final Shape inShape) {
+        return new ShapeState(toJson(inShape), inShape.calculateContentHash());
+    }
+
+    /**
+     * Creates the JSON representation of the supplied shape, which includes the shape type.
+     *
+     * @param inShape Shape.
+     * @return JSON representation.
+     */
+    protected String toJson(final Shape inShape) {
+        try {
+            return mObjectMapper.writerFor(Shape.class).writeValueAsString(inShape);
+        } catch (final JsonProcessingException theException) {
+            throw new UncheckedIOException(theException);
+        }
+    }
+
+    /**
+     * Creates a shape from the supplied JSON representation.
+     *
+     * @param inContent JSON representation including shape type.
+     * @return Shape.
+     */
+    protected Shape fromJson(final String inContent) {
+        try {
+            return mObjectMapper.readValue(inContent, Shape.class);
+        } catch (final JsonProcessingException theException) {
+            throw new UncheckedIOException(theException);
+        }
+    }
+
+    /**
+     * Calculates the storage amplification of the version history, being the number of stored
+     * shape states per shape in the latest versions of versioned drawings.
+     *
+     * @return Storage amplification, zero if no drawing has recorded versions.
+     */
+    protected double storageAmplification() {
+        final long theVersionedShapeCount = mVersionedShapeCount.get();
+        return (theVersionedShapeCount > 0) ? (double) mStoredShapeCount.get() / theVersionedShapeCount : 0;
+    }
+
+    /**
+     * Sets the shard manager. Only available if sharding is enabled.
+     *
+     * @param inShardManager Shard manager.
+     */
+    @Autowired(required = false)
+    public void setShardManager(final ShardManager inShardManager) {
+        mShardManager = inShardManager;
+    }
+
+    /**
+     * State of a shape stored in a version of a drawing.
+     *
+     * @param content JSON representation of shape, including the shape type.
+     * @param contentHash Content hash of shape.
+     */
+    protected record ShapeState(String content, Long contentHash) {
+    }
+}
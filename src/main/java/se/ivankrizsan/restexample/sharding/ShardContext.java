@@ -0,0 +1,56 @@
+package se.ivankrizsan.restexample.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the shard that database connections obtained by the current thread are routed to.
+ * Threads that have not selected a shard use shard zero.
+ * Since connections are obtained lazily, the shard must be selected before the first
+ * statement of a transaction is executed and cannot be changed during the transaction.
+ *
+ * @author Ivan Krizsan
+ */
+public final class ShardContext {
+    /* Constant(s): */
+    public static final int DEFAULT_SHARD = 0;
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    /**
+     * Hidden constructor of utility class.
+     */
+    private ShardContext() {
+    }
+
+    /**
+     * Retrieves the shard selected by the current thread.
+     *
+     * @return Shard number.
+     */
+    public static int currentShard() {
+        final Integer theShard = CURRENT_SHARD.get();
+        return (theShard != null) ? theShard : DEFAULT_SHARD;
+    }
+
+    /**
+     * Performs the supplied operation with the supplied shard selected, restoring the
+     * previously selected shard afterwards.
+     *
+     * @param inShard Shard number.
+     * @param inOperation Operation to perform.
+     * @param <T> Type of operation result.
+     * @return Result of operation.
+     */
+    public static <T> T callInShard(final int inShard, final Supplier<T> inOperation) {
+        final Integer thePreviousShard = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(inShard);
+        try {
+            return inOperation.get();
+        } finally {
+            if (thePreviousShard != null) {
+                CURRENT_SHARD.set(thePreviousShard);
+            } else {
+                CURRENT_SHARD.remove();
+            }
+        }
+    }
+}
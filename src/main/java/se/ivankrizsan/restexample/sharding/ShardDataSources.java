@@ -0,0 +1,54 @@
+package se.ivankrizsan.restexample.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Data sources of the shards, in shard number order.
+ * Closes the data sources when closed.
+ *
+ * @param dataSources Shard data sources.
+ * @author Ivan Krizsan
+ */
+@Slf4j
+public record ShardDataSources(List<DataSource> dataSources) implements AutoCloseable {
+    /**
+     * Retrieves the data source of the supplied shard.
+     *
+     * @param inShard Shard number.
+     * @return Shard data source.
+     */
+    public DataSource get(final int inShard) {
+        return dataSources.get(inShard);
+    }
+
+    /**
+     * Retrieves the number of shards.
+     *
+     * @return Number of shards.
+     */
+    public int size() {
+        return dataSources.size();
+    }
+
+    /**
+     * Closes the shard data sources.
+     * A data source failing to close is logged and does not prevent the other data sources
+     * from being closed.
+     */
+    @Override
+    public void close() {
+        for (int theShard = 0; theShard < dataSources.size(); theShard++) {
+            if (dataSources.get(theShard) instanceof HikariDataSource theHikariDataSource) {
+                try {
+                    theHikariDataSource.close();
+                } catch (final RuntimeException theException) {
+                    log.warn("Failed to close data source of shard {}", theShard, theException);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package se.ivankrizsan.restexample.sharding;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Entity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Manages the shards that entities are distributed over.
+ * Ids of entities carry the number of the shard the entity was created in, since the id
+ * sequences of each shard are restarted in a range of ids of its own, see {@link ShardSchemaIntegrator}.
+ * Entities moved to another shard by the {@link ShardRebalancer} are recorded in a shard directory
+ * that takes precedence over the shard number in the id. The directory is stored in shard zero.
+ * New entities that do not belong to another entity are distributed round-robin over the shards.
+ * Operations on all entities are scattered over all shards in parallel, each shard in
+ * a transaction of its own, and the results gathered.
+ *
+ * @author Ivan Krizsan
+ */
+@Slf4j
+public class ShardManager {
+    /* Constant(s): */
+    /** Number of low bits of an id that are used for the sequence within a shard. */
+    public static final int SHARD_ID_SHIFT = 40;
+    /** Sequences of a shard are restarted at this offset from the start of the id range of the shard. */
+    public static final long SHARD_SEQUENCE_OFFSET = 1000;
+    public static final String DIRECTORY_TABLE = "ShardDirectory";
+
+    /* Instance variable(s): */
+    protected final int mShardCount;
+    protected final JdbcTemplate mDirectoryJdbcTemplate;
+    protected final TransactionTemplate mReadOnlyTransactionTemplate;
+    protected final TransactionTemplate mTransactionTemplate;
+    protected final ExecutorService mScatterExecutor;
+    protected final Map<String, Integer> mShardDirectory = new ConcurrentHashMap<>();
+    protected final AtomicInteger mNextNewEntityShard = new AtomicInteger();
+
+    /**
+     * Creates a shard manager.
+     *
+     * @param inShardCount Number of shards.
+     * @param inDirectoryDataSource Data source of shard zero, in which the shard directory is stored.
+     * @param inTransactionManager Transaction manager used to perform operations in shards.
+     */
+    public ShardManager(final int inShardCount, final DataSource inDirectoryDataSource,
+        final PlatformTransactionManager inTransactionManager) {
+        mShardCount = inShardCount;
+        mDirectoryJdbcTemplate = new JdbcTemplate(inDirectoryDataSource);
+        mTransactionTemplate = new TransactionTemplate(inTransactionManager);
+        mReadOnlyTransactionTemplate = new TransactionTemplate(inTransactionManager);
+        mReadOnlyTransactionTemplate.setReadOnly(true);
+        final AtomicInteger theThreadNumber = new AtomicInteger();
+        mScatterExecutor = Executors.newFixedThreadPool(inShardCount, inRunnable -> {
+            final Thread theThread = new Thread(inRunnable, "shard-scatter-" + theThreadNumber.incrementAndGet());
+            theThread.setDaemon(true);
+            return theThread;
+        });
+
+        mDirectoryJdbcTemplate.execute("create table if not exists " + DIRECTORY_TABLE
+            + " (entityType varchar(255) not null, entityId bigint not null, shard integer not null,"
+            + " primary key (entityType, entityId))");
+        mDirectoryJdbcTemplate.query("select entityType, entityId, shard from " + DIRECTORY_TABLE,
+            inResultSet -> {
+                mShardDirectory.put(directoryKey(inResultSet.getString(1), inResultSet.getLong(2)),
+                    inResultSet.getInt(3));
+            });
+    }
+
+    /**
+     * Retrieves the number of shards.
+     *
+     * @return Number of shards.
+     */
+    public int getShardCount() {
+        return mShardCount;
+    }
+
+    /**
+     * Selects the shard in which to create a new entity that does not belong to another entity.
+     *
+     * @return Shard number.
+     */
+    public int shardForNewEntity() {
+        return Math.floorMod(mNextNewEntityShard.getAndIncrement(), mShardCount);
+    }
+
+    /**
+     * Determines the shard in which the entity with supplied type and id is stored.
+     *
+     * @param inEntityType Entity type.
+     * @param inEntityId Entity id.
+     * @return Shard number.
+     */
+    public int shardOf(final Class<?> inEntityType, final long inEntityId) {
+        final Integer theRelocatedShard = mShardDirectory.get(directoryKey(rootEntityName(inEntityType), inEntityId));
+        if (theRelocatedShard != null) {
+            return theRelocatedShard;
+        }
+        final int theIdShard = (int) (inEntityId >>> SHARD_ID_SHIFT);
+        return (theIdShard < mShardCount) ? theIdShard : Math.floorMod(Long.hashCode(inEntityId), mShardCount);
+    }
+
+    /**
+     * Records that the entity with supplied type and id has been moved to the supplied shard.
+     *
+     * @param inEntityType Entity type.
+     * @param inEntityId Entity id.
+     * @param inShard Shard number.
+     */
+    public void relocate(final Class<?> inEntityType, final long inEntityId, final int inShard) {
+        final String theEntityTypeName = rootEntityName(inEntityType);
+        mDirectoryJdbcTemplate.update("delete from " + DIRECTORY_TABLE + " where entityType = ? and entityId = ?",
+            theEntityTypeName, inEntityId);
+        mDirectoryJdbcTemplate.update("insert into " + DIRECTORY_TABLE + " (entityType, entityId, shard) values (?, ?, ?)",
+            theEntityTypeName, inEntityId, inShard);
+        mShardDirectory.put(directoryKey(theEntityTypeName, inEntityId), inShard);
+    }
+
+    /**
+     * Performs the supplied operation in a transaction in the supplied shard.
+     *
+     * @param inShard Shard number.
+     * @param inReadOnlyFlag True if the transaction is read-only.
+     * @param inOperation Operation to perform.
+     * @param <T> Type of operation result.
+     * @return Result of operation.
+     */
+    public <T> T callInShardTransaction(final int inShard, final boolean inReadOnlyFlag,
+        final Supplier<T> inOperation) {
+        final TransactionTemplate theTransactionTemplate =
+            inReadOnlyFlag ? mReadOnlyTransactionTemplate : mTransactionTemplate;
+        return ShardContext.callInShard(inShard,
+            () -> theTransactionTemplate.execute(inStatus -> inOperation.get()));
+    }
+
+    /**
+     * Performs the supplied operation in all shards in parallel, each in a transaction of its own.
+     * The transactions are independent of each other; a failure in one shard does not
+     * roll back the transactions in the other shards.
+     *
+     * @param inReadOnlyFlag True if the transactions are read-only.
+     * @param inOperation Operation to perform in each shard.
+     * @param <T> Type of operation result.
+     * @return Results of operation, in shard number order.
+     */
+    public <T> List<T> scatter(final boolean inReadOnlyFlag, final Supplier<T> inOperation) {
+        final List<CompletableFuture<T>> theShardResults = new ArrayList<>(mShardCount);
+        for (int theShard = 0; theShard < mShardCount; theShard++) {
+            final int theCurrentShard = theShard;
+            theShardResults.add(CompletableFuture.supplyAsync(
+                () -> callInShardTransaction(theCurrentShard, inReadOnlyFlag, inOperation), mScatterExecutor));
+        }
+        try {
+            return theShardResults.stream().map(CompletableFuture::join).toList();
+        } catch (final CompletionException theException) {
+            if (theException.getCause() instanceof RuntimeException theRuntimeException) {
+                throw theRuntimeException;
+            }
+            throw theException;
+        }
+    }
+
+    /**
+     * Merges the supplied per-shard lists into one list.
+     * If a sort order is supplied, each list must already be in that order and the lists are
+     * merged by repeatedly taking the first remaining element in order among the lists,
+     * otherwise the lists are concatenated.
+     *
+     * @param inShardLists Lists from each shard.
+     * @param inSort Sort order of each list, may be unsorted.
+     * @param inPropertyAccessor Retrieves the value of a property of an element.
+     * @param <T> Element type.
+     * @return Merged list.
+     */
+    public static <T> List<T> merge(final List<List<T>> inShardLists, final Sort inSort,
+        final BiFunction<T, String, Object> inPropertyAccessor) {
+        final List<T> theMergedList = new ArrayList<>(inShardLists.stream().mapToInt(List::size).sum());
+        if (inSort.isUnsorted()) {
+            inShardLists.forEach(theMergedList::addAll);
+            return theMergedList;
+        }
+
+        /* Each queue entry holds the first remaining element of a list and an iterator over the rest. */
+        final PriorityQueue<Map.Entry<T, Iterator<T>>> theListHeads = new PriorityQueue<>(
+            Math.max(1, inShardLists.size()), Map.Entry.comparingByKey(comparator(inSort, inPropertyAccessor)));
+        for (final List<T> theShardList : inShardLists) {
+            final Iterator<T> theIterator = theShardList.iterator();
+            if (theIterator.hasNext()) {
+                theListHeads.add(Map.entry(theIterator.next(), theIterator));
+            }
+        }
+        while (!theListHeads.isEmpty()) {
+            final Map.Entry<T, Iterator<T>> theListHead = theListHeads.poll();
+            theMergedList.add(theListHead.getKey());
+            if (theListHead.getValue().hasNext()) {
+                theListHeads.add(Map.entry(theListHead.getValue().next(), theListHead.getValue()));
+            }
+        }
+        return theMergedList;
+    }
+
+    /**
+     * Creates a comparator ordering elements according to the supplied sort.
+     * Null values are ordered last.
+     *
+     * @param inSort Sort order.
+     * @param inPropertyAccessor Retrieves the value of a property of an element.
+     * @param <T> Element type.
+     * @return Comparator.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> Comparator<T> comparator(final Sort inSort,
+        final BiFunction<T, String, Object> inPropertyAccessor) {
+        Comparator<T> theComparator = (inFirst, inSecond) -> 0;
+        for (final Sort.Order theOrder : inSort) {
+            final Comparator<Comparable> theValueComparator = theOrder.isAscending()
+                ? Comparator.nullsLast(Comparator.<Comparable>naturalOrder())
+                : Comparator.nullsLast(Comparator.<Comparable>reverseOrder());
+            theComparator = theComparator.thenComparing(
+                inElement -> (Comparable) inPropertyAccessor.apply(inElement, theOrder.getProperty()),
+                theValueComparator);
+        }
+        return theComparator;
+    }
+
+    /**
+     * Stops the threads used to scatter operations over the shards.
+     */
+    @PreDestroy
+    public void shutdown() {
+        mScatterExecutor.shutdownNow();
+    }
+
+    /**
+     * Determines the name of the root entity of the entity hierarchy the supplied type belongs to.
+     * Entities in the same hierarchy share id sequence.
+     *
+     * @param inEntityType Entity type.
+     * @return Simple name of root entity type.
+     */
+    protected static String rootEntityName(final Class<?> inEntityType) {
+        Class<?> theRootType = inEntityType;
+        while (theRootType.getSuperclass() != null && theRootType.getSuperclass().isAnnotationPresent(Entity.class)) {
+            theRootType = theRootType.getSuperclass();
+        }
+        return theRootType.getSimpleName();
+    }
+
+    /**
+     * Creates the key of an entity in the shard directory.
+     *
+     * @param inRootEntityName Name of root entity type.
+     * @param inEntityId Entity id.
+     * @return Directory key.
+     */
+    protected static String directoryKey(final String inRootEntityName, final long inEntityId) {
+        return inRootEntityName + ":" + inEntityId;
+    }
+}
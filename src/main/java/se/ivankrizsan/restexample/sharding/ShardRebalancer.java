@@ -0,0 +1,272 @@
+package se.ivankrizsan.restexample.sharding;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.MappingMetamodel;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import se.ivankrizsan.restexample.domain.Drawing;
+import se.ivankrizsan.restexample.domain.Shape;
+
+import java.lang.reflect.Modifier;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Moves drawings, together with their shapes, between shards so that each shard holds
+ * about the same number of drawings, for instance after shards have been added.
+ * A drawing is moved by copying it, keeping its id and the ids of its shapes, to the target shard,
+ * recording the move in the shard directory and then deleting it from the source shard.
+ * The rows of the drawing, its shapes and the join table between them are copied as-is using SQL,
+ * with the table and column names retrieved from the Hibernate mapping, since persisting or merging
+ * the detached drawing in the target shard would assign new ids to the drawing and its shapes.
+ * A failure between copying and deleting leaves a stale copy in the source shard that is
+ * no longer reachable by id, since the directory already points to the target shard.
+ *
+ * @author Ivan Krizsan
+ */
+@Slf4j
+public class ShardRebalancer {
+    /* Constant(s): */
+    protected static final String SHAPES_COLLECTION_ROLE = Drawing.class.getName() + ".mShapes";
+
+    /* Instance variable(s): */
+    protected final ShardManager mShardManager;
+    protected final EntityManager mEntityManager;
+
+    /**
+     * Creates a shard rebalancer.
+     *
+     * @param inShardManager Shard manager.
+     * @param inEntityManager Shared entity manager.
+     */
+    public ShardRebalancer(final ShardManager inShardManager, final EntityManager inEntityManager) {
+        mShardManager = inShardManager;
+        mEntityManager = inEntityManager;
+    }
+
+    /**
+     * Counts the drawings in each shard.
+     *
+     * @return Number of drawings, in shard number order.
+     */
+    public List<Long> countDrawingsPerShard() {
+        return mShardManager.scatter(true, () -> mEntityManager
+            .createQuery("select count(d) from Drawing d", Long.class)
+            .getSingleResult());
+    }
+
+    /**
+     * Moves drawings from the shard with the most drawings to the shard with the fewest
+     * drawings until the numbers of drawings in the shards differ by at most one.
+     *
+     * @return Number of drawings moved.
+     */
+    public int rebalance() {
+        final List<Long> theDrawingCounts = new ArrayList<>(countDrawingsPerShard());
+        int theMovedCount = 0;
+        while (true) {
+            int theFullestShard = 0;
+            int theEmptiestShard = 0;
+            for (int theShard = 1; theShard < theDrawingCounts.size(); theShard++) {
+                if (theDrawingCounts.get(theShard) > theDrawingCounts.get(theFullestShard)) {
+                    theFullestShard = theShard;
+                }
+                if (theDrawingCounts.get(theShard) < theDrawingCounts.get(theEmptiestShard)) {
+                    theEmptiestShard = theShard;
+                }
+            }
+            if (theDrawingCounts.get(theFullestShard) - theDrawingCounts.get(theEmptiestShard) <= 1) {
+                break;
+            }
+
+            final Long theDrawingId = mShardManager.callInShardTransaction(theFullestShard, true, () ->
+                mEntityManager
+                    .createQuery("select d.mId from Drawing d order by d.mId desc", Long.class)
+                    .setMaxResults(1)
+                    .getSingleResult());
+            moveDrawing(theDrawingId, theFullestShard, theEmptiestShard);
+            theDrawingCounts.set(theFullestShard, theDrawingCounts.get(theFullestShard) - 1);
+            theDrawingCounts.set(theEmptiestShard, theDrawingCounts.get(theEmptiestShard) + 1);
+            theMovedCount++;
+        }
+        log.info("Rebalanced shards moving {} drawings, drawings per shard now {}", theMovedCount, theDrawingCounts);
+        return theMovedCount;
+    }
+
+    /**
+     * Moves the drawing with supplied id, and its shapes, from one shard to another.
+     *
+     * @param inDrawingId Id of drawing to move.
+     * @param inSourceShard Shard the drawing is stored in.
+     * @param inTargetShard Shard to move the drawing to.
+     */
+    protected void moveDrawing(final Long inDrawingId, final int inSourceShard, final int inTargetShard) {
+        log.debug("Moving drawing with id {} from shard {} to shard {}", inDrawingId, inSourceShard, inTargetShard);
+
+        final List<TableRows> theDrawingRows =
+            mShardManager.callInShardTransaction(inSourceShard, true, () -> readDrawingRows(inDrawingId));
+        mShardManager.callInShardTransaction(inTargetShard, false, () -> {
+            theDrawingRows.forEach(this::insertRows);
+            return null;
+        });
+
+        mShardManager.relocate(Drawing.class, inDrawingId, inTargetShard);
+        final TableRows theJoinRows = theDrawingRows.get(theDrawingRows.size() - 1);
+        final int theShapeIdIndex = theJoinRows.columnIndex(shapesCollectionPersister().getElementColumnNames()[0]);
+        for (final Object[] theJoinRow : theJoinRows.rows()) {
+            mShardManager.relocate(Shape.class, ((Number) theJoinRow[theShapeIdIndex]).longValue(), inTargetShard);
+        }
+
+        mShardManager.callInShardTransaction(inSourceShard, false, () -> {
+            mEntityManager.remove(mEntityManager.find(Drawing.class, inDrawingId));
+            return null;
+        });
+    }
+
+    /**
+     * Reads the rows of the drawing with supplied id, the rows of its shapes and the rows of
+     * the join table between the drawing and its shapes from the current shard.
+     *
+     * @param inDrawingId Drawing id.
+     * @return Rows of the drawing, of its shapes table by table and of the join table, in an order
+     * in which they can be inserted.
+     */
+    protected List<TableRows> readDrawingRows(final Long inDrawingId) {
+        final MappingMetamodel theMetamodel = mappingMetamodel();
+        final AbstractCollectionPersister theShapesPersister = shapesCollectionPersister();
+        final String theJoinTableName = theShapesPersister.getTableName();
+        final String theJoinDrawingIdColumn = theShapesPersister.getKeyColumnNames()[0];
+        final String theJoinShapeIdColumn = theShapesPersister.getElementColumnNames()[0];
+
+        final List<TableRows> theRows = new ArrayList<>();
+        final AbstractEntityPersister theDrawingPersister =
+            (AbstractEntityPersister) theMetamodel.getEntityDescriptor(Drawing.class);
+        theRows.add(selectRows(theDrawingPersister.getTableName(),
+            theDrawingPersister.getIdentifierColumnNames()[0] + " = ?", inDrawingId));
+        theMetamodel.forEachEntityDescriptor(inPersister -> {
+            final Class<?> theEntityClass = inPersister.getMappedClass();
+            if (Shape.class.isAssignableFrom(theEntityClass) && !Modifier.isAbstract(theEntityClass.getModifiers())) {
+                final AbstractEntityPersister theShapePersister = (AbstractEntityPersister) inPersister;
+                theRows.add(selectRows(theShapePersister.getTableName(),
+                    theShapePersister.getIdentifierColumnNames()[0] + " in (select " + theJoinShapeIdColumn
+                        + " from " + theJoinTableName + " where " + theJoinDrawingIdColumn + " = ?)",
+                    inDrawingId));
+            }
+        });
+        theRows.add(selectRows(theJoinTableName, theJoinDrawingIdColumn + " = ?", inDrawingId));
+        return theRows;
+    }
+
+    /**
+     * Selects all columns of the rows of the supplied table matching the supplied condition.
+     *
+     * @param inTableName Table name.
+     * @param inCondition SQL condition with a single parameter.
+     * @param inParameter Value of parameter of condition.
+     * @return Selected rows.
+     */
+    protected TableRows selectRows(final String inTableName, final String inCondition, final Object inParameter) {
+        return mEntityManager.unwrap(Session.class).doReturningWork(inConnection -> {
+            try (PreparedStatement theStatement =
+                inConnection.prepareStatement("select * from " + inTableName + " where " + inCondition)) {
+                theStatement.setObject(1, inParameter);
+                try (ResultSet theResultSet = theStatement.executeQuery()) {
+                    final ResultSetMetaData theMetaData = theResultSet.getMetaData();
+                    final List<String> theColumns = new ArrayList<>();
+                    for (int i = 1; i <= theMetaData.getColumnCount(); i++) {
+                        theColumns.add(theMetaData.getColumnName(i));
+                    }
+                    final List<Object[]> theTableRows = new ArrayList<>();
+                    while (theResultSet.next()) {
+                        final Object[] theRow = new Object[theColumns.size()];
+                        for (int i = 0; i < theRow.length; i++) {
+                            theRow[i] = theResultSet.getObject(i + 1);
+                        }
+                        theTableRows.add(theRow);
+                    }
+                    return new TableRows(inTableName, theColumns, theTableRows);
+                }
+            }
+        });
+    }
+
+    /**
+     * Inserts the supplied rows in the current shard.
+     *
+     * @param inTableRows Rows to insert.
+     */
+    protected void insertRows(final TableRows inTableRows) {
+        if (inTableRows.rows().isEmpty()) {
+            return;
+        }
+        final String theInsertSql = "insert into " + inTableRows.tableName() + " ("
+            + String.join(", ", inTableRows.columns()) + ") values ("
+            + String.join(", ", Collections.nCopies(inTableRows.columns().size(), "?")) + ")";
+        mEntityManager.unwrap(Session.class).doWork(inConnection -> {
+            try (PreparedStatement theStatement = inConnection.prepareStatement(theInsertSql)) {
+                for (final Object[] theRow : inTableRows.rows()) {
+                    for (int i = 0; i < theRow.length; i++) {
+                        theStatement.setObject(i + 1, theRow[i]);
+                    }
+                    theStatement.addBatch();
+                }
+                theStatement.executeBatch();
+            }
+        });
+    }
+
+    /**
+     * Retrieves the Hibernate mapping metamodel.
+     *
+     * @return Mapping metamodel.
+     */
+    protected MappingMetamodel mappingMetamodel() {
+        return mEntityManager
+            .getEntityManagerFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getRuntimeMetamodels()
+            .getMappingMetamodel();
+    }
+
+    /**
+     * Retrieves the persister of the shapes collection of drawings, which maps the join table
+     * between drawings and shapes.
+     *
+     * @return Collection persister.
+     */
+    protected AbstractCollectionPersister shapesCollectionPersister() {
+        return (AbstractCollectionPersister) mappingMetamodel().getCollectionDescriptor(SHAPES_COLLECTION_ROLE);
+    }
+
+    /**
+     * Rows of a table.
+     *
+     * @param tableName Table name.
+     * @param columns Column names.
+     * @param rows Column values of rows, in column order.
+     */
+    protected record TableRows(String tableName, List<String> columns, List<Object[]> rows) {
+        /**
+         * Finds the index of the column with supplied name, ignoring case since databases may
+         * report column names in a different case than they were mapped with.
+         *
+         * @param inColumnName Column name.
+         * @return Column index, -1 if there is no such column.
+         */
+        public int columnIndex(final String inColumnName) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).equalsIgnoreCase(inColumnName)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
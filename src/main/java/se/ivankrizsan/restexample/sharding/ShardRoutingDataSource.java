@@ -0,0 +1,55 @@
+package se.ivankrizsan.restexample.sharding;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data source that routes connections to the shard selected in the {@link ShardContext}
+ * of the current thread.
+ * Must be wrapped in a lazy connection data source proxy so that the shard can be selected
+ * after a transaction has been started.
+ * Number of connections per shard are registered in the counter "datasource.shard.connections".
+ *
+ * @author Ivan Krizsan
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    protected final MeterRegistry mMeterRegistry;
+
+    /**
+     * Creates a shard routing data source.
+     *
+     * @param inShardDataSources Data sources of the shards, in shard number order.
+     * @param inMeterRegistry Registry in which to register routing metrics.
+     */
+    public ShardRoutingDataSource(final List<DataSource> inShardDataSources, final MeterRegistry inMeterRegistry) {
+        mMeterRegistry = inMeterRegistry;
+
+        final Map<Object, Object> theTargetDataSources = new HashMap<>();
+        for (int theShard = 0; theShard < inShardDataSources.size(); theShard++) {
+            theTargetDataSources.put(theShard, inShardDataSources.get(theShard));
+        }
+        setTargetDataSources(theTargetDataSources);
+        setDefaultTargetDataSource(inShardDataSources.get(ShardContext.DEFAULT_SHARD));
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        final int theShard = ShardContext.currentShard();
+        Counter.builder("datasource.shard.connections")
+            .description("Number of connections obtained, by shard")
+            .tag("shard", Integer.toString(theShard))
+            .register(mMeterRegistry)
+            .increment();
+        return theShard;
+    }
+}
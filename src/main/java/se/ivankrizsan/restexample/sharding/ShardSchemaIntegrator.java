@@ -0,0 +1,123 @@
+package se.ivankrizsan.restexample.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.Sequence;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.SourceType;
+import org.hibernate.tool.schema.TargetType;
+import org.hibernate.tool.schema.internal.ExceptionHandlerLoggedImpl;
+import org.hibernate.tool.schema.spi.ContributableMatcher;
+import org.hibernate.tool.schema.spi.ExecutionOptions;
+import org.hibernate.tool.schema.spi.SchemaCreator;
+import org.hibernate.tool.schema.spi.SchemaManagementTool;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.hibernate.tool.schema.spi.ScriptSourceInput;
+import org.hibernate.tool.schema.spi.ScriptTargetOutput;
+import org.hibernate.tool.schema.spi.SourceDescriptor;
+import org.hibernate.tool.schema.spi.TargetDescriptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hibernate integrator that creates the database schema in all shards except shard zero,
+ * in which the schema is created by Hibernate as usual, and recreates the id sequences of
+ * each shard at the start of the range of ids of the shard.
+ * Ids generated in shard n thus start at n shifted left {@link ShardManager#SHARD_ID_SHIFT}
+ * bits, which makes the shard an entity was created in derivable from its id.
+ *
+ * @author Ivan Krizsan
+ */
+@Slf4j
+public class ShardSchemaIntegrator implements Integrator {
+    /* Constant(s): */
+    /** Creates the schema from the mapping metadata. */
+    protected static final SourceDescriptor METADATA_SOURCE = new SourceDescriptor() {
+        @Override
+        public SourceType getSourceType() {
+            return SourceType.METADATA;
+        }
+
+        @Override
+        public ScriptSourceInput getScriptSourceInput() {
+            return null;
+        }
+    };
+    /** Creates the schema in the database of the current shard only, without writing scripts. */
+    protected static final TargetDescriptor DATABASE_TARGET = new TargetDescriptor() {
+        @Override
+        public EnumSet<TargetType> getTargetTypes() {
+            return EnumSet.of(TargetType.DATABASE);
+        }
+
+        @Override
+        public ScriptTargetOutput getScriptTargetOutput() {
+            return null;
+        }
+    };
+
+    /* Instance variable(s): */
+    protected final List<DataSource> mShardDataSources;
+
+    /**
+     * Creates a shard schema integrator.
+     *
+     * @param inShardDataSources Data sources of the shards, in shard number order.
+     */
+    public ShardSchemaIntegrator(final List<DataSource> inShardDataSources) {
+        mShardDataSources = inShardDataSources;
+    }
+
+    @Override
+    public void integrate(final Metadata inMetadata, final BootstrapContext inBootstrapContext,
+        final SessionFactoryImplementor inSessionFactory) {
+        final ServiceRegistry theServiceRegistry = inSessionFactory.getServiceRegistry();
+        final Map<String, Object> theSettings =
+            new HashMap<>(theServiceRegistry.getService(ConfigurationService.class).getSettings());
+        final SchemaCreator theSchemaCreator =
+            theServiceRegistry.getService(SchemaManagementTool.class).getSchemaCreator(theSettings);
+        final ExecutionOptions theExecutionOptions =
+            SchemaManagementToolCoordinator.buildExecutionOptions(theSettings, ExceptionHandlerLoggedImpl.INSTANCE);
+
+        for (int theShard = 1; theShard < mShardDataSources.size(); theShard++) {
+            log.info("Creating schema in shard {}", theShard);
+            ShardContext.callInShard(theShard, () -> {
+                theSchemaCreator.doCreation(inMetadata, theExecutionOptions, ContributableMatcher.ALL,
+                    METADATA_SOURCE, DATABASE_TARGET);
+                return null;
+            });
+
+            final JdbcTemplate theShardJdbcTemplate = new JdbcTemplate(mShardDataSources.get(theShard));
+            final long theSequenceStart = ((long) theShard << ShardManager.SHARD_ID_SHIFT)
+                + ShardManager.SHARD_SEQUENCE_OFFSET;
+            /*
+             * Sequences are created with the default data type of the database, which may be too small
+             * for ids prefixed by shard number, so they are recreated as bigint sequences.
+             */
+            for (final Namespace theNamespace : inMetadata.getDatabase().getNamespaces()) {
+                for (final Sequence theSequence : theNamespace.getSequences()) {
+                    theShardJdbcTemplate.execute("drop sequence " + theSequence.getExportIdentifier());
+                    theShardJdbcTemplate.execute("create sequence " + theSequence.getExportIdentifier()
+                        + " as bigint start with " + theSequenceStart
+                        + " increment by " + theSequence.getIncrementSize());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void disintegrate(final SessionFactoryImplementor inSessionFactory,
+        final SessionFactoryServiceRegistry inServiceRegistry) {
+    }
+}
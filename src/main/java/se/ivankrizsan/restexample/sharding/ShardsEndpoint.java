@@ -0,0 +1,51 @@
+package se.ivankrizsan.restexample.sharding;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint showing the number of drawings per shard and rebalancing the shards.
+ *
+ * @author Ivan Krizsan
+ */
+@Endpoint(id = "shards")
+public class ShardsEndpoint {
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    protected final ShardRebalancer mShardRebalancer;
+
+    /**
+     * Creates a shards endpoint.
+     *
+     * @param inShardRebalancer Shard rebalancer.
+     */
+    public ShardsEndpoint(final ShardRebalancer inShardRebalancer) {
+        mShardRebalancer = inShardRebalancer;
+    }
+
+    /**
+     * Retrieves the number of drawings in each shard.
+     *
+     * @return Map containing the number of drawings per shard, in shard number order.
+     */
+    @ReadOperation
+    public Map<String, List<Long>> drawingsPerShard() {
+        return Map.of("drawings", mShardRebalancer.countDrawingsPerShard());
+    }
+
+    /**
+     * Rebalances the drawings over the shards.
+     *
+     * @return Map containing the number of drawings moved and the number of drawings per shard afterwards.
+     */
+    @WriteOperation
+    public Map<String, Object> rebalance() {
+        final int theMovedCount = mShardRebalancer.rebalance();
+        return Map.of("moved", theMovedCount, "drawings", mShardRebalancer.countDrawingsPerShard());
+    }
+}
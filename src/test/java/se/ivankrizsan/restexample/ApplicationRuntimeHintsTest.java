@@ -0,0 +1,72 @@
+package se.ivankrizsan.restexample;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import se.ivankrizsan.restexample.domain.Circle;
+import se.ivankrizsan.restexample.domain.Drawing;
+import se.ivankrizsan.restexample.domain.Rectangle;
+import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisationsImpl;
+
+import java.awt.Point;
+
+/**
+ * Tests the reachability metadata registered for native executables.
+ *
+ * @author Ivan Krizsan
+ */
+public class ApplicationRuntimeHintsTest {
+    /* Instance variable(s): */
+    protected RuntimeHints mRuntimeHints;
+
+    /**
+     * Registers the application runtime hints before each test.
+     */
+    @BeforeEach
+    public void prepareBeforeTest() {
+        mRuntimeHints = new RuntimeHints();
+        new ApplicationRuntimeHints().registerHints(mRuntimeHints, getClass().getClassLoader());
+    }
+
+    /**
+     * Tests the hints of the types exchanged in representations.
+     * Expected outcome: The shape subtypes, which Jackson resolves from the shape type
+     * property, and the position type should be registered with their fields and accessors.
+     */
+    @Test
+    public void testBindingHints() {
+        for (final Class<?> theType : new Class<?>[] {Circle.class, Rectangle.class, Drawing.class, Point.class}) {
+            Assertions.assertTrue(RuntimeHintsPredicates.reflection().onType(theType).test(mRuntimeHints),
+                "Type should be registered: " + theType.getName());
+        }
+        Assertions.assertTrue(RuntimeHintsPredicates.reflection().onMethod(Circle.class, "getRadius")
+            .test(mRuntimeHints));
+        Assertions.assertTrue(RuntimeHintsPredicates.reflection().onField(Circle.class, "mRadius")
+            .test(mRuntimeHints));
+        Assertions.assertTrue(RuntimeHintsPredicates.serialization().onType(Point.class).test(mRuntimeHints));
+    }
+
+    /**
+     * Tests the hints of the repository base class.
+     * Expected outcome: The constructors of the repository base class should be invocable.
+     */
+    @Test
+    public void testRepositoryHints() {
+        Assertions.assertTrue(RuntimeHintsPredicates.reflection().onType(JpaRepositoryCustomisationsImpl.class)
+            .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)
+            .test(mRuntimeHints));
+    }
+
+    /**
+     * Tests the hints of the zstd-jni native library.
+     * Expected outcome: The native library for Linux should be included as a resource.
+     */
+    @Test
+    public void testCompressionHints() {
+        Assertions.assertTrue(RuntimeHintsPredicates.resource()
+            .forResource("linux/amd64/libzstd-jni-1.5.5-5.so").test(mRuntimeHints));
+    }
+}
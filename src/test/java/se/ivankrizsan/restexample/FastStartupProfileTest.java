@@ -0,0 +1,40 @@
+package se.ivankrizsan.restexample;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisationsImpl;
+
+/**
+ * Tests the application context in the fast-startup profile.
+ *
+ * @author Ivan Krizsan
+ */
+@SpringBootTest
+@ActiveProfiles("fast-startup")
+@EnableJpaRepositories(basePackages = {"se.ivankrizsan.restexample.repositories"},
+    repositoryBaseClass = JpaRepositoryCustomisationsImpl.class)
+public class FastStartupProfileTest {
+    /* Instance variable(s): */
+    @Autowired
+    protected ConfigurableApplicationContext mApplicationContext;
+
+    /**
+     * Tests lazy initialization of beans in the fast-startup profile.
+     * Expected outcome: Beans with scheduled methods should have been created at startup,
+     * the REST resources should not have been created until first retrieved.
+     */
+    @Test
+    public void testLazyInitialization() {
+        Assertions.assertTrue(mApplicationContext.getBeanFactory().containsSingleton("outboxService"),
+            "Bean with scheduled method should be created at startup");
+        Assertions.assertFalse(mApplicationContext.getBeanFactory().containsSingleton("circleResource"),
+            "REST resource should not be created until used");
+
+        Assertions.assertNotNull(mApplicationContext.getBean("circleResource"));
+    }
+}
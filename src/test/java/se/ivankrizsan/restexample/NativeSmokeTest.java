@@ -0,0 +1,138 @@
+package se.ivankrizsan.restexample;
+
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import se.ivankrizsan.restexample.domain.Circle;
+import se.ivankrizsan.restexample.domain.Drawing;
+import se.ivankrizsan.restexample.helpers.CircleEntityFactory;
+import se.ivankrizsan.restexample.helpers.DrawingEntityFactory;
+import se.ivankrizsan.restexample.helpers.JsonConverter;
+
+import java.util.List;
+
+/**
+ * Smoke test of an application started outside of the test, such as the native executable.
+ * Only HTTP requests are used, since the database of the application is not accessible.
+ * Enabled by setting the system property with the base URI of the application, which is
+ * done by the nativeSmokeTest Gradle task.
+ *
+ * @author Ivan Krizsan
+ */
+@EnabledIfSystemProperty(named = NativeSmokeTest.BASE_URI_PROPERTY, matches = ".+")
+public class NativeSmokeTest {
+    /* Constant(s): */
+    public static final String BASE_URI_PROPERTY = "restexample.smoke-test.base-uri";
+
+    /**
+     * Sets up RestAssured to send requests to the application under test.
+     */
+    @BeforeEach
+    public void setUpRestAssured() {
+        RestAssured.reset();
+        RestAssured.baseURI = System.getProperty(BASE_URI_PROPERTY);
+    }
+
+    /**
+     * Tests creating, retrieving and deleting a circle.
+     * Expected outcome: The circle should be retrieved with the same properties and
+     * position as it was created with.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testCircleLifecycle() throws Exception {
+        final Circle theCircle = new CircleEntityFactory().createEntity(1);
+
+        final Integer theCircleId = RestAssured
+            .given()
+            .contentType(ContentType.JSON)
+            .body(JsonConverter.objectToJson(theCircle))
+            .when()
+            .post("/circles")
+            .then()
+            .statusCode(200)
+            .extract()
+            .path("id");
+
+        RestAssured
+            .given()
+            .accept(ContentType.JSON)
+            .when()
+            .get("/circles/" + theCircleId)
+            .then()
+            .statusCode(200)
+            .body("radius", Matchers.equalTo(theCircle.getRadius()))
+            .body("colour", Matchers.equalTo(theCircle.getColour()))
+            .body("position.x", Matchers.equalTo((float) theCircle.getPosition().getX()));
+
+        RestAssured
+            .when()
+            .delete("/circles/" + theCircleId)
+            .then()
+            .statusCode(200);
+    }
+
+    /**
+     * Tests creating and retrieving a drawing containing shapes of different types,
+     * also using the binary Smile representation.
+     * Expected outcome: The drawing should be retrieved with all its shapes and the type
+     * information of the shapes.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testDrawingWithShapes() throws Exception {
+        final Drawing theDrawing = new DrawingEntityFactory().createEntity(2);
+
+        final Integer theDrawingId = RestAssured
+            .given()
+            .contentType(ContentType.JSON)
+            .body(JsonConverter.objectToJson(theDrawing))
+            .when()
+            .post("/drawings")
+            .then()
+            .statusCode(200)
+            .extract()
+            .path("id");
+
+        RestAssured
+            .given()
+            .accept(ContentType.JSON)
+            .when()
+            .get("/drawings/" + theDrawingId)
+            .then()
+            .statusCode(200)
+            .body("shapes.size()", Matchers.equalTo(theDrawing.getShapes().size()))
+            .body("shapes.shapeType", Matchers.hasItems(".Circle", ".Rectangle"));
+
+        RestAssured
+            .given()
+            .accept(JacksonConfiguration.APPLICATION_SMILE_VALUE)
+            .when()
+            .get("/drawings/" + theDrawingId)
+            .then()
+            .statusCode(200)
+            .contentType(JacksonConfiguration.APPLICATION_SMILE_VALUE);
+    }
+
+    /**
+     * Tests retrieving all circles with compression of the response body.
+     * Expected outcome: HTTP status 200 and a JSON array.
+     */
+    @Test
+    public void testGetAllCompressed() {
+        RestAssured
+            .given()
+            .accept(ContentType.JSON)
+            .header("Accept-Encoding", "gzip")
+            .when()
+            .get("/circles")
+            .then()
+            .statusCode(200)
+            .body("$", Matchers.instanceOf(List.class));
+    }
+}
@@ -0,0 +1,109 @@
+package se.ivankrizsan.restexample.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import se.ivankrizsan.restexample.domain.Circle;
+import se.ivankrizsan.restexample.helpers.CircleEntityFactory;
+import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisationsImpl;
+import se.ivankrizsan.restexample.services.CircleService;
+
+/**
+ * Tests routing of read-only transactions to replicas.
+ * The replica is a second, read-only, connection pool to the in-process database of the primary,
+ * standing in for a replica that is always in sync.
+ *
+ * @author Ivan Krizsan
+ */
+@SpringBootTest(properties = {
+    "restexample.replica.enabled=true",
+    "spring.datasource.url=jdbc:hsqldb:mem:replicarouting",
+    "restexample.replica.urls=jdbc:hsqldb:mem:replicarouting"
+})
+@EnableJpaRepositories(basePackages = {"se.ivankrizsan.restexample.repositories"},
+    repositoryBaseClass = JpaRepositoryCustomisationsImpl.class)
+public class ReplicaRoutingTest {
+    /* Constant(s): */
+    protected static final String REPLICA_NAME = "replica-0";
+
+    /* Instance variable(s): */
+    @Autowired
+    protected CircleService mCircleService;
+    @Autowired
+    protected ReplicaHealthMonitor mReplicaHealthMonitor;
+    @Autowired
+    protected MeterRegistry mMeterRegistry;
+
+    /**
+     * Performs preparations before each test method.
+     */
+    @BeforeEach
+    public void prepareBeforeTest() {
+        mReplicaHealthMonitor.checkReplicas();
+    }
+
+    /**
+     * Tests checking the health of the replica.
+     * Expected outcome: The replica should be healthy.
+     */
+    @Test
+    public void testReplicaHealthy() {
+        Assertions.assertEquals(1, mReplicaHealthMonitor.getHealthyReplicaNames().size());
+        Assertions.assertTrue(mReplicaHealthMonitor.getHealthyReplicaNames().contains(REPLICA_NAME));
+    }
+
+    /**
+     * Tests saving an entity and then finding it.
+     * Expected outcome: The save should use the primary and the find the replica.
+     */
+    @Test
+    public void testReadRoutedToReplica() {
+        final double thePrimaryCountBefore = connectionCount(ReplicaRoutingDataSource.PRIMARY_KEY);
+        final Circle theCircle = mCircleService.save(new CircleEntityFactory().createEntity(1));
+        Assertions.assertTrue(connectionCount(ReplicaRoutingDataSource.PRIMARY_KEY) > thePrimaryCountBefore,
+            "Save should have used the primary");
+
+        final double theReplicaCountBefore = connectionCount(REPLICA_NAME);
+        Assertions.assertTrue(mCircleService.find(theCircle.getId()).isPresent());
+        Assertions.assertTrue(connectionCount(REPLICA_NAME) > theReplicaCountBefore,
+            "Find should have used the replica");
+    }
+
+    /**
+     * Tests finding an entity while read-your-writes is required.
+     * Expected outcome: The find should use the primary.
+     */
+    @Test
+    public void testReadYourWritesRoutedToPrimary() {
+        final Circle theCircle = mCircleService.save(new CircleEntityFactory().createEntity(2));
+
+        final double theReplicaCountBefore = connectionCount(REPLICA_NAME);
+        ReadYourWritesFilter.PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            Assertions.assertTrue(mCircleService.find(theCircle.getId()).isPresent());
+        } finally {
+            ReadYourWritesFilter.PRIMARY_REQUIRED.remove();
+        }
+        Assertions.assertEquals(theReplicaCountBefore, connectionCount(REPLICA_NAME),
+            "Find should not have used the replica");
+    }
+
+    /**
+     * Retrieves the number of connections routed to the supplied target.
+     *
+     * @param inTarget Routing target.
+     * @return Number of connections.
+     */
+    protected double connectionCount(final String inTarget) {
+        final Counter theCounter = mMeterRegistry
+            .find("datasource.routing.connections")
+            .tag("target", inTarget)
+            .counter();
+        return (theCounter != null) ? theCounter.count() : 0;
+    }
+}
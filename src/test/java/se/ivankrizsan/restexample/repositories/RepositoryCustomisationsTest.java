@@ -10,6 +10,9 @@ import se.ivankrizsan.restexample.domain.Circle;
 import se.ivankrizsan.restexample.helpers.CircleEntityFactory;
 import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisationsImpl;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -77,4 +80,30 @@ public class RepositoryCustomisationsTest {
         Assertions.assertEquals(theUpdatedCircleOption.get().getColour(), UPDATED_COLOUR,
             "The property in the entity should have been updated");
     }
+
+    /**
+     * Tests retrieving more entities by id than fit in one chunk of ids.
+     * Expected outcome: The entities should be retrieved in the order of the ids,
+     * with null for the id for which there is no entity.
+     */
+    @Test
+    public void testFindAllByIdOrdered() {
+        final List<Long> theIds = new ArrayList<>();
+        for (int i = 0; i < JpaRepositoryCustomisationsImpl.ID_CHUNK_SIZE + 3; i++) {
+            theIds.add(mRepository.save(mEntityFactory.createEntity(i)).getId());
+        }
+        Collections.reverse(theIds);
+        theIds.add(1, Long.MAX_VALUE);
+
+        final List<Circle> theCircles = mRepository.findAllByIdOrdered(theIds);
+
+        Assertions.assertEquals(theIds.size(), theCircles.size());
+        Assertions.assertNull(theCircles.get(1), "No entity should be found for id without entity");
+        for (int i = 0; i < theIds.size(); i++) {
+            if (i != 1) {
+                Assertions.assertEquals(theIds.get(i), theCircles.get(i).getId(),
+                    "Entities should be in the order of the ids");
+            }
+        }
+    }
 }
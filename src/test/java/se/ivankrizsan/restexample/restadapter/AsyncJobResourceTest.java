@@ -0,0 +1,191 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.restassured.RestAssured;
+import io.restassured.path.json.JsonPath;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import se.ivankrizsan.restexample.helpers.CircleEntityFactory;
+import se.ivankrizsan.restexample.repositories.CircleRepository;
+import se.ivankrizsan.restexample.repositories.DrawingRepository;
+import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisationsImpl;
+import se.ivankrizsan.restexample.services.jobs.AsyncJob;
+import se.ivankrizsan.restexample.services.jobs.AsyncJobService;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Tests the {@code AsyncJobResource} and operations performed asynchronously by the
+ * REST resources of entity types.
+ *
+ * @author Ivan Krizsan
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+@EnableJpaRepositories(basePackages = {"se.ivankrizsan.restexample.repositories"},
+    repositoryBaseClass = JpaRepositoryCustomisationsImpl.class)
+public class AsyncJobResourceTest {
+    /* Constant(s): */
+    protected static final int ENDPOINT_PORT = 8080;
+    protected static final long TEST_TIMEOUT = 30000;
+    /** Number of jobs running concurrently, see application.properties. */
+    protected static final int JOB_CONCURRENCY = 2;
+
+    /* Instance variable(s): */
+    @Autowired
+    protected AsyncJobService mAsyncJobService;
+    @Autowired
+    protected MeterRegistry mMeterRegistry;
+    @Autowired
+    protected CircleRepository mCircleRepository;
+    @Autowired
+    protected DrawingRepository mDrawingRepository;
+
+    /**
+     * Sets up RestAssured test framework and deletes all circles before each test.
+     */
+    @BeforeEach
+    public void prepareBeforeTest() {
+        RestAssured.reset();
+        RestAssured.port = ENDPOINT_PORT;
+        RestAssured.basePath = "";
+
+        mDrawingRepository.deleteAll();
+        mCircleRepository.deleteAll();
+    }
+
+    /**
+     * Tests deleting all circles asking for the operation to be performed asynchronously.
+     * Expected outcome: HTTP status 202 with the location of a job which should complete
+     * with the number of circles deleted as result.
+     */
+    @Test
+    public void testDeleteAllAsync() {
+        final CircleEntityFactory theEntityFactory = new CircleEntityFactory();
+        for (int i = 1; i <= 3; i++) {
+            mCircleRepository.save(theEntityFactory.createEntity(i));
+        }
+
+        final String theJobLocation = RestAssured
+            .given()
+            .header(RestResourceBasePlain.PREFER_HEADER, RestResourceBasePlain.RESPOND_ASYNC_PREFERENCE)
+            .accept("application/json")
+            .when()
+            .delete(CircleResource.PATH)
+            .then()
+            .statusCode(202)
+            .header(RestResourceBasePlain.PREFERENCE_APPLIED_HEADER, RestResourceBasePlain.RESPOND_ASYNC_PREFERENCE)
+            .body("operation", Matchers.equalTo("Circle.deleteAll"))
+            .extract()
+            .header("Location");
+
+        final JsonPath theJobStatus = awaitJobFinished(theJobLocation);
+        Assertions.assertEquals(AsyncJob.Status.COMPLETED.name(), theJobStatus.getString("status"));
+        Assertions.assertEquals(3, theJobStatus.getInt("result.deletedCount"));
+        Assertions.assertEquals(0, mCircleRepository.count());
+    }
+
+    /**
+     * Tests cancelling a queued job and a running job.
+     * Expected outcome: The queued job should be removed from the queue and the running
+     * job should be interrupted, both ending up cancelled.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testCancelJobs() throws Exception {
+        final CountDownLatch theRelease = new CountDownLatch(1);
+        final CountDownLatch theStarted = new CountDownLatch(JOB_CONCURRENCY);
+        AsyncJob theRunningJob = null;
+        for (int i = 0; i < JOB_CONCURRENCY; i++) {
+            theRunningJob = mAsyncJobService.submit("test.block", () -> {
+                theStarted.countDown();
+                try {
+                    theRelease.await();
+                } catch (final InterruptedException theException) {
+                    throw new IllegalStateException("Interrupted", theException);
+                }
+                return null;
+            });
+        }
+        theStarted.await();
+        final AsyncJob theQueuedJob = mAsyncJobService.submit("test.queued", () -> "not run");
+        try {
+            Assertions.assertEquals(1.0, mMeterRegistry.get("jobs.queue.depth").gauge().value());
+
+            RestAssured
+                .given()
+                .accept("application/json")
+                .when()
+                .delete(AsyncJobResource.PATH + "/" + theQueuedJob.getId())
+                .then()
+                .statusCode(200)
+                .body("status", Matchers.equalTo(AsyncJob.Status.CANCELLED.name()));
+            Assertions.assertEquals(0.0, mMeterRegistry.get("jobs.queue.depth").gauge().value());
+
+            RestAssured
+                .given()
+                .accept("application/json")
+                .when()
+                .delete(AsyncJobResource.PATH + "/" + theRunningJob.getId())
+                .then()
+                .statusCode(200)
+                .body("cancelRequested", Matchers.equalTo(true));
+            final JsonPath theJobStatus = awaitJobFinished(AsyncJobResource.PATH + "/" + theRunningJob.getId());
+            Assertions.assertEquals(AsyncJob.Status.CANCELLED.name(), theJobStatus.getString("status"));
+            Assertions.assertNull(theQueuedJob.getStartedAt(), "Cancelled queued job should not have run");
+        } finally {
+            theRelease.countDown();
+        }
+    }
+
+    /**
+     * Tests retrieving a job that does not exist.
+     * Expected outcome: HTTP status 404.
+     */
+    @Test
+    public void testGetMissingJob() {
+        RestAssured
+            .given()
+            .when()
+            .get(AsyncJobResource.PATH + "/" + Long.MAX_VALUE)
+            .then()
+            .statusCode(404);
+    }
+
+    /**
+     * Polls the status of the job at the supplied location until the job has finished.
+     *
+     * @param inJobLocation Path of job.
+     * @return Last status of job.
+     */
+    protected JsonPath awaitJobFinished(final String inJobLocation) {
+        final long theDeadline = System.currentTimeMillis() + TEST_TIMEOUT;
+        JsonPath theJobStatus;
+        do {
+            theJobStatus = RestAssured
+                .given()
+                .accept("application/json")
+                .when()
+                .get(inJobLocation)
+                .then()
+                .statusCode(200)
+                .extract()
+                .jsonPath();
+            if (theJobStatus.getBoolean("finished")) {
+                return theJobStatus;
+            }
+            try {
+                Thread.sleep(100);
+            } catch (final InterruptedException theException) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        } while (System.currentTimeMillis() < theDeadline);
+        return Assertions.fail("Job did not finish in time: " + theJobStatus.prettify());
+    }
+}
@@ -0,0 +1,151 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import io.restassured.RestAssured;
+import io.restassured.path.json.JsonPath;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import se.ivankrizsan.restexample.repositories.CircleRepository;
+import se.ivankrizsan.restexample.repositories.DrawingRepository;
+import se.ivankrizsan.restexample.repositories.RectangleRepository;
+import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisationsImpl;
+
+import java.util.List;
+
+/**
+ * Tests the {@code BatchResource}.
+ *
+ * @author Ivan Krizsan
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+@EnableJpaRepositories(basePackages = {"se.ivankrizsan.restexample.repositories"},
+    repositoryBaseClass = JpaRepositoryCustomisationsImpl.class)
+public class BatchResourceTest {
+    /* Constant(s): */
+    protected static final int ENDPOINT_PORT = 8080;
+    protected static final String CIRCLE_JSON =
+        "{\"shapeType\": \".Circle\", \"radius\": 10, \"position\": {\"x\": 1.0, \"y\": 2.0}, \"colour\": \"%s\"}";
+    protected static final String RECTANGLE_JSON = "{\"shapeType\": \".Rectangle\", \"height\": 5, \"width\": 8, "
+        + "\"position\": {\"x\": 3.0, \"y\": 4.0}, \"colour\": \"green\"}";
+
+    /* Instance variable(s): */
+    @Autowired
+    protected CircleRepository mCircleRepository;
+    @Autowired
+    protected RectangleRepository mRectangleRepository;
+    @Autowired
+    protected DrawingRepository mDrawingRepository;
+
+    /**
+     * Sets up RestAssured test framework and deletes all shapes and drawings before each test.
+     */
+    @BeforeEach
+    public void prepareBeforeTest() {
+        RestAssured.reset();
+        RestAssured.port = ENDPOINT_PORT;
+        RestAssured.basePath = "";
+
+        mDrawingRepository.deleteAll();
+        mCircleRepository.deleteAll();
+        mRectangleRepository.deleteAll();
+    }
+
+    /**
+     * Tests a batch creating a circle and a drawing, adding a rectangle to the drawing and
+     * updating and retrieving the circle, referring to the ids created earlier in the batch.
+     * Expected outcome: All operations should succeed and the references should be replaced
+     * by the ids of the created entities.
+     */
+    @Test
+    public void testBatchWithReferences() {
+        final String theBatchJson = "["
+            + "{\"method\": \"POST\", \"path\": \"/circles\", \"ref\": \"c1\", \"body\": "
+            + CIRCLE_JSON.formatted("red") + "},"
+            + "{\"method\": \"POST\", \"path\": \"/drawings\", \"ref\": \"d1\", "
+            + "\"body\": {\"name\": \"Batch drawing\", \"creationDate\": 0}},"
+            + "{\"method\": \"POST\", \"path\": \"/drawings/${d1}/shapes\", \"body\": " + RECTANGLE_JSON + "},"
+            + "{\"method\": \"PUT\", \"path\": \"/circles/${c1}\", \"body\": " + CIRCLE_JSON.formatted("blue") + "},"
+            + "{\"method\": \"GET\", \"path\": \"/circles/${c1}\"}"
+            + "]";
+
+        final JsonPath theBatchResult = performBatch(theBatchJson, false);
+
+        Assertions.assertTrue(theBatchResult.getBoolean("succeeded"));
+        Assertions.assertEquals(List.of(200, 200, 200, 200, 200), theBatchResult.getList("results.status"));
+        Assertions.assertEquals(theBatchResult.getLong("results[0].body.id"),
+            theBatchResult.getLong("results[4].body.id"));
+        Assertions.assertEquals("blue", theBatchResult.getString("results[4].body.colour"));
+        Assertions.assertEquals(1, mCircleRepository.count());
+        Assertions.assertEquals(1, mRectangleRepository.count());
+        Assertions.assertEquals(1, mDrawingRepository.count());
+    }
+
+    /**
+     * Tests an atomic batch in which an operation fails.
+     * Expected outcome: The batch should be rolled back, so no circle is created,
+     * and the operation after the failed operation should not be performed.
+     */
+    @Test
+    public void testAtomicBatchRolledBack() {
+        final String theBatchJson = "["
+            + "{\"method\": \"POST\", \"path\": \"/circles\", \"body\": " + CIRCLE_JSON.formatted("red") + "},"
+            + "{\"method\": \"GET\", \"path\": \"/circles/not-a-number\"},"
+            + "{\"method\": \"POST\", \"path\": \"/circles\", \"body\": " + CIRCLE_JSON.formatted("blue") + "}"
+            + "]";
+
+        final JsonPath theBatchResult = performBatch(theBatchJson, true);
+
+        Assertions.assertFalse(theBatchResult.getBoolean("succeeded"));
+        Assertions.assertTrue(theBatchResult.getBoolean("rolledBack"));
+        Assertions.assertEquals(List.of(200, 400, BatchResource.FAILED_DEPENDENCY_STATUS),
+            theBatchResult.getList("results.status"));
+        Assertions.assertEquals(0, mCircleRepository.count(), "Circle created in rolled back batch should not exist");
+    }
+
+    /**
+     * Tests a non-atomic batch in which an operation refers to a failed operation.
+     * Expected outcome: The referring operation should fail with HTTP status 424 and
+     * the independent operation after it should be performed.
+     */
+    @Test
+    public void testReferenceToFailedOperation() {
+        final String theBatchJson = "["
+            + "{\"method\": \"POST\", \"path\": \"/squares\", \"ref\": \"s1\", \"body\": {}},"
+            + "{\"method\": \"DELETE\", \"path\": \"/circles/${s1}\"},"
+            + "{\"method\": \"POST\", \"path\": \"/circles\", \"body\": " + CIRCLE_JSON.formatted("red") + "}"
+            + "]";
+
+        final JsonPath theBatchResult = performBatch(theBatchJson, false);
+
+        Assertions.assertFalse(theBatchResult.getBoolean("succeeded"));
+        Assertions.assertFalse(theBatchResult.getBoolean("rolledBack"));
+        Assertions.assertEquals(List.of(404, BatchResource.FAILED_DEPENDENCY_STATUS, 200),
+            theBatchResult.getList("results.status"));
+        Assertions.assertEquals(1, mCircleRepository.count());
+    }
+
+    /**
+     * Performs the supplied batch.
+     *
+     * @param inBatchJson JSON representation of operations of batch.
+     * @param inAtomicFlag True if batch is to be performed atomically.
+     * @return Result of batch.
+     */
+    protected JsonPath performBatch(final String inBatchJson, final boolean inAtomicFlag) {
+        return RestAssured
+            .given()
+            .contentType("application/json")
+            .accept("application/json")
+            .queryParam(BatchResource.ATOMIC_PARAMETER, inAtomicFlag)
+            .body(inBatchJson)
+            .when()
+            .post(BatchResource.PATH)
+            .then()
+            .statusCode(200)
+            .extract()
+            .jsonPath();
+    }
+}
@@ -0,0 +1,135 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import se.ivankrizsan.restexample.JacksonConfiguration;
+import se.ivankrizsan.restexample.domain.Drawing;
+import se.ivankrizsan.restexample.helpers.DrawingEntityFactory;
+import se.ivankrizsan.restexample.repositories.DrawingRepository;
+import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisationsImpl;
+
+/**
+ * Tests retrieving and creating entities using the binary Smile and CBOR representations.
+ *
+ * @author Ivan Krizsan
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+@EnableJpaRepositories(basePackages = {"se.ivankrizsan.restexample.repositories"},
+    repositoryBaseClass = JpaRepositoryCustomisationsImpl.class)
+public class BinaryRepresentationTest {
+    /* Constant(s): */
+    protected static final int ENDPOINT_PORT = 8080;
+
+    /* Instance variable(s): */
+    @Autowired
+    protected DrawingRepository mDrawingRepository;
+    protected Drawing mExpectedDrawing;
+
+    /**
+     * Sets up RestAssured and persists one drawing before each test.
+     */
+    @BeforeEach
+    public void prepareBeforeTest() {
+        RestAssured.reset();
+        RestAssured.port = ENDPOINT_PORT;
+        RestAssured.basePath = "";
+
+        mExpectedDrawing = mDrawingRepository.save(new DrawingEntityFactory().createEntity(3));
+    }
+
+    /**
+     * Tests retrieving a drawing in the Smile representation.
+     * Expected outcome: The drawing, including the types of its shapes, should
+     * be decoded from the Smile representation.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testGetDrawingAsSmile() throws Exception {
+        verifyRetrieveDrawing(JacksonConfiguration.APPLICATION_SMILE_VALUE, new SmileFactory());
+    }
+
+    /**
+     * Tests retrieving a drawing in the CBOR representation.
+     * Expected outcome: The drawing, including the types of its shapes, should
+     * be decoded from the CBOR representation.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testGetDrawingAsCbor() throws Exception {
+        verifyRetrieveDrawing(JacksonConfiguration.APPLICATION_CBOR_VALUE, new CBORFactory());
+    }
+
+    /**
+     * Tests creating a drawing sending a Smile representation.
+     * Expected outcome: The drawing should be created and returned in the Smile representation.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testCreateDrawingFromSmile() throws Exception {
+        final ObjectMapper theSmileMapper = new ObjectMapper(new SmileFactory());
+        final Drawing theNewDrawing = new DrawingEntityFactory().createEntity(5);
+
+        final Response theResponse = RestAssured
+            .given()
+            .contentType(JacksonConfiguration.APPLICATION_SMILE_VALUE)
+            .accept(JacksonConfiguration.APPLICATION_SMILE_VALUE)
+            .body(theSmileMapper.writeValueAsBytes(theNewDrawing))
+            .when()
+            .post(DrawingResource.PATH);
+        theResponse
+            .then()
+            .statusCode(200)
+            .contentType(JacksonConfiguration.APPLICATION_SMILE_VALUE);
+
+        final Drawing theCreatedDrawing =
+            theSmileMapper.readValue(theResponse.asByteArray(), Drawing.class);
+        Assertions
+            .assertThat(theCreatedDrawing.getShapes())
+            .as("All shapes should have been created")
+            .hasSameSizeAs(theNewDrawing.getShapes());
+    }
+
+    /**
+     * Retrieves the drawing persisted before the test in the representation with the
+     * supplied media type and verifies its contents.
+     *
+     * @param inMediaType Media type of representation to request.
+     * @param inFactory Jackson factory able to decode the representation.
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    protected void verifyRetrieveDrawing(final String inMediaType, final JsonFactory inFactory)
+        throws Exception {
+        final Response theResponse = RestAssured
+            .given()
+            .accept(inMediaType)
+            .when()
+            .get(DrawingResource.PATH + "/" + mExpectedDrawing.getId());
+        theResponse
+            .then()
+            .statusCode(200)
+            .contentType(inMediaType);
+
+        final Drawing theRetrievedDrawing =
+            new ObjectMapper(inFactory).readValue(theResponse.asByteArray(), Drawing.class);
+        Assertions
+            .assertThat(theRetrievedDrawing)
+            .as("Retrieved drawing should have the correct property values")
+            .usingRecursiveComparison()
+            .ignoringFields("mCreationDate")
+            .ignoringFieldsMatchingRegexes(".*mContentHash")
+            .isEqualTo(mExpectedDrawing);
+    }
+}
@@ -1,6 +1,9 @@
 package se.ivankrizsan.restexample.restadapter;
 
+import io.restassured.RestAssured;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import se.ivankrizsan.restexample.domain.Circle;
 import se.ivankrizsan.restexample.helpers.CircleEntityFactory;
@@ -27,4 +30,78 @@ public class CircleResourceTest extends RestResourceTestBase<Circle> {
 
         super.prepareBeforeTest();
     }
+
+    /**
+     * Tests retrieving circles using filter and sort parameters.
+     * Expected outcome: Only red circles with a radius larger than 50 should be retrieved,
+     * sorted on descending id.
+     */
+    @Test
+    public void testGetAllFilteredAndSorted() {
+        mCircleRepository.deleteAll();
+        final Circle theSmallRedCircle = mCircleRepository.save(createCircle(30, "red"));
+        final Circle theLargeRedCircle = mCircleRepository.save(createCircle(60, "red"));
+        final Circle theLargerRedCircle = mCircleRepository.save(createCircle(70, "red"));
+        mCircleRepository.save(createCircle(80, "blue"));
+
+        RestAssured
+            .given()
+            .accept("application/json")
+            .queryParam("colour", "red")
+            .queryParam("radius.gt", "50")
+            .queryParam(RestResourceBasePlain.SORT_PARAMETER, "-id")
+            .when()
+            .get(mResourceUrlPath)
+            .then()
+            .statusCode(200)
+            .body("id", Matchers.contains(
+                theLargerRedCircle.getId().intValue(), theLargeRedCircle.getId().intValue()))
+            .body("id", Matchers.not(Matchers.hasItem(theSmallRedCircle.getId().intValue())));
+    }
+
+    /**
+     * Tests retrieving circles using a filter with an unknown operator.
+     * Expected outcome: HTTP status 400.
+     */
+    @Test
+    public void testGetAllUnknownFilterOperator() {
+        RestAssured
+            .given()
+            .accept("application/json")
+            .queryParam("radius.between", "50")
+            .when()
+            .get(mResourceUrlPath)
+            .then()
+            .statusCode(400);
+    }
+
+    /**
+     * Tests retrieving circles using a filter with an operator but without a property.
+     * Expected outcome: HTTP status 400.
+     */
+    @Test
+    public void testGetAllFilterWithoutProperty() {
+        RestAssured
+            .given()
+            .accept("application/json")
+            .queryParam(".gt", "1")
+            .when()
+            .get(mResourceUrlPath)
+            .then()
+            .statusCode(400);
+    }
+
+    /**
+     * Creates a circle with the supplied radius and colour.
+     *
+     * @param inRadius Circle radius.
+     * @param inColour Circle colour.
+     * @return New circle.
+     */
+    protected Circle createCircle(final int inRadius, final String inColour) {
+        final Circle theCircle = mEntityFactory.createEntity(1);
+        theCircle.setRadius(inRadius);
+        theCircle.setColour(inColour);
+        return theCircle;
+    }
 }
@@ -0,0 +1,220 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Tests the {@code CompressionFilter}.
+ *
+ * @author Ivan Krizsan
+ */
+public class CompressionFilterTest {
+    /* Constant(s): */
+    protected static final int MIN_RESPONSE_SIZE = 100;
+    protected static final String LARGE_BODY = "{\"shapeType\":\".Circle\",\"colour\":\"red\"}".repeat(50);
+    protected static final String SMALL_BODY = "{\"colour\":\"red\"}";
+
+    /* Instance variable(s): */
+    protected SimpleMeterRegistry mMeterRegistry;
+    protected CompressionFilter mCompressionFilter;
+    protected HandlerMethod mHandlerMethod;
+    protected final AtomicLong mChangeSequence = new AtomicLong();
+    protected final AtomicInteger mHandlerInvocationCount = new AtomicInteger();
+
+    /**
+     * Performs preparations before each test method.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @BeforeEach
+    public void prepareBeforeTest() throws Exception {
+        mMeterRegistry = new SimpleMeterRegistry();
+        mHandlerMethod = new HandlerMethod(new TestResource(), TestResource.class.getMethod("getVersioned"));
+        mCompressionFilter = new CompressionFilter(MIN_RESPONSE_SIZE, List.of(MediaType.APPLICATION_JSON), 10,
+            mMeterRegistry, inRequest -> new HandlerExecutionChain(mHandlerMethod), mChangeSequence::get);
+    }
+
+    /**
+     * Tests retrieving a large JSON body accepting gzip encoding.
+     * Expected outcome: The body should be gzip compressed and compression metrics recorded.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testLargeBodyCompressed() throws Exception {
+        final MockHttpServletResponse theResponse = performRequest(LARGE_BODY, "gzip, deflate", null);
+
+        Assertions.assertEquals("gzip", theResponse.getHeader(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertNotNull(theResponse.getHeader(HttpHeaders.ETAG), "Response should have an ETag");
+        try (GZIPInputStream theInputStream =
+                 new GZIPInputStream(new ByteArrayInputStream(theResponse.getContentAsByteArray()))) {
+            Assertions.assertEquals(LARGE_BODY, new String(theInputStream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        Assertions.assertEquals(1L,
+            mMeterRegistry.get("http.server.response.compression.time").timer().count());
+    }
+
+    /**
+     * Tests retrieving the same large body twice without any entity having been changed.
+     * Expected outcome: The body should only be rendered and compressed once.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testCompressedBodyCached() throws Exception {
+        final MockHttpServletResponse theFirstResponse = performRequest(LARGE_BODY, "zstd", null);
+        final MockHttpServletResponse theSecondResponse = performRequest(LARGE_BODY, "zstd", null);
+
+        Assertions.assertEquals("zstd", theSecondResponse.getHeader(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertEquals(MediaType.APPLICATION_JSON_VALUE, theSecondResponse.getContentType());
+        Assertions.assertArrayEquals(theFirstResponse.getContentAsByteArray(),
+            theSecondResponse.getContentAsByteArray());
+        Assertions.assertEquals(1, mHandlerInvocationCount.get(), "Handler should only have been invoked once");
+        Assertions.assertEquals(1L,
+            mMeterRegistry.get("http.server.response.compression.time").timer().count(),
+            "Body should only have been compressed once");
+    }
+
+    /**
+     * Tests retrieving the same large body again after an entity has been changed.
+     * Expected outcome: The body should be rendered again and have a different ETag.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testEntityChangeInvalidatesCachedBody() throws Exception {
+        final String theFirstETag = performRequest(LARGE_BODY, "gzip", null).getHeader(HttpHeaders.ETAG);
+        mChangeSequence.incrementAndGet();
+
+        final MockHttpServletResponse theResponse = performRequest(LARGE_BODY, "gzip", theFirstETag);
+
+        Assertions.assertEquals(200, theResponse.getStatus());
+        Assertions.assertNotEquals(theFirstETag, theResponse.getHeader(HttpHeaders.ETAG));
+        Assertions.assertEquals(2, mHandlerInvocationCount.get(), "Handler should have been invoked again");
+    }
+
+    /**
+     * Tests retrieving a large body from a handler that streams the response body.
+     * Expected outcome: The body should be passed through without ETag and compression.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testStreamingHandlerNotBuffered() throws Exception {
+        mHandlerMethod = new HandlerMethod(new TestResource(), TestResource.class.getMethod("getStreamed"));
+
+        final MockHttpServletResponse theResponse = performRequest(LARGE_BODY, "gzip", null);
+
+        Assertions.assertNull(theResponse.getHeader(HttpHeaders.ETAG));
+        Assertions.assertNull(theResponse.getHeader(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertEquals(LARGE_BODY, theResponse.getContentAsString());
+    }
+
+    /**
+     * Tests retrieving a body smaller than the minimum response size.
+     * Expected outcome: The body should not be compressed.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testSmallBodyNotCompressed() throws Exception {
+        final MockHttpServletResponse theResponse = performRequest(SMALL_BODY, "gzip", null);
+
+        Assertions.assertNull(theResponse.getHeader(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertEquals(SMALL_BODY, theResponse.getContentAsString());
+    }
+
+    /**
+     * Tests retrieving a body with an If-None-Match header containing the ETag of the body.
+     * Expected outcome: HTTP status 304 and no body, without invoking the handler.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testNotModified() throws Exception {
+        final String theETag = performRequest(LARGE_BODY, "gzip", null).getHeader(HttpHeaders.ETAG);
+
+        final MockHttpServletResponse theResponse = performRequest(LARGE_BODY, "gzip", theETag);
+
+        Assertions.assertEquals(304, theResponse.getStatus());
+        Assertions.assertEquals(0, theResponse.getContentAsByteArray().length);
+        Assertions.assertEquals(1, mHandlerInvocationCount.get(), "Handler should only have been invoked once");
+    }
+
+    /**
+     * Performs a GET request through the compression filter to a servlet that
+     * responds with the supplied JSON body.
+     *
+     * @param inBody JSON body of response.
+     * @param inAcceptEncoding Accept-Encoding request header.
+     * @param inIfNoneMatch If-None-Match request header, may be null.
+     * @return Response.
+     * @throws Exception If error occurs.
+     */
+    protected MockHttpServletResponse performRequest(final String inBody, final String inAcceptEncoding,
+        final String inIfNoneMatch) throws Exception {
+        final MockHttpServletRequest theRequest = new MockHttpServletRequest("GET", "/circles");
+        theRequest.addHeader(HttpHeaders.ACCEPT_ENCODING, inAcceptEncoding);
+        if (inIfNoneMatch != null) {
+            theRequest.addHeader(HttpHeaders.IF_NONE_MATCH, inIfNoneMatch);
+        }
+        final MockHttpServletResponse theResponse = new MockHttpServletResponse();
+        final HttpServlet theServlet = new HttpServlet() {
+            @Override
+            protected void doGet(final HttpServletRequest inRequest, final HttpServletResponse inResponse)
+                throws IOException {
+                mHandlerInvocationCount.incrementAndGet();
+                inResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                inResponse.getOutputStream().write(inBody.getBytes(StandardCharsets.UTF_8));
+            }
+        };
+        mCompressionFilter.doFilter(theRequest, theResponse, new MockFilterChain(theServlet));
+        return theResponse;
+    }
+
+    /**
+     * Resource which methods are the handlers of the requests in the tests.
+     */
+    public static class TestResource {
+        /**
+         * Handler which response is versioned by entity changes.
+         *
+         * @return Not used.
+         */
+        @EntityChangeVersioned
+        public ResponseEntity<?> getVersioned() {
+            return null;
+        }
+
+        /**
+         * Handler which streams the response body.
+         *
+         * @return Not used.
+         */
+        public ResponseEntity<StreamingResponseBody> getStreamed() {
+            return null;
+        }
+    }
+}
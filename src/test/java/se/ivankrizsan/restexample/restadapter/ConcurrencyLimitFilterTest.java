@@ -0,0 +1,157 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the {@code ConcurrencyLimitFilter} and {@code AdaptiveConcurrencyLimit}.
+ *
+ * @author Ivan Krizsan
+ */
+public class ConcurrencyLimitFilterTest {
+    /* Constant(s): */
+    protected static final long LATENCY_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    protected static final long RETRY_AFTER_SECONDS = 2;
+
+    /* Instance variable(s): */
+    protected SimpleMeterRegistry mMeterRegistry;
+    protected AdaptiveConcurrencyLimit mExpensiveLimit;
+    protected ConcurrencyLimitFilter mConcurrencyLimitFilter;
+
+    /**
+     * Performs preparations before each test method.
+     */
+    @BeforeEach
+    public void prepareBeforeTest() {
+        mMeterRegistry = new SimpleMeterRegistry();
+        mExpensiveLimit = new AdaptiveConcurrencyLimit(1, 1, 10, LATENCY_THRESHOLD_NANOS, 0.5);
+        mConcurrencyLimitFilter = new ConcurrencyLimitFilter(
+            () -> new AdaptiveConcurrencyLimit(10, 1, 100, LATENCY_THRESHOLD_NANOS, 0.5),
+            () -> mExpensiveLimit,
+            RETRY_AFTER_SECONDS,
+            mMeterRegistry);
+    }
+
+    /**
+     * Tests retrieving a collection when the limit of the collection group has been reached.
+     * Expected outcome: HTTP status 503 with a Retry-After header and the rejection counted.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testRequestRejectedWhenLimitReached() throws Exception {
+        Assertions.assertTrue(mExpensiveLimit.tryAcquire());
+
+        final MockHttpServletResponse theResponse = performRequest("GET", "/circles");
+
+        Assertions.assertEquals(503, theResponse.getStatus());
+        Assertions.assertEquals(Long.toString(RETRY_AFTER_SECONDS), theResponse.getHeader(HttpHeaders.RETRY_AFTER));
+        Assertions.assertEquals(1.0, mMeterRegistry
+            .get("http.server.concurrency.rejected")
+            .tag("group", ConcurrencyLimitFilter.GROUP_COLLECTION)
+            .counter()
+            .count());
+    }
+
+    /**
+     * Tests looking up entities by ids when the limit of the collection group has been reached.
+     * Expected outcome: The request should be rejected, since lookups belong to the collection group.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testLookupInCollectionGroup() throws Exception {
+        Assertions.assertTrue(mExpensiveLimit.tryAcquire());
+
+        final MockHttpServletResponse theResponse = performRequest("POST", "/circles/lookup");
+
+        Assertions.assertEquals(503, theResponse.getStatus());
+    }
+
+    /**
+     * Tests uploading a file of entities to import when the limit of the bulk group has been reached.
+     * Expected outcome: The request should be rejected, since imports belong to the bulk group.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testImportInBulkGroup() throws Exception {
+        Assertions.assertTrue(mExpensiveLimit.tryAcquire());
+
+        final MockHttpServletResponse theResponse = performRequest("POST", "/circles/imports");
+
+        Assertions.assertEquals(503, theResponse.getStatus());
+    }
+
+    /**
+     * Tests performing a batch of operations when the limit of the bulk group has been reached.
+     * Expected outcome: The request should be rejected, since batches belong to the bulk group.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testBatchInBulkGroup() throws Exception {
+        Assertions.assertTrue(mExpensiveLimit.tryAcquire());
+
+        final MockHttpServletResponse theResponse = performRequest("POST", BatchResource.PATH);
+
+        Assertions.assertEquals(503, theResponse.getStatus());
+    }
+
+    /**
+     * Tests retrieving one entity when the limit of the collection group has been reached.
+     * Expected outcome: The request should be processed, since reads of single entities
+     * are isolated from collection retrievals.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testReadIsolatedFromCollectionGroup() throws Exception {
+        Assertions.assertTrue(mExpensiveLimit.tryAcquire());
+
+        final MockHttpServletResponse theResponse = performRequest("GET", "/circles/1");
+
+        Assertions.assertEquals(200, theResponse.getStatus());
+    }
+
+    /**
+     * Tests adapting the limit to fast and slow requests.
+     * Expected outcome: The limit should increase after a fast request using the whole
+     * limit and decrease after a slow request.
+     */
+    @Test
+    public void testLimitAdaptsToLatency() {
+        Assertions.assertTrue(mExpensiveLimit.tryAcquire());
+        Assertions.assertFalse(mExpensiveLimit.tryAcquire(), "Limit of one should have been reached");
+        mExpensiveLimit.release(LATENCY_THRESHOLD_NANOS / 2, false);
+        Assertions.assertEquals(2, mExpensiveLimit.getLimit());
+
+        Assertions.assertTrue(mExpensiveLimit.tryAcquire());
+        mExpensiveLimit.release(LATENCY_THRESHOLD_NANOS * 2, false);
+        Assertions.assertEquals(1, mExpensiveLimit.getLimit());
+    }
+
+    /**
+     * Performs a request with supplied method and URI through the concurrency limit filter.
+     *
+     * @param inMethod HTTP method of request.
+     * @param inRequestUri URI of request.
+     * @return Response.
+     * @throws Exception If error occurs.
+     */
+    protected MockHttpServletResponse performRequest(final String inMethod, final String inRequestUri)
+        throws Exception {
+        final MockHttpServletRequest theRequest = new MockHttpServletRequest(inMethod, inRequestUri);
+        final MockHttpServletResponse theResponse = new MockHttpServletResponse();
+        mConcurrencyLimitFilter.doFilter(theRequest, theResponse, new MockFilterChain());
+        return theResponse;
+    }
+}
@@ -1,10 +1,27 @@
 package se.ivankrizsan.restexample.restadapter;
 
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import se.ivankrizsan.restexample.domain.Circle;
 import se.ivankrizsan.restexample.domain.Drawing;
+import se.ivankrizsan.restexample.domain.Shape;
+import se.ivankrizsan.restexample.helpers.CircleEntityFactory;
 import se.ivankrizsan.restexample.helpers.DrawingEntityFactory;
+import se.ivankrizsan.restexample.helpers.JsonConverter;
+import se.ivankrizsan.restexample.helpers.RectangleEntityFactory;
+import se.ivankrizsan.restexample.repositories.CircleRepository;
 import se.ivankrizsan.restexample.repositories.DrawingRepository;
+import se.ivankrizsan.restexample.repositories.RectangleRepository;
+import se.ivankrizsan.restexample.services.DrawingService;
+import se.ivankrizsan.restexample.services.versions.DrawingVersionService;
+
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * Tests the {@code DrawingResource}.
@@ -17,6 +34,12 @@ public class DrawingResourceTest extends RestResourceTestBase<Drawing> {
     /* Instance variable(s): */
     @Autowired
     protected DrawingRepository mDrawingRepository;
+    @Autowired
+    protected CircleRepository mCircleRepository;
+    @Autowired
+    protected RectangleRepository mRectangleRepository;
+    @Autowired
+    protected DrawingVersionService mDrawingVersionService;
 
     @BeforeEach
     @Override
@@ -27,4 +50,450 @@ public class DrawingResourceTest extends RestResourceTestBase<Drawing> {
 
         super.prepareBeforeTest();
     }
+
+    /**
+     * Tests deletion of all drawings.
+     * Expected outcome: All drawings and the shapes contained in the drawings should
+     * have been deleted and the number of deleted drawings reported.
+     */
+    @Test
+    public void testDeleteAllDrawingsDeletesShapes() {
+        final long theDrawingCount = mDrawingRepository.count();
+
+        RestAssured
+            .given()
+            .when()
+            .delete(mResourceUrlPath)
+            .then()
+            .statusCode(200)
+            .header(RestResourceBasePlain.DELETED_COUNT_HEADER, Long.toString(theDrawingCount));
+
+        for (final Shape theShape : mExpectedEntity.getShapes()) {
+            final boolean theShapeExistsFlag = (theShape instanceof Circle)
+                ? mCircleRepository.existsById(theShape.getId())
+                : mRectangleRepository.existsById(theShape.getId());
+            Assertions.assertFalse(theShapeExistsFlag, "Shapes in drawing should have been deleted");
+        }
+    }
+
+    /**
+     * Tests adding a shape to a drawing and then removing it.
+     * Expected outcome: The shape should first be part of the drawing and then
+     * be removed from the drawing and deleted.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testAddAndRemoveShape() throws Exception {
+        final Circle theNewCircle = new CircleEntityFactory().createEntity(7);
+        final Response theResponse = RestAssured
+            .given()
+            .contentType("application/json")
+            .accept("application/json")
+            .body(JsonConverter.objectToJson(theNewCircle))
+            .when()
+            .post(mResourceUrlPath + "/" + mExpectedEntity.getId() + "/shapes");
+        theResponse
+            .then()
+            .statusCode(200);
+        final Circle theCreatedCircle = JsonConverter.jsonToObject(theResponse.asString(), Circle.class);
+        Assertions.assertNotNull(theCreatedCircle.getId(), "Shape should have been assigned an id");
+        Assertions.assertEquals(mExpectedEntity.getShapes().size() + 1,
+            mDrawingRepository.findById(mExpectedEntity.getId()).orElseThrow().getShapes().size(),
+            "Shape should have been added to the drawing");
+
+        RestAssured
+            .given()
+            .when()
+            .delete(mResourceUrlPath + "/" + mExpectedEntity.getId() + "/shapes/" + theCreatedCircle.getId())
+            .then()
+            .statusCode(200);
+        Assertions.assertEquals(mExpectedEntity.getShapes().size(),
+            mDrawingRepository.findById(mExpectedEntity.getId()).orElseThrow().getShapes().size(),
+            "Shape should have been removed from the drawing");
+        Assertions.assertFalse(mCircleRepository.existsById(theCreatedCircle.getId()),
+            "Removed shape should have been deleted");
+    }
+
+    /**
+     * Tests renaming a drawing and adding a shape to it using a patch request.
+     * Expected outcome: The drawing should have the new name and one additional shape.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testPatchDrawing() throws Exception {
+        final String thePatch = "[{\"op\": \"replace\", \"path\": \"/name\", \"value\": \"Patched\"},"
+            + "{\"op\": \"add\", \"path\": \"/shapes/-\", \"value\": "
+            + JsonConverter.objectToJson(new CircleEntityFactory().createEntity(9)) + "}]";
+
+        RestAssured
+            .given()
+            .contentType(DrawingResource.JSON_PATCH_VALUE)
+            .body(thePatch)
+            .when()
+            .patch(mResourceUrlPath + "/" + mExpectedEntity.getId())
+            .then()
+            .statusCode(200);
+
+        final Drawing thePatchedDrawing = mDrawingRepository.findById(mExpectedEntity.getId()).orElseThrow();
+        Assertions.assertEquals("Patched", thePatchedDrawing.getName());
+        Assertions.assertEquals(mExpectedEntity.getShapes().size() + 1, thePatchedDrawing.getShapes().size());
+    }
+
+    /**
+     * Tests importing a drawing with more shapes than fit in one batch, with the name of the
+     * drawing following the shapes in the representation.
+     * Expected outcome: The drawing should be created with all the shapes and the number of
+     * shapes should be reported.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testImportDrawing() throws Exception {
+        final int theShapeCount = 1200;
+        final StringBuilder theDrawingJson = new StringBuilder("{\"creationDate\": 0, \"shapes\": [");
+        for (int i = 0; i < theShapeCount; i++) {
+            final Shape theShape = (i % 2 == 0)
+                ? new CircleEntityFactory().createEntity(i)
+                : new RectangleEntityFactory().createEntity(i);
+            theDrawingJson.append((i > 0) ? "," : "").append(JsonConverter.objectToJson(theShape));
+        }
+        theDrawingJson.append("], \"name\": \"Imported\"}");
+
+        final Response theResponse = RestAssured
+            .given()
+            .contentType("application/json")
+            .accept("application/json")
+            .queryParam(DrawingResource.STREAMING_PARAMETER, "")
+            .body(theDrawingJson.toString())
+            .when()
+            .post(mResourceUrlPath);
+        theResponse
+            .then()
+            .statusCode(200)
+            .body("name", Matchers.equalTo("Imported"))
+            .body(DrawingService.SHAPE_COUNT_PROPERTY, Matchers.equalTo(theShapeCount));
+
+        final Drawing theImportedDrawing = mDrawingRepository
+            .findById(theResponse.jsonPath().getLong("id"))
+            .orElseThrow();
+        Assertions.assertEquals("Imported", theImportedDrawing.getName());
+        Assertions.assertEquals(theShapeCount, theImportedDrawing.getShapes().size());
+    }
+
+    /**
+     * Tests importing a drawing containing invalid shapes.
+     * Expected outcome: HTTP status 400 with the invalid shapes reported by index and
+     * no drawing should have been created.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testImportDrawingInvalidShapes() throws Exception {
+        final long theDrawingCountBefore = mDrawingRepository.count();
+        final Circle theCircleWithoutColour = new CircleEntityFactory().createEntity(2);
+        theCircleWithoutColour.setColour(null);
+        final String theDrawingJson = "{\"name\": \"Invalid\", \"creationDate\": 0, \"shapes\": ["
+            + JsonConverter.objectToJson(new CircleEntityFactory().createEntity(1)) + ","
+            + JsonConverter.objectToJson(theCircleWithoutColour) + ","
+            + JsonConverter.objectToJson(new RectangleEntityFactory().createEntity(3)) + ","
+            + "{\"shapeType\": \".Triangle\"}]}";
+
+        RestAssured
+            .given()
+            .contentType("application/json")
+            .queryParam(DrawingResource.STREAMING_PARAMETER, "")
+            .body(theDrawingJson)
+            .when()
+            .post(mResourceUrlPath)
+            .then()
+            .statusCode(400)
+            .body(Matchers.containsString("shapes[1]: colour is required"))
+            .body(Matchers.containsString("shapes[3]: not a shape"))
+            .body(Matchers.not(Matchers.containsString("shapes[2]")));
+
+        Assertions.assertEquals(theDrawingCountBefore, mDrawingRepository.count(),
+            "No drawing should have been created");
+    }
+
+    /**
+     * Tests cloning a drawing with a new name.
+     * Expected outcome: A new drawing with the new name should be created containing copies
+     * of the shapes of the cloned drawing, which should be unchanged.
+     */
+    @Test
+    public void testCloneDrawing() {
+        final Response theResponse = RestAssured
+            .given()
+            .accept("application/json")
+            .queryParam(DrawingResource.NAME_PARAMETER, "Clone")
+            .when()
+            .post(mResourceUrlPath + "/" + mExpectedEntity.getId() + "/clone");
+        theResponse
+            .then()
+            .statusCode(200);
+
+        final Drawing theClone = mDrawingRepository
+            .findById(theResponse.jsonPath().getLong("id"))
+            .orElseThrow();
+        final Drawing theOriginal = mDrawingRepository.findById(mExpectedEntity.getId()).orElseThrow();
+        Assertions.assertNotEquals(theOriginal.getId(), theClone.getId());
+        Assertions.assertEquals("Clone", theClone.getName());
+        Assertions.assertEquals(mExpectedEntity.getShapes().size(), theOriginal.getShapes().size(),
+            "Cloned drawing should be unchanged");
+        Assertions.assertEquals(theOriginal.getShapes().size(), theClone.getShapes().size());
+        Assertions.assertEquals(
+            theOriginal.getShapes().stream().map(Shape::getColour).sorted().toList(),
+            theClone.getShapes().stream().map(Shape::getColour).sorted().toList());
+        for (final Shape theShape : theClone.getShapes()) {
+            Assertions.assertFalse(theOriginal.getShapes().contains(theShape),
+                "Clone should contain copies of shapes");
+        }
+    }
+
+    /**
+     * Tests cloning a drawing that does not exist.
+     * Expected outcome: HTTP status 404 and no drawing should have been created.
+     */
+    @Test
+    public void testCloneMissingDrawing() {
+        final long theDrawingCountBefore = mDrawingRepository.count();
+
+        RestAssured
+            .given()
+            .when()
+            .post(mResourceUrlPath + "/" + Long.MAX_VALUE + "/clone")
+            .then()
+            .statusCode(404);
+
+        Assertions.assertEquals(theDrawingCountBefore, mDrawingRepository.count());
+    }
+
+    /**
+     * Tests retrieving versions of a drawing after renaming it, adding a shape and removing a shape.
+     * Expected outcome: Each version should contain the name and shapes of the drawing as they
+     * were after the change creating the version, with the first version being the drawing
+     * as it was created.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testDrawingVersions() throws Exception {
+        final String theDrawingPath = mResourceUrlPath + "/" + mExpectedEntity.getId();
+        final int theShapeCount = mExpectedEntity.getShapes().size();
+        final Long theRemovedShapeId = mExpectedEntity.getShapes().iterator().next().getId();
+        getDrawingVersion(2).then().statusCode(404);
+
+        patchDrawingName("Version2");
+        RestAssured
+            .given()
+            .contentType("application/json")
+            .body(JsonConverter.objectToJson(new CircleEntityFactory().createEntity(11)))
+            .when()
+            .post(theDrawingPath + "/shapes")
+            .then()
+            .statusCode(200);
+        RestAssured
+            .given()
+            .when()
+            .delete(theDrawingPath + "/shapes/" + theRemovedShapeId)
+            .then()
+            .statusCode(200);
+
+        getDrawingVersion(1).then().statusCode(200)
+            .body("name", Matchers.equalTo(mExpectedEntity.getName()))
+            .body("shapes", Matchers.hasSize(theShapeCount));
+        getDrawingVersion(2).then().statusCode(200)
+            .body("name", Matchers.equalTo("Version2"))
+            .body("shapes", Matchers.hasSize(theShapeCount));
+        getDrawingVersion(3).then().statusCode(200)
+            .body("shapes", Matchers.hasSize(theShapeCount + 1));
+        getDrawingVersion(4).then().statusCode(200)
+            .body("shapes", Matchers.hasSize(theShapeCount))
+            .body("shapes.id", Matchers.not(Matchers.hasItem(theRemovedShapeId.intValue())));
+        getDrawingVersion(5).then().statusCode(404);
+
+        final List<Integer> theChangedShapeCounts = RestAssured
+            .given()
+            .accept("application/json")
+            .when()
+            .get(theDrawingPath + "/versions")
+            .then()
+            .statusCode(200)
+            .extract()
+            .jsonPath()
+            .getList("changedShapeCount", Integer.class);
+        Assertions.assertEquals(List.of(theShapeCount, 0, 1, 1), theChangedShapeCounts);
+    }
+
+    /**
+     * Tests retrieving versions of a drawing after its versions have been compacted.
+     * Expected outcome: The latest version should have a snapshot and the versions before
+     * and at the snapshot should be unchanged.
+     */
+    @Test
+    public void testCompactedDrawingVersions() {
+        final int theVersionCount = 12;
+        for (int theVersion = 2; theVersion <= theVersionCount; theVersion++) {
+            patchDrawingName("Version" + theVersion);
+        }
+
+        mDrawingVersionService.compactVersions();
+
+        final List<Boolean> theSnapshotFlags = RestAssured
+            .given()
+            .accept("application/json")
+            .when()
+            .get(mResourceUrlPath + "/" + mExpectedEntity.getId() + "/versions")
+            .then()
+            .statusCode(200)
+            .extract()
+            .jsonPath()
+            .getList("snapshot", Boolean.class);
+        Assertions.assertEquals(theVersionCount, theSnapshotFlags.size());
+        Assertions.assertTrue(theSnapshotFlags.get(theVersionCount - 1), "Latest version should have snapshot");
+        for (final int theVersion : List.of(1, 6, theVersionCount)) {
+            getDrawingVersion(theVersion).then().statusCode(200)
+                .body("name", Matchers.equalTo((theVersion == 1) ? mExpectedEntity.getName() : "Version" + theVersion))
+                .body("shapes", Matchers.hasSize(mExpectedEntity.getShapes().size()));
+        }
+    }
+
+    /**
+     * Tests comparing a drawing against its first version after removing, modifying and adding a shape.
+     * Expected outcome: The diff should contain the removed shape, the modified shape before and
+     * after modification and the added shape. The diff against the latest version should be empty.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testDrawingDiffAgainstVersion() throws Exception {
+        final Iterator<Shape> theShapes = mExpectedEntity.getShapes().iterator();
+        final Long theRemovedShapeId = theShapes.next().getId();
+        final Shape theModifiedShape = theShapes.next();
+        final String theOriginalColour = theModifiedShape.getColour();
+        theModifiedShape.setColour("purple");
+        final String thePatch = "[{\"op\": \"remove\", \"path\": \"/shapes/" + theRemovedShapeId + "\"},"
+            + "{\"op\": \"replace\", \"path\": \"/shapes/" + theModifiedShape.getId() + "\", \"value\": "
+            + JsonConverter.objectToJson(theModifiedShape) + "},"
+            + "{\"op\": \"add\", \"path\": \"/shapes/-\", \"value\": "
+            + JsonConverter.objectToJson(new CircleEntityFactory().createEntity(13)) + "}]";
+        RestAssured
+            .given()
+            .contentType(DrawingResource.JSON_PATCH_VALUE)
+            .body(thePatch)
+            .when()
+            .patch(mResourceUrlPath + "/" + mExpectedEntity.getId())
+            .then()
+            .statusCode(200);
+
+        getDrawingDiff(mExpectedEntity.getId(), DrawingResource.AGAINST_VERSION_PREFIX + 1).then().statusCode(200)
+            .body("drawingId", Matchers.equalTo(mExpectedEntity.getId().intValue()))
+            .body("againstVersion", Matchers.equalTo(1))
+            .body("added", Matchers.hasSize(1))
+            .body("removed.id", Matchers.contains(theRemovedShapeId.intValue()))
+            .body("modified", Matchers.hasSize(1))
+            .body("modified[0].before.colour", Matchers.equalTo(theOriginalColour))
+            .body("modified[0].after.colour", Matchers.equalTo("purple"));
+        getDrawingDiff(mExpectedEntity.getId(), DrawingResource.AGAINST_VERSION_PREFIX + 2).then().statusCode(200)
+            .body("added", Matchers.empty())
+            .body("removed", Matchers.empty())
+            .body("modified", Matchers.empty());
+    }
+
+    /**
+     * Tests comparing a clone of a drawing, to which a shape has been added, against the drawing.
+     * Expected outcome: The shapes copied to the clone should be matched by content and only
+     * the added shape should be in the diff.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testDrawingDiffAgainstOtherDrawing() throws Exception {
+        final long theCloneId = RestAssured
+            .given()
+            .accept("application/json")
+            .when()
+            .post(mResourceUrlPath + "/" + mExpectedEntity.getId() + "/clone")
+            .then()
+            .statusCode(200)
+            .extract()
+            .jsonPath()
+            .getLong("id");
+        RestAssured
+            .given()
+            .contentType("application/json")
+            .body(JsonConverter.objectToJson(new CircleEntityFactory().createEntity(14)))
+            .when()
+            .post(mResourceUrlPath + "/" + theCloneId + "/shapes")
+            .then()
+            .statusCode(200);
+
+        getDrawingDiff(theCloneId, String.valueOf(mExpectedEntity.getId())).then().statusCode(200)
+            .body("againstDrawingId", Matchers.equalTo(mExpectedEntity.getId().intValue()))
+            .body("added", Matchers.hasSize(1))
+            .body("added[0].shapeType", Matchers.equalTo(".Circle"))
+            .body("removed", Matchers.empty())
+            .body("modified", Matchers.empty());
+    }
+
+    /**
+     * Tests comparing a drawing against a version that does not exist and against a malformed
+     * drawing id or version.
+     * Expected outcome: HTTP status 404 and HTTP status 400 respectively.
+     */
+    @Test
+    public void testDrawingDiffErrors() {
+        getDrawingDiff(mExpectedEntity.getId(), DrawingResource.AGAINST_VERSION_PREFIX + 2).then().statusCode(404);
+        getDrawingDiff(mExpectedEntity.getId(), String.valueOf(Long.MAX_VALUE)).then().statusCode(404);
+        getDrawingDiff(mExpectedEntity.getId(), "not-a-version").then().statusCode(400);
+    }
+
+    /**
+     * Renames the expected drawing using a patch request.
+     *
+     * @param inName New name of drawing.
+     */
+    protected void patchDrawingName(final String inName) {
+        RestAssured
+            .given()
+            .contentType(DrawingResource.JSON_PATCH_VALUE)
+            .body("[{\"op\": \"replace\", \"path\": \"/name\", \"value\": \"" + inName + "\"}]")
+            .when()
+            .patch(mResourceUrlPath + "/" + mExpectedEntity.getId())
+            .then()
+            .statusCode(200);
+    }
+
+    /**
+     * Retrieves the supplied version of the expected drawing.
+     *
+     * @param inVersion Version number.
+     * @return Response.
+     */
+    protected Response getDrawingVersion(final long inVersion) {
+        return RestAssured
+            .given()
+            .accept("application/json")
+            .queryParam(DrawingResource.VERSION_PARAMETER, inVersion)
+            .when()
+            .get(mResourceUrlPath + "/" + mExpectedEntity.getId());
+    }
+
+    /**
+     * Compares the drawing with supplied id against the supplied drawing or version.
+     *
+     * @param inDrawingId Drawing id.
+     * @param inAgainst Id of drawing or version to compare against.
+     * @return Response.
+     */
+    protected Response getDrawingDiff(final Long inDrawingId, final String inAgainst) {
+        return RestAssured
+            .given()
+            .accept("application/json")
+            .queryParam(DrawingResource.AGAINST_PARAMETER, inAgainst)
+            .when()
+            .get(mResourceUrlPath + "/" + inDrawingId + "/diff");
+    }
 }
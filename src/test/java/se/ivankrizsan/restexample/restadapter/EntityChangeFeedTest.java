@@ -0,0 +1,448 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import io.restassured.RestAssured;
+import io.restassured.path.json.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.support.TransactionTemplate;
+import se.ivankrizsan.restexample.domain.Circle;
+import se.ivankrizsan.restexample.domain.Rectangle;
+import se.ivankrizsan.restexample.helpers.CircleEntityFactory;
+import se.ivankrizsan.restexample.repositories.CircleRepository;
+import se.ivankrizsan.restexample.repositories.DrawingRepository;
+import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisationsImpl;
+import se.ivankrizsan.restexample.services.EntityChangeEvent;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Tests the {@code EntityChangeFeed} and the change subscriptions of the REST resources of entity types.
+ * Events are received by subscribing to the changes of circles over HTTP.
+ *
+ * @author Ivan Krizsan
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+@EnableJpaRepositories(basePackages = {"se.ivankrizsan.restexample.repositories"},
+    repositoryBaseClass = JpaRepositoryCustomisationsImpl.class)
+public class EntityChangeFeedTest {
+    /* Constant(s): */
+    protected static final int ENDPOINT_PORT = 8080;
+    protected static final String CIRCLE_TYPE = Circle.class.getSimpleName();
+    protected static final String CIRCLE_JSON =
+        "{\"shapeType\": \".Circle\", \"radius\": 10, \"position\": {\"x\": 1.0, \"y\": 2.0}, \"colour\": \"red\"}";
+    /** Id of circle in the marker event published to tell that all preceding events have been received. */
+    protected static final long MARKER_ID = -1L;
+    protected static final long EVENT_TIMEOUT_SECONDS = 10;
+    /** Time in milliseconds to wait for events that are not expected to arrive. */
+    protected static final long NO_EVENT_WAIT = 500;
+    protected static final long SUBSCRIPTION_POLL_INTERVAL = 10;
+    /** Number of dispatch threads of the change feed in the application configuration. */
+    protected static final int DISPATCH_THREADS = 2;
+    /** Capacity of the buffers of subscribers in the application configuration. */
+    protected static final int SUBSCRIBER_BUFFER_CAPACITY = 256;
+    /** Capacity of the ring of recent events in the application configuration. */
+    protected static final int RECENT_EVENTS_CAPACITY = 1024;
+
+    /* Instance variable(s): */
+    @Autowired
+    protected EntityChangeFeed mChangeFeed;
+    @Autowired
+    protected ApplicationEventPublisher mEventPublisher;
+    @Autowired
+    protected TransactionTemplate mTransactionTemplate;
+    @Autowired
+    protected CircleRepository mCircleRepository;
+    @Autowired
+    protected DrawingRepository mDrawingRepository;
+    protected final HttpClient mHttpClient = HttpClient.newHttpClient();
+    protected final List<EntityChangeFeed.Subscription> mSubscriptions = new ArrayList<>();
+
+    /**
+     * Sets up RestAssured test framework and deletes all circles before each test.
+     */
+    @BeforeEach
+    public void prepareBeforeTest() {
+        RestAssured.reset();
+        RestAssured.port = ENDPOINT_PORT;
+        RestAssured.basePath = "";
+
+        mDrawingRepository.deleteAll();
+        mCircleRepository.deleteAll();
+    }
+
+    /**
+     * Closes the subscriptions opened by the test.
+     */
+    @AfterEach
+    public void cleanUpAfterTest() {
+        mSubscriptions.forEach(inSubscription -> inSubscription.mEmitter.complete());
+        mSubscriptions.clear();
+    }
+
+    /**
+     * Tests creating a circle in a transaction while subscribed to changes of circles.
+     * Expected outcome: A create event with the id of the circle should be received
+     * after, and only after, the transaction has been committed.
+     */
+    @Test
+    public void testEventSentAfterCommit() throws InterruptedException {
+        final BlockingQueue<ServerSentEvent> theEvents = subscribe(null);
+
+        final Circle theCircle = mTransactionTemplate.execute(inStatus -> {
+            final Circle theSavedCircle = mCircleRepository.save(new CircleEntityFactory().createEntity(1));
+            publishChange(theSavedCircle.getId(), EntityChangeEvent.Operation.CREATE);
+            Assertions.assertNull(pollNoEvent(theEvents), "No event should be sent before commit");
+            return theSavedCircle;
+        });
+
+        final ServerSentEvent theEvent = nextEvent(theEvents);
+        Assertions.assertEquals(EntityChangeEvent.Operation.CREATE.name(), theEvent.name());
+        Assertions.assertEquals(theCircle.getId(), theEvent.entityId());
+        Assertions.assertEquals(CIRCLE_TYPE, theEvent.data().getString("type"));
+        Assertions.assertEquals(mChangeFeed.latestSequence(), theEvent.id());
+    }
+
+    /**
+     * Tests creating a circle using the REST resource while subscribed to changes of circles.
+     * Expected outcome: A create event with the id of the created circle should be received.
+     */
+    @Test
+    public void testEventSentOnCreateRequest() throws InterruptedException {
+        final BlockingQueue<ServerSentEvent> theEvents = subscribe(null);
+
+        final long theCircleId = RestAssured
+            .given()
+            .contentType("application/json")
+            .accept("application/json")
+            .body(CIRCLE_JSON)
+            .when()
+            .post(CircleResource.PATH)
+            .then()
+            .statusCode(200)
+            .extract()
+            .jsonPath()
+            .getLong("id");
+
+        final ServerSentEvent theEvent = nextEvent(theEvents);
+        Assertions.assertEquals(EntityChangeEvent.Operation.CREATE.name(), theEvent.name());
+        Assertions.assertEquals(theCircleId, theEvent.entityId());
+    }
+
+    /**
+     * Tests publishing a change in a transaction that is rolled back.
+     * Expected outcome: No event should be received for the change.
+     */
+    @Test
+    public void testNoEventSentOnRollback() throws InterruptedException {
+        final BlockingQueue<ServerSentEvent> theEvents = subscribe(null);
+
+        mTransactionTemplate.executeWithoutResult(inStatus -> {
+            publishChange(1L, EntityChangeEvent.Operation.UPDATE);
+            inStatus.setRollbackOnly();
+        });
+        publishMarker();
+
+        Assertions.assertEquals(MARKER_ID, nextEvent(theEvents).entityId());
+    }
+
+    /**
+     * Tests making repeated changes to the same circles before they have been sent to the subscriber.
+     * Expected outcome: One event per circle, with the sequence number of its latest change, should be
+     * received in order of the latest changes and a circle created and then updated should be sent as created.
+     */
+    @Test
+    public void testRepeatedChangesCoalesced() throws InterruptedException {
+        final BlockingQueue<ServerSentEvent> theEvents = subscribe(null);
+
+        withDispatchBlocked(() -> {
+            publishChange(1L, EntityChangeEvent.Operation.CREATE);
+            publishChange(1L, EntityChangeEvent.Operation.UPDATE);
+            publishChange(2L, EntityChangeEvent.Operation.UPDATE);
+            publishChange(1L, EntityChangeEvent.Operation.UPDATE);
+            publishChange(2L, EntityChangeEvent.Operation.UPDATE);
+        });
+        final long theLatestSequence = mChangeFeed.latestSequence();
+        publishMarker();
+
+        final ServerSentEvent theFirstEvent = nextEvent(theEvents);
+        final ServerSentEvent theSecondEvent = nextEvent(theEvents);
+        Assertions.assertEquals(1L, theFirstEvent.entityId());
+        Assertions.assertEquals(EntityChangeEvent.Operation.CREATE.name(), theFirstEvent.name());
+        Assertions.assertEquals(theLatestSequence - 1, theFirstEvent.id());
+        Assertions.assertEquals(2L, theSecondEvent.entityId());
+        Assertions.assertEquals(EntityChangeEvent.Operation.UPDATE.name(), theSecondEvent.name());
+        Assertions.assertEquals(theLatestSequence, theSecondEvent.id());
+        Assertions.assertEquals(MARKER_ID, nextEvent(theEvents).entityId());
+    }
+
+    /**
+     * Tests changing more circles than fit in the buffer of the subscriber before they have been sent.
+     * Expected outcome: A single reset event should be received instead of the changes.
+     */
+    @Test
+    public void testBufferOverflowSendsReset() throws InterruptedException {
+        final BlockingQueue<ServerSentEvent> theEvents = subscribe(null);
+
+        withDispatchBlocked(() -> {
+            for (long theCircleId = 1; theCircleId <= SUBSCRIBER_BUFFER_CAPACITY + 1; theCircleId++) {
+                publishChange(theCircleId, EntityChangeEvent.Operation.UPDATE);
+            }
+        });
+        publishMarker();
+
+        final ServerSentEvent theEvent = nextEvent(theEvents);
+        Assertions.assertEquals(ChangeFeedEvent.OP_RESET, theEvent.name());
+        Assertions.assertNull(theEvent.entityId());
+        Assertions.assertEquals(MARKER_ID, nextEvent(theEvents).entityId());
+    }
+
+    /**
+     * Tests resuming a subscription with the id of the last event received.
+     * Expected outcome: The changes of circles made after that event should be replayed in order.
+     */
+    @Test
+    public void testResumeReplaysRecentEvents() throws InterruptedException {
+        final long theLastEventId = mChangeFeed.latestSequence();
+        publishChange(1L, EntityChangeEvent.Operation.CREATE);
+        mEventPublisher.publishEvent(
+            new EntityChangeEvent(Rectangle.class.getSimpleName(), 2L, EntityChangeEvent.Operation.CREATE));
+        publishChange(3L, EntityChangeEvent.Operation.DELETE);
+
+        final BlockingQueue<ServerSentEvent> theEvents = subscribe(theLastEventId);
+
+        final ServerSentEvent theFirstEvent = nextEvent(theEvents);
+        final ServerSentEvent theSecondEvent = nextEvent(theEvents);
+        Assertions.assertEquals(theLastEventId + 1, theFirstEvent.id());
+        Assertions.assertEquals(1L, theFirstEvent.entityId());
+        Assertions.assertEquals(EntityChangeEvent.Operation.CREATE.name(), theFirstEvent.name());
+        Assertions.assertEquals(theLastEventId + 3, theSecondEvent.id());
+        Assertions.assertEquals(3L, theSecondEvent.entityId());
+        Assertions.assertEquals(EntityChangeEvent.Operation.DELETE.name(), theSecondEvent.name());
+        Assertions.assertNull(pollNoEvent(theEvents));
+    }
+
+    /**
+     * Tests resuming a subscription with the id of an event no longer among the recent events.
+     * Expected outcome: A reset event should be received.
+     */
+    @Test
+    public void testResumeFromExpiredEventSendsReset() throws InterruptedException {
+        final long theLastEventId = mChangeFeed.latestSequence();
+        for (long theCircleId = 1; theCircleId <= RECENT_EVENTS_CAPACITY + 1; theCircleId++) {
+            publishChange(theCircleId, EntityChangeEvent.Operation.UPDATE);
+        }
+
+        final BlockingQueue<ServerSentEvent> theEvents = subscribe(theLastEventId);
+
+        final ServerSentEvent theEvent = nextEvent(theEvents);
+        Assertions.assertEquals(ChangeFeedEvent.OP_RESET, theEvent.name());
+        Assertions.assertEquals(mChangeFeed.latestSequence(), theEvent.id());
+        Assertions.assertNull(pollNoEvent(theEvents));
+    }
+
+    /**
+     * Tests resuming a subscription with the id of an event not yet published, as when resuming
+     * with the id of an event received before the application was restarted.
+     * Expected outcome: A reset event should be received.
+     */
+    @Test
+    public void testResumeFromFutureEventSendsReset() throws InterruptedException {
+        final BlockingQueue<ServerSentEvent> theEvents = subscribe(mChangeFeed.latestSequence() + 100);
+
+        final ServerSentEvent theEvent = nextEvent(theEvents);
+        Assertions.assertEquals(ChangeFeedEvent.OP_RESET, theEvent.name());
+        Assertions.assertNull(pollNoEvent(theEvents));
+    }
+
+    /**
+     * Subscribes to changes of circles, collecting the received events in the returned queue.
+     * The response headers are not sent until the first event is sent, so the subscription is
+     * considered registered when it appears among the subscriptions of the change feed.
+     *
+     * @param inLastEventId Id of last event received when resuming a subscription, null for a new subscription.
+     * @return Queue receiving events.
+     * @throws InterruptedException If interrupted waiting for the subscription to be registered.
+     */
+    protected BlockingQueue<ServerSentEvent> subscribe(final Long inLastEventId) throws InterruptedException {
+        final HttpRequest.Builder theRequestBuilder = HttpRequest
+            .newBuilder(URI.create("http://localhost:" + ENDPOINT_PORT + CircleResource.PATH + "/changes"))
+            .header("Accept", MediaType.TEXT_EVENT_STREAM_VALUE);
+        if (inLastEventId != null) {
+            theRequestBuilder.header(EntityChangeFeed.LAST_EVENT_ID_HEADER, inLastEventId.toString());
+        }
+        final List<EntityChangeFeed.Subscription> theExistingSubscriptions =
+            new ArrayList<>(mChangeFeed.mSubscriptions);
+        final CompletableFuture<HttpResponse<Stream<String>>> theResponse =
+            mHttpClient.sendAsync(theRequestBuilder.build(), HttpResponse.BodyHandlers.ofLines());
+
+        final BlockingQueue<ServerSentEvent> theEvents = new LinkedBlockingQueue<>();
+        theResponse.thenAcceptAsync(inResponse -> {
+            final List<String> theEventLines = new ArrayList<>();
+            try (Stream<String> theLines = inResponse.body()) {
+                theLines.forEach(inLine -> {
+                    if (inLine.isEmpty()) {
+                        if (!theEventLines.isEmpty()) {
+                            theEvents.add(ServerSentEvent.parse(theEventLines));
+                            theEventLines.clear();
+                        }
+                    } else {
+                        theEventLines.add(inLine);
+                    }
+                });
+            } catch (final RuntimeException theException) {
+                /* The stream fails if the connection is closed before the subscription has been completed. */
+            }
+        });
+
+        final long theDeadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(EVENT_TIMEOUT_SECONDS);
+        while (System.currentTimeMillis() < theDeadline) {
+            final Optional<EntityChangeFeed.Subscription> theNewSubscription = mChangeFeed.mSubscriptions
+                .stream()
+                .filter(inSubscription -> !theExistingSubscriptions.contains(inSubscription))
+                .findFirst();
+            if (theNewSubscription.isPresent()) {
+                mSubscriptions.add(theNewSubscription.get());
+                return theEvents;
+            }
+            Thread.sleep(SUBSCRIPTION_POLL_INTERVAL);
+        }
+        return Assertions.fail("Subscription not registered");
+    }
+
+    /**
+     * Runs the supplied action while all threads sending events to subscribers are busy,
+     * so that the events published by the action are buffered until the action has completed.
+     *
+     * @param inAction Action to run.
+     * @throws InterruptedException If interrupted waiting for the dispatch threads.
+     */
+    protected void withDispatchBlocked(final Runnable inAction) throws InterruptedException {
+        final CountDownLatch theBlockedSignal = new CountDownLatch(DISPATCH_THREADS);
+        final CountDownLatch theReleaseSignal = new CountDownLatch(1);
+        for (int i = 0; i < DISPATCH_THREADS; i++) {
+            mChangeFeed.mDispatchExecutor.execute(() -> {
+                theBlockedSignal.countDown();
+                try {
+                    theReleaseSignal.await();
+                } catch (final InterruptedException theException) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        try {
+            Assertions.assertTrue(theBlockedSignal.await(EVENT_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            inAction.run();
+        } finally {
+            theReleaseSignal.countDown();
+        }
+    }
+
+    /**
+     * Publishes a change of the circle with supplied id, as done by the circle service.
+     *
+     * @param inCircleId Id of changed circle.
+     * @param inOperation Change operation.
+     */
+    protected void publishChange(final Long inCircleId, final EntityChangeEvent.Operation inOperation) {
+        mEventPublisher.publishEvent(new EntityChangeEvent(CIRCLE_TYPE, inCircleId, inOperation));
+    }
+
+    /**
+     * Publishes a marker event telling that all events published before it have been received
+     * when it is received.
+     */
+    protected void publishMarker() {
+        publishChange(MARKER_ID, EntityChangeEvent.Operation.UPDATE);
+    }
+
+    /**
+     * Retrieves the next event from the supplied queue, failing if no event is received in time.
+     *
+     * @param inEvents Queue receiving events.
+     * @return Next event.
+     * @throws InterruptedException If interrupted waiting for the event.
+     */
+    protected static ServerSentEvent nextEvent(final BlockingQueue<ServerSentEvent> inEvents)
+        throws InterruptedException {
+        final ServerSentEvent theEvent = inEvents.poll(EVENT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Assertions.assertNotNull(theEvent, "No event received");
+        return theEvent;
+    }
+
+    /**
+     * Waits a short while for an event that is not expected to arrive.
+     *
+     * @param inEvents Queue receiving events.
+     * @return Event received, or null if no event was received.
+     */
+    protected static ServerSentEvent pollNoEvent(final BlockingQueue<ServerSentEvent> inEvents) {
+        try {
+            return inEvents.poll(NO_EVENT_WAIT, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException theException) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * A server-sent event received from the change feed.
+     *
+     * @param id Event id, which is the sequence number of the change.
+     * @param name Event name, which is the change operation.
+     * @param data Event data.
+     */
+    protected record ServerSentEvent(long id, String name, JsonPath data) {
+        /**
+         * Parses the supplied lines of a server-sent event.
+         *
+         * @param inLines Lines of event.
+         * @return Event.
+         */
+        protected static ServerSentEvent parse(final List<String> inLines) {
+            long theId = 0;
+            String theName = null;
+            final StringBuilder theData = new StringBuilder();
+            for (final String theLine : inLines) {
+                final int theColonIndex = theLine.indexOf(':');
+                final String theValue = theLine.substring(theColonIndex + 1).trim();
+                switch (theLine.substring(0, theColonIndex)) {
+                    case "id" -> theId = Long.parseLong(theValue);
+                    case "event" -> theName = theValue;
+                    case "data" -> theData.append(theValue);
+                    default -> {
+                    }
+                }
+            }
+            return new ServerSentEvent(theId, theName, JsonPath.from(theData.toString()));
+        }
+
+        /**
+         * Retrieves the id of the changed entity.
+         *
+         * @return Entity id, null if the event concerns all entities.
+         */
+        protected Long entityId() {
+            final Number theEntityId = data.get("id");
+            return (theEntityId != null) ? theEntityId.longValue() : null;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import se.ivankrizsan.restexample.repositories.CircleRepository;
+import se.ivankrizsan.restexample.repositories.DrawingRepository;
+import se.ivankrizsan.restexample.repositories.IdempotencyRecordRepository;
+import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisationsImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Tests the {@code IdempotencyStore} and the idempotency keys of the REST resources of entity types.
+ *
+ * @author Ivan Krizsan
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+@EnableJpaRepositories(basePackages = {"se.ivankrizsan.restexample.repositories"},
+    repositoryBaseClass = JpaRepositoryCustomisationsImpl.class)
+public class IdempotencyStoreTest {
+    /* Constant(s): */
+    protected static final int ENDPOINT_PORT = 8080;
+    protected static final String CIRCLE_JSON =
+        "{\"shapeType\": \".Circle\", \"radius\": 10, \"position\": {\"x\": 1.0, \"y\": 2.0}, \"colour\": \"red\"}";
+    protected static final int CONCURRENT_REQUESTS = 8;
+
+    /* Instance variable(s): */
+    @Autowired
+    protected IdempotencyRecordRepository mIdempotencyRecordRepository;
+    @Autowired
+    protected CircleRepository mCircleRepository;
+    @Autowired
+    protected DrawingRepository mDrawingRepository;
+
+    /**
+     * Sets up RestAssured test framework and deletes all circles and idempotency records before each test.
+     */
+    @BeforeEach
+    public void prepareBeforeTest() {
+        RestAssured.reset();
+        RestAssured.port = ENDPOINT_PORT;
+        RestAssured.basePath = "";
+
+        mIdempotencyRecordRepository.deleteAll();
+        mDrawingRepository.deleteAll();
+        mCircleRepository.deleteAll();
+    }
+
+    /**
+     * Tests retrying the creation of a circle with the same idempotency key.
+     * Expected outcome: Only one circle should be created and the retry should replay
+     * the response of the first request.
+     */
+    @Test
+    public void testRetriedCreateReplaysResponse() {
+        final Response theFirstResponse = createCircle("retry-key", CIRCLE_JSON);
+        final Response theRetryResponse = createCircle("retry-key", CIRCLE_JSON);
+
+        Assertions.assertEquals(200, theFirstResponse.statusCode());
+        Assertions.assertNull(theFirstResponse.header(IdempotencyStore.IDEMPOTENT_REPLAYED_HEADER));
+        Assertions.assertEquals(200, theRetryResponse.statusCode());
+        Assertions.assertEquals("true", theRetryResponse.header(IdempotencyStore.IDEMPOTENT_REPLAYED_HEADER));
+        Assertions.assertEquals(theFirstResponse.jsonPath().getLong("id"), theRetryResponse.jsonPath().getLong("id"));
+        Assertions.assertEquals(".Circle", theRetryResponse.jsonPath().getString("shapeType"));
+        Assertions.assertEquals(1, mCircleRepository.count());
+    }
+
+    /**
+     * Tests reusing an idempotency key with a different request body.
+     * Expected outcome: HTTP status 422 and no second circle created.
+     */
+    @Test
+    public void testKeyReusedWithDifferentRequest() {
+        createCircle("reused-key", CIRCLE_JSON);
+
+        createCircle("reused-key", CIRCLE_JSON.replace("red", "blue"))
+            .then()
+            .statusCode(422);
+        Assertions.assertEquals(1, mCircleRepository.count());
+    }
+
+    /**
+     * Tests sending concurrent duplicate requests with the same idempotency key.
+     * Expected outcome: Only one circle should be created and all requests should
+     * receive its representation.
+     */
+    @Test
+    public void testConcurrentDuplicateRequests() {
+        final CountDownLatch theStartSignal = new CountDownLatch(1);
+        final List<CompletableFuture<Response>> theResponses = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            theResponses.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    theStartSignal.await();
+                } catch (final InterruptedException theException) {
+                    Thread.currentThread().interrupt();
+                }
+                return createCircle("concurrent-key", CIRCLE_JSON);
+            }));
+        }
+        theStartSignal.countDown();
+
+        final long theCircleId = theResponses.get(0).join().jsonPath().getLong("id");
+        for (final CompletableFuture<Response> theResponse : theResponses) {
+            Assertions.assertEquals(200, theResponse.join().statusCode());
+            Assertions.assertEquals(theCircleId, theResponse.join().jsonPath().getLong("id"));
+        }
+        Assertions.assertEquals(1, mCircleRepository.count());
+    }
+
+    /**
+     * Tests updating a circle that does not exist with an idempotency key.
+     * Expected outcome: The failed request should not be recorded.
+     */
+    @Test
+    public void testFailedRequestNotRecorded() {
+        RestAssured
+            .given()
+            .contentType("application/json")
+            .header(RestResourceBasePlain.IDEMPOTENCY_KEY_HEADER, "failed-key")
+            .body(CIRCLE_JSON)
+            .when()
+            .put(CircleResource.PATH + "/" + Long.MAX_VALUE)
+            .then()
+            .statusCode(Matchers.greaterThanOrEqualTo(400));
+
+        Assertions.assertEquals(0, mIdempotencyRecordRepository.count());
+    }
+
+    /**
+     * Creates a circle from the supplied JSON representation with the supplied idempotency key.
+     *
+     * @param inIdempotencyKey Idempotency key.
+     * @param inCircleJson JSON representation of circle.
+     * @return Response.
+     */
+    protected Response createCircle(final String inIdempotencyKey, final String inCircleJson) {
+        return RestAssured
+            .given()
+            .contentType("application/json")
+            .accept("application/json")
+            .header(RestResourceBasePlain.IDEMPOTENCY_KEY_HEADER, inIdempotencyKey)
+            .body(inCircleJson)
+            .when()
+            .post(CircleResource.PATH);
+    }
+}
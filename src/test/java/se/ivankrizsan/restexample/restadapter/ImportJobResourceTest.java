@@ -0,0 +1,221 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import io.restassured.RestAssured;
+import io.restassured.config.EncoderConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.http.MediaType;
+import se.ivankrizsan.restexample.domain.ImportJob;
+import se.ivankrizsan.restexample.domain.ImportJobChunk;
+import se.ivankrizsan.restexample.repositories.CircleRepository;
+import se.ivankrizsan.restexample.repositories.DrawingRepository;
+import se.ivankrizsan.restexample.repositories.ImportJobChunkRepository;
+import se.ivankrizsan.restexample.repositories.ImportJobRepository;
+import se.ivankrizsan.restexample.repositories.RectangleRepository;
+import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisationsImpl;
+import se.ivankrizsan.restexample.services.imports.ImportJobService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests the {@code ImportJobResource} and the imports of the REST resources of entity types.
+ *
+ * @author Ivan Krizsan
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+@EnableJpaRepositories(basePackages = {"se.ivankrizsan.restexample.repositories"},
+    repositoryBaseClass = JpaRepositoryCustomisationsImpl.class)
+public class ImportJobResourceTest {
+    /* Constant(s): */
+    protected static final int ENDPOINT_PORT = 8080;
+    protected static final long TEST_TIMEOUT = 30000;
+    protected static final int COMMIT_SIZE = 1000;
+
+    /* Instance variable(s): */
+    @Autowired
+    protected ImportJobService mImportJobService;
+    @Autowired
+    protected ImportJobRepository mImportJobRepository;
+    @Autowired
+    protected ImportJobChunkRepository mImportJobChunkRepository;
+    @Autowired
+    protected CircleRepository mCircleRepository;
+    @Autowired
+    protected RectangleRepository mRectangleRepository;
+    @Autowired
+    protected DrawingRepository mDrawingRepository;
+
+    /**
+     * Sets up RestAssured test framework and deletes all shapes before each test.
+     * RestAssured is told to send NDJSON request bodies as text, since it does not know the media type.
+     */
+    @BeforeEach
+    public void prepareBeforeTest() {
+        RestAssured.reset();
+        RestAssured.port = ENDPOINT_PORT;
+        RestAssured.basePath = "";
+        RestAssured.config = RestAssuredConfig.config().encoderConfig(EncoderConfig.encoderConfig()
+            .encodeContentTypeAs(MediaType.APPLICATION_NDJSON_VALUE, ContentType.TEXT));
+
+        mDrawingRepository.deleteAll();
+        mCircleRepository.deleteAll();
+        mRectangleRepository.deleteAll();
+    }
+
+    /**
+     * Tests importing circles from a CSV file containing an invalid row.
+     * Expected outcome: The valid circles should be imported and the invalid row should be
+     * reported as rejected with its line number.
+     */
+    @Test
+    public void testImportCsv() {
+        final String theCsv = "colour,radius,position.x,position.y\n"
+            + "red,10,1,2\n"
+            + "\"blue, dark\",20,3,4\n"
+            + "green,thirty,5,6\n"
+            + "\n"
+            + ",40,7,8\n";
+
+        final String theJobLocation = RestAssured
+            .given()
+            .contentType(RestResourceBasePlain.TEXT_CSV_VALUE)
+            .accept("application/json")
+            .body(theCsv)
+            .when()
+            .post(CircleResource.PATH + "/imports")
+            .then()
+            .statusCode(202)
+            .body("totalRows", Matchers.equalTo(4))
+            .extract()
+            .header("Location");
+
+        final JsonPath theJobStatus = awaitJobCompletion(theJobLocation);
+        Assertions.assertEquals(ImportJob.Status.COMPLETED.name(), theJobStatus.getString("status"));
+        Assertions.assertEquals(2, theJobStatus.getInt("importedRows"));
+        Assertions.assertEquals(2, theJobStatus.getInt("rejectedRows"));
+        Assertions.assertEquals(List.of(4, 6), theJobStatus.getList("rejections.lineNumber", Integer.class));
+        Assertions.assertTrue(theJobStatus.getString("rejections[1].message").contains("colour is required"));
+        Assertions.assertEquals(2, mCircleRepository.count());
+        Assertions.assertTrue(mCircleRepository.findAll().stream()
+            .anyMatch(inCircle -> "blue, dark".equals(inCircle.getColour()) && inCircle.getRadius() == 20));
+    }
+
+    /**
+     * Tests importing rectangles from an NDJSON file spanning several chunks.
+     * Expected outcome: All rectangles should be imported.
+     */
+    @Test
+    public void testImportNdjson() {
+        final int theRowCount = COMMIT_SIZE * 2 + 10;
+        final StringBuilder theNdjson = new StringBuilder();
+        for (int i = 0; i < theRowCount; i++) {
+            theNdjson.append("{\"height\": ").append(i).append(", \"width\": 8, ")
+                .append("\"position\": {\"x\": 1, \"y\": 2}, \"colour\": \"blue\"}\n");
+        }
+
+        final String theJobLocation = RestAssured
+            .given()
+            .contentType(MediaType.APPLICATION_NDJSON_VALUE)
+            .body(theNdjson.toString())
+            .when()
+            .post(RectangleResource.PATH + "/imports")
+            .then()
+            .statusCode(202)
+            .extract()
+            .header("Location");
+
+        final JsonPath theJobStatus = awaitJobCompletion(theJobLocation);
+        Assertions.assertEquals(ImportJob.Status.COMPLETED.name(), theJobStatus.getString("status"));
+        Assertions.assertEquals(theRowCount, theJobStatus.getInt("importedRows"));
+        Assertions.assertEquals(theRowCount, mRectangleRepository.count());
+    }
+
+    /**
+     * Tests resuming an import job which first chunk was imported before the application stopped.
+     * Expected outcome: Only the rows of the remaining chunk should be imported.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testResumeJob() throws Exception {
+        final int theRowCount = COMMIT_SIZE + 5;
+        final List<String> theLines = new ArrayList<>();
+        for (int i = 0; i < theRowCount; i++) {
+            theLines.add("{\"radius\": " + i + ", \"position\": {\"x\": 1, \"y\": 2}, \"colour\": \"red\"}");
+        }
+        final Path theSpoolFile = Files.createTempFile("circles-", ".ndjson");
+        Files.write(theSpoolFile, theLines);
+        final ImportJob theJob = new ImportJob("Circle", ImportJobService.FORMAT_NDJSON,
+            theSpoolFile.toString(), theRowCount);
+        theJob.setStatus(ImportJob.Status.RUNNING);
+        final Long theJobId = mImportJobRepository.save(theJob).getId();
+        mImportJobChunkRepository.save(new ImportJobChunk(theJobId, 0, COMMIT_SIZE, 0));
+
+        mImportJobService.resumeJobs();
+
+        final JsonPath theJobStatus = awaitJobCompletion(ImportJobResource.PATH + "/" + theJobId);
+        Assertions.assertEquals(ImportJob.Status.COMPLETED.name(), theJobStatus.getString("status"));
+        Assertions.assertEquals(theRowCount, theJobStatus.getInt("importedRows"));
+        Assertions.assertEquals(5, mCircleRepository.count(), "Only rows of the second chunk should be imported");
+        Assertions.assertFalse(Files.exists(theSpoolFile), "Spool file of completed job should be deleted");
+    }
+
+    /**
+     * Tests retrieving an import job that does not exist.
+     * Expected outcome: HTTP status 404.
+     */
+    @Test
+    public void testGetMissingImportJob() {
+        RestAssured
+            .given()
+            .when()
+            .get(ImportJobResource.PATH + "/" + Long.MAX_VALUE)
+            .then()
+            .statusCode(404);
+    }
+
+    /**
+     * Polls the status of the import job at the supplied location until the job has completed or failed.
+     *
+     * @param inJobLocation Path of import job.
+     * @return Last status of job.
+     */
+    protected JsonPath awaitJobCompletion(final String inJobLocation) {
+        final long theDeadline = System.currentTimeMillis() + TEST_TIMEOUT;
+        JsonPath theJobStatus;
+        do {
+            theJobStatus = RestAssured
+                .given()
+                .accept("application/json")
+                .when()
+                .get(inJobLocation)
+                .then()
+                .statusCode(200)
+                .extract()
+                .jsonPath();
+            final String theStatus = theJobStatus.getString("status");
+            if (ImportJob.Status.COMPLETED.name().equals(theStatus)
+                || ImportJob.Status.FAILED.name().equals(theStatus)) {
+                return theJobStatus;
+            }
+            try {
+                Thread.sleep(100);
+            } catch (final InterruptedException theException) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        } while (System.currentTimeMillis() < theDeadline);
+        return Assertions.fail("Import job did not complete in time: " + theJobStatus.prettify());
+    }
+}
@@ -0,0 +1,134 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests the {@code RateLimitFilter} and {@code TokenBucketStore}.
+ *
+ * @author Ivan Krizsan
+ */
+public class RateLimitFilterTest {
+    /* Constant(s): */
+    protected static final long CAPACITY = 2;
+    protected static final long REFILL_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(1);
+    protected static final long IDLE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /* Instance variable(s): */
+    protected AtomicLong mNanoTime;
+    protected TokenBucketStore mIpBuckets;
+    protected RateLimitFilter mRateLimitFilter;
+    protected SimpleMeterRegistry mMeterRegistry;
+
+    /**
+     * Performs preparations before each test method.
+     */
+    @BeforeEach
+    public void prepareBeforeTest() {
+        mNanoTime = new AtomicLong();
+        mMeterRegistry = new SimpleMeterRegistry();
+        mIpBuckets = new TokenBucketStore(CAPACITY, REFILL_PERIOD_NANOS, IDLE_TIMEOUT_NANOS, mNanoTime::get);
+        mRateLimitFilter = new RateLimitFilter(
+            new TokenBucketStore(CAPACITY * 10, REFILL_PERIOD_NANOS, IDLE_TIMEOUT_NANOS, mNanoTime::get),
+            mIpBuckets,
+            mMeterRegistry);
+    }
+
+    /**
+     * Tests sending more write requests from one IP address than its quota allows.
+     * Expected outcome: Requests within the quota should be allowed with RateLimit headers,
+     * the following request rejected with HTTP status 429 and a Retry-After header.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testRequestsOverQuotaRejected() throws Exception {
+        final MockHttpServletResponse theFirstResponse = performRequest("POST", null);
+        Assertions.assertEquals(200, theFirstResponse.getStatus());
+        Assertions.assertEquals("2", theFirstResponse.getHeader(RateLimitFilter.RATE_LIMIT_LIMIT_HEADER));
+        Assertions.assertEquals("1", theFirstResponse.getHeader(RateLimitFilter.RATE_LIMIT_REMAINING_HEADER));
+        Assertions.assertEquals(200, performRequest("POST", null).getStatus());
+
+        final MockHttpServletResponse theRejectedResponse = performRequest("POST", null);
+        Assertions.assertEquals(429, theRejectedResponse.getStatus());
+        Assertions.assertEquals("1", theRejectedResponse.getHeader(HttpHeaders.RETRY_AFTER));
+        Assertions.assertEquals("0", theRejectedResponse.getHeader(RateLimitFilter.RATE_LIMIT_REMAINING_HEADER));
+    }
+
+    /**
+     * Tests sending a write request after the quota was used up and the bucket was partially refilled.
+     * Expected outcome: The request should be allowed.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testQuotaRefilled() throws Exception {
+        performRequest("DELETE", null);
+        performRequest("DELETE", null);
+        Assertions.assertEquals(429, performRequest("DELETE", null).getStatus());
+
+        mNanoTime.addAndGet(REFILL_PERIOD_NANOS / CAPACITY);
+
+        Assertions.assertEquals(200, performRequest("DELETE", null).getStatus());
+    }
+
+    /**
+     * Tests sending read requests and write requests with an API key after the IP quota was used up.
+     * Expected outcome: Both should be allowed, since reads are not limited and
+     * requests with an API key have a separate quota.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testReadsAndApiKeysNotLimitedByIpQuota() throws Exception {
+        performRequest("PUT", null);
+        performRequest("PUT", null);
+
+        Assertions.assertEquals(200, performRequest("GET", null).getStatus());
+        Assertions.assertEquals(200, performRequest("PUT", "client-key").getStatus());
+    }
+
+    /**
+     * Tests consuming tokens after the idle timeout has passed.
+     * Expected outcome: The buckets of idle clients should have been evicted.
+     */
+    @Test
+    public void testIdleBucketsEvicted() {
+        mIpBuckets.tryConsume("10.0.0.1");
+        mIpBuckets.tryConsume("10.0.0.2");
+        Assertions.assertEquals(2, mIpBuckets.size());
+
+        mNanoTime.addAndGet(IDLE_TIMEOUT_NANOS * 3);
+        mIpBuckets.tryConsume("10.0.0.3");
+
+        Assertions.assertEquals(1, mIpBuckets.size(), "Only the bucket of the active client should remain");
+    }
+
+    /**
+     * Performs a request with the supplied method through the rate limit filter.
+     *
+     * @param inMethod HTTP method of request.
+     * @param inApiKey API key to send, null if none.
+     * @return Response.
+     * @throws Exception If error occurs.
+     */
+    protected MockHttpServletResponse performRequest(final String inMethod, final String inApiKey)
+        throws Exception {
+        final MockHttpServletRequest theRequest = new MockHttpServletRequest(inMethod, "/circles");
+        if (inApiKey != null) {
+            theRequest.addHeader(RateLimitFilter.API_KEY_HEADER, inApiKey);
+        }
+        final MockHttpServletResponse theResponse = new MockHttpServletResponse();
+        mRateLimitFilter.doFilter(theRequest, theResponse, new MockFilterChain());
+        return theResponse;
+    }
+}
@@ -3,6 +3,7 @@ package se.ivankrizsan.restexample.restadapter;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,6 +16,7 @@ import se.ivankrizsan.restexample.helpers.JsonConverter;
 import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisationsImpl;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 
 
@@ -94,10 +96,110 @@ public abstract class RestResourceTestBase<E extends LongIdEntity> {
         org.assertj.core.api.Assertions
             .assertThat(theRetrievedEntity)
             .usingRecursiveComparison()
+            .ignoringFieldsMatchingRegexes(".*mContentHash")
             .isEqualTo(mExpectedEntity)
             .as("Retrieved entity should have the correct property values");
     }
 
+    /**
+     * Tests retrieving a projection of one entity containing only the id.
+     * Expected outcome: A representation containing only the id of the entity.
+     */
+    @Test
+    public void testGetEntityProjection() {
+        RestAssured
+            .given()
+            .accept("application/json")
+            .queryParam(RestResourceBasePlain.FIELDS_PARAMETER, "id")
+            .when()
+            .get(mResourceUrlPath + "/" + mExpectedEntity.getId())
+            .then()
+            .statusCode(200)
+            .contentType(ContentType.JSON)
+            .body("size()", Matchers.equalTo(1))
+            .body("id", Matchers.equalTo(mExpectedEntity.getId().intValue()));
+    }
+
+    /**
+     * Tests retrieving a projection of all entities containing a property that
+     * does not exist.
+     * Expected outcome: HTTP status 400.
+     */
+    @Test
+    public void testGetAllProjectionUnknownProperty() {
+        RestAssured
+            .given()
+            .accept("application/json")
+            .queryParam(RestResourceBasePlain.FIELDS_PARAMETER, "noSuchProperty")
+            .when()
+            .get(mResourceUrlPath)
+            .then()
+            .statusCode(400);
+    }
+
+    /**
+     * Tests retrieving entities by ids, including an id for which there is no entity.
+     * Expected outcome: One element per requested id in the requested order, with a marker
+     * in place of the missing entity.
+     */
+    @Test
+    public void testGetEntitiesByIds() {
+        final Long theMissingId = Long.MAX_VALUE;
+
+        RestAssured
+            .given()
+            .accept("application/json")
+            .queryParam(RestResourceBasePlain.IDS_PARAMETER, theMissingId + "," + mExpectedEntity.getId())
+            .when()
+            .get(mResourceUrlPath)
+            .then()
+            .statusCode(200)
+            .contentType(ContentType.JSON)
+            .body("size()", Matchers.equalTo(2))
+            .body("[0].id", Matchers.equalTo(theMissingId))
+            .body("[0].missing", Matchers.equalTo(true))
+            .body("[1].id", Matchers.equalTo(mExpectedEntity.getId().intValue()))
+            .body("[1].missing", Matchers.nullValue());
+    }
+
+    /**
+     * Tests looking up entities by ids supplied in the request body.
+     * Expected outcome: The entity should be returned once per occurrence of its id.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testLookupEntities() throws Exception {
+        RestAssured
+            .given()
+            .contentType("application/json")
+            .accept("application/json")
+            .body(JsonConverter.objectToJson(List.of(mExpectedEntity.getId(), mExpectedEntity.getId())))
+            .when()
+            .post(mResourceUrlPath + "/lookup")
+            .then()
+            .statusCode(200)
+            .body("id", Matchers.everyItem(Matchers.equalTo(mExpectedEntity.getId().intValue())))
+            .body("size()", Matchers.equalTo(2));
+    }
+
+    /**
+     * Tests retrieving entities by ids combined with a filter parameter.
+     * Expected outcome: HTTP status 400.
+     */
+    @Test
+    public void testGetEntitiesByIdsWithFilter() {
+        RestAssured
+            .given()
+            .accept("application/json")
+            .queryParam(RestResourceBasePlain.IDS_PARAMETER, mExpectedEntity.getId())
+            .queryParam("colour", "red")
+            .when()
+            .get(mResourceUrlPath)
+            .then()
+            .statusCode(400);
+    }
+
     /**
      * Tests deletion of one entity.
      * This test does not verify deletion of contained entities
@@ -0,0 +1,183 @@
+package se.ivankrizsan.restexample.restadapter;
+
+import io.restassured.RestAssured;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import se.ivankrizsan.restexample.domain.Circle;
+import se.ivankrizsan.restexample.domain.Rectangle;
+import se.ivankrizsan.restexample.helpers.CircleEntityFactory;
+import se.ivankrizsan.restexample.helpers.RectangleEntityFactory;
+import se.ivankrizsan.restexample.repositories.CircleRepository;
+import se.ivankrizsan.restexample.repositories.DrawingRepository;
+import se.ivankrizsan.restexample.repositories.RectangleRepository;
+import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisationsImpl;
+
+/**
+ * Tests the {@code ShapeResource}.
+ *
+ * @author Ivan Krizsan
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+@EnableJpaRepositories(basePackages = {"se.ivankrizsan.restexample.repositories"},
+    repositoryBaseClass = JpaRepositoryCustomisationsImpl.class)
+public class ShapeResourceTest {
+    /* Constant(s): */
+    protected static final int ENDPOINT_PORT = 8080;
+
+    /* Instance variable(s): */
+    @Autowired
+    protected CircleRepository mCircleRepository;
+    @Autowired
+    protected RectangleRepository mRectangleRepository;
+    @Autowired
+    protected DrawingRepository mDrawingRepository;
+    protected Circle mRedCircle;
+    protected Rectangle mBlueRectangle;
+    protected Rectangle mRedRectangle;
+
+    /**
+     * Sets up RestAssured test framework and persists one circle and two rectangles before each test.
+     */
+    @BeforeEach
+    public void prepareBeforeTest() {
+        RestAssured.reset();
+        RestAssured.port = ENDPOINT_PORT;
+        RestAssured.basePath = "";
+
+        mDrawingRepository.deleteAll();
+        mCircleRepository.deleteAll();
+        mRectangleRepository.deleteAll();
+
+        final Rectangle theBlueRectangle = new RectangleEntityFactory().createEntity(1);
+        theBlueRectangle.setColour("blue");
+        mBlueRectangle = mRectangleRepository.save(theBlueRectangle);
+        final Circle theRedCircle = new CircleEntityFactory().createEntity(2);
+        theRedCircle.setColour("red");
+        mRedCircle = mCircleRepository.save(theRedCircle);
+        final Rectangle theRedRectangle = new RectangleEntityFactory().createEntity(3);
+        theRedRectangle.setColour("red");
+        mRedRectangle = mRectangleRepository.save(theRedRectangle);
+    }
+
+    /**
+     * Tests retrieving all shapes.
+     * Expected outcome: Shapes of all types should be retrieved in id order.
+     */
+    @Test
+    public void testGetAll() {
+        RestAssured
+            .given()
+            .accept("application/json")
+            .when()
+            .get(ShapeResource.PATH)
+            .then()
+            .statusCode(200)
+            .body("id", Matchers.contains(mBlueRectangle.getId().intValue(),
+                mRedCircle.getId().intValue(), mRedRectangle.getId().intValue()))
+            .body("shapeType", Matchers.contains(".Rectangle", ".Circle", ".Rectangle"));
+    }
+
+    /**
+     * Tests retrieving shapes using filter and sort parameters.
+     * Expected outcome: Only red shapes should be retrieved, sorted on descending id.
+     */
+    @Test
+    public void testGetAllFilteredAndSorted() {
+        RestAssured
+            .given()
+            .accept("application/json")
+            .queryParam("colour", "red")
+            .queryParam(RestResourceBasePlain.SORT_PARAMETER, "-id")
+            .when()
+            .get(ShapeResource.PATH)
+            .then()
+            .statusCode(200)
+            .body("id", Matchers.contains(mRedRectangle.getId().intValue(), mRedCircle.getId().intValue()));
+    }
+
+    /**
+     * Tests retrieving shapes filtering on a property that only exists in one shape type.
+     * Expected outcome: HTTP status 400.
+     */
+    @Test
+    public void testGetAllFilteredOnPropertyOfOneShapeType() {
+        RestAssured
+            .given()
+            .accept("application/json")
+            .queryParam("radius.gt", "5")
+            .when()
+            .get(ShapeResource.PATH)
+            .then()
+            .statusCode(400);
+    }
+
+    /**
+     * Tests retrieving shapes one page at a time.
+     * Expected outcome: The first page should contain the first two shapes and a cursor,
+     * the second page should contain the last shape and no cursor.
+     */
+    @Test
+    public void testGetAllPages() {
+        final String theNextCursor = RestAssured
+            .given()
+            .accept("application/json")
+            .queryParam(RestResourceBasePlain.LIMIT_PARAMETER, 2)
+            .when()
+            .get(ShapeResource.PATH)
+            .then()
+            .statusCode(200)
+            .body("id", Matchers.contains(mBlueRectangle.getId().intValue(), mRedCircle.getId().intValue()))
+            .header(RestResourceBasePlain.NEXT_CURSOR_HEADER, mRedCircle.getId().toString())
+            .extract()
+            .header(RestResourceBasePlain.NEXT_CURSOR_HEADER);
+
+        RestAssured
+            .given()
+            .accept("application/json")
+            .queryParam(RestResourceBasePlain.LIMIT_PARAMETER, 2)
+            .queryParam(RestResourceBasePlain.AFTER_PARAMETER, theNextCursor)
+            .when()
+            .get(ShapeResource.PATH)
+            .then()
+            .statusCode(200)
+            .body("id", Matchers.contains(mRedRectangle.getId().intValue()))
+            .header(RestResourceBasePlain.NEXT_CURSOR_HEADER, Matchers.nullValue());
+    }
+
+    /**
+     * Tests retrieving shapes supplying a cursor but no page size.
+     * Expected outcome: HTTP status 400.
+     */
+    @Test
+    public void testGetAllAfterWithoutLimit() {
+        RestAssured
+            .given()
+            .accept("application/json")
+            .queryParam(RestResourceBasePlain.AFTER_PARAMETER, mRedCircle.getId())
+            .when()
+            .get(ShapeResource.PATH)
+            .then()
+            .statusCode(400);
+    }
+
+    /**
+     * Tests retrieving one shape by id.
+     * Expected outcome: The circle should be retrieved.
+     */
+    @Test
+    public void testGetShapeById() {
+        RestAssured
+            .given()
+            .accept("application/json")
+            .when()
+            .get(ShapeResource.PATH + "/" + mRedCircle.getId())
+            .then()
+            .statusCode(200)
+            .body("shapeType", Matchers.equalTo(".Circle"))
+            .body("radius", Matchers.equalTo(mRedCircle.getRadius()));
+    }
+}
@@ -0,0 +1,105 @@
+package se.ivankrizsan.restexample.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the {@code RequestCoalescer}.
+ *
+ * @author Ivan Krizsan
+ */
+public class RequestCoalescerTest {
+    /* Constant(s): */
+    protected static final String ENTITY_TYPE_NAME = "Drawing";
+    protected static final long MAX_WAIT = 5000;
+
+    /* Instance variable(s): */
+    protected SimpleMeterRegistry mMeterRegistry;
+    protected RequestCoalescer mRequestCoalescer;
+
+    /**
+     * Performs preparations before each test method.
+     */
+    @BeforeEach
+    public void prepareBeforeTest() {
+        mMeterRegistry = new SimpleMeterRegistry();
+        mRequestCoalescer = new RequestCoalescer(true, MAX_WAIT, mMeterRegistry);
+    }
+
+    /**
+     * Tests loading the same key while a load of the key is in flight.
+     * Expected outcome: The second load should receive the result of the first load
+     * without performing the load and be counted as coalesced.
+     *
+     * @throws Exception If error occurs. Indicates test failure.
+     */
+    @Test
+    public void testConcurrentLoadsCoalesced() throws Exception {
+        final AtomicInteger theLoadCount = new AtomicInteger();
+        final CountDownLatch theReleaseLatch = new CountDownLatch(1);
+        final CountDownLatch theLeaderStartedLatch = new CountDownLatch(1);
+
+        final CompletableFuture<String> theLeaderResult = CompletableFuture.supplyAsync(() ->
+            mRequestCoalescer.load(ENTITY_TYPE_NAME, "find", 1L, () -> {
+                theLeaderStartedLatch.countDown();
+                awaitQuietly(theReleaseLatch);
+                return "drawing-" + theLoadCount.incrementAndGet();
+            }));
+        Assertions.assertTrue(theLeaderStartedLatch.await(MAX_WAIT, TimeUnit.MILLISECONDS));
+
+        final Thread[] theWaiterThread = new Thread[1];
+        final CompletableFuture<String> theWaiterResult = new CompletableFuture<>();
+        theWaiterThread[0] = new Thread(() -> theWaiterResult.complete(
+            mRequestCoalescer.load(ENTITY_TYPE_NAME, "find", 1L,
+                () -> "drawing-" + theLoadCount.incrementAndGet())));
+        theWaiterThread[0].start();
+        /* Wait until the waiter is blocked waiting for the in-flight load. */
+        while (theWaiterThread[0].getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(5);
+        }
+        theReleaseLatch.countDown();
+
+        Assertions.assertEquals("drawing-1", theLeaderResult.get(MAX_WAIT, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals("drawing-1", theWaiterResult.get(MAX_WAIT, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(1, theLoadCount.get(), "Load should only have been performed once");
+        Assertions.assertEquals(1.0, mMeterRegistry
+            .get("service.loads")
+            .tag("outcome", RequestCoalescer.OUTCOME_COALESCED)
+            .counter()
+            .count());
+    }
+
+    /**
+     * Tests loading the same key twice, one load after the other.
+     * Expected outcome: Both loads should be performed.
+     */
+    @Test
+    public void testSequentialLoadsNotCoalesced() {
+        final AtomicInteger theLoadCount = new AtomicInteger();
+
+        mRequestCoalescer.load(ENTITY_TYPE_NAME, "find", 1L, theLoadCount::incrementAndGet);
+        mRequestCoalescer.load(ENTITY_TYPE_NAME, "find", 1L, theLoadCount::incrementAndGet);
+
+        Assertions.assertEquals(2, theLoadCount.get(), "Both loads should have been performed");
+    }
+
+    /**
+     * Awaits the supplied latch, ignoring interruptions.
+     *
+     * @param inLatch Latch to await.
+     */
+    protected static void awaitQuietly(final CountDownLatch inLatch) {
+        try {
+            inLatch.await(MAX_WAIT, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException theException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package se.ivankrizsan.restexample.services.outbox;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import se.ivankrizsan.restexample.domain.Circle;
+import se.ivankrizsan.restexample.domain.OutboxMessage;
+import se.ivankrizsan.restexample.helpers.CircleEntityFactory;
+import se.ivankrizsan.restexample.repositories.OutboxMessageRepository;
+import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisationsImpl;
+import se.ivankrizsan.restexample.services.CircleService;
+import se.ivankrizsan.restexample.services.EntityChangeEvent;
+
+/**
+ * Tests the transactional outbox implemented by {@link OutboxService}.
+ *
+ * @author Ivan Krizsan
+ */
+@SpringBootTest
+@EnableJpaRepositories(basePackages = {"se.ivankrizsan.restexample.repositories"},
+    repositoryBaseClass = JpaRepositoryCustomisationsImpl.class)
+public class OutboxServiceTest {
+    /* Constant(s): */
+
+    /* Instance variable(s): */
+    @Autowired
+    protected CircleService mCircleService;
+    @Autowired
+    protected OutboxService mOutboxService;
+    @Autowired
+    protected OutboxMessageRepository mOutboxMessageRepository;
+    @Autowired
+    protected OutboxSink mOutboxSink;
+
+    /**
+     * Tests creating an entity and delivering the messages in the outbox.
+     * Expected outcome: A create message for the entity should be delivered to the sink
+     * and the outbox should be empty afterwards.
+     */
+    @Test
+    public void testCreatedEntityDelivered() {
+        final Circle theCircle = mCircleService.save(new CircleEntityFactory().createEntity(1));
+
+        mOutboxService.deliverPendingMessages();
+
+        final boolean theDeliveredFlag = ((InProcessOutboxSink) mOutboxSink)
+            .getDeliveredMessages()
+            .stream()
+            .anyMatch(inMessage -> isCreateMessageFor(inMessage, theCircle));
+        Assertions.assertTrue(theDeliveredFlag, "A create message for the circle should have been delivered");
+        Assertions.assertEquals(0, mOutboxMessageRepository.count(), "Outbox should be empty after delivery");
+    }
+
+    /**
+     * Determines whether the supplied outbox message records the creation of the supplied circle.
+     *
+     * @param inMessage Outbox message.
+     * @param inCircle Circle.
+     * @return True if message records creation of circle, false otherwise.
+     */
+    protected static boolean isCreateMessageFor(final OutboxMessage inMessage, final Circle inCircle) {
+        return Circle.class.getSimpleName().equals(inMessage.getEntityType())
+            && inCircle.getId().equals(inMessage.getEntityId())
+            && EntityChangeEvent.Operation.CREATE.name().equals(inMessage.getOperation());
+    }
+}
@@ -0,0 +1,139 @@
+package se.ivankrizsan.restexample.sharding;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import se.ivankrizsan.restexample.domain.Drawing;
+import se.ivankrizsan.restexample.helpers.DrawingEntityFactory;
+import se.ivankrizsan.restexample.repositories.DrawingRepository;
+import se.ivankrizsan.restexample.repositories.customisation.JpaRepositoryCustomisationsImpl;
+import se.ivankrizsan.restexample.services.DrawingService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests distributing drawings over two in-process databases.
+ *
+ * @author Ivan Krizsan
+ */
+@SpringBootTest(properties = {
+    "restexample.sharding.enabled=true",
+    "restexample.sharding.urls=jdbc:hsqldb:mem:shard0,jdbc:hsqldb:mem:shard1"
+})
+@EnableJpaRepositories(basePackages = {"se.ivankrizsan.restexample.repositories"},
+    repositoryBaseClass = JpaRepositoryCustomisationsImpl.class)
+public class ShardingTest {
+    /* Constant(s): */
+    protected static final int SHARD_COUNT = 2;
+
+    /* Instance variable(s): */
+    @Autowired
+    protected DrawingService mDrawingService;
+    @Autowired
+    protected DrawingRepository mDrawingRepository;
+    @Autowired
+    protected ShardManager mShardManager;
+    @Autowired
+    protected ShardRebalancer mShardRebalancer;
+    protected DrawingEntityFactory mEntityFactory;
+
+    /**
+     * Deletes all drawings in all shards before each test.
+     */
+    @BeforeEach
+    public void prepareBeforeTest() {
+        mEntityFactory = new DrawingEntityFactory();
+        mDrawingService.deleteAll();
+    }
+
+    /**
+     * Tests creating drawings and retrieving them.
+     * Expected outcome: The drawings should be distributed over both shards, each
+     * drawing should be found by id and all drawings should be found and counted.
+     */
+    @Test
+    public void testDrawingsDistributedOverShards() {
+        final List<Drawing> theDrawings = saveDrawings(4);
+
+        final long theShardsUsed = theDrawings
+            .stream()
+            .mapToInt(inDrawing -> mShardManager.shardOf(Drawing.class, inDrawing.getId()))
+            .distinct()
+            .count();
+        Assertions.assertEquals(SHARD_COUNT, theShardsUsed, "Drawings should have been created in both shards");
+        for (final Drawing theDrawing : theDrawings) {
+            Assertions.assertTrue(mDrawingService.find(theDrawing.getId()).isPresent(),
+                "Drawing should be found in its shard");
+        }
+        Assertions.assertEquals(theDrawings.size(), mDrawingService.findAll().size());
+        Assertions.assertEquals(theDrawings.size(), mDrawingService.count());
+    }
+
+    /**
+     * Tests retrieving all drawings one page at a time.
+     * Expected outcome: The pages, merged from both shards, should contain all drawings
+     * in id order without duplicates.
+     */
+    @Test
+    public void testCursorPagination() {
+        final List<Long> theExpectedIds = saveDrawings(5)
+            .stream()
+            .map(Drawing::getId)
+            .sorted()
+            .toList();
+
+        final List<Long> theRetrievedIds = new ArrayList<>();
+        Long theCursor = null;
+        List<Drawing> thePage;
+        do {
+            thePage = mDrawingService.findAllAfter(theCursor, 2);
+            thePage.forEach(inDrawing -> theRetrievedIds.add(inDrawing.getId()));
+            theCursor = thePage.isEmpty() ? theCursor : thePage.get(thePage.size() - 1).getId();
+        } while (thePage.size() == 2);
+
+        Assertions.assertEquals(theExpectedIds, theRetrievedIds);
+    }
+
+    /**
+     * Tests rebalancing after all drawings have been created in one shard.
+     * Expected outcome: The number of drawings per shard should differ by at most one
+     * and all drawings, including their shapes, should still be found by id.
+     */
+    @Test
+    public void testRebalance() {
+        final List<Drawing> theDrawings = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final Drawing theDrawing = mEntityFactory.createEntity(i);
+            theDrawings.add(mShardManager.callInShardTransaction(0, false,
+                () -> mDrawingRepository.save(theDrawing)));
+        }
+
+        Assertions.assertEquals(2, mShardRebalancer.rebalance());
+
+        final List<Long> theDrawingCounts = mShardRebalancer.countDrawingsPerShard();
+        Assertions.assertEquals(List.of(2L, 2L), theDrawingCounts);
+        for (final Drawing theDrawing : theDrawings) {
+            final Drawing theFoundDrawing = mDrawingService.find(theDrawing.getId()).orElseThrow();
+            Assertions.assertEquals(theDrawing.getShapes().size(), theFoundDrawing.getShapes().size(),
+                "Shapes should have been moved with the drawing");
+        }
+    }
+
+    /**
+     * Saves the supplied number of new drawings.
+     *
+     * @param inCount Number of drawings to save.
+     * @return Saved drawings.
+     */
+    protected List<Drawing> saveDrawings(final int inCount) {
+        final List<Drawing> theDrawings = new ArrayList<>();
+        for (int i = 0; i < inCount; i++) {
+            theDrawings.add(mDrawingService.save(mEntityFactory.createEntity(i)));
+        }
+        return theDrawings;
+    }
+}